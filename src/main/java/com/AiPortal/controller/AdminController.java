@@ -1,15 +1,33 @@
 // src/main/java/com/AiPortal/controller/AdminController.java
 package com.AiPortal.controller;
 
+import com.AiPortal.service.ApiQuotaTracker;
+import com.AiPortal.service.ApiResponseArchive;
+import com.AiPortal.service.BackfillForecastService;
 import com.AiPortal.service.BetSettlementRunner;
 import com.AiPortal.service.BettingSimulationRunner;
+import com.AiPortal.service.HeadToHeadEngine;
+import com.AiPortal.service.HistoricalBulkLoader;
+import com.AiPortal.service.OddsBatchWriter;
+import com.AiPortal.service.PayloadFingerprintService;
 import com.AiPortal.service.ScheduledBotRunner;
+import com.AiPortal.service.ReferenceDataCache;
+import com.AiPortal.service.DedupeService;
+import com.AiPortal.service.StandingsEngine;
+import com.AiPortal.service.TweetCursorService;
+import com.AiPortal.service.TweetEntityTagger;
+import com.AiPortal.service.TweetSearchIndex;
+import com.AiPortal.service.twitter.TwitterServiceManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/v1/admin")
 public class AdminController {
@@ -17,17 +35,92 @@ public class AdminController {
     private final ScheduledBotRunner scheduledBotRunner;
     private final BettingSimulationRunner bettingSimulationRunner;
     private final BetSettlementRunner betSettlementRunner;
+    private final PayloadFingerprintService payloadFingerprintService;
+    private final OddsBatchWriter oddsBatchWriter;
+    private final BackfillForecastService backfillForecastService;
+    private final ApiQuotaTracker apiQuotaTracker;
+    private final HeadToHeadEngine headToHeadEngine;
+    private final HistoricalBulkLoader historicalBulkLoader;
+    private final ApiResponseArchive apiResponseArchive;
+    private final StandingsEngine standingsEngine;
+    private final ReferenceDataCache referenceDataCache;
+    private final TweetCursorService tweetCursorService;
+    private final DedupeService dedupeService;
+    private final TwitterServiceManager twitterServiceManager;
+    private final TweetSearchIndex tweetSearchIndex;
+    private final TweetEntityTagger tweetEntityTagger;
 
     @Autowired
     public AdminController(ScheduledBotRunner scheduledBotRunner,
                            BettingSimulationRunner bettingSimulationRunner,
-                           BetSettlementRunner betSettlementRunner) {
+                           BetSettlementRunner betSettlementRunner,
+                           PayloadFingerprintService payloadFingerprintService,
+                           OddsBatchWriter oddsBatchWriter,
+                           BackfillForecastService backfillForecastService,
+                           ApiQuotaTracker apiQuotaTracker,
+                           HeadToHeadEngine headToHeadEngine,
+                           HistoricalBulkLoader historicalBulkLoader,
+                           ApiResponseArchive apiResponseArchive,
+                           StandingsEngine standingsEngine,
+                           ReferenceDataCache referenceDataCache,
+                           TweetCursorService tweetCursorService,
+                           DedupeService dedupeService,
+                           TwitterServiceManager twitterServiceManager,
+                           TweetSearchIndex tweetSearchIndex,
+                           TweetEntityTagger tweetEntityTagger) {
         this.scheduledBotRunner = scheduledBotRunner;
         this.bettingSimulationRunner = bettingSimulationRunner;
         this.betSettlementRunner = betSettlementRunner;
+        this.payloadFingerprintService = payloadFingerprintService;
+        this.oddsBatchWriter = oddsBatchWriter;
+        this.backfillForecastService = backfillForecastService;
+        this.apiQuotaTracker = apiQuotaTracker;
+        this.headToHeadEngine = headToHeadEngine;
+        this.historicalBulkLoader = historicalBulkLoader;
+        this.apiResponseArchive = apiResponseArchive;
+        this.standingsEngine = standingsEngine;
+        this.referenceDataCache = referenceDataCache;
+        this.tweetCursorService = tweetCursorService;
+        this.dedupeService = dedupeService;
+        this.twitterServiceManager = twitterServiceManager;
+        this.tweetSearchIndex = tweetSearchIndex;
+        this.tweetEntityTagger = tweetEntityTagger;
     }
 
+    /**
+     * Tellere for innhentingen: hvor mange odds-payloads som ble hoppet over fordi de var uendret,
+     * hvor mye odds-skriveren har gjort, og hvor mange H2H-oppslag som ble regnet ut lokalt.
+     */
+    @GetMapping("/metrics/ingestion")
+    public ResponseEntity<Map<String, Object>> getIngestionMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("fingerprints", payloadFingerprintService.getStats());
+        metrics.put("fingerprintCount", payloadFingerprintService.size());
+        metrics.put("oddsWriter", oddsBatchWriter.getStats());
+        metrics.put("headToHead", headToHeadEngine.getStats());
+        metrics.put("historicalBulkLoader", historicalBulkLoader.getStats());
+        metrics.put("apiArchive", apiResponseArchive.getStats());
+        metrics.put("standings", standingsEngine.getStats());
+        metrics.put("referenceData", referenceDataCache.getStats());
+        metrics.put("tweetCursors", tweetCursorService.getStats());
+        metrics.put("dedupe", dedupeService.getStats());
+        metrics.put("twitterProviders", twitterServiceManager.getStats());
+        metrics.put("tweetSearch", tweetSearchIndex.getStats());
+        metrics.put("tweetTags", tweetEntityTagger.getStats());
+        return ResponseEntity.ok(metrics);
+    }
 
+    /**
+     * Prognose for gjenværende historisk innsamling: API-kall og tid per liga/sesong,
+     * samt siste kjente API-kvote.
+     */
+    @GetMapping("/backfill/forecast")
+    public ResponseEntity<Map<String, Object>> getBackfillForecast() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("forecast", backfillForecastService.getForecast());
+        result.put("quota", apiQuotaTracker.getSnapshot());
+        return ResponseEntity.ok(result);
+    }
 
     @PostMapping("/run-betting-simulation")
     public ResponseEntity<String> runBettingSimulation() {
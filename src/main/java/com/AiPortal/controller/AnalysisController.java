@@ -55,4 +55,46 @@ public class AnalysisController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    /**
+     * Henter aggregert sentiment for et marked i en kamp, basert på tweets som nevner hjemme- eller bortelaget
+     * de siste hoursBack timene. Kun tweets med ferdig analyse telles; resten startes med POST til .../analyses.
+     */
+    @GetMapping("/sentiment/fixture/{fixtureId}")
+    public ResponseEntity<Map<String, Object>> getFixtureSentiment(
+            @PathVariable Long fixtureId,
+            @RequestParam(defaultValue = "Match Winner") String marketType,
+            @RequestParam(defaultValue = "48") int hoursBack) {
+        try {
+            double sentiment = analysisService.getAggregatedSentimentForFixture(fixtureId, marketType, hoursBack);
+            return ResponseEntity.ok(Map.of(
+                    "fixtureId", fixtureId,
+                    "marketType", marketType,
+                    "hoursBack", hoursBack,
+                    "sentiment", sentiment));
+        } catch (IllegalArgumentException e) {
+            // Hvis kampen ikke ble funnet i databasen
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Starter sentimentanalyse av tweets om kampen de siste hoursBack timene som ikke er analysert ennå.
+     * Resultatene telles med i GET /sentiment/fixture/{fixtureId} når analysene er ferdige.
+     */
+    @PostMapping("/sentiment/fixture/{fixtureId}/analyses")
+    public ResponseEntity<Map<String, Object>> queueFixtureSentimentAnalyses(
+            @PathVariable Long fixtureId,
+            @RequestParam(defaultValue = "48") int hoursBack) {
+        try {
+            int queued = analysisService.queueSentimentAnalysesForFixture(fixtureId, hoursBack);
+            return new ResponseEntity<>(Map.of(
+                    "fixtureId", fixtureId,
+                    "hoursBack", hoursBack,
+                    "queued", queued), HttpStatus.ACCEPTED);
+        } catch (IllegalArgumentException e) {
+            // Hvis kampen ikke ble funnet i databasen
+            return ResponseEntity.notFound().build();
+        }
+    }
 }
\ No newline at end of file
@@ -1,16 +1,19 @@
 // src/main/java/com/AiPortal/controller/FixtureController.java
 package com.AiPortal.controller;
 
+import com.AiPortal.dto.OddsHistoryDto;
 import com.AiPortal.dto.TeamDetailsDto;
 import com.AiPortal.dto.UpcomingFixtureDto;
 import com.AiPortal.entity.Fixture;
 import com.AiPortal.service.FixtureService;
+import com.AiPortal.service.OddsHistoryService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
 import java.util.List;
 
 @RestController
@@ -18,9 +21,11 @@ import java.util.List;
 public class FixtureController {
 
     private final FixtureService fixtureService;
+    private final OddsHistoryService oddsHistoryService;
 
-    public FixtureController(FixtureService fixtureService) {
+    public FixtureController(FixtureService fixtureService, OddsHistoryService oddsHistoryService) {
         this.fixtureService = fixtureService;
+        this.oddsHistoryService = oddsHistoryService;
     }
 
     /**
@@ -72,4 +77,28 @@ public class FixtureController {
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    /**
+     * Henter odds-bevegelser for ett marked i en kamp, eventuelt begrenset til et tidsintervall.
+     * Brukes til linjebevegelse-grafer. Tidspunkter angis i ISO-8601, f.eks. 2025-08-01T12:00:00Z.
+     */
+    @GetMapping("/{fixtureId}/odds-history")
+    public ResponseEntity<List<OddsHistoryDto>> getOddsHistory(
+            @PathVariable Long fixtureId,
+            @RequestParam(defaultValue = "Match Winner") String betName,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to) {
+        return ResponseEntity.ok(oddsHistoryService.getRange(fixtureId, betName, from, to));
+    }
+
+    /**
+     * Henter oddsen som gjaldt for hvert valg i et marked på et gitt tidspunkt.
+     */
+    @GetMapping("/{fixtureId}/odds-history/as-of")
+    public ResponseEntity<List<OddsHistoryDto>> getOddsAsOf(
+            @PathVariable Long fixtureId,
+            @RequestParam(defaultValue = "Match Winner") String betName,
+            @RequestParam Instant at) {
+        return ResponseEntity.ok(oddsHistoryService.getAsOf(fixtureId, betName, at));
+    }
 }
\ No newline at end of file
@@ -2,10 +2,7 @@
 package com.AiPortal.dto;
 
 import com.AiPortal.entity.MatchOdds;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode; // Importer ObjectNode
+import com.AiPortal.entity.OddsSnapshot;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -19,27 +16,15 @@ public class MatchOddsDto {
     public MatchOddsDto() {}
 
     /**
-     * KORRIGERT: Konstruktøren aksepterer nå ObjectMapper som det andre argumentet.
+     * Bygges fra det ferdig parsede snapshotet, uten JSON-parsing.
      */
-    public MatchOddsDto(MatchOdds matchOdds, ObjectMapper objectMapper) {
+    public MatchOddsDto(MatchOdds matchOdds) {
         this.bookmakerName = matchOdds.getBookmaker() != null ? matchOdds.getBookmaker().getName() : "Ukjent";
         this.betName = matchOdds.getBetName();
-        this.odds = new ArrayList<>();
-
-        try {
-            // Sjekker om oddsData-strengen faktisk har innhold
-            String oddsDataString = matchOdds.getOddsData();
-            if (oddsDataString != null && !oddsDataString.isEmpty()) {
-                JsonNode oddsData = objectMapper.readTree(oddsDataString);
-                if (oddsData.isArray()) {
-                    for (JsonNode valueNode : oddsData) {
-                        this.odds.add(new OddDetailDto(valueNode));
-                    }
-                }
-            }
-        } catch (JsonProcessingException e) {
-            // Håndter feil, f.eks. ved å la listen være tom eller logge en feil
-            // For nå lar vi listen være tom, slik at appen ikke krasjer.
+        OddsSnapshot snapshot = matchOdds.getParsedOdds();
+        this.odds = new ArrayList<>(snapshot.size());
+        for (int i = 0; i < snapshot.size(); i++) {
+            this.odds.add(new OddDetailDto(snapshot, i));
         }
     }
 
@@ -62,11 +47,11 @@ class OddDetailDto {
     // Tom konstruktør for Jackson
     public OddDetailDto() {}
 
-    public OddDetailDto(JsonNode valueNode) {
-        this.name = valueNode.path("name").asText(null);
-        this.handicap = valueNode.path("handicap").asText(null);
-        this.points = valueNode.path("points").asText(null);
-        this.odds = valueNode.path("odds").asDouble();
+    public OddDetailDto(OddsSnapshot snapshot, int index) {
+        this.name = snapshot.name(index);
+        this.handicap = snapshot.lineText(index, OddsSnapshot.LINE_HANDICAP);
+        this.points = snapshot.lineText(index, OddsSnapshot.LINE_POINTS);
+        this.odds = snapshot.odds(index);
     }
 
     // Getters and Setters
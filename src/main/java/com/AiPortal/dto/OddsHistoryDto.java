@@ -0,0 +1,63 @@
+// src/main/java/com/AiPortal/dto/OddsHistoryDto.java
+package com.AiPortal.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Prishistorikk for ett valg i ett marked fra én bookmaker.
+ * Ved as-of-oppslag inneholder points kun prisen som gjaldt på det tidspunktet.
+ */
+public class OddsHistoryDto {
+    private Integer bookmakerId;
+    private String betName;
+    private String selection;
+    private double openingOdds;
+    private Instant openingAt;
+    private double latestOdds;
+    private Instant latestAt;
+    private List<PricePoint> points;
+
+    public OddsHistoryDto(Integer bookmakerId, String betName, String selection, double openingOdds, Instant openingAt, double latestOdds, Instant latestAt, List<PricePoint> points) {
+        this.bookmakerId = bookmakerId;
+        this.betName = betName;
+        this.selection = selection;
+        this.openingOdds = openingOdds;
+        this.openingAt = openingAt;
+        this.latestOdds = latestOdds;
+        this.latestAt = latestAt;
+        this.points = points;
+    }
+
+    public Integer getBookmakerId() { return bookmakerId; }
+    public void setBookmakerId(Integer bookmakerId) { this.bookmakerId = bookmakerId; }
+    public String getBetName() { return betName; }
+    public void setBetName(String betName) { this.betName = betName; }
+    public String getSelection() { return selection; }
+    public void setSelection(String selection) { this.selection = selection; }
+    public double getOpeningOdds() { return openingOdds; }
+    public void setOpeningOdds(double openingOdds) { this.openingOdds = openingOdds; }
+    public Instant getOpeningAt() { return openingAt; }
+    public void setOpeningAt(Instant openingAt) { this.openingAt = openingAt; }
+    public double getLatestOdds() { return latestOdds; }
+    public void setLatestOdds(double latestOdds) { this.latestOdds = latestOdds; }
+    public Instant getLatestAt() { return latestAt; }
+    public void setLatestAt(Instant latestAt) { this.latestAt = latestAt; }
+    public List<PricePoint> getPoints() { return points; }
+    public void setPoints(List<PricePoint> points) { this.points = points; }
+
+    public static class PricePoint {
+        private Instant at;
+        private double odds;
+
+        public PricePoint(Instant at, double odds) {
+            this.at = at;
+            this.odds = odds;
+        }
+
+        public Instant getAt() { return at; }
+        public void setAt(Instant at) { this.at = at; }
+        public double getOdds() { return odds; }
+        public void setOdds(double odds) { this.odds = odds; }
+    }
+}
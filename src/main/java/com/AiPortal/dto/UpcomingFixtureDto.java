@@ -3,7 +3,6 @@ package com.AiPortal.dto;
 
 import com.AiPortal.entity.Fixture;
 import com.AiPortal.entity.MatchOdds;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.time.Instant;
 import java.util.List;
@@ -19,10 +18,7 @@ public class UpcomingFixtureDto {
     private boolean hasOdds;
     private List<MatchOddsDto> odds;
 
-    /**
-     * KORRIGERT: Konstruktøren aksepterer nå ObjectMapper som det fjerde argumentet.
-     */
-    public UpcomingFixtureDto(Fixture fixture, List<MatchOdds> oddsList, String leagueName, ObjectMapper objectMapper) {
+    public UpcomingFixtureDto(Fixture fixture, List<MatchOdds> oddsList, String leagueName) {
         this.fixtureId = fixture.getId();
         this.date = fixture.getDate();
         this.homeTeamName = fixture.getHomeTeamName();
@@ -30,7 +26,7 @@ public class UpcomingFixtureDto {
         this.leagueName = leagueName;
         this.hasOdds = oddsList != null && !oddsList.isEmpty();
         this.odds = oddsList != null
-                ? oddsList.stream().map(o -> new MatchOddsDto(o, objectMapper)).collect(Collectors.toList())
+                ? oddsList.stream().map(MatchOddsDto::new).collect(Collectors.toList())
                 : List.of();
     }
 
@@ -35,6 +35,12 @@ public class BotConfiguration {
      */
     private Long sinceTimestamp;
 
+    /**
+     * Egen 'since'-cursor for Pinnacle sine spesialmarkeder. /markets og /special-markets
+     * returnerer hver sin "last", så de må spores uavhengig av hverandre.
+     */
+    private Long specialsSinceTimestamp;
+
     @Column(nullable = false, updatable = false)
     private String userId;
 
@@ -112,6 +118,14 @@ public class BotConfiguration {
         this.sinceTimestamp = sinceTimestamp;
     }
 
+    public Long getSpecialsSinceTimestamp() {
+        return specialsSinceTimestamp;
+    }
+
+    public void setSpecialsSinceTimestamp(Long specialsSinceTimestamp) {
+        this.specialsSinceTimestamp = specialsSinceTimestamp;
+    }
+
     public String getUserId() {
         return userId;
     }
@@ -42,6 +42,11 @@ public class Fixture {
     private Integer goalsHome;
     private Integer goalsAway;
 
+    // Når statistikk, skader og H2H sist ble hentet for kampen som ferdigspilt (se BackfillPlanner).
+    // Settes kun med FixtureRepository.markDetailsFetched, så lagring av entiteten rører den ikke.
+    @Column(insertable = false, updatable = false)
+    private Instant detailsFetchedAt;
+
     // Getters and Setters
 
     public Long getId() { return id; }
@@ -68,4 +73,5 @@ public class Fixture {
     public void setGoalsHome(Integer goalsHome) { this.goalsHome = goalsHome; }
     public Integer getGoalsAway() { return goalsAway; }
     public void setGoalsAway(Integer goalsAway) { this.goalsAway = goalsAway; }
+    public Instant getDetailsFetchedAt() { return detailsFetchedAt; }
 }
\ No newline at end of file
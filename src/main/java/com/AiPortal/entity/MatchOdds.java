@@ -13,7 +13,7 @@ import java.time.Instant;
  * Denne versjonen er generalisert for å håndtere alle typer oddsmarkeder.
  */
 @Entity
-@Table(name = "match_odds")
+@Table(name = "match_odds", uniqueConstraints = @UniqueConstraint(columnNames = {"fixture_id", "bookmaker_id", "bet_name"}))
 public class MatchOdds {
 
     @Id
@@ -43,6 +43,16 @@ public class MatchOdds {
     @Column(columnDefinition = "jsonb")
     private String oddsData;
 
+    /**
+     * Samme innhold som oddsData, men ferdig parset (se OddsSnapshot). Null for rader lagret før
+     * kolonnen ble innført; bruk {@link #getParsedOdds()} for å lese trygt.
+     */
+    @Convert(converter = OddsSnapshotConverter.class)
+    private OddsSnapshot oddsSnapshot;
+
+    @Transient
+    private OddsSnapshot legacySnapshot;
+
     @Column(nullable = false)
     private Instant lastUpdated;
 
@@ -86,6 +96,26 @@ public class MatchOdds {
 
     public void setOddsData(String oddsData) {
         this.oddsData = oddsData;
+        this.legacySnapshot = null;
+    }
+
+    public OddsSnapshot getOddsSnapshot() {
+        return oddsSnapshot;
+    }
+
+    public void setOddsSnapshot(OddsSnapshot oddsSnapshot) {
+        this.oddsSnapshot = oddsSnapshot;
+    }
+
+    /**
+     * Returnerer det lagrede snapshotet, eller parser oddsData for eldre rader uten snapshot.
+     */
+    public OddsSnapshot getParsedOdds() {
+        if (oddsSnapshot != null) return oddsSnapshot;
+        if (legacySnapshot == null) {
+            legacySnapshot = OddsSnapshot.fromLegacyJson(oddsData);
+        }
+        return legacySnapshot;
     }
 
     public Instant getLastUpdated() {
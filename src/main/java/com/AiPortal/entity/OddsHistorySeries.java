@@ -0,0 +1,71 @@
+// src/main/java/com/AiPortal/entity/OddsHistorySeries.java
+package com.AiPortal.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Prishistorikk for ett valg (f.eks. "Home" eller "Over 2.5") i ett marked fra én bookmaker.
+ *
+ * Alle prisendringer ligger delta-kodet i {@code encodedPoints} (se DeltaVarintCodec), med priser
+ * skalert til heltall (odds * 1000). Åpnings- og siste pris ligger også som egne kolonner,
+ * slik at de kan leses uten å dekode serien.
+ */
+@Entity
+@Table(name = "odds_history_series",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"fixture_id", "bookmaker_id", "bet_name", "selection"}),
+        indexes = @Index(name = "idx_odds_history_fixture", columnList = "fixture_id, bet_name"))
+public class OddsHistorySeries {
+
+    public static final int PRICE_SCALE = 1000;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "fixture_id", nullable = false)
+    private Long fixtureId;
+
+    @Column(name = "bookmaker_id", nullable = false)
+    private Integer bookmakerId;
+
+    @Column(name = "bet_name", nullable = false)
+    private String betName;
+
+    @Column(nullable = false)
+    private String selection; // F.eks. "Home", "Over 2.5", "Away -0.5"
+
+    private int pointCount;
+
+    private byte[] encodedPoints;
+
+    private int openingPrice;
+    private Instant openingAt;
+
+    private int lastPrice;
+    private Instant lastAt;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getFixtureId() { return fixtureId; }
+    public void setFixtureId(Long fixtureId) { this.fixtureId = fixtureId; }
+    public Integer getBookmakerId() { return bookmakerId; }
+    public void setBookmakerId(Integer bookmakerId) { this.bookmakerId = bookmakerId; }
+    public String getBetName() { return betName; }
+    public void setBetName(String betName) { this.betName = betName; }
+    public String getSelection() { return selection; }
+    public void setSelection(String selection) { this.selection = selection; }
+    public int getPointCount() { return pointCount; }
+    public void setPointCount(int pointCount) { this.pointCount = pointCount; }
+    public byte[] getEncodedPoints() { return encodedPoints; }
+    public void setEncodedPoints(byte[] encodedPoints) { this.encodedPoints = encodedPoints; }
+    public int getOpeningPrice() { return openingPrice; }
+    public void setOpeningPrice(int openingPrice) { this.openingPrice = openingPrice; }
+    public Instant getOpeningAt() { return openingAt; }
+    public void setOpeningAt(Instant openingAt) { this.openingAt = openingAt; }
+    public int getLastPrice() { return lastPrice; }
+    public void setLastPrice(int lastPrice) { this.lastPrice = lastPrice; }
+    public Instant getLastAt() { return lastAt; }
+    public void setLastAt(Instant lastAt) { this.lastAt = lastAt; }
+}
@@ -0,0 +1,167 @@
+// src/main/java/com/AiPortal/entity/OddsSnapshot.java
+package com.AiPortal.entity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.math.BigDecimal;
+
+/**
+ * Ferdig parset utgave av MatchOdds.oddsData: ett valg per indeks, med odds og eventuell linje
+ * (handicap eller poenggrense) lagret som heltall skalert med {@value #SCALE}.
+ *
+ * Bygges én gang ved innhenting og lagres binært sammen med markedet (se OddsSnapshotConverter),
+ * slik at verdispill-beregning og kampoversikten ikke trenger en JSON-parser.
+ */
+public final class OddsSnapshot {
+
+    public static final int SCALE = 1000;
+    public static final byte LINE_NONE = 0;
+    public static final byte LINE_HANDICAP = 1;
+    public static final byte LINE_POINTS = 2;
+
+    private static final ObjectMapper LEGACY_MAPPER = new ObjectMapper();
+    private static final byte FORMAT_VERSION = 1;
+
+    private final String[] names;
+    private final byte[] lineKinds;
+    private final int[] lines;
+    private final int[] odds;
+
+    private OddsSnapshot(String[] names, byte[] lineKinds, int[] lines, int[] odds) {
+        this.names = names;
+        this.lineKinds = lineKinds;
+        this.lines = lines;
+        this.odds = odds;
+    }
+
+    /**
+     * Bygger et snapshot fra JSON-listen i oddsData-formatet, f.eks.
+     * [{"name": "Over", "points": "2.5", "odds": 1.90}, ...].
+     */
+    public static OddsSnapshot fromJson(JsonNode values) {
+        int size = values == null || !values.isArray() ? 0 : values.size();
+        String[] names = new String[size];
+        byte[] lineKinds = new byte[size];
+        int[] lines = new int[size];
+        int[] odds = new int[size];
+        for (int i = 0; i < size; i++) {
+            JsonNode value = values.get(i);
+            String name = value.path("name").asText("");
+            String lineText = null;
+            if (value.hasNonNull("handicap")) {
+                lineKinds[i] = LINE_HANDICAP;
+                lineText = value.get("handicap").asText();
+            } else if (value.hasNonNull("points")) {
+                lineKinds[i] = LINE_POINTS;
+                lineText = value.get("points").asText();
+            }
+            if (lineText != null) {
+                try {
+                    lines[i] = toScaled(Double.parseDouble(lineText));
+                } catch (NumberFormatException e) {
+                    // Ikke-numerisk linje: behold teksten som en del av navnet.
+                    lineKinds[i] = LINE_NONE;
+                    name = name + " " + lineText;
+                }
+            }
+            names[i] = name;
+            odds[i] = toScaled(value.path("odds").asDouble());
+        }
+        return new OddsSnapshot(names, lineKinds, lines, odds);
+    }
+
+    /**
+     * Fallback for rader som ble lagret før snapshot-kolonnen fantes.
+     */
+    public static OddsSnapshot fromLegacyJson(String oddsData) {
+        if (oddsData == null || oddsData.isEmpty()) return fromJson(null);
+        try {
+            return fromJson(LEGACY_MAPPER.readTree(oddsData));
+        } catch (IOException e) {
+            return fromJson(null);
+        }
+    }
+
+    public byte[] toBytes() {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + names.length * 16);
+             DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeShort(names.length);
+            for (int i = 0; i < names.length; i++) {
+                out.writeUTF(names[i]);
+                out.writeByte(lineKinds[i]);
+                out.writeInt(lines[i]);
+                out.writeInt(odds[i]);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static OddsSnapshot fromBytes(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Ukjent OddsSnapshot-format: " + version);
+            }
+            int size = in.readUnsignedShort();
+            String[] names = new String[size];
+            byte[] lineKinds = new byte[size];
+            int[] lines = new int[size];
+            int[] odds = new int[size];
+            for (int i = 0; i < size; i++) {
+                names[i] = in.readUTF();
+                lineKinds[i] = in.readByte();
+                lines[i] = in.readInt();
+                odds[i] = in.readInt();
+            }
+            return new OddsSnapshot(names, lineKinds, lines, odds);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int size() { return names.length; }
+    public String name(int index) { return names[index]; }
+    public byte lineKind(int index) { return lineKinds[index]; }
+    public int scaledLine(int index) { return lines[index]; }
+    public int scaledOdds(int index) { return odds[index]; }
+    public double odds(int index) { return (double) odds[index] / SCALE; }
+
+    /**
+     * Linjen som tekst (f.eks. "2.5" eller "-0.5"), eller null hvis valget ikke har linje av denne typen.
+     */
+    public String lineText(int index, byte kind) {
+        if (lineKinds[index] != kind) return null;
+        return BigDecimal.valueOf(lines[index], 3).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Odds for første valg med gitt navn (uten hensyn til store/små bokstaver), eller 0.0 om det mangler.
+     */
+    public double oddsFor(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equalsIgnoreCase(name)) return odds(i);
+        }
+        return 0.0;
+    }
+
+    /**
+     * Odds for valget med gitt navn og poenggrense, f.eks. ("Over", 2.5).
+     */
+    public double oddsFor(String name, double points) {
+        int scaledPoints = toScaled(points);
+        for (int i = 0; i < names.length; i++) {
+            if (lineKinds[i] == LINE_POINTS && lines[i] == scaledPoints && names[i].equalsIgnoreCase(name)) return odds(i);
+        }
+        return 0.0;
+    }
+
+    private static int toScaled(double value) {
+        return (int) Math.round(value * SCALE);
+    }
+}
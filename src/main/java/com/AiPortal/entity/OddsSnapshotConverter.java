@@ -0,0 +1,22 @@
+// src/main/java/com/AiPortal/entity/OddsSnapshotConverter.java
+package com.AiPortal.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Lagrer {@link OddsSnapshot} som en kompakt bytea-kolonne.
+ */
+@Converter
+public class OddsSnapshotConverter implements AttributeConverter<OddsSnapshot, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(OddsSnapshot snapshot) {
+        return snapshot == null ? null : snapshot.toBytes();
+    }
+
+    @Override
+    public OddsSnapshot convertToEntityAttribute(byte[] data) {
+        return data == null || data.length == 0 ? null : OddsSnapshot.fromBytes(data);
+    }
+}
@@ -0,0 +1,34 @@
+// src/main/java/com/AiPortal/entity/PayloadFingerprint.java
+package com.AiPortal.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Sist sette fingeravtrykk for en odds-payload (f.eks. ett Pinnacle-event eller én kamps bookmakere).
+ * Lar innhentingen hoppe over uendrede payloads, også etter en omstart.
+ */
+@Entity
+@Table(name = "payload_fingerprints")
+public class PayloadFingerprint {
+
+    @Id
+    private Long keyHash; // JsonFingerprint.key(keySpace, id)
+
+    @Column(nullable = false)
+    private String keySpace;
+
+    private long fingerprint;
+
+    private Instant updatedAt;
+
+    // Getters and Setters
+    public Long getKeyHash() { return keyHash; }
+    public void setKeyHash(Long keyHash) { this.keyHash = keyHash; }
+    public String getKeySpace() { return keySpace; }
+    public void setKeySpace(String keySpace) { this.keySpace = keySpace; }
+    public long getFingerprint() { return fingerprint; }
+    public void setFingerprint(long fingerprint) { this.fingerprint = fingerprint; }
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -10,7 +10,7 @@ import java.time.Instant;
  * arkitektur for å håndtere lange bakgrunnsjobber.
  */
 @Entity
-@Table(name = "pending_fixture_chunks")
+@Table(name = "pending_fixture_chunks", indexes = @Index(name = "idx_chunk_queue", columnList = "status, next_attempt_at"))
 public class PendingFixtureChunk {
 
     @Id
@@ -48,6 +48,21 @@ public class PendingFixtureChunk {
     @Column(columnDefinition = "TEXT")
     private String lastErrorMessage;
 
+    /**
+     * Leie (lease) for arbeideren som prosesserer chunken. Arbeideren fornyer leien med jevne
+     * heartbeats; utløper den, kan en annen arbeider (også på en annen node) ta over chunken.
+     */
+    private String leaseOwner;
+
+    private Instant leaseExpiresAt;
+
+    private Instant heartbeatAt;
+
+    /**
+     * Tidligste tidspunkt chunken kan forsøkes på nytt etter en feil (eksponentiell backoff).
+     */
+    private Instant nextAttemptAt;
+
     public enum ChunkStatus {
         PENDING,
         PROCESSING,
@@ -120,4 +135,36 @@ public class PendingFixtureChunk {
     public void setLastErrorMessage(String lastErrorMessage) {
         this.lastErrorMessage = lastErrorMessage;
     }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public Instant getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(Instant leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public Instant getHeartbeatAt() {
+        return heartbeatAt;
+    }
+
+    public void setHeartbeatAt(Instant heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
 }
\ No newline at end of file
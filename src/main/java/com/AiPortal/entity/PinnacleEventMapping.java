@@ -0,0 +1,45 @@
+// src/main/java/com/AiPortal/entity/PinnacleEventMapping.java
+package com.AiPortal.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Permanent kobling fra en Pinnacle event-ID til vår Fixture-ID.
+ * Når et event er løst én gang, blir senere Pinnacle-runder et rent ID-oppslag.
+ */
+@Entity
+@Table(name = "pinnacle_event_mappings")
+public class PinnacleEventMapping {
+
+    @Id // Bruker event-ID fra Pinnacle, ikke autogenerert
+    private Long pinnacleEventId;
+
+    @Column(nullable = false)
+    private Long fixtureId;
+
+    /**
+     * Hvordan koblingen ble funnet: EXACT, ALIAS eller FUZZY.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private MatchMethod matchMethod;
+
+    private Instant createdAt = Instant.now();
+
+    public enum MatchMethod {
+        EXACT,
+        ALIAS,
+        FUZZY
+    }
+
+    // Getters and Setters
+    public Long getPinnacleEventId() { return pinnacleEventId; }
+    public void setPinnacleEventId(Long pinnacleEventId) { this.pinnacleEventId = pinnacleEventId; }
+    public Long getFixtureId() { return fixtureId; }
+    public void setFixtureId(Long fixtureId) { this.fixtureId = fixtureId; }
+    public MatchMethod getMatchMethod() { return matchMethod; }
+    public void setMatchMethod(MatchMethod matchMethod) { this.matchMethod = matchMethod; }
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
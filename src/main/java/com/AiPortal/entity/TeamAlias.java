@@ -0,0 +1,45 @@
+// src/main/java/com/AiPortal/entity/TeamAlias.java
+package com.AiPortal.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Et lært alias for et lagnavn fra en ekstern kilde (f.eks. "manutd" fra Pinnacle)
+ * til det normaliserte navnet vi bruker fra API-Football (f.eks. "manchesterunited").
+ */
+@Entity
+@Table(name = "team_aliases", uniqueConstraints = @UniqueConstraint(columnNames = {"source", "alias"}))
+public class TeamAlias {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String source; // F.eks. "PINNACLE"
+
+    @Column(nullable = false)
+    private String alias;
+
+    @Column(nullable = false)
+    private String canonicalName;
+
+    private double similarity;
+
+    private Instant createdAt = Instant.now();
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+    public String getAlias() { return alias; }
+    public void setAlias(String alias) { this.alias = alias; }
+    public String getCanonicalName() { return canonicalName; }
+    public void setCanonicalName(String canonicalName) { this.canonicalName = canonicalName; }
+    public double getSimilarity() { return similarity; }
+    public void setSimilarity(double similarity) { this.similarity = similarity; }
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,49 @@
+// src/main/java/com/AiPortal/entity/TweetEntityTag.java
+package com.AiPortal.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Et lag eller en spiller som er nevnt i en tweet, funnet av TweetEntityTagger da tweeten ble lagret.
+ *
+ * tweetedAt er kopiert fra tweeten, slik at "tweets om lag X siste N timer" er ett indeksoppslag
+ * på (entity_type, entity_id, tweeted_at) uten å søke i tweet-teksten.
+ */
+@Entity
+@Table(name = "tweet_entity_tags",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"raw_tweet_id", "entity_type", "entity_id"}),
+        indexes = @Index(name = "idx_tweet_entity_tags_entity", columnList = "entity_type, entity_id, tweeted_at"))
+public class TweetEntityTag {
+
+    public enum EntityType { TEAM, PLAYER }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "raw_tweet_id", nullable = false)
+    private Long rawTweetId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 16)
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Integer entityId;
+
+    @Column(name = "tweeted_at", nullable = false)
+    private Instant tweetedAt;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getRawTweetId() { return rawTweetId; }
+    public void setRawTweetId(Long rawTweetId) { this.rawTweetId = rawTweetId; }
+    public EntityType getEntityType() { return entityType; }
+    public void setEntityType(EntityType entityType) { this.entityType = entityType; }
+    public Integer getEntityId() { return entityId; }
+    public void setEntityId(Integer entityId) { this.entityId = entityId; }
+    public Instant getTweetedAt() { return tweetedAt; }
+    public void setTweetedAt(Instant tweetedAt) { this.tweetedAt = tweetedAt; }
+}
@@ -5,17 +5,25 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 
+import java.time.Instant;
+
 @Entity
 @Table(name = "twitter_query_states")
 public class TwitterQueryState {
 
-    // Vi bruker en fast ID, siden vi bare har én "recent search"-spørring for alle boter.
+    // Én markør per bot og leverandør, f.eks. "bot:12:OfficialTwitterAPI". Tweet-ID-ene er ikke sammenlignbare på tvers av søk.
     @Id
-    private String queryName = "recent_search_all_bots";
+    private String queryName;
 
     @Column(nullable = false)
     private String lastSeenTweetId;
 
+    private Instant updatedAt;
+
+    public static String keyFor(Long botId, String providerName) {
+        return "bot:" + botId + ":" + providerName;
+    }
+
     // Getters and Setters
     public String getQueryName() {
         return queryName;
@@ -32,4 +40,12 @@ public class TwitterQueryState {
     public void setLastSeenTweetId(String lastSeenTweetId) {
         this.lastSeenTweetId = lastSeenTweetId;
     }
-}
\ No newline at end of file
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -2,8 +2,13 @@ package com.AiPortal.repository;
 
 import com.AiPortal.entity.BotConfiguration;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 
 @Repository
@@ -24,4 +29,21 @@ public interface BotConfigurationRepository extends JpaRepository<BotConfigurati
      * @return En liste av matchende bot-konfigurasjoner.
      */
     List<BotConfiguration> findByStatusAndSourceType(BotConfiguration.BotStatus status, BotConfiguration.SourceType sourceType);
+
+    /**
+     * Oppdaterer kun Pinnacle-cursoren for markeder, slik at samtidige oppdateringer av
+     * markeds- og spesialcursoren for samme bot ikke overskriver hverandre.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE BotConfiguration b SET b.sinceTimestamp = :since, b.lastRun = :lastRun WHERE b.id = :id")
+    int updateSinceTimestamp(@Param("id") Long id, @Param("since") Long since, @Param("lastRun") Instant lastRun);
+
+    /**
+     * Som {@link #updateSinceTimestamp}, men for spesialmarkeder.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE BotConfiguration b SET b.specialsSinceTimestamp = :since, b.lastRun = :lastRun WHERE b.id = :id")
+    int updateSpecialsSinceTimestamp(@Param("id") Long id, @Param("since") Long since, @Param("lastRun") Instant lastRun);
 }
\ No newline at end of file
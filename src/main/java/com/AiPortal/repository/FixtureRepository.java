@@ -5,11 +5,14 @@ import com.AiPortal.entity.Fixture;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +33,47 @@ public interface FixtureRepository extends JpaRepository<Fixture, Long> {
     @Query("SELECT f FROM Fixture f WHERE (f.homeTeamId = :teamId OR f.awayTeamId = :teamId) AND f.status IN ('FT', 'AET', 'PEN') AND f.date < :beforeDate ORDER BY f.date DESC")
     List<Fixture> findLastNCompletedFixturesByTeamBeforeDate(@Param("teamId") Integer teamId, @Param("beforeDate") Instant beforeDate, Pageable pageable);
 
+    /**
+     * Kun kolonnene H2H-motoren trenger (id, hjemmelag, bortelag, dato, mål hjemme, mål borte)
+     * for alle ferdigspilte kamper, uten å laste hele Fixture-entiteter.
+     */
+    @Query("SELECT f.id, f.homeTeamId, f.awayTeamId, f.date, f.goalsHome, f.goalsAway FROM Fixture f " +
+            "WHERE f.status IN ('FT', 'AET', 'PEN') AND f.homeTeamId IS NOT NULL AND f.awayTeamId IS NOT NULL " +
+            "AND f.goalsHome IS NOT NULL AND f.goalsAway IS NOT NULL")
+    List<Object[]> findCompletedResultRows();
+
+    /**
+     * Kolonnene tabellmotoren trenger (id, liga, sesong, hjemmelag-ID/-navn, bortelag-ID/-navn, mål hjemme, mål borte)
+     * for alle ferdigspilte kamper.
+     */
+    @Query("SELECT f.id, f.leagueId, f.season, f.homeTeamId, f.homeTeamName, f.awayTeamId, f.awayTeamName, f.goalsHome, f.goalsAway " +
+            "FROM Fixture f WHERE f.status IN ('FT', 'AET', 'PEN') AND f.leagueId IS NOT NULL AND f.season IS NOT NULL " +
+            "AND f.homeTeamId IS NOT NULL AND f.awayTeamId IS NOT NULL AND f.goalsHome IS NOT NULL AND f.goalsAway IS NOT NULL")
+    List<Object[]> findCompletedStandingsRows();
+
+    /**
+     * Fullstendighets-bitmap per kamp i én spørring (se BackfillPlanner for bitene):
+     * 1 = ferdigspilt med resultat, 2 = lagstatistikk, 4 = spillerstatistikk, 8 = H2H,
+     * 16 = detaljer hentet etter at kampen var ferdigspilt.
+     * Kamper som ikke finnes i tabellen er ikke med i resultatet.
+     */
+    @Query(value = "SELECT f.id, " +
+            "(CASE WHEN f.status IN ('FT', 'AET', 'PEN') AND f.goals_home IS NOT NULL THEN 1 ELSE 0 END) + " +
+            "(CASE WHEN EXISTS (SELECT 1 FROM match_statistics ms WHERE ms.fixture_id = f.id) THEN 2 ELSE 0 END) + " +
+            "(CASE WHEN EXISTS (SELECT 1 FROM player_match_statistics pms WHERE pms.fixture_id = f.id) THEN 4 ELSE 0 END) + " +
+            "(CASE WHEN EXISTS (SELECT 1 FROM h2h_stats h WHERE h.fixture_id = f.id) THEN 8 ELSE 0 END) + " +
+            "(CASE WHEN f.details_fetched_at IS NOT NULL THEN 16 ELSE 0 END) " +
+            "FROM fixtures f WHERE f.id IN (:ids)", nativeQuery = true)
+    List<Object[]> findCompletenessBits(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Markerer at statistikk, skader og H2H er hentet for kampene etter at de var ferdigspilt.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Fixture f SET f.detailsFetchedAt = :fetchedAt WHERE f.id IN :ids")
+    int markDetailsFetched(@Param("ids") Collection<Long> ids, @Param("fetchedAt") Instant fetchedAt);
+
     Optional<Fixture> findFirstByHomeTeamNameAndAwayTeamNameAndDateBetween(String homeTeam, String awayTeam, Instant start, Instant end);
     List<Fixture> findAllByDateBetween(Instant start, Instant end);
 
@@ -38,4 +82,13 @@ public interface FixtureRepository extends JpaRepository<Fixture, Long> {
      * ved å se etter rader hvor team ID-er er null.
      */
     List<Fixture> findByHomeTeamIdIsNullAndAwayTeamIdIsNull();
-}
\ No newline at end of file
+
+    /**
+     * Lag-ID og lagnavn fra både hjemme- og bortesiden, for navneordboken i TweetEntityTagger.
+     */
+    @Query("SELECT DISTINCT f.homeTeamId, f.homeTeamName FROM Fixture f WHERE f.homeTeamId IS NOT NULL AND f.homeTeamName IS NOT NULL")
+    List<Object[]> findDistinctHomeTeamNames();
+
+    @Query("SELECT DISTINCT f.awayTeamId, f.awayTeamName FROM Fixture f WHERE f.awayTeamId IS NOT NULL AND f.awayTeamName IS NOT NULL")
+    List<Object[]> findDistinctAwayTeamNames();
+}
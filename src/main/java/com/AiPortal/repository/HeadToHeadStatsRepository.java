@@ -3,8 +3,13 @@ package com.AiPortal.repository;
 
 import com.AiPortal.entity.HeadToHeadStats;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,4 +20,19 @@ public interface HeadToHeadStatsRepository extends JpaRepository<HeadToHeadStats
 
     // Metode for å hente H2H-data for mange kamper samtidig
     List<HeadToHeadStats> findAllByFixtureIdIn(List<Long> fixtureIds);
-}
\ No newline at end of file
+
+    @Query("SELECT h.fixture.id FROM HeadToHeadStats h WHERE h.fixture.id IN :fixtureIds")
+    List<Long> findFixtureIdsByFixtureIdIn(@Param("fixtureIds") Collection<Long> fixtureIds);
+
+    /**
+     * Skriver H2H for kampen med mindre en annen node eller prosess allerede har gjort det.
+     *
+     * @return 1 hvis raden ble skrevet, 0 hvis kampen allerede hadde H2H.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO h2h_stats (fixture_id, team1_id, team2_id, matches_played, team1_wins, team2_wins, draws, avg_total_goals) " +
+            "VALUES (:#{#s.fixture.id}, :#{#s.team1Id}, :#{#s.team2Id}, :#{#s.matchesPlayed}, :#{#s.team1Wins}, :#{#s.team2Wins}, " +
+            ":#{#s.draws}, :#{#s.avgTotalGoals}) ON CONFLICT (fixture_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("s") HeadToHeadStats stats);
+}
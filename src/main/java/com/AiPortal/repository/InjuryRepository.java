@@ -3,8 +3,11 @@ package com.AiPortal.repository;
 
 import com.AiPortal.entity.Injury;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List; // Importer List
 
 @Repository
@@ -20,4 +23,10 @@ public interface InjuryRepository extends JpaRepository<Injury, Long> {
      * @return En liste som inneholder all skadeinfo for alle de gitte kampene.
      */
     List<Injury> findAllByFixtureIdIn(List<Long> fixtureIds);
-}
\ No newline at end of file
+
+    /**
+     * Kun nøklene (fixtureId, playerId) for duplikatsjekk i DedupeService, uten å laste hele entitetene.
+     */
+    @Query("SELECT i.fixtureId, i.playerId FROM Injury i WHERE i.fixtureId IN :fixtureIds")
+    List<Object[]> findKeysByFixtureIdIn(@Param("fixtureIds") Collection<Long> fixtureIds);
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query; // Importer Query
 import org.springframework.data.repository.query.Param; // Importer Param
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -40,4 +41,10 @@ public interface MatchStatisticsRepository extends JpaRepository<MatchStatistics
      */
     @Query("SELECT ms FROM MatchStatistics ms JOIN Fixture f ON ms.fixtureId = f.id WHERE f.leagueId = :leagueId AND f.season = :season")
     List<MatchStatistics> findAllByLeagueAndSeason(@Param("leagueId") int leagueId, @Param("season") int season);
-}
\ No newline at end of file
+
+    /**
+     * Kun nøklene (fixtureId, teamId) for duplikatsjekk i DedupeService.
+     */
+    @Query("SELECT ms.fixtureId, ms.teamId FROM MatchStatistics ms WHERE ms.fixtureId IN :fixtureIds")
+    List<Object[]> findKeysByFixtureIdIn(@Param("fixtureIds") Collection<Long> fixtureIds);
+}
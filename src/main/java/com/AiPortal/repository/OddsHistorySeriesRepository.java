@@ -0,0 +1,26 @@
+// src/main/java/com/AiPortal/repository/OddsHistorySeriesRepository.java
+package com.AiPortal.repository;
+
+import com.AiPortal.entity.OddsHistorySeries;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OddsHistorySeriesRepository extends JpaRepository<OddsHistorySeries, Long> {
+
+    /**
+     * Låser seriene for kampene til transaksjonen er ferdig, i id-rekkefølge så samtidige skrivere ikke låser i kryss.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM OddsHistorySeries s WHERE s.fixtureId IN :fixtureIds ORDER BY s.id")
+    List<OddsHistorySeries> findAllByFixtureIdInForUpdate(@Param("fixtureIds") Collection<Long> fixtureIds);
+
+    List<OddsHistorySeries> findAllByFixtureIdAndBetName(Long fixtureId, String betName);
+}
@@ -0,0 +1,24 @@
+// src/main/java/com/AiPortal/repository/PayloadFingerprintRepository.java
+package com.AiPortal.repository;
+
+import com.AiPortal.entity.PayloadFingerprint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface PayloadFingerprintRepository extends JpaRepository<PayloadFingerprint, Long> {
+
+    List<PayloadFingerprint> findAllByUpdatedAtAfter(Instant since);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PayloadFingerprint p WHERE p.updatedAt < :before")
+    int deleteAllUpdatedBefore(@Param("before") Instant before);
+}
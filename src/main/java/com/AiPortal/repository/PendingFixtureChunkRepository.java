@@ -3,6 +3,9 @@ package com.AiPortal.repository;
 
 import com.AiPortal.entity.PendingFixtureChunk;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
@@ -12,8 +15,6 @@ import java.util.Optional;
 @Repository
 public interface PendingFixtureChunkRepository extends JpaRepository<PendingFixtureChunk, Long> {
 
-    Optional<PendingFixtureChunk> findFirstByStatusOrderByCreatedAtAsc(PendingFixtureChunk.ChunkStatus status);
-
     boolean existsByStatus(PendingFixtureChunk.ChunkStatus status);
 
     /**
@@ -23,8 +24,39 @@ public interface PendingFixtureChunkRepository extends JpaRepository<PendingFixt
     boolean existsBySourceIdentifierAndStatusIn(String sourceIdentifier, List<PendingFixtureChunk.ChunkStatus> statuses);
 
     /**
-     * NY METODE: Finner "foreldreløse" jobber som har status PROCESSING,
-     * men som ikke har blitt oppdatert på en stund (indikator på at de har krasjet).
+     * Finner neste chunk som kan tas: PENDING chunks som er ferdige med backoff, eller PROCESSING
+     * chunks der leien har utløpt (arbeideren har krasjet eller mistet kontakten).
+     * FOR UPDATE SKIP LOCKED gjør at samtidige arbeidere, også på andre noder, aldri får samme rad.
+     * Må kalles i en transaksjon.
+     */
+    @Query(value = "SELECT * FROM pending_fixture_chunks " +
+            "WHERE (status = 'PENDING' AND (next_attempt_at IS NULL OR next_attempt_at <= :now)) " +
+            "OR (status = 'PROCESSING' AND lease_expires_at < :now) " +
+            "ORDER BY created_at ASC LIMIT 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<PendingFixtureChunk> lockNextAvailable(@Param("now") Instant now);
+
+    /**
+     * Antall gjenstående chunks (PENDING eller PROCESSING) per sourceIdentifier.
+     * Hver rad er [sourceIdentifier, antall].
+     */
+    @Query("SELECT c.sourceIdentifier, COUNT(c) FROM PendingFixtureChunk c WHERE c.status IN :statuses GROUP BY c.sourceIdentifier")
+    List<Object[]> countBySourceIdentifier(@Param("statuses") List<PendingFixtureChunk.ChunkStatus> statuses);
+
+    /**
+     * Fornyer leien, men kun hvis arbeideren fortsatt eier chunken.
+     */
+    @Modifying
+    @Query("UPDATE PendingFixtureChunk c SET c.leaseExpiresAt = :leaseExpiresAt, c.heartbeatAt = :now " +
+            "WHERE c.id = :id AND c.leaseOwner = :owner AND c.status = 'PROCESSING'")
+    int renewLease(@Param("id") Long id, @Param("owner") String owner, @Param("now") Instant now, @Param("leaseExpiresAt") Instant leaseExpiresAt);
+
+    /**
+     * Avslutter en chunk med ny status, men kun hvis arbeideren fortsatt eier leien.
      */
-    Optional<PendingFixtureChunk> findFirstByStatusAndCreatedAtBefore(PendingFixtureChunk.ChunkStatus status, Instant timeout);
+    @Modifying
+    @Query("UPDATE PendingFixtureChunk c SET c.status = :status, c.processedAt = :now, c.lastErrorMessage = :error, " +
+            "c.nextAttemptAt = :nextAttemptAt, c.leaseOwner = NULL, c.leaseExpiresAt = NULL " +
+            "WHERE c.id = :id AND c.leaseOwner = :owner")
+    int releaseLease(@Param("id") Long id, @Param("owner") String owner, @Param("status") PendingFixtureChunk.ChunkStatus status,
+                     @Param("now") Instant now, @Param("error") String error, @Param("nextAttemptAt") Instant nextAttemptAt);
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+// src/main/java/com/AiPortal/repository/PinnacleEventMappingRepository.java
+package com.AiPortal.repository;
+
+import com.AiPortal.entity.PinnacleEventMapping;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface PinnacleEventMappingRepository extends JpaRepository<PinnacleEventMapping, Long> {
+
+    /**
+     * Henter koblinger opprettet etter et gitt tidspunkt. Brukes for å varme opp cachen ved oppstart,
+     * siden kun nylige (prematch) eventer er relevante.
+     */
+    List<PinnacleEventMapping> findAllByCreatedAtAfter(Instant createdAfter);
+}
@@ -3,8 +3,11 @@ package com.AiPortal.repository;
 
 import com.AiPortal.entity.PlayerMatchStatistics;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -31,4 +34,9 @@ public interface PlayerMatchStatisticsRepository extends JpaRepository<PlayerMat
      */
     List<PlayerMatchStatistics> findAllByFixtureId(Long fixtureId);
 
-}
\ No newline at end of file
+    /**
+     * Kun nøklene (fixtureId, playerId) for duplikatsjekk i DedupeService.
+     */
+    @Query("SELECT pms.fixtureId, pms.playerId FROM PlayerMatchStatistics pms WHERE pms.fixtureId IN :fixtureIds")
+    List<Object[]> findKeysByFixtureIdIn(@Param("fixtureIds") Collection<Long> fixtureIds);
+}
@@ -3,8 +3,13 @@ package com.AiPortal.repository;
 
 import com.AiPortal.entity.Player;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Repository-grensesnitt for Player-entiteten.
  * Gir standard databaseoperasjoner (CRUD) for spillere.
@@ -13,4 +18,10 @@ import org.springframework.stereotype.Repository;
 public interface PlayerRepository extends JpaRepository<Player, Integer> {
     // JpaRepository gir oss metoder som save(), findById(), existsById() etc. gratis.
     // Vi kan legge til egendefinerte spørringer her senere om nødvendig.
-}
\ No newline at end of file
+
+    @Query("SELECT p.id FROM Player p WHERE p.id IN :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+    @Query("SELECT p.id, p.name, p.firstname, p.lastname FROM Player p")
+    List<Object[]> findAllNameRows();
+}
@@ -3,9 +3,12 @@ package com.AiPortal.repository;
 
 import com.AiPortal.entity.RawTweetData;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant; // Importer Instant
+import java.util.Collection;
 import java.util.List;    // Importer List
 
 @Repository
@@ -19,6 +22,12 @@ public interface RawTweetDataRepository extends JpaRepository<RawTweetData, Long
      */
     boolean existsByTweetId(String tweetId);
 
+    /**
+     * Returnerer de av de oppgitte tweet-ID-ene som allerede er lagret. Én spørring for en hel batch.
+     */
+    @Query("SELECT t.tweetId FROM RawTweetData t WHERE t.tweetId IN :tweetIds")
+    List<String> findExistingTweetIds(@Param("tweetIds") Collection<String> tweetIds);
+
     /**
      * NY METODE: Finner alle tweets som inneholder et gitt nøkkelord (uavhengig av store/små bokstaver)
      * og som er postet etter et gitt tidspunkt.
@@ -0,0 +1,14 @@
+// src/main/java/com/AiPortal/repository/TeamAliasRepository.java
+package com.AiPortal.repository;
+
+import com.AiPortal.entity.TeamAlias;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TeamAliasRepository extends JpaRepository<TeamAlias, Long> {
+
+    List<TeamAlias> findAllBySource(String source);
+}
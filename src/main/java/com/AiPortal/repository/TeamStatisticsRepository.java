@@ -18,6 +18,10 @@ public interface TeamStatisticsRepository extends JpaRepository<TeamStatistics,
 
     Optional<TeamStatistics> findByLeagueIdAndSeasonAndTeamId(int leagueId, int season, int teamId);
 
+    List<TeamStatistics> findAllByLeagueIdAndSeason(int leagueId, int season);
+
     Optional<TeamStatistics> findTopByTeamId(Integer teamId);
 
-}
\ No newline at end of file
+    @Query("SELECT DISTINCT ts.teamId, ts.teamName FROM TeamStatistics ts WHERE ts.teamId IS NOT NULL AND ts.teamName IS NOT NULL")
+    List<Object[]> findDistinctTeamNames();
+}
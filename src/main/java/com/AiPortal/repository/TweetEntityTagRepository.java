@@ -0,0 +1,27 @@
+// src/main/java/com/AiPortal/repository/TweetEntityTagRepository.java
+package com.AiPortal.repository;
+
+import com.AiPortal.entity.RawTweetData;
+import com.AiPortal.entity.TweetEntityTag;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TweetEntityTagRepository extends JpaRepository<TweetEntityTag, Long> {
+
+    /**
+     * Tweets som nevner noen av entitetene, postet etter afterDate. Går via indeksen på (entity_type, entity_id, tweeted_at).
+     */
+    @Query("SELECT t FROM RawTweetData t WHERE t.id IN (" +
+            "SELECT g.rawTweetId FROM TweetEntityTag g WHERE g.entityType = :entityType AND g.entityId IN :entityIds AND g.tweetedAt > :afterDate) " +
+            "ORDER BY t.tweetedAt")
+    List<RawTweetData> findTweetsMentioning(@Param("entityType") TweetEntityTag.EntityType entityType,
+                                            @Param("entityIds") Collection<Integer> entityIds,
+                                            @Param("afterDate") Instant afterDate);
+}
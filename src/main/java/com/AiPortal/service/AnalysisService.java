@@ -2,8 +2,10 @@
 package com.AiPortal.service;
 
 import com.AiPortal.entity.Analysis;
+import com.AiPortal.entity.Fixture;
 import com.AiPortal.entity.RawTweetData;
 import com.AiPortal.repository.AnalysisRepository;
+import com.AiPortal.repository.FixtureRepository;
 import com.AiPortal.repository.RawTweetDataRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -32,15 +34,24 @@ public class AnalysisService {
     private final RawTweetDataRepository tweetRepository;
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
+    private final TweetSearchIndex tweetSearchIndex;
+    private final FixtureRepository fixtureRepository;
+    private final TweetEntityTagger tweetEntityTagger;
 
     @Autowired
     public AnalysisService(
             AnalysisRepository analysisRepository,
             RawTweetDataRepository tweetRepository,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            TweetSearchIndex tweetSearchIndex,
+            FixtureRepository fixtureRepository,
+            TweetEntityTagger tweetEntityTagger) {
         this.analysisRepository = analysisRepository;
         this.tweetRepository = tweetRepository;
         this.objectMapper = objectMapper;
+        this.tweetSearchIndex = tweetSearchIndex;
+        this.fixtureRepository = fixtureRepository;
+        this.tweetEntityTagger = tweetEntityTagger;
         this.webClient = WebClient.builder()
                 .baseUrl("http://localhost:5001")
                 .defaultHeader("Content-Type", "application/json")
@@ -83,8 +94,62 @@ public class AnalysisService {
         log.info("Beregner aggregert sentiment for nøkkelord: '{}' og marked: '{}'", keyword, marketType);
 
         Instant afterDate = Instant.now().minus(hoursBack, ChronoUnit.HOURS);
-        List<RawTweetData> relevantTweets = tweetRepository.findByContentContainingIgnoreCaseAndTweetedAtAfter(keyword, afterDate);
+        List<RawTweetData> relevantTweets = tweetSearchIndex.search(keyword, afterDate);
+        return aggregateSentiment(relevantTweets, marketType, "nøkkelord '" + keyword + "'", true);
+    }
 
+    /**
+     * Som {@link #getAggregatedSentimentForMarket}, men for tweets som nevner ett av lagene i kampen.
+     * Tweetene hentes fra tweet_entity_tags i stedet for et tekstsøk på lagnavn. Kun lesing: tweets uten
+     * analyse telles ikke med, og sendes til analyse med {@link #queueSentimentAnalysesForFixture}.
+     */
+    @Transactional(readOnly = true)
+    public double getAggregatedSentimentForFixture(Long fixtureId, String marketType, int hoursBack) {
+        log.info("Beregner aggregert sentiment for kamp: {} og marked: '{}'", fixtureId, marketType);
+        return aggregateSentiment(findTweetsForFixture(fixtureId, hoursBack), marketType, "kamp " + fixtureId, false);
+    }
+
+    /**
+     * Starter analyse av tweets om kampen de siste hoursBack timene som ikke har en analyse i kø, under
+     * arbeid eller fullført.
+     *
+     * @return Antall analyser som ble startet.
+     */
+    @Transactional
+    public int queueSentimentAnalysesForFixture(Long fixtureId, int hoursBack) {
+        List<RawTweetData> relevantTweets = findTweetsForFixture(fixtureId, hoursBack);
+        if (relevantTweets.isEmpty()) return 0;
+        List<Analysis> allAnalyses = analysisRepository.findAll();
+        int queued = 0;
+        for (RawTweetData tweet : relevantTweets) {
+            if (queueIfMissing(tweet, allAnalyses)) queued++;
+        }
+        log.info("Startet {} nye innsiktsanalyser for kamp {}.", queued, fixtureId);
+        return queued;
+    }
+
+    private List<RawTweetData> findTweetsForFixture(Long fixtureId, int hoursBack) {
+        Fixture fixture = fixtureRepository.findById(fixtureId)
+                .orElseThrow(() -> new IllegalArgumentException("Kamp ikke funnet med ID: " + fixtureId));
+        Instant afterDate = Instant.now().minus(hoursBack, ChronoUnit.HOURS);
+        return tweetEntityTagger.findTweetsForFixture(fixture, afterDate);
+    }
+
+    private boolean queueIfMissing(RawTweetData tweet, List<Analysis> allAnalyses) {
+        String analysisName = "Innsiktsanalyse for tweet fra @" + tweet.getAuthorUsername();
+        boolean analysisExists = allAnalyses.stream()
+                .anyMatch(a -> a.getName().equals(analysisName) && (
+                        a.getStatus() == Analysis.AnalysisStatus.QUEUED ||
+                                a.getStatus() == Analysis.AnalysisStatus.RUNNING ||
+                                a.getStatus() == Analysis.AnalysisStatus.COMPLETED
+                ));
+        if (analysisExists) return false;
+        log.info("Ingen analyse funnet for tweet {}. Starter ny innsiktsanalyse.", tweet.getId());
+        startSentimentAnalysis(tweet.getId(), "system");
+        return true;
+    }
+
+    private double aggregateSentiment(List<RawTweetData> relevantTweets, String marketType, String source, boolean queueMissing) {
         if (relevantTweets.isEmpty()) {
             return 0.0;
         }
@@ -117,26 +182,18 @@ public class AnalysisService {
                 } catch (JsonProcessingException e) {
                     log.error("Kunne ikke parse analyseresultat for analyse-ID {}", analysis.getId(), e);
                 }
-            } else {
-                boolean analysisInProgress = allAnalyses.stream()
-                        .anyMatch(a -> a.getName().equals(analysisName) && (
-                                a.getStatus() == Analysis.AnalysisStatus.QUEUED ||
-                                        a.getStatus() == Analysis.AnalysisStatus.RUNNING
-                        ));
-                if (!analysisInProgress) {
-                    log.info("Ingen analyse funnet for tweet {}. Starter ny innsiktsanalyse.", tweet.getId());
-                    startSentimentAnalysis(tweet.getId(), "system");
-                }
+            } else if (queueMissing) {
+                queueIfMissing(tweet, allAnalyses);
             }
         }
 
         if (analyzedCount == 0) {
-            log.info("Ingen fullførte analyser funnet som nevner marked '{}' for nøkkelord '{}'.", marketType, keyword);
+            log.info("Ingen fullførte analyser funnet som nevner marked '{}' for {}.", marketType, source);
             return 0.0;
         }
 
         double averageScore = totalScore / analyzedCount;
-        log.info("Aggregert sentiment for marked '{}' / nøkkelord '{}' er {:.4f} basert på {} tweets.", marketType, keyword, averageScore, analyzedCount);
+        log.info("Aggregert sentiment for marked '{}' / {} er {:.4f} basert på {} tweets.", marketType, source, averageScore, analyzedCount);
         return averageScore;
     }
 
@@ -0,0 +1,137 @@
+// src/main/java/com/AiPortal/service/ApiQuotaTracker.java
+package com.AiPortal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Leser RapidAPI sine kvote-headere fra hvert API-Football-svar og holder siste kjente status.
+ *
+ * - x-ratelimit-requests-limit / -remaining: dagskvoten.
+ * - x-ratelimit-limit / x-ratelimit-remaining: kvoten per minutt.
+ *
+ * Brukes til å styre hvor mange historiske chunks som kan kjøres samtidig og hvor store de bør være.
+ */
+@Component
+public class ApiQuotaTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiQuotaTracker.class);
+    private static final Duration THROTTLE_COOLDOWN = Duration.ofSeconds(60);
+    private static final Duration RECENT_THROTTLE_WINDOW = Duration.ofMinutes(10);
+    // Andel av dagskvoten som holdes av til odds og andre planlagte jobber.
+    private static final double DAILY_RESERVE_FRACTION = 0.05;
+    private static final int MAX_CHUNK_SIZE = 20; // API-Football tillater maks 20 ID-er i ids-parameteret.
+    private static final int MIN_CHUNK_SIZE = 5;
+
+    private volatile long dailyLimit = -1;
+    private volatile long dailyRemaining = -1;
+    private volatile long minuteLimit = -1;
+    private volatile long minuteRemaining = -1;
+    private volatile Instant minuteObservedAt = Instant.EPOCH;
+    private volatile Instant throttledAt = Instant.EPOCH;
+
+    private final AtomicLong totalResponses = new AtomicLong();
+    private final AtomicLong throttledResponses = new AtomicLong();
+
+    /**
+     * Filter som legges på WebClient i FootballApiService.
+     */
+    public ExchangeFilterFunction filter() {
+        return ExchangeFilterFunction.ofResponseProcessor(response -> {
+            record(response.headers().asHttpHeaders(), response.statusCode().value());
+            return Mono.just(response);
+        });
+    }
+
+    void record(HttpHeaders headers, int status) {
+        totalResponses.incrementAndGet();
+        dailyLimit = headerValue(headers, "x-ratelimit-requests-limit", dailyLimit);
+        dailyRemaining = headerValue(headers, "x-ratelimit-requests-remaining", dailyRemaining);
+        long minuteRemainingHeader = headerValue(headers, "x-ratelimit-remaining", -1);
+        if (minuteRemainingHeader >= 0) {
+            minuteRemaining = minuteRemainingHeader;
+            minuteObservedAt = Instant.now();
+        }
+        minuteLimit = headerValue(headers, "x-ratelimit-limit", minuteLimit);
+        if (status == 429) {
+            throttledResponses.incrementAndGet();
+            throttledAt = Instant.now();
+            log.warn("---[API QUOTA] Mottok 429 fra API-Football. Pauser historisk innsamling i {} sekunder.", THROTTLE_COOLDOWN.getSeconds());
+        }
+    }
+
+    /**
+     * Hvor mange chunks som trygt kan kjøre samtidig nå, gitt kostnaden per chunk i API-kall.
+     * Returnerer 0 når vi skal holde igjen (nylig 429, minuttkvoten brukt opp eller dagskvoten nær slutt).
+     */
+    public int allowedConcurrentChunks(int maxWorkers, double callsPerChunk) {
+        Instant now = Instant.now();
+        if (throttledAt.plus(THROTTLE_COOLDOWN).isAfter(now)) return 0;
+        if (dailyRemaining >= 0 && dailyLimit > 0 && dailyRemaining <= dailyLimit * DAILY_RESERVE_FRACTION) return 0;
+        if (minuteRemaining < 0 || minuteObservedAt.plusSeconds(60).isBefore(now)) {
+            // Ingen ferske minuttdata (eller API-et sender dem ikke): kjør med full kapasitet.
+            return maxWorkers;
+        }
+        long affordable = (long) Math.floor(minuteRemaining / Math.max(1.0, callsPerChunk));
+        return (int) Math.max(0, Math.min(maxWorkers, affordable));
+    }
+
+    /**
+     * Anbefalt chunk-størrelse, brukt både når chunks opprettes og når de tas fra køen. Mindre chunks ved nylige 429 eller lav minuttkvote
+     * gir kortere API-utbrudd og mindre arbeid å gjenta ved feil.
+     */
+    public int recommendedChunkSize() {
+        Instant now = Instant.now();
+        if (throttledAt.plus(RECENT_THROTTLE_WINDOW).isAfter(now)) return MIN_CHUNK_SIZE;
+        if (minuteLimit > 0 && minuteRemaining >= 0 && minuteRemaining < minuteLimit / 4) return MAX_CHUNK_SIZE / 2;
+        return MAX_CHUNK_SIZE;
+    }
+
+    /**
+     * Kall per minutt vi kan regne med, eller -1 hvis API-et ikke har oppgitt det.
+     */
+    public long getMinuteLimit() {
+        return minuteLimit;
+    }
+
+    public long getDailyRemaining() {
+        return dailyRemaining;
+    }
+
+    public long getTotalResponses() {
+        return totalResponses.get();
+    }
+
+    public Map<String, Object> getSnapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("dailyLimit", dailyLimit);
+        snapshot.put("dailyRemaining", dailyRemaining);
+        snapshot.put("minuteLimit", minuteLimit);
+        snapshot.put("minuteRemaining", minuteRemaining);
+        snapshot.put("totalResponses", totalResponses.get());
+        snapshot.put("throttledResponses", throttledResponses.get());
+        snapshot.put("lastThrottledAt", throttledAt.equals(Instant.EPOCH) ? null : throttledAt);
+        snapshot.put("recommendedChunkSize", recommendedChunkSize());
+        return snapshot;
+    }
+
+    private static long headerValue(HttpHeaders headers, String name, long fallback) {
+        String value = headers.getFirst(name);
+        if (value == null) return fallback;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+// src/main/java/com/AiPortal/service/ApiResponseArchive.java
+package com.AiPortal.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Arkiv over rå API-svar (API-Football og Pinnacle) på lokal disk, med avspillingsmodus.
+ *
+ * - RECORD: alle vellykkede svar komprimeres (deflate) og legges etter hverandre i segmentfiler
+ *   (segment-000001.seg, ...). Til hver segmentfil hører en indeksfil (.idx) med nøkkel
+ *   (kilde, endepunkt, sortert query), tidspunkt, offset og lengde.
+ * - REPLAY: ingen nettverkskall. Svaret for samme nøkkel leses fra arkivet via minnemappede segmenter,
+ *   og kvote-/rate-begrensning hoppes over. Gjør det mulig å bygge data på nytt uten å bruke API-kvote.
+ *
+ * Arkivet kobles inn som et ExchangeFilterFunction på WebClient, så tjenestene som bruker det merker ingen forskjell.
+ */
+@Component
+public class ApiResponseArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiResponseArchive.class);
+
+    public enum Mode { OFF, RECORD, REPLAY }
+
+    private final Mode mode;
+    private final Path directory;
+    private final long segmentMaxBytes;
+    private final Instant replayAsOf;
+
+    // Nøkkel -> oppføringer sortert på tidspunkt (kun i REPLAY).
+    private final Map<String, List<IndexEntry>> index = new ConcurrentHashMap<>();
+    private final Map<Integer, MappedByteBuffer> mappedSegments = new ConcurrentHashMap<>();
+
+    // Skrivetilstand (RECORD), beskyttet av synchronized.
+    private int currentSegment;
+    private FileChannel segmentChannel;
+    private DataOutputStream indexOut;
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong recordedBytes = new AtomicLong();
+    private final AtomicLong replayHits = new AtomicLong();
+    private final AtomicLong replayMisses = new AtomicLong();
+
+    public ApiResponseArchive(@Value("${api.archive.mode:OFF}") Mode mode,
+                              @Value("${api.archive.dir:api-archive}") String directory,
+                              @Value("${api.archive.segment-size-mb:256}") int segmentSizeMb,
+                              @Value("${api.archive.replay-as-of:}") String replayAsOf) {
+        this.mode = mode;
+        this.directory = Path.of(directory);
+        this.segmentMaxBytes = segmentSizeMb * 1024L * 1024L;
+        this.replayAsOf = replayAsOf.isBlank() ? null : Instant.parse(replayAsOf);
+        if (mode == Mode.OFF) return;
+        try {
+            Files.createDirectories(this.directory);
+            this.currentSegment = existingSegmentNumbers().stream().mapToInt(Integer::intValue).max().orElse(0);
+            if (mode == Mode.REPLAY) loadIndex();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunne ikke åpne API-arkivet i " + this.directory, e);
+        }
+        log.info("---[API ARCHIVE] Modus {} i {} ({} nøkler i indeksen).", mode, this.directory.toAbsolutePath(), index.size());
+    }
+
+    public boolean isReplay() {
+        return mode == Mode.REPLAY;
+    }
+
+    /**
+     * Filter for WebClient. Kilden ("API_FOOTBALL", "PINNACLE") inngår i nøkkelen. Strategiene må være de samme
+     * som klienten bruker, slik at avspilte svar får samme maksstørrelse i minnet.
+     */
+    public ExchangeFilterFunction filter(String source, ExchangeStrategies strategies) {
+        return (request, next) -> {
+            if (mode == Mode.OFF) return next.exchange(request);
+            String key = key(source, request.url());
+            if (mode == Mode.REPLAY) {
+                return Mono.fromCallable(() -> replay(key, strategies)).subscribeOn(Schedulers.boundedElastic());
+            }
+            return next.exchange(request).map(response -> response.statusCode().is2xxSuccessful() ? tee(key, response) : response);
+        };
+    }
+
+    /**
+     * Lar svaret strømme videre uendret, men tar en kopi av bytene som skrives til arkivet når svaret er ferdig.
+     */
+    private ClientResponse tee(String key, ClientResponse response) {
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        return response.mutate()
+                .body(body -> body
+                        .doOnNext(buffer -> copyReadable(buffer, captured))
+                        .doOnComplete(() -> Schedulers.boundedElastic().schedule(() -> append(key, captured.toByteArray()))))
+                .build();
+    }
+
+    private static void copyReadable(DataBuffer buffer, ByteArrayOutputStream target) {
+        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                ByteBuffer byteBuffer = iterator.next();
+                byte[] bytes = new byte[byteBuffer.remaining()];
+                byteBuffer.get(bytes);
+                target.write(bytes, 0, bytes.length);
+            }
+        }
+    }
+
+    private ClientResponse replay(String key, ExchangeStrategies strategies) throws IOException, DataFormatException {
+        IndexEntry entry = latest(key);
+        if (entry == null) {
+            replayMisses.incrementAndGet();
+            log.debug("---[API ARCHIVE] Ingen arkivert respons for {}", key);
+            return ClientResponse.create(HttpStatus.NOT_FOUND, strategies).build();
+        }
+        replayHits.incrementAndGet();
+        byte[] body = inflate(read(entry), entry.uncompressedLength());
+        return ClientResponse.create(HttpStatus.OK, strategies)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body)))
+                .build();
+    }
+
+    private IndexEntry latest(String key) {
+        List<IndexEntry> entries = index.get(key);
+        if (entries == null) return null;
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            IndexEntry entry = entries.get(i);
+            if (replayAsOf == null || entry.epochMillis() <= replayAsOf.toEpochMilli()) return entry;
+        }
+        return null;
+    }
+
+    private byte[] read(IndexEntry entry) throws IOException {
+        MappedByteBuffer mapped = mappedSegments.get(entry.segment());
+        if (mapped == null) {
+            try (FileChannel channel = FileChannel.open(segmentPath(entry.segment()), StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            mappedSegments.putIfAbsent(entry.segment(), mapped);
+        }
+        byte[] bytes = new byte[entry.length()];
+        mapped.slice((int) entry.offset(), entry.length()).get(bytes);
+        return bytes;
+    }
+
+    private synchronized void append(String key, byte[] body) {
+        try {
+            byte[] compressed = deflate(body);
+            if (segmentChannel == null || segmentChannel.size() + compressed.length > segmentMaxBytes) {
+                rollSegment();
+            }
+            long offset = segmentChannel.size();
+            ByteBuffer buffer = ByteBuffer.wrap(compressed);
+            while (buffer.hasRemaining()) segmentChannel.write(buffer, offset + buffer.position());
+
+            indexOut.writeLong(Instant.now().toEpochMilli());
+            indexOut.writeLong(offset);
+            indexOut.writeInt(compressed.length);
+            indexOut.writeInt(body.length);
+            indexOut.writeUTF(key);
+            indexOut.flush();
+
+            recorded.incrementAndGet();
+            recordedBytes.addAndGet(compressed.length);
+        } catch (IOException e) {
+            log.warn("---[API ARCHIVE] Kunne ikke arkivere svar for {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        closeWriter();
+        currentSegment++;
+        segmentChannel = FileChannel.open(segmentPath(currentSegment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        indexOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexPath(currentSegment),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        log.info("---[API ARCHIVE] Skriver til nytt segment {}", segmentPath(currentSegment).getFileName());
+    }
+
+    private void loadIndex() throws IOException {
+        int entries = 0;
+        for (int segment : existingSegmentNumbers()) {
+            Path indexFile = indexPath(segment);
+            if (!Files.exists(indexFile)) continue;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+                while (true) {
+                    long epochMillis = in.readLong();
+                    long offset = in.readLong();
+                    int length = in.readInt();
+                    int uncompressedLength = in.readInt();
+                    String key = in.readUTF();
+                    index.computeIfAbsent(key, k -> new ArrayList<>())
+                            .add(new IndexEntry(segment, offset, length, uncompressedLength, epochMillis));
+                    entries++;
+                }
+            } catch (EOFException endOfIndex) {
+                // Slutten av filen (eller en halvskrevet siste oppføring etter et krasj).
+            }
+        }
+        index.values().forEach(list -> list.sort((a, b) -> Long.compare(a.epochMillis(), b.epochMillis())));
+        log.info("---[API ARCHIVE] Lastet {} arkiverte svar fra {}.", entries, directory);
+    }
+
+    private List<Integer> existingSegmentNumbers() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith("segment-") && name.endsWith(".seg"))
+                    .map(name -> Integer.parseInt(name.substring("segment-".length(), name.length() - ".seg".length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Nøkkel: kilde + sti + query-parametre i sortert rekkefølge, så rekkefølgen i URL-en ikke spiller inn.
+     */
+    static String key(String source, URI uri) {
+        MultiValueMap<String, String> params = UriComponentsBuilder.fromUri(uri).build().getQueryParams();
+        StringBuilder key = new StringBuilder(source).append(' ').append(uri.getPath());
+        char separator = '?';
+        for (Map.Entry<String, List<String>> param : new TreeMap<>(params).entrySet()) {
+            for (String value : param.getValue()) {
+                key.append(separator).append(param.getKey()).append('=').append(value);
+                separator = '&';
+            }
+        }
+        return key.toString();
+    }
+
+    private static byte[] deflate(byte[] body) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(body);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+            byte[] chunk = new byte[16 * 1024];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int uncompressedLength) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] body = new byte[uncompressedLength];
+            int offset = 0;
+            while (offset < uncompressedLength && !inflater.finished()) {
+                int n = inflater.inflate(body, offset, uncompressedLength - offset);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                offset += n;
+            }
+            return body;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("segment-%06d.seg", segment));
+    }
+
+    private Path indexPath(int segment) {
+        return directory.resolve(String.format("segment-%06d.idx", segment));
+    }
+
+    private void closeWriter() throws IOException {
+        if (indexOut != null) indexOut.close();
+        if (segmentChannel != null) segmentChannel.close();
+        indexOut = null;
+        segmentChannel = null;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        try {
+            closeWriter();
+        } catch (IOException e) {
+            log.warn("---[API ARCHIVE] Feil ved lukking av arkivet: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", mode);
+        stats.put("recorded", recorded.get());
+        stats.put("recordedCompressedBytes", recordedBytes.get());
+        stats.put("indexedKeys", index.size());
+        stats.put("replayHits", replayHits.get());
+        stats.put("replayMisses", replayMisses.get());
+        return stats;
+    }
+
+    private record IndexEntry(int segment, long offset, int length, int uncompressedLength, long epochMillis) {}
+}
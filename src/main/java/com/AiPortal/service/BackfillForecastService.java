@@ -0,0 +1,74 @@
+// src/main/java/com/AiPortal/service/BackfillForecastService.java
+package com.AiPortal.service;
+
+import com.AiPortal.entity.PendingFixtureChunk;
+import com.AiPortal.repository.PendingFixtureChunkRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prognose for gjenværende historisk innsamling per sourceIdentifier (liga:sesong).
+ *
+ * Anslaget bruker målt kostnad og varighet per chunk fra {@link ChunkWorkerPool} og kvotene fra
+ * {@link ApiQuotaTracker}. Tiden begrenses av det tregeste av: arbeiderkapasitet, minuttkvote og dagskvote.
+ */
+@Service
+public class BackfillForecastService {
+
+    private static final List<PendingFixtureChunk.ChunkStatus> REMAINING_STATUSES =
+            List.of(PendingFixtureChunk.ChunkStatus.PENDING, PendingFixtureChunk.ChunkStatus.PROCESSING);
+
+    private final PendingFixtureChunkRepository chunkRepository;
+    private final ChunkWorkerPool chunkWorkerPool;
+    private final ApiQuotaTracker quotaTracker;
+
+    public BackfillForecastService(PendingFixtureChunkRepository chunkRepository, ChunkWorkerPool chunkWorkerPool, ApiQuotaTracker quotaTracker) {
+        this.chunkRepository = chunkRepository;
+        this.chunkWorkerPool = chunkWorkerPool;
+        this.quotaTracker = quotaTracker;
+    }
+
+    public record SourceForecast(String sourceIdentifier, long remainingChunks, long estimatedApiCalls,
+                                 double estimatedMinutes, String limitedBy) {}
+
+    public record Forecast(double callsPerChunk, long averageChunkMillis, int workers,
+                           List<SourceForecast> sources, long totalEstimatedApiCalls, double totalEstimatedMinutes) {}
+
+    public Forecast getForecast() {
+        double callsPerChunk = chunkWorkerPool.getEstimatedCallsPerChunk();
+        long averageChunkMillis = chunkWorkerPool.getAverageChunkMillis();
+        int workers = chunkWorkerPool.getWorkerCount();
+
+        List<SourceForecast> sources = new ArrayList<>();
+        long totalCalls = 0;
+        long totalChunks = 0;
+        for (Object[] row : chunkRepository.countBySourceIdentifier(REMAINING_STATUSES)) {
+            String source = (String) row[0];
+            long chunks = ((Number) row[1]).longValue();
+            long calls = Math.round(chunks * callsPerChunk);
+            sources.add(estimate(source, chunks, calls, averageChunkMillis, workers));
+            totalCalls += calls;
+            totalChunks += chunks;
+        }
+        SourceForecast total = estimate("ALL", totalChunks, totalCalls, averageChunkMillis, workers);
+        return new Forecast(callsPerChunk, averageChunkMillis, workers, sources, totalCalls, total.estimatedMinutes());
+    }
+
+    private SourceForecast estimate(String source, long chunks, long calls, long averageChunkMillis, int workers) {
+        double workerMinutes = averageChunkMillis < 0 ? 0 : (double) chunks * averageChunkMillis / workers / 60000.0;
+        long minuteLimit = quotaTracker.getMinuteLimit();
+        double rateMinutes = minuteLimit > 0 ? (double) calls / minuteLimit : 0;
+        long dailyRemaining = quotaTracker.getDailyRemaining();
+        // Går vi tom for dagskvoten, må resten vente til kvoten fornyes (opptil ett døgn).
+        double quotaMinutes = dailyRemaining >= 0 && calls > dailyRemaining ? 24 * 60 : 0;
+
+        double minutes = Math.max(workerMinutes, Math.max(rateMinutes, quotaMinutes));
+        String limitedBy = minutes == 0 ? "UNKNOWN"
+                : minutes == quotaMinutes ? "DAILY_QUOTA"
+                : minutes == rateMinutes ? "RATE_LIMIT"
+                : "WORKERS";
+        return new SourceForecast(source, chunks, calls, Math.round(minutes * 10) / 10.0, limitedBy);
+    }
+}
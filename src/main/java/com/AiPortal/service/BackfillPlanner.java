@@ -0,0 +1,103 @@
+// src/main/java/com/AiPortal/service/BackfillPlanner.java
+package com.AiPortal.service;
+
+import com.AiPortal.repository.FixtureRepository;
+import com.AiPortal.util.LongLongHashMap;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Velger hvilke kamper i en liga/sesong som faktisk må hentes i den historiske innsamlingen.
+ *
+ * For alle kampene i kamplisten hentes en fullstendighets-bitmap i én spørring. Kun ferdigspilte kamper
+ * som mangler noe sendes videre, slik at en ny kjøring av samme bot ikke betaler for hele sesongen igjen
+ * og hver chunk fylles med kamper som faktisk trenger arbeid.
+ */
+@Service
+public class BackfillPlanner {
+
+    private static final Logger log = LoggerFactory.getLogger(BackfillPlanner.class);
+
+    static final int FINISHED_WITH_RESULT = 1;
+    static final int TEAM_STATISTICS = 2;
+    static final int PLAYER_STATISTICS = 4;
+    static final int HEAD_TO_HEAD = 8;
+    static final int DETAILS_FETCHED_AFTER_FINISH = 16;
+
+    // Verken lag- eller spillerstatistikk finnes for alle ligaer hos API-Football, så ingen av dem kreves; ellers
+    // ville slike kamper hentes på nytt ved hver kjøring. Skader har heller ingen egen markør (mange kamper har
+    // ingen). H2H alene beviser ingenting: raden kan være skrevet før avspark (full sesong i kø, incremental=false),
+    // og resultatet kan ha kommet senere via odds-boten. Derfor kreves markøren HistoricalDataWorker setter når en
+    // ferdigspilt kamp er behandlet.
+    static final int REQUIRED_BITS = FINISHED_WITH_RESULT | DETAILS_FETCHED_AFTER_FINISH;
+
+    private static final Set<String> FINISHED_STATUSES = Set.of("FT", "AET", "PEN");
+    private static final int IDS_PER_QUERY = 1000;
+
+    private final FixtureRepository fixtureRepository;
+    private final boolean incremental;
+
+    public BackfillPlanner(FixtureRepository fixtureRepository,
+                           @Value("${historical.backfill.incremental:true}") boolean incremental) {
+        this.fixtureRepository = fixtureRepository;
+        this.incremental = incremental;
+    }
+
+    /**
+     * Returnerer ID-ene som skal i kø, i kamplistens rekkefølge.
+     * Uten inkrementell modus returneres alle kampene, som før.
+     *
+     * @param fixturesArray "response"-arrayen fra /fixtures?league=..&season=..
+     */
+    public List<Long> selectFixturesToFetch(JsonNode fixturesArray, String sourceId) {
+        List<Long> all = new ArrayList<>();
+        List<Long> finished = new ArrayList<>();
+        for (JsonNode node : fixturesArray) {
+            long fixtureId = node.path("fixture").path("id").asLong();
+            if (fixtureId == 0) continue;
+            all.add(fixtureId);
+            if (FINISHED_STATUSES.contains(node.path("fixture").path("status").path("short").asText())) {
+                finished.add(fixtureId);
+            }
+        }
+        if (!incremental) return all;
+
+        LongLongHashMap bitsByFixture = completenessBits(finished);
+        List<Long> incomplete = new ArrayList<>();
+        for (long fixtureId : finished) {
+            long bits = bitsByFixture.get(fixtureId, 0);
+            if (!isComplete(bits)) incomplete.add(fixtureId);
+        }
+        log.info("---[BACKFILL PLANNER] {}: {} kamper, {} ferdigspilt, {} mangler data.",
+                sourceId, all.size(), finished.size(), incomplete.size());
+        return incomplete;
+    }
+
+    /**
+     * Kamper behandlet før markøren fantes regnes som ferdige når de har både H2H og statistikk; statistikk
+     * finnes bare for ferdigspilte kamper, så da ble H2H ikke skrevet før avspark.
+     */
+    static boolean isComplete(long bits) {
+        if ((bits & REQUIRED_BITS) == REQUIRED_BITS) return true;
+        return (bits & FINISHED_WITH_RESULT) != 0 && (bits & HEAD_TO_HEAD) != 0
+                && (bits & (TEAM_STATISTICS | PLAYER_STATISTICS)) != 0;
+    }
+
+    private LongLongHashMap completenessBits(List<Long> fixtureIds) {
+        LongLongHashMap bits = new LongLongHashMap(fixtureIds.size());
+        for (int from = 0; from < fixtureIds.size(); from += IDS_PER_QUERY) {
+            List<Long> batch = fixtureIds.subList(from, Math.min(fixtureIds.size(), from + IDS_PER_QUERY));
+            for (Object[] row : fixtureRepository.findCompletenessBits(batch)) {
+                bits.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+            }
+        }
+        return bits;
+    }
+}
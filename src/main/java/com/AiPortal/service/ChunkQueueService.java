@@ -0,0 +1,164 @@
+// src/main/java/com/AiPortal/service/ChunkQueueService.java
+package com.AiPortal.service;
+
+import com.AiPortal.entity.PendingFixtureChunk;
+import com.AiPortal.repository.PendingFixtureChunkRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Lease-basert arbeidskø over pending_fixture_chunks.
+ *
+ * En arbeider tar en chunk atomisk med SELECT ... FOR UPDATE SKIP LOCKED og får en tidsbegrenset
+ * leie som fornyes med heartbeats mens chunken prosesseres. Utløpt leie betyr at arbeideren er død,
+ * og chunken kan tas av en annen. Feilede chunks settes tilbake i kø med eksponentiell backoff
+ * basert på attemptCount, inntil {@code maxAttempts} er nådd.
+ *
+ * Chunk-størrelsen bestemmes når chunks opprettes, men håndheves også når en chunk tas: er den større enn
+ * {@link ApiQuotaTracker#recommendedChunkSize()} nå (f.eks. etter en 429), deles den, og resten legges
+ * tilbake først i køen. Chunks slås ikke sammen når anbefalingen øker igjen; små chunks koster bare litt
+ * mer overhead, og neste planlegging lager store chunks igjen.
+ */
+@Service
+public class ChunkQueueService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkQueueService.class);
+    private static final Duration BASE_BACKOFF = Duration.ofMinutes(1);
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private final PendingFixtureChunkRepository chunkRepository;
+    private final ApiQuotaTracker quotaTracker;
+    private final Duration leaseDuration;
+    private final int maxAttempts;
+    private final String nodeId;
+
+    public ChunkQueueService(PendingFixtureChunkRepository chunkRepository,
+                             ApiQuotaTracker quotaTracker,
+                             @Value("${historical.chunks.lease-seconds:300}") long leaseSeconds,
+                             @Value("${historical.chunks.max-attempts:5}") int maxAttempts) {
+        this.chunkRepository = chunkRepository;
+        this.quotaTracker = quotaTracker;
+        this.leaseDuration = Duration.ofSeconds(leaseSeconds);
+        this.maxAttempts = maxAttempts;
+        this.nodeId = resolveHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Unik eier-ID for én arbeider på denne noden.
+     */
+    public String ownerId(int workerIndex) {
+        return nodeId + "#" + workerIndex;
+    }
+
+    public Duration getLeaseDuration() {
+        return leaseDuration;
+    }
+
+    /**
+     * Tar neste ledige chunk og gir eieren en leie. Chunks med utløpt leie som allerede har brukt
+     * opp forsøkene sine markeres som FAILED i stedet for å tas på nytt. En chunk som er større enn
+     * gjeldende anbefalte størrelse deles først.
+     */
+    @Transactional
+    public Optional<PendingFixtureChunk> claimNext(String owner) {
+        Instant now = Instant.now();
+        while (true) {
+            Optional<PendingFixtureChunk> next = chunkRepository.lockNextAvailable(now);
+            if (next.isEmpty()) return Optional.empty();
+            PendingFixtureChunk chunk = next.get();
+            if (chunk.getStatus() == PendingFixtureChunk.ChunkStatus.PROCESSING) {
+                log.warn("---[CHUNK QUEUE] Leien til chunk {} (eier {}) utløp uten heartbeat.", chunk.getId(), chunk.getLeaseOwner());
+                if (chunk.getAttemptCount() >= maxAttempts) {
+                    chunk.setStatus(PendingFixtureChunk.ChunkStatus.FAILED);
+                    chunk.setLastErrorMessage("Leien utløp etter " + chunk.getAttemptCount() + " forsøk.");
+                    chunk.setLeaseOwner(null);
+                    chunk.setLeaseExpiresAt(null);
+                    chunkRepository.save(chunk);
+                    continue;
+                }
+            }
+            splitToCurrentSize(chunk);
+            chunk.setStatus(PendingFixtureChunk.ChunkStatus.PROCESSING);
+            chunk.setAttemptCount(chunk.getAttemptCount() + 1);
+            chunk.setLeaseOwner(owner);
+            chunk.setLeaseExpiresAt(now.plus(leaseDuration));
+            chunk.setHeartbeatAt(now);
+            return Optional.of(chunkRepository.save(chunk));
+        }
+    }
+
+    /**
+     * Beholder de første ID-ene opp til anbefalt størrelse i chunken og legger resten i en ny PENDING-chunk
+     * med samme opprettelsestid og antall forsøk, så den står først i køen og beholder backoff-historikken.
+     */
+    private void splitToCurrentSize(PendingFixtureChunk chunk) {
+        String[] fixtureIds = chunk.getFixtureIds().split("-");
+        int size = quotaTracker.recommendedChunkSize();
+        if (fixtureIds.length <= size) return;
+        PendingFixtureChunk remainder = new PendingFixtureChunk();
+        remainder.setFixtureIds(String.join("-", Arrays.copyOfRange(fixtureIds, size, fixtureIds.length)));
+        remainder.setSourceIdentifier(chunk.getSourceIdentifier());
+        remainder.setStatus(PendingFixtureChunk.ChunkStatus.PENDING);
+        remainder.setCreatedAt(chunk.getCreatedAt());
+        remainder.setAttemptCount(chunk.getAttemptCount());
+        remainder.setLastErrorMessage(chunk.getLastErrorMessage());
+        chunkRepository.save(remainder);
+        chunk.setFixtureIds(String.join("-", Arrays.copyOfRange(fixtureIds, 0, size)));
+        log.info("---[CHUNK QUEUE] Delte chunk {} fra {} til {} kamper etter gjeldende kvote.", chunk.getId(), fixtureIds.length, size);
+    }
+
+    /**
+     * Fornyer leien. Returnerer false hvis arbeideren har mistet chunken (leien utløp og ble tatt av en annen).
+     */
+    @Transactional
+    public boolean heartbeat(Long chunkId, String owner) {
+        Instant now = Instant.now();
+        return chunkRepository.renewLease(chunkId, owner, now, now.plus(leaseDuration)) > 0;
+    }
+
+    /**
+     * Avslutter chunken basert på statusen HistoricalDataWorker satte. Feil gir nytt forsøk med
+     * backoff (1, 2, 4 ... minutter, maks én time) inntil maxAttempts er nådd.
+     */
+    @Transactional
+    public void finish(PendingFixtureChunk chunk, String owner) {
+        Instant now = Instant.now();
+        int updated;
+        if (chunk.getStatus() == PendingFixtureChunk.ChunkStatus.COMPLETED) {
+            updated = chunkRepository.releaseLease(chunk.getId(), owner, PendingFixtureChunk.ChunkStatus.COMPLETED, now, null, null);
+        } else if (chunk.getAttemptCount() >= maxAttempts) {
+            updated = chunkRepository.releaseLease(chunk.getId(), owner, PendingFixtureChunk.ChunkStatus.FAILED, now, chunk.getLastErrorMessage(), null);
+        } else {
+            Instant retryAt = now.plus(backoff(chunk.getAttemptCount()));
+            updated = chunkRepository.releaseLease(chunk.getId(), owner, PendingFixtureChunk.ChunkStatus.PENDING, now, chunk.getLastErrorMessage(), retryAt);
+            log.info("---[CHUNK QUEUE] Chunk {} feilet (forsøk {}/{}). Nytt forsøk etter {}.", chunk.getId(), chunk.getAttemptCount(), maxAttempts, retryAt);
+        }
+        if (updated == 0) {
+            log.warn("---[CHUNK QUEUE] Mistet leien til chunk {} før den ble avsluttet; resultatet forkastes.", chunk.getId());
+        }
+    }
+
+    static Duration backoff(int attemptCount) {
+        int exponent = Math.min(Math.max(0, attemptCount - 1), 10);
+        Duration delay = BASE_BACKOFF.multipliedBy(1L << exponent);
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+}
@@ -0,0 +1,233 @@
+// src/main/java/com/AiPortal/service/ChunkWorkerPool.java
+package com.AiPortal.service;
+
+import com.AiPortal.entity.PendingFixtureChunk;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Kjører chunks fra {@link ChunkQueueService} som en pipeline i to steg per node:
+ *
+ * 1. Henting ({@link ChunkPipeline#fetch}) er ikke-blokkerende og holder ingen tråd mens API-kallene pågår.
+ * 2. Lagring ({@link ChunkPipeline#persist}) kjøres på egne tråder, matet fra en begrenset kø.
+ *
+ * Antall chunks "i flyt" (hentes, venter eller lagres) er begrenset av antall plasser (slots), så henting av
+ * neste chunk overlapper med lagring av forrige, men vi henter aldri mer enn lagringen klarer å ta unna.
+ * Hver plass gir en stabil eier-ID for leien, og heartbeat sendes fra chunken hentes til den er lagret.
+ *
+ * Antall aktive arbeidere styres av {@link ApiQuotaTracker}: når minuttkvoten er nesten brukt opp
+ * eller vi nylig fikk 429, startes færre (eller ingen) nye chunks. Når en chunk er ferdig, hentes
+ * neste umiddelbart i stedet for å vente på neste planlagte runde.
+ */
+@Component
+public class ChunkWorkerPool {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkWorkerPool.class);
+
+    private static final double DEFAULT_CALLS_PER_CHUNK = 3.0;
+    private static final int MIN_SAMPLES_FOR_ESTIMATE = 5;
+
+    private final ChunkQueueService chunkQueueService;
+    private final ApiQuotaTracker quotaTracker;
+    private final int workerCount;
+    private final BlockingQueue<Integer> freeSlots;
+    private final ExecutorService persisters;
+    private final ScheduledExecutorService heartbeats;
+
+    private volatile ChunkPipeline<?> pipeline;
+    // Målinger for å anslå kostnad og varighet per chunk (brukes av kvotestyringen og prognosen).
+    private final AtomicLong chunksCompleted = new AtomicLong();
+    private final AtomicLong chunkMillisTotal = new AtomicLong();
+    private final AtomicLong backfillApiCalls = new AtomicLong();
+    private long lastSampledResponses = -1;
+
+    public ChunkWorkerPool(ChunkQueueService chunkQueueService,
+                           ApiQuotaTracker quotaTracker,
+                           @Value("${historical.chunks.workers:2}") int workerCount,
+                           @Value("${historical.chunks.persist-threads:1}") int persistThreads) {
+        this.chunkQueueService = chunkQueueService;
+        this.quotaTracker = quotaTracker;
+        this.workerCount = Math.max(1, workerCount);
+        this.freeSlots = new ArrayBlockingQueue<>(this.workerCount);
+        for (int i = 0; i < this.workerCount; i++) freeSlots.add(i);
+        int persisterCount = Math.max(1, Math.min(persistThreads, this.workerCount));
+        // Køen mellom stegene trenger aldri plass til mer enn antall chunks i flyt.
+        this.persisters = new ThreadPoolExecutor(persisterCount, persisterCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.workerCount), namedThreads("chunk-persist-"));
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(namedThreads("chunk-heartbeat-"));
+    }
+
+    /**
+     * Fyller alle ledige plasser med nye chunks fra køen og starter hentesteget for dem. Returnerer umiddelbart.
+     */
+    public void dispatch(ChunkPipeline<?> pipeline) {
+        this.pipeline = pipeline;
+        sampleApiCalls();
+        int allowed = quotaTracker.allowedConcurrentChunks(workerCount, getEstimatedCallsPerChunk());
+        Integer slot;
+        while (getBusyWorkers() < allowed && (slot = freeSlots.poll()) != null) {
+            String owner = chunkQueueService.ownerId(slot);
+            Optional<PendingFixtureChunk> claimed;
+            try {
+                claimed = chunkQueueService.claimNext(owner);
+            } catch (Exception e) {
+                freeSlots.add(slot);
+                log.error("---[CHUNK WORKERS] Kunne ikke hente chunk fra køen: {}", e.getMessage());
+                return;
+            }
+            if (claimed.isEmpty()) {
+                freeSlots.add(slot);
+                return;
+            }
+            start(new InFlight(claimed.get(), owner, slot), pipeline);
+        }
+    }
+
+    private <T> void start(InFlight inFlight, ChunkPipeline<T> pipeline) {
+        PendingFixtureChunk chunk = inFlight.chunk;
+        long heartbeatMillis = Math.max(1000, chunkQueueService.getLeaseDuration().toMillis() / 3);
+        inFlight.heartbeat = heartbeats.scheduleAtFixedRate(() -> {
+            try {
+                if (!chunkQueueService.heartbeat(chunk.getId(), inFlight.owner)) {
+                    log.warn("---[CHUNK WORKERS] Heartbeat avvist for chunk {}; leien er tapt.", chunk.getId());
+                }
+            } catch (Exception e) {
+                log.warn("---[CHUNK WORKERS] Heartbeat feilet for chunk {}: {}", chunk.getId(), e.getMessage());
+            }
+        }, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+
+        Mono<T> fetch;
+        try {
+            fetch = pipeline.fetch(chunk);
+        } catch (Exception e) {
+            fetch = Mono.error(e);
+        }
+        fetch.subscribe(
+                fetched -> submitPersist(inFlight, () -> pipeline.persist(chunk, fetched)),
+                error -> submitPersist(inFlight, () -> markFetchFailed(chunk, error)),
+                () -> {
+                    if (!inFlight.handedOver) submitPersist(inFlight, () -> markFetchFailed(chunk, new IllegalStateException("Tomt svar fra hentesteget")));
+                });
+    }
+
+    private void submitPersist(InFlight inFlight, Runnable persistStep) {
+        inFlight.handedOver = true;
+        try {
+            persisters.execute(() -> complete(inFlight, persistStep));
+        } catch (RejectedExecutionException e) {
+            // Kun ved nedstenging; leien utløper og chunken plukkes opp igjen.
+            release(inFlight);
+        }
+    }
+
+    private void complete(InFlight inFlight, Runnable persistStep) {
+        PendingFixtureChunk chunk = inFlight.chunk;
+        try {
+            persistStep.run();
+            chunkQueueService.finish(chunk, inFlight.owner);
+            chunksCompleted.incrementAndGet();
+            chunkMillisTotal.addAndGet(System.currentTimeMillis() - inFlight.startedMillis);
+            log.info("---[CONSUMER V2] Fullførte prosessering av chunk ID: {} med status: {}", chunk.getId(), chunk.getStatus());
+        } catch (Exception e) {
+            log.error("---[CHUNK WORKERS] Uventet feil for chunk {}: {}", chunk.getId(), e.getMessage(), e);
+        } finally {
+            release(inFlight);
+        }
+        ChunkPipeline<?> next = this.pipeline;
+        if (next != null && !persisters.isShutdown()) dispatch(next);
+    }
+
+    private void release(InFlight inFlight) {
+        if (inFlight.heartbeat != null) inFlight.heartbeat.cancel(false);
+        freeSlots.add(inFlight.slot);
+    }
+
+    private static void markFetchFailed(PendingFixtureChunk chunk, Throwable error) {
+        log.error("---[CHUNK WORKERS] Henting feilet for chunk {}: {}", chunk.getId(), error.getMessage());
+        chunk.setStatus(PendingFixtureChunk.ChunkStatus.FAILED);
+        chunk.setLastErrorMessage(error.getMessage());
+    }
+
+    /**
+     * Teller API-svar mottatt mens minst én chunk kjører. Et grovt, men billig anslag på
+     * hvor mange kall en chunk koster (andre jobber som kjører samtidig telles også med).
+     */
+    private synchronized void sampleApiCalls() {
+        long responses = quotaTracker.getTotalResponses();
+        if (lastSampledResponses >= 0 && getBusyWorkers() > 0) {
+            backfillApiCalls.addAndGet(responses - lastSampledResponses);
+        }
+        lastSampledResponses = responses;
+    }
+
+    public double getEstimatedCallsPerChunk() {
+        long completed = chunksCompleted.get();
+        if (completed < MIN_SAMPLES_FOR_ESTIMATE) return DEFAULT_CALLS_PER_CHUNK;
+        return Math.max(1.0, (double) backfillApiCalls.get() / completed);
+    }
+
+    /**
+     * Gjennomsnittlig varighet per chunk i millisekunder, eller -1 før noen er fullført.
+     */
+    public long getAverageChunkMillis() {
+        long completed = chunksCompleted.get();
+        return completed == 0 ? -1 : chunkMillisTotal.get() / completed;
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public int getBusyWorkers() {
+        return workerCount - freeSlots.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        persisters.shutdownNow();
+    }
+
+    /**
+     * De to stegene i chunk-prosesseringen. fetch() skal ikke blokkere; persist() kjøres på lagringstrådene
+     * og setter chunkens status (COMPLETED/FAILED) før den leveres tilbake til køen.
+     */
+    public interface ChunkPipeline<T> {
+        Mono<T> fetch(PendingFixtureChunk chunk);
+
+        void persist(PendingFixtureChunk chunk, T fetched);
+    }
+
+    private static final class InFlight {
+        private final PendingFixtureChunk chunk;
+        private final String owner;
+        private final int slot;
+        private final long startedMillis = System.currentTimeMillis();
+        private volatile ScheduledFuture<?> heartbeat;
+        private volatile boolean handedOver;
+
+        private InFlight(PendingFixtureChunk chunk, String owner, int slot) {
+            this.chunk = chunk;
+            this.owner = owner;
+            this.slot = slot;
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
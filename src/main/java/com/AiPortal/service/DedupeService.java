@@ -0,0 +1,245 @@
+// src/main/java/com/AiPortal/service/DedupeService.java
+package com.AiPortal.service;
+
+import com.AiPortal.util.LongBloomFilter;
+import com.AiPortal.util.LongOpenHashSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Felles duplikatsjekk for innsamlingen, med ett Bloom-filter per nøkkelrom.
+ *
+ * Filtrene dimensjoneres fra antall rader i tabellene og fylles ved oppstart. Kun mulige treff sendes til
+ * databasen, samlet i IN-spørringer. Skrevne nøkler legges inn med {@link #record}. Før et filter er klart
+ * (og hvis oppvarmingen feiler) regnes alle nøkler som mulige treff.
+ *
+ * Filteret ser bare nøkler som fantes ved oppvarming og det denne noden selv har skrevet. Når flere noder
+ * jobber i chunk-køen, kan en nøkkel filteret sier nei til likevel være skrevet av en annen node. Svaret er
+ * derfor en optimalisering av oppslagene, ikke et vern: skrivestiene må selv hindre duplikater i databasen
+ * (ON CONFLICT DO NOTHING, eller NOT EXISTS / nøkkeloppslag i {@link HistoricalBulkLoader}), og melder
+ * nøkler som likevel fantes med {@link #recordConflicts}.
+ */
+@Service
+public class DedupeService {
+
+    private static final Logger log = LoggerFactory.getLogger(DedupeService.class);
+    private static final int KEYS_PER_LOOKUP = 1000;
+    private static final int WARMUP_FETCH_SIZE = 10000;
+    private static final int CAPACITY_GROWTH_FACTOR = 2;
+
+    /**
+     * Nøkkelrommene. Nøklene er enten ID-en selv eller to ID-er pakket med {@link LongOpenHashSet#pack(long, int)}.
+     */
+    public enum KeySpace {
+        TWEETS("raw_tweets", "SELECT tweet_id FROM raw_tweets", rs -> tweetKey(rs.getString(1))),
+        PLAYERS("players", "SELECT id FROM players", rs -> rs.getLong(1)),
+        MATCH_STATISTICS("match_statistics", "SELECT fixture_id, team_id FROM match_statistics",
+                rs -> LongOpenHashSet.pack(rs.getLong(1), rs.getInt(2))),
+        PLAYER_MATCH_STATISTICS("player_match_statistics", "SELECT fixture_id, player_id FROM player_match_statistics",
+                rs -> LongOpenHashSet.pack(rs.getLong(1), rs.getInt(2))),
+        INJURIES("injuries", "SELECT fixture_id, player_id FROM injuries",
+                rs -> LongOpenHashSet.pack(rs.getLong(1), rs.getInt(2))),
+        HEAD_TO_HEAD("h2h_stats", "SELECT fixture_id FROM h2h_stats", rs -> rs.getLong(1));
+
+        private final String table;
+        private final String keySql;
+        private final KeyReader keyReader;
+
+        KeySpace(String table, String keySql, KeyReader keyReader) {
+            this.table = table;
+            this.keySql = keySql;
+            this.keyReader = keyReader;
+        }
+    }
+
+    @FunctionalInterface
+    private interface KeyReader {
+        long read(ResultSet rs) throws SQLException;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final double falsePositiveRate;
+    private final long minCapacity;
+    private final Map<KeySpace, Space> spaces = new EnumMap<>(KeySpace.class);
+
+    public DedupeService(JdbcTemplate jdbcTemplate,
+                         @Value("${dedupe.false-positive-rate:0.01}") double falsePositiveRate,
+                         @Value("${dedupe.min-capacity:100000}") long minCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.falsePositiveRate = falsePositiveRate;
+        this.minCapacity = minCapacity;
+        for (KeySpace space : KeySpace.values()) {
+            spaces.put(space, new Space());
+        }
+    }
+
+    /**
+     * Tweet-ID-er er snowflake-tall og brukes direkte; andre ID-er hashes.
+     */
+    public static long tweetKey(String tweetId) {
+        if (tweetId == null || tweetId.isEmpty()) return 0;
+        try {
+            return Long.parseLong(tweetId);
+        } catch (NumberFormatException e) {
+            return LongBloomFilter.hash(tweetId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        for (KeySpace space : KeySpace.values()) {
+            rebuild(space);
+        }
+    }
+
+    /**
+     * Bygger filtre som har fått flere nøkler enn de ble dimensjonert for på nytt, så falsk-positiv-raten holder seg nede.
+     */
+    @Scheduled(fixedRate = 21600000, initialDelay = 21600000)
+    public void rebuildSaturated() {
+        for (KeySpace space : KeySpace.values()) {
+            LongBloomFilter active = spaces.get(space).active;
+            if (active != null && spaces.get(space).inserted.get() > active.expectedInsertions()) {
+                rebuild(space);
+            }
+        }
+    }
+
+    private void rebuild(KeySpace keySpace) {
+        Space space = spaces.get(keySpace);
+        long started = System.currentTimeMillis();
+        try {
+            Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + keySpace.table, Long.class);
+            long capacity = Math.max(minCapacity, (rows == null ? 0 : rows) * CAPACITY_GROWTH_FACTOR);
+            LongBloomFilter building = new LongBloomFilter(capacity, falsePositiveRate);
+            // Nøkler som skrives mens filteret fylles, legges inn i begge filtrene (se record).
+            space.building = building;
+            AtomicLong loaded = new AtomicLong();
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(keySpace.keySql);
+                statement.setFetchSize(WARMUP_FETCH_SIZE);
+                return statement;
+            }, rs -> {
+                if (building.put(keySpace.keyReader.read(rs))) loaded.incrementAndGet();
+            });
+            space.inserted.set(loaded.get());
+            space.active = building;
+            log.info("---[DEDUPE] {}: {} nøkler lastet i filter for {} ({} KB) på {} ms.",
+                    keySpace, loaded.get(), capacity, building.bitCount() / 8 / 1024, System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            log.warn("---[DEDUPE] Kunne ikke bygge filter for {}, alle oppslag går til databasen: {}", keySpace, e.getMessage());
+        } finally {
+            space.building = null;
+        }
+    }
+
+    /**
+     * Finner hvilke av nøklene som allerede finnes. Kun nøkler filteret ikke kan avvise sendes til {@code lookup},
+     * i grupper på {@value #KEYS_PER_LOOKUP}.
+     *
+     * @param lookup Slår opp en gruppe mulige treff i databasen og returnerer de som faktisk finnes.
+     * @return De eksisterende nøklene.
+     */
+    public LongOpenHashSet existing(KeySpace keySpace, Collection<Long> keys, Function<List<Long>, Collection<Long>> lookup) {
+        Space space = spaces.get(keySpace);
+        LongBloomFilter filter = space.active;
+        List<Long> possibleHits = new ArrayList<>();
+        for (Long key : keys) {
+            if (filter == null || filter.mightContain(key)) possibleHits.add(key);
+        }
+
+        LongOpenHashSet found = new LongOpenHashSet(possibleHits.size());
+        for (int from = 0; from < possibleHits.size(); from += KEYS_PER_LOOKUP) {
+            List<Long> batch = possibleHits.subList(from, Math.min(possibleHits.size(), from + KEYS_PER_LOOKUP));
+            LongOpenHashSet wanted = new LongOpenHashSet(batch.size());
+            batch.forEach(wanted::add);
+            for (Long key : lookup.apply(batch)) {
+                // Oppslag på f.eks. fixture_id kan returnere flere rader enn det ble spurt om.
+                if (wanted.contains(key)) found.add(key);
+            }
+        }
+
+        space.keysChecked.addAndGet(keys.size());
+        if (filter != null) {
+            space.lookupsAvoided.addAndGet(keys.size() - possibleHits.size());
+            space.possibleHits.addAndGet(possibleHits.size());
+            space.falsePositives.addAndGet(possibleHits.size() - found.size());
+        }
+        return found;
+    }
+
+    /**
+     * Legger nøkler som nettopp er skrevet inn i filteret. En skriving som senere rulles tilbake gir bare et falskt positivt treff.
+     */
+    public void record(KeySpace keySpace, Collection<Long> keys) {
+        Space space = spaces.get(keySpace);
+        LongBloomFilter active = space.active;
+        LongBloomFilter building = space.building;
+        for (Long key : keys) {
+            if (active != null && active.put(key)) space.inserted.incrementAndGet();
+            if (building != null) building.put(key);
+        }
+    }
+
+    /**
+     * Nøkler filteret slapp gjennom som nye, men som en annen node eller prosess allerede hadde skrevet.
+     * De finnes i databasen, så de legges inn i filteret som skrevne nøkler.
+     */
+    public void recordConflicts(KeySpace keySpace, Collection<Long> keys) {
+        if (keys.isEmpty()) return;
+        spaces.get(keySpace).writeConflicts.addAndGet(keys.size());
+        record(keySpace, keys);
+        log.info("---[DEDUPE] {}: {} nøkler var allerede skrevet av en annen node: {}", keySpace, keys.size(),
+                keys.stream().limit(20).toList());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (KeySpace keySpace : KeySpace.values()) {
+            Space space = spaces.get(keySpace);
+            LongBloomFilter filter = space.active;
+            long checked = space.keysChecked.get();
+            long possible = space.possibleHits.get();
+            long falsePositives = space.falsePositives.get();
+            long trueNegatives = space.lookupsAvoided.get();
+            Map<String, Object> spaceStats = new LinkedHashMap<>();
+            spaceStats.put("ready", filter != null);
+            spaceStats.put("keysChecked", checked);
+            spaceStats.put("lookupsAvoided", trueNegatives);
+            spaceStats.put("possibleHits", possible);
+            spaceStats.put("falsePositives", falsePositives);
+            spaceStats.put("writeConflicts", space.writeConflicts.get());
+            // Andel av de nye nøklene som likevel måtte slås opp.
+            spaceStats.put("observedFalsePositiveRate", falsePositives + trueNegatives == 0 ? 0.0
+                    : (double) falsePositives / (falsePositives + trueNegatives));
+            spaceStats.put("expectedFalsePositiveRate", filter == null ? null : filter.expectedFalsePositiveRate());
+            spaceStats.put("keysInFilter", space.inserted.get());
+            spaceStats.put("capacity", filter == null ? 0 : filter.expectedInsertions());
+            stats.put(keySpace.name(), spaceStats);
+        }
+        return stats;
+    }
+
+    private static final class Space {
+        volatile LongBloomFilter active;
+        volatile LongBloomFilter building;
+        final AtomicLong inserted = new AtomicLong();
+        final AtomicLong keysChecked = new AtomicLong();
+        final AtomicLong lookupsAvoided = new AtomicLong();
+        final AtomicLong possibleHits = new AtomicLong();
+        final AtomicLong falsePositives = new AtomicLong();
+        final AtomicLong writeConflicts = new AtomicLong();
+    }
+}
@@ -0,0 +1,246 @@
+// src/main/java/com/AiPortal/service/FixtureMatchIndex.java
+package com.AiPortal.service;
+
+import com.AiPortal.entity.Fixture;
+import com.AiPortal.repository.FixtureRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory indeks over kommende kamper, brukt til å koble Pinnacle-eventer mot våre Fixture-rader.
+ * Kampene nøkles på normalisert (hjemmelag, bortelag) og en tidsbøtte for kampstart, slik at et
+ * oppslag er et par hash-oppslag uten databasekall. Lagnavn normaliseres én gang ved innlegging.
+ */
+@Component
+public class FixtureMatchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(FixtureMatchIndex.class);
+
+    // Samme toleranse som den gamle findAllByDateBetween-spørringen (+/- 12 timer).
+    static final Duration MATCH_WINDOW = Duration.ofHours(12);
+    private static final long BUCKET_SECONDS = MATCH_WINDOW.getSeconds();
+
+    private static final Pattern NON_ASCII = Pattern.compile("[^\\p{ASCII}]");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-zA-Z0-9]");
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^a-z0-9]+");
+
+    // Vanlige forkortelser i lagnavn. Ekspanderes før sammenligning, slik at "Man Utd" blir "manchester united".
+    private static final Map<String, List<String>> KNOWN_ABBREVIATIONS = Map.ofEntries(
+            Map.entry("man", List.of("manchester")),
+            Map.entry("utd", List.of("united")),
+            Map.entry("st", List.of("saint")),
+            Map.entry("ath", List.of("athletic")),
+            Map.entry("atl", List.of("atletico")),
+            Map.entry("spurs", List.of("tottenham", "hotspur")),
+            Map.entry("wolves", List.of("wolverhampton", "wanderers")),
+            Map.entry("psg", List.of("paris", "saint", "germain")));
+    // Klubbforkortelser som den ene kilden ofte tar med og den andre dropper ("AC Milan" / "Milan").
+    private static final Set<String> CLUB_AFFIXES = Set.of("fc", "afc", "cf", "sc", "ac", "as", "cd", "sv", "fk", "sk", "bk", "the");
+
+    private final FixtureRepository fixtureRepository;
+
+    private volatile IndexState state = new IndexState();
+    private final AtomicLong version = new AtomicLong();
+
+    public FixtureMatchIndex(FixtureRepository fixtureRepository) {
+        this.fixtureRepository = fixtureRepository;
+    }
+
+    /**
+     * Normaliserer et lagnavn til kun små ASCII-bokstaver og tall (f.eks. "Atlético Madrid" -> "atleticomadrid").
+     */
+    public static String normalizeTeamName(String name) {
+        if (name == null) return "";
+        String normalized = Normalizer.normalize(name, Normalizer.Form.NFD);
+        normalized = NON_ASCII.matcher(normalized).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(normalized).replaceAll("").toLowerCase();
+    }
+
+    /**
+     * Deler et lagnavn i normaliserte ord, uten klubbforkortelser og med kjente forkortelser ekspandert
+     * (f.eks. "Man Utd FC" -> [manchester, united]). Brukes når sammenslåtte navn er for ulike for fuzzy-likhet.
+     */
+    public static List<String> teamNameTokens(String name) {
+        if (name == null) return List.of();
+        String ascii = NON_ASCII.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("").toLowerCase();
+        List<String> words = new ArrayList<>();
+        for (String word : TOKEN_SEPARATOR.split(ascii)) {
+            if (!word.isEmpty()) words.add(word);
+        }
+        List<String> tokens = new ArrayList<>(words.size());
+        for (String word : words) {
+            if (CLUB_AFFIXES.contains(word)) continue;
+            tokens.addAll(KNOWN_ABBREVIATIONS.getOrDefault(word, List.of(word)));
+        }
+        // Et navn som bare består av forkortelser beholdes som det er.
+        return tokens.isEmpty() ? List.copyOf(words) : List.copyOf(tokens);
+    }
+
+    /**
+     * Bygger indeksen på nytt fra databasen. Kjøres ved oppstart og én gang i timen,
+     * noe som også fjerner kamper som har falt ut av tidsvinduet.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedRate = 3600000, initialDelay = 3600000)
+    public void rebuild() {
+        Instant from = Instant.now().minus(MATCH_WINDOW);
+        List<Fixture> fixtures = fixtureRepository.findAllByDateAfterOrderByDateAsc(from);
+        IndexState fresh = new IndexState();
+        fixtures.forEach(f -> fresh.put(IndexedFixture.of(f)));
+        this.state = fresh;
+        version.incrementAndGet();
+        log.info("---[FIXTURE INDEX] Bygget indeks med {} kommende kamper.", fresh.byId.size());
+    }
+
+    /**
+     * Oppdaterer indeksen inkrementelt etter at en kamp er lagret. Versjonen økes bare når en ny kamp eller
+     * nye lagnavn/tidsbøtte kommer inn; en uendret kamp (f.eks. oppdatert resultat) kan ikke gi nye treff.
+     */
+    public void register(Fixture fixture) {
+        if (fixture == null || fixture.getId() == null || fixture.getDate() == null) return;
+        IndexState current = this.state;
+        IndexedFixture existing = current.byId.get(fixture.getId());
+        if (!fixture.getDate().isAfter(Instant.now().minus(MATCH_WINDOW))) {
+            current.remove(fixture.getId());
+            return;
+        }
+        IndexedFixture fresh = IndexedFixture.of(fixture);
+        if (fresh.equals(existing)) return;
+        current.remove(fixture.getId());
+        current.put(fresh);
+        if (existing == null || !existing.key().equals(fresh.key())) {
+            version.incrementAndGet();
+        }
+    }
+
+    public void registerAll(Collection<Fixture> fixtures) {
+        fixtures.forEach(this::register);
+    }
+
+    /**
+     * Finner ID-en til kampen som best matcher lagnavnene og starttidspunktet,
+     * dvs. den med nærmest kampstart innenfor +/- 12 timer.
+     */
+    public Optional<Long> findFixtureId(String homeTeamRaw, String awayTeamRaw, Instant kickoff) {
+        return findFixtureIdNormalized(normalizeTeamName(homeTeamRaw), normalizeTeamName(awayTeamRaw), kickoff);
+    }
+
+    /**
+     * Som {@link #findFixtureId}, men for lagnavn som allerede er normalisert.
+     */
+    public Optional<Long> findFixtureIdNormalized(String home, String away, Instant kickoff) {
+        long eventSecond = kickoff.getEpochSecond();
+        long bucket = Math.floorDiv(eventSecond, BUCKET_SECONDS);
+
+        IndexState current = this.state;
+        IndexedFixture best = null;
+        for (long b = bucket - 1; b <= bucket + 1; b++) {
+            List<IndexedFixture> candidates = current.byKey.get(new MatchKey(home, away, b));
+            if (candidates == null) continue;
+            for (IndexedFixture candidate : candidates) {
+                long distance = Math.abs(candidate.kickoffEpochSecond() - eventSecond);
+                if (distance > BUCKET_SECONDS) continue;
+                if (best == null || distance < Math.abs(best.kickoffEpochSecond() - eventSecond)) {
+                    best = candidate;
+                }
+            }
+        }
+        return best == null ? Optional.empty() : Optional.of(best.fixtureId());
+    }
+
+    /**
+     * Returnerer alle indekserte kamper med kampstart innenfor +/- 12 timer.
+     * Brukes av fuzzy-matching når eksakt oppslag ikke gir treff.
+     */
+    public List<Candidate> candidatesAround(Instant kickoff) {
+        long eventSecond = kickoff.getEpochSecond();
+        long bucket = Math.floorDiv(eventSecond, BUCKET_SECONDS);
+        IndexState current = this.state;
+        List<Candidate> result = new ArrayList<>();
+        for (long b = bucket - 1; b <= bucket + 1; b++) {
+            List<IndexedFixture> inBucket = current.byBucket.get(b);
+            if (inBucket == null) continue;
+            for (IndexedFixture entry : inBucket) {
+                if (Math.abs(entry.kickoffEpochSecond() - eventSecond) <= BUCKET_SECONDS) {
+                    result.add(new Candidate(entry.fixtureId(), entry.key().home(), entry.key().away(),
+                            entry.homeTokens(), entry.awayTokens()));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Øker når indeksen bygges på nytt eller får en ny kamp/nøkkel. Lar kallere vite om det er vits
+     * å prøve et mislykket oppslag på nytt.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    public int size() {
+        return state.byId.size();
+    }
+
+    public record Candidate(long fixtureId, String normalizedHome, String normalizedAway,
+                            List<String> homeTokens, List<String> awayTokens) {}
+
+    private record MatchKey(String home, String away, long bucket) {}
+
+    private record IndexedFixture(long fixtureId, MatchKey key, long kickoffEpochSecond,
+                                  List<String> homeTokens, List<String> awayTokens) {
+        static IndexedFixture of(Fixture fixture) {
+            long kickoff = fixture.getDate().getEpochSecond();
+            MatchKey key = new MatchKey(
+                    normalizeTeamName(fixture.getHomeTeamName()),
+                    normalizeTeamName(fixture.getAwayTeamName()),
+                    Math.floorDiv(kickoff, BUCKET_SECONDS));
+            return new IndexedFixture(fixture.getId(), key, kickoff,
+                    teamNameTokens(fixture.getHomeTeamName()), teamNameTokens(fixture.getAwayTeamName()));
+        }
+    }
+
+    private static final class IndexState {
+        private final ConcurrentHashMap<MatchKey, List<IndexedFixture>> byKey = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Long, IndexedFixture> byId = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Long, List<IndexedFixture>> byBucket = new ConcurrentHashMap<>();
+
+        void put(IndexedFixture entry) {
+            MatchKey key = entry.key();
+            byId.put(entry.fixtureId(), entry);
+            byKey.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(entry);
+            byBucket.computeIfAbsent(key.bucket(), k -> new CopyOnWriteArrayList<>()).add(entry);
+        }
+
+        void remove(long fixtureId) {
+            IndexedFixture existing = byId.remove(fixtureId);
+            if (existing == null) return;
+            byKey.computeIfPresent(existing.key(), (k, list) -> {
+                list.removeIf(e -> e.fixtureId() == fixtureId);
+                return list.isEmpty() ? null : list;
+            });
+            byBucket.computeIfPresent(existing.key().bucket(), (k, list) -> {
+                list.removeIf(e -> e.fixtureId() == fixtureId);
+                return list.isEmpty() ? null : list;
+            });
+        }
+    }
+}
@@ -4,10 +4,8 @@ package com.AiPortal.service;
 import com.AiPortal.dto.TeamDetailsDto;
 import com.AiPortal.dto.UpcomingFixtureDto;
 import com.AiPortal.entity.Fixture;
-import com.AiPortal.entity.League;
 import com.AiPortal.entity.MatchOdds;
 import com.AiPortal.repository.FixtureRepository;
-import com.AiPortal.repository.LeagueRepository;
 import com.AiPortal.repository.MatchOddsRepository;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -23,9 +21,7 @@ import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects; // NY IMPORT
 import java.util.Optional;
-import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -39,7 +35,7 @@ public class FixtureService {
     private final FootballApiService footballApiService;
     private final ObjectMapper objectMapper;
     private final MatchOddsRepository matchOddsRepository;
-    private final LeagueRepository leagueRepository;
+    private final ReferenceDataCache referenceDataCache;
 
     private static final List<String> FINISHED_STATUSES = Arrays.asList("FT", "AET", "PEN");
 
@@ -48,13 +44,13 @@ public class FixtureService {
             FootballApiService footballApiService,
             ObjectMapper objectMapper,
             MatchOddsRepository matchOddsRepository,
-            LeagueRepository leagueRepository
+            ReferenceDataCache referenceDataCache
     ) {
         this.fixtureRepository = fixtureRepository;
         this.footballApiService = footballApiService;
         this.objectMapper = objectMapper;
         this.matchOddsRepository = matchOddsRepository;
-        this.leagueRepository = leagueRepository;
+        this.referenceDataCache = referenceDataCache;
     }
 
     public List<UpcomingFixtureDto> getUpcomingFixturesWithOdds() {
@@ -68,20 +64,13 @@ public class FixtureService {
         Map<Long, List<MatchOdds>> oddsByFixtureId = matchOddsRepository.findAllByFixtureIdIn(fixtureIds)
                 .stream().collect(Collectors.groupingBy(mo -> mo.getFixture().getId()));
 
-        Set<Integer> leagueIds = upcomingFixtures.stream()
-                .map(Fixture::getLeagueId)
-                .filter(Objects::nonNull) // KORRIGERING: Håndterer kamper uten leagueId
-                .collect(Collectors.toSet());
-
-        Map<Integer, String> leagueNames = leagueRepository.findAllById(leagueIds).stream()
-                .collect(Collectors.toMap(League::getId, League::getName));
+        ReferenceDataCache.Snapshot referenceData = referenceDataCache.current();
 
         return upcomingFixtures.stream()
                 .map(fixture -> new UpcomingFixtureDto(
                         fixture,
                         oddsByFixtureId.getOrDefault(fixture.getId(), List.of()),
-                        leagueNames.getOrDefault(fixture.getLeagueId(), "Ukjent Liga"),
-                        objectMapper // KORRIGERING: Send med riktig antall argumenter
+                        referenceData.leagueName(fixture.getLeagueId(), "Ukjent Liga")
                 ))
                 .collect(Collectors.toList());
     }
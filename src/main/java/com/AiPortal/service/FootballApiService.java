@@ -1,6 +1,7 @@
 // src/main/java/com/AiPortal/service/FootballApiService.java
 package com.AiPortal.service;
 
+import com.AiPortal.util.TokenBucket;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -9,15 +10,27 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.time.LocalDate;
 
 @Service
 public class FootballApiService {
 
     private final WebClient webClient;
+    private final TokenBucket oddsRateLimiter;
+    private final TokenBucket standingsRateLimiter;
+    private final ApiResponseArchive archive;
     private static final Duration API_TIMEOUT = Duration.ofSeconds(60); // Økt timeout for potensielt store responser
+    private static final int H2H_LOOKBACK_YEARS = 30;
 
     public FootballApiService(@Value("${rapidapi.key}") String apiKey,
-                              @Value("${rapidapi.host.football}") String apiHost) {
+                              @Value("${rapidapi.host.football}") String apiHost,
+                              @Value("${api-football.odds.rate-limit.per-second:4}") double oddsRequestsPerSecond,
+                              @Value("${api-football.standings.rate-limit.per-second:2}") double standingsRequestsPerSecond,
+                              ApiQuotaTracker quotaTracker,
+                              ApiResponseArchive archive) {
+        this.archive = archive;
+        this.oddsRateLimiter = new TokenBucket(oddsRequestsPerSecond, 4);
+        this.standingsRateLimiter = new TokenBucket(standingsRequestsPerSecond, 2);
 
         final int bufferSize = 16 * 1024 * 1024; // 16MB
         final ExchangeStrategies strategies = ExchangeStrategies.builder()
@@ -31,6 +44,8 @@ public class FootballApiService {
                 .baseUrl("https://" + apiHost + "/v3")
                 .defaultHeader("x-rapidapi-key", apiKey)
                 .defaultHeader("x-rapidapi-host", apiHost)
+                .filter(archive.filter("API_FOOTBALL", strategies))
+                .filter(quotaTracker.filter())
                 .build();
     }
 
@@ -48,14 +63,23 @@ public class FootballApiService {
     }
 
     public Mono<ResponseEntity<String>> getOddsByDate(String date) {
-        return this.webClient.get()
+        return getOddsByDate(date, 1);
+    }
+
+    /**
+     * Henter én side av /odds for en dato. Endepunktet er paginert (se "paging.total" i svaret).
+     * Kallene går gjennom en egen token-bucket, siden en hel uke kan gi mange sider på kort tid.
+     */
+    public Mono<ResponseEntity<String>> getOddsByDate(String date, int page) {
+        return permit(oddsRateLimiter).then(this.webClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/odds")
                         .queryParam("date", date)
+                        .queryParam("page", page)
                         .build())
                 .retrieve()
                 .toEntity(String.class)
-                .timeout(API_TIMEOUT);
+                .timeout(API_TIMEOUT));
     }
 
     public Mono<ResponseEntity<String>> getBookmakers() {
@@ -119,8 +143,11 @@ public class FootballApiService {
                 .timeout(API_TIMEOUT);
     }
 
+    /**
+     * Henter tabellen for en liga/sesong. Ligaene hentes samtidig, så kallene går gjennom en egen token-bucket.
+     */
     public Mono<ResponseEntity<String>> getStandings(String leagueId, String season) {
-        return this.webClient.get()
+        return permit(standingsRateLimiter).then(this.webClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/standings")
                         .queryParam("league", leagueId)
@@ -128,23 +155,31 @@ public class FootballApiService {
                         .build())
                 .retrieve()
                 .toEntity(String.class)
-                .timeout(API_TIMEOUT);
+                .timeout(API_TIMEOUT));
     }
 
     /**
-     * NY METODE: Henter Head-to-Head data for to lag.
+     * Henter alle Head-to-Head-kamper for to lag spilt før en gitt dato.
+     * Med "last" i stedet for et datointervall ville en eldre kamp fått de siste møtene, som kan være spilt etter den.
      * @param teamIds En streng på formatet "teamId1-teamId2".
+     * @param before Dagen kampen spilles; kun møter fra dagene før tas med.
      * @return Et Mono med JSON-svaret.
      */
-    public Mono<ResponseEntity<String>> getHeadToHead(String teamIds) {
+    public Mono<ResponseEntity<String>> getHeadToHead(String teamIds, LocalDate before) {
         return this.webClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/fixtures/headtohead")
                         .queryParam("h2h", teamIds)
-                        .queryParam("last", "10") // Henter de siste 10 H2H-kampene
+                        .queryParam("from", before.minusYears(H2H_LOOKBACK_YEARS).toString())
+                        .queryParam("to", before.minusDays(1).toString())
                         .build())
                 .retrieve()
                 .toEntity(String.class)
                 .timeout(API_TIMEOUT);
     }
-}
\ No newline at end of file
+
+    // I avspillingsmodus kommer svarene fra disk, så det er ingen grunn til å vente på token-bucketen.
+    private Mono<Void> permit(TokenBucket rateLimiter) {
+        return Mono.defer(() -> archive.isReplay() ? Mono.empty() : rateLimiter.acquire());
+    }
+}
@@ -0,0 +1,238 @@
+// src/main/java/com/AiPortal/service/HeadToHeadEngine.java
+package com.AiPortal.service;
+
+import com.AiPortal.entity.Fixture;
+import com.AiPortal.entity.HeadToHeadStats;
+import com.AiPortal.repository.FixtureRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory H2H-motor. Holder alle ferdigspilte kamper gruppert per (uordnet) lagpar, sortert på dato,
+ * slik at {@link HeadToHeadStats} for en kamp kan regnes ut lokalt "per dato" uten API-kall.
+ *
+ * Kun de siste {@value #MAX_MEETINGS} innbyrdes oppgjørene spilt FØR kampen telles med, så statistikken
+ * lekker ikke fremtidige resultater.
+ * Lagpar vi ikke har lokal historikk for slås opp i API-et for møtene før kampdagen; svaret legges inn i
+ * indeksen, og paret regnes som dekket frem til den dagen.
+ */
+@Component
+public class HeadToHeadEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(HeadToHeadEngine.class);
+    private static final Set<String> COMPLETED_STATUSES = Set.of("FT", "AET", "PEN");
+    // Samme vindu som API-et brukte før (last=10), så H2H-tallene ikke avhenger av hvor mye lokal historikk et par har.
+    static final int MAX_MEETINGS = 10;
+
+    private final FixtureRepository fixtureRepository;
+
+    private final Map<Long, PairHistory> pairs = new ConcurrentHashMap<>();
+    // Lagpar -> starten av dagen API-et er spurt om møter før (epoch-sekund). Eldre møter er da så komplette som vi kan få dem.
+    private final Map<Long, Long> apiCoveredUntil = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+
+    private final AtomicLong localComputations = new AtomicLong();
+    private final AtomicLong pairsWithoutHistory = new AtomicLong();
+    private final AtomicLong apiResultsRegistered = new AtomicLong();
+
+    public HeadToHeadEngine(FixtureRepository fixtureRepository) {
+        this.fixtureRepository = fixtureRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        ensureLoaded();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+            int count = 0;
+            for (Object[] row : fixtureRepository.findCompletedResultRows()) {
+                add(((Number) row[0]).longValue(), ((Number) row[1]).intValue(), ((Number) row[2]).intValue(),
+                        (Instant) row[3], ((Number) row[4]).intValue(), ((Number) row[5]).intValue());
+                count++;
+            }
+            loaded = true;
+            log.info("---[H2H ENGINE] Lastet {} ferdigspilte kamper fordelt på {} lagpar.", count, pairs.size());
+        }
+    }
+
+    /**
+     * Legger inn (eller oppdaterer) ferdigspilte kamper etter at de er lagret. Andre kamper ignoreres.
+     */
+    public void registerAll(Collection<Fixture> fixtures) {
+        for (Fixture f : fixtures) {
+            if (f.getId() == null || f.getHomeTeamId() == null || f.getAwayTeamId() == null || f.getDate() == null
+                    || f.getGoalsHome() == null || f.getGoalsAway() == null || !COMPLETED_STATUSES.contains(f.getStatus())) {
+                continue;
+            }
+            add(f.getId(), f.getHomeTeamId(), f.getAwayTeamId(), f.getDate(), f.getGoalsHome(), f.getGoalsAway());
+        }
+    }
+
+    /**
+     * Legger inn et vellykket svar fra /fixtures/headtohead (møter før {@code contextFixture}s kampdag) og markerer
+     * paret som dekket frem til den dagen. Et tomt svar betyr da at lagene ikke har møttes før.
+     */
+    public void registerApiResponse(Fixture contextFixture, JsonNode h2hFixtures) {
+        if (h2hFixtures != null && h2hFixtures.isArray()) {
+            for (JsonNode h2h : h2hFixtures) {
+                JsonNode fixtureNode = h2h.path("fixture");
+                JsonNode goals = h2h.path("goals");
+                String dateString = fixtureNode.path("date").asText();
+                if (!COMPLETED_STATUSES.contains(fixtureNode.path("status").path("short").asText())
+                        || dateString.isEmpty() || goals.path("home").isNull() || goals.path("away").isNull()) {
+                    continue;
+                }
+                add(fixtureNode.path("id").asLong(), h2h.path("teams").path("home").path("id").asInt(),
+                        h2h.path("teams").path("away").path("id").asInt(), OffsetDateTime.parse(dateString).toInstant(),
+                        goals.path("home").asInt(), goals.path("away").asInt());
+                apiResultsRegistered.incrementAndGet();
+            }
+        }
+        apiCoveredUntil.merge(pairKey(contextFixture.getHomeTeamId(), contextFixture.getAwayTeamId()),
+                startOfDay(contextFixture.getDate()), Math::max);
+    }
+
+    /**
+     * Regner ut H2H for kampen basert på de siste {@value #MAX_MEETINGS} innbyrdes oppgjørene før kampstart,
+     * sett fra hjemmelagets side.
+     *
+     * @return Tom hvis lagene ikke har møttes før (ifølge lokal historikk).
+     */
+    public Optional<HeadToHeadStats> computeAsOf(Fixture contextFixture) {
+        ensureLoaded();
+        Integer homeId = contextFixture.getHomeTeamId();
+        Integer awayId = contextFixture.getAwayTeamId();
+        if (homeId == null || awayId == null || contextFixture.getDate() == null) return Optional.empty();
+
+        PairHistory history = pairs.get(pairKey(homeId, awayId));
+        int[] summary = history != null ? history.summarizeBefore(contextFixture.getDate().getEpochSecond(), homeId) : null;
+        if (summary == null || summary[0] == 0) {
+            pairsWithoutHistory.incrementAndGet();
+            return Optional.empty();
+        }
+        localComputations.incrementAndGet();
+
+        HeadToHeadStats stats = emptyStats(contextFixture);
+        stats.setMatchesPlayed(summary[0]);
+        stats.setTeam1Wins(summary[1]);
+        stats.setTeam2Wins(summary[2]);
+        stats.setDraws(summary[3]);
+        stats.setAvgTotalGoals((double) summary[4] / summary[0]);
+        return Optional.of(stats);
+    }
+
+    /**
+     * Sant hvis API-et bør spørres: paret er ikke slått opp for møter frem til kampdagen. Kalles når lokal historikk mangler.
+     */
+    public boolean needsApiLookup(Fixture contextFixture) {
+        if (contextFixture.getHomeTeamId() == null || contextFixture.getAwayTeamId() == null || contextFixture.getDate() == null) {
+            return false;
+        }
+        Long coveredUntil = apiCoveredUntil.get(pairKey(contextFixture.getHomeTeamId(), contextFixture.getAwayTeamId()));
+        return coveredUntil == null || coveredUntil < startOfDay(contextFixture.getDate());
+    }
+
+    private static long startOfDay(Instant date) {
+        return date.atOffset(ZoneOffset.UTC).toLocalDate().atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+    }
+
+    public HeadToHeadStats emptyStats(Fixture contextFixture) {
+        HeadToHeadStats stats = new HeadToHeadStats();
+        stats.setFixture(contextFixture);
+        stats.setTeam1Id(contextFixture.getHomeTeamId());
+        stats.setTeam2Id(contextFixture.getAwayTeamId());
+        stats.setMatchesPlayed(0);
+        stats.setTeam1Wins(0);
+        stats.setTeam2Wins(0);
+        stats.setDraws(0);
+        stats.setAvgTotalGoals(0.0);
+        return stats;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pairs", pairs.size());
+        stats.put("apiCompletePairs", apiCoveredUntil.size());
+        stats.put("localComputations", localComputations.get());
+        stats.put("pairsWithoutHistory", pairsWithoutHistory.get());
+        stats.put("apiResultsRegistered", apiResultsRegistered.get());
+        return stats;
+    }
+
+    private void add(long fixtureId, int homeTeamId, int awayTeamId, Instant date, int goalsHome, int goalsAway) {
+        if (homeTeamId == 0 || awayTeamId == 0 || homeTeamId == awayTeamId) return;
+        pairs.computeIfAbsent(pairKey(homeTeamId, awayTeamId), k -> new PairHistory())
+                .put(new Result(fixtureId, date.getEpochSecond(), homeTeamId, goalsHome, goalsAway));
+    }
+
+    static long pairKey(int teamA, int teamB) {
+        int low = Math.min(teamA, teamB);
+        int high = Math.max(teamA, teamB);
+        return ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+
+    private record Result(long fixtureId, long epochSecond, int homeTeamId, int goalsHome, int goalsAway) {}
+
+    /**
+     * Resultatene for ett lagpar, sortert stigende på dato. Typisk bare en håndfull per par.
+     */
+    private static final class PairHistory {
+        private final List<Result> results = new ArrayList<>(4);
+
+        synchronized void put(Result result) {
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i).fixtureId() == result.fixtureId()) {
+                    results.remove(i);
+                    break;
+                }
+            }
+            int index = 0;
+            while (index < results.size() && results.get(index).epochSecond() <= result.epochSecond()) index++;
+            results.add(index, result);
+        }
+
+        /**
+         * @return [kamper, seire team1, seire team2, uavgjort, totalt antall mål] for de siste
+         *         {@value HeadToHeadEngine#MAX_MEETINGS} kampene før gitt tidspunkt.
+         */
+        synchronized int[] summarizeBefore(long epochSecond, int team1Id) {
+            int[] summary = new int[5];
+            int end = 0;
+            while (end < results.size() && results.get(end).epochSecond() < epochSecond) end++;
+            for (int i = Math.max(0, end - MAX_MEETINGS); i < end; i++) {
+                Result r = results.get(i);
+                summary[0]++;
+                if (r.goalsHome() == r.goalsAway()) {
+                    summary[3]++;
+                } else {
+                    boolean homeWon = r.goalsHome() > r.goalsAway();
+                    boolean team1WasHome = r.homeTeamId() == team1Id;
+                    if (homeWon == team1WasHome) summary[1]++; else summary[2]++;
+                }
+                summary[4] += r.goalsHome() + r.goalsAway();
+            }
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+// src/main/java/com/AiPortal/service/HistoricalBulkLoader.java
+package com.AiPortal.service;
+
+import com.AiPortal.entity.Injury;
+import com.AiPortal.entity.MatchStatistics;
+import com.AiPortal.entity.PlayerMatchStatistics;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bulk-innlasting av spiller-/lagstatistikk og skader under historisk innsamling.
+ *
+ * Entitetene bruker IDENTITY-nøkler, så Hibernate kan ikke batche INSERT og saveAll blir én setning per rad.
+ * På PostgreSQL strømmes radene i stedet som CSV via COPY inn i en midlertidig staging-tabell, og flettes
+ * inn i måltabellen med én INSERT ... SELECT som hopper over rader som allerede finnes (samme naturlige nøkkel).
+ * På andre databaser hentes eksisterende nøkler for kampene først, og resten skrives med INSERT med mange
+ * rader per setning.
+ *
+ * Tabellene har ingen unik nøkkel, så sjekken mot databasen her er det eneste vernet mot duplikater når flere
+ * noder jobber i chunk-køen. Bloom-filteret i {@link DedupeService} ser bare denne nodens egne skrivinger.
+ */
+@Service
+public class HistoricalBulkLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoricalBulkLoader.class);
+    private static final int COPY_FLUSH_BYTES = 64 * 1024;
+    private static final int MAX_PARAMETERS_PER_INSERT = 30000;
+    private static final int FIXTURES_PER_KEY_QUERY = 1000;
+
+    static final BulkTable<PlayerMatchStatistics> PLAYER_MATCH_STATISTICS = new BulkTable<>(
+            "player_match_statistics",
+            List.of("fixture_id", "team_id", "player_id", "minutes_played", "rating", "captain", "substitute",
+                    "shots_total", "shots_on_goal", "goals_total", "goals_conceded", "assists", "saves",
+                    "passes_total", "passes_key", "passes_accuracy", "tackles_total", "tackles_blocks", "tackles_interceptions",
+                    "dribbles_attempts", "dribbles_success", "duels_total", "duels_won", "fouls_drawn", "fouls_committed",
+                    "cards_yellow", "cards_red", "penalty_won", "penalty_committed", "penalty_scored", "penalty_missed", "penalty_saved"),
+            List.of("fixture_id", "player_id"),
+            s -> new Object[]{s.getFixtureId(), s.getTeamId(), s.getPlayerId(), s.getMinutesPlayed(), s.getRating(), s.isCaptain(), s.isSubstitute(),
+                    s.getShotsTotal(), s.getShotsOnGoal(), s.getGoalsTotal(), s.getGoalsConceded(), s.getAssists(), s.getSaves(),
+                    s.getPassesTotal(), s.getPassesKey(), s.getPassesAccuracy(), s.getTacklesTotal(), s.getTacklesBlocks(), s.getTacklesInterceptions(),
+                    s.getDribblesAttempts(), s.getDribblesSuccess(), s.getDuelsTotal(), s.getDuelsWon(), s.getFoulsDrawn(), s.getFoulsCommitted(),
+                    s.getCardsYellow(), s.getCardsRed(), s.getPenaltyWon(), s.getPenaltyCommitted(), s.getPenaltyScored(), s.getPenaltyMissed(), s.getPenaltySaved()});
+
+    static final BulkTable<MatchStatistics> MATCH_STATISTICS = new BulkTable<>(
+            "match_statistics",
+            List.of("fixture_id", "team_id", "shots_on_goal", "shots_off_goal", "total_shots", "blocked_shots",
+                    "shots_inside_box", "shots_outside_box", "fouls", "corner_kicks", "offsides", "ball_possession",
+                    "yellow_cards", "red_cards", "goalkeeper_saves", "total_passes", "passes_accurate", "passes_percentage"),
+            List.of("fixture_id", "team_id"),
+            s -> new Object[]{s.getFixtureId(), s.getTeamId(), s.getShotsOnGoal(), s.getShotsOffGoal(), s.getTotalShots(), s.getBlockedShots(),
+                    s.getShotsInsideBox(), s.getShotsOutsideBox(), s.getFouls(), s.getCornerKicks(), s.getOffsides(), s.getBallPossession(),
+                    s.getYellowCards(), s.getRedCards(), s.getGoalkeeperSaves(), s.getTotalPasses(), s.getPassesAccurate(), s.getPassesPercentage()});
+
+    static final BulkTable<Injury> INJURIES = new BulkTable<>(
+            "injuries",
+            List.of("fixture_id", "league_id", "season", "team_id", "player_id", "player_name", "type", "reason"),
+            List.of("fixture_id", "player_id"),
+            i -> new Object[]{i.getFixtureId(), i.getLeagueId(), i.getSeason(), i.getTeamId(), i.getPlayerId(),
+                    i.getPlayerName(), i.getType(), i.getReason()});
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+    private final AtomicLong rowsCopied = new AtomicLong();
+    private final AtomicLong rowsInserted = new AtomicLong();
+    private final AtomicLong copyFallbacks = new AtomicLong();
+
+    public HistoricalBulkLoader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void loadPlayerMatchStatistics(Collection<PlayerMatchStatistics> rows) {
+        load(PLAYER_MATCH_STATISTICS, rows);
+    }
+
+    public void loadMatchStatistics(Collection<MatchStatistics> rows) {
+        load(MATCH_STATISTICS, rows);
+    }
+
+    public void loadInjuries(Collection<Injury> rows) {
+        load(INJURIES, rows);
+    }
+
+    /**
+     * Skriver radene. Kjøres på samme connection (og dermed transaksjon) som kalleren, hvis en finnes.
+     */
+    <T> void load(BulkTable<T> table, Collection<T> rows) {
+        if (rows.isEmpty()) return;
+        if (isPostgres()) {
+            try {
+                long inserted = jdbcTemplate.execute((ConnectionCallback<Long>) c -> copyAndMerge(c, table, rows));
+                rowsCopied.addAndGet(rows.size());
+                rowsInserted.addAndGet(inserted);
+                return;
+            } catch (Exception e) {
+                // F.eks. en connection-pool som ikke lar seg pakke ut til PgConnection.
+                copyFallbacks.incrementAndGet();
+                log.warn("---[BULK LOADER] COPY feilet for {}, faller tilbake til batch-INSERT: {}", table.name(), e.getMessage());
+            }
+        }
+        rowsInserted.addAndGet(jdbcTemplate.execute((ConnectionCallback<Long>) c -> multiRowInsert(c, table, rows)));
+    }
+
+    private <T> long copyAndMerge(Connection connection, BulkTable<T> table, Collection<T> rows) throws SQLException {
+        String columns = String.join(", ", table.columns());
+        String staging = "stage_" + table.name();
+        // Uten transaksjon hos kalleren styrer vi vår egen; ellers brukes et savepoint slik at
+        // en feilet COPY ikke ødelegger kallerens transaksjon før fallback-stien kjøres.
+        boolean ownTransaction = connection.getAutoCommit();
+        if (ownTransaction) connection.setAutoCommit(false);
+        Savepoint savepoint = ownTransaction ? null : connection.setSavepoint();
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TEMP TABLE IF NOT EXISTS " + staging + " AS SELECT " + columns + " FROM " + table.name() + " WITH NO DATA");
+                statement.execute("TRUNCATE " + staging);
+            }
+
+            CopyManager copyManager = new CopyManager(connection.unwrap(BaseConnection.class));
+            CopyIn copyIn = copyManager.copyIn("COPY " + staging + " (" + columns + ") FROM STDIN WITH (FORMAT csv)");
+            try {
+                StringBuilder csv = new StringBuilder(COPY_FLUSH_BYTES + 1024);
+                for (T row : rows) {
+                    appendCsvLine(csv, table.values().apply(row));
+                    if (csv.length() >= COPY_FLUSH_BYTES) {
+                        writeToCopy(copyIn, csv);
+                    }
+                }
+                writeToCopy(copyIn, csv);
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) copyIn.cancelCopy();
+            }
+
+            String keyMatch = table.keyColumns().stream()
+                    .map(k -> "t." + k + " = s." + k)
+                    .reduce((a, b) -> a + " AND " + b).orElseThrow();
+            String merge = "INSERT INTO " + table.name() + " (" + columns + ") " +
+                    "SELECT DISTINCT ON (" + String.join(", ", table.keyColumns()) + ") " + columns + " FROM " + staging + " s " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM " + table.name() + " t WHERE " + keyMatch + ")";
+            long inserted;
+            try (Statement statement = connection.createStatement()) {
+                inserted = statement.executeUpdate(merge);
+                statement.execute("TRUNCATE " + staging);
+            }
+            if (ownTransaction) connection.commit(); else connection.releaseSavepoint(savepoint);
+            return inserted;
+        } catch (SQLException | RuntimeException e) {
+            if (ownTransaction) connection.rollback(); else connection.rollback(savepoint);
+            throw e;
+        } finally {
+            if (ownTransaction) connection.setAutoCommit(true);
+        }
+    }
+
+    private static void writeToCopy(CopyIn copyIn, StringBuilder csv) throws SQLException {
+        if (csv.isEmpty()) return;
+        byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        csv.setLength(0);
+    }
+
+    /**
+     * CSV etter PostgreSQLs regler: tom, usitert verdi er NULL, tekst siteres alltid.
+     */
+    private static void appendCsvLine(StringBuilder csv, Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) csv.append(',');
+            Object value = values[i];
+            if (value == null) continue;
+            if (value instanceof String text) {
+                csv.append('"').append(text.replace("\"", "\"\"")).append('"');
+            } else {
+                csv.append(value);
+            }
+        }
+        csv.append('\n');
+    }
+
+    private <T> long multiRowInsert(Connection connection, BulkTable<T> table, Collection<T> rows) throws SQLException {
+        int columnCount = table.columns().size();
+        int rowsPerStatement = Math.max(1, MAX_PARAMETERS_PER_INSERT / columnCount);
+        String rowPlaceholder = "(" + String.join(", ", Collections.nCopies(columnCount, "?")) + ")";
+        List<T> all = withoutExisting(connection, table, rows);
+        long inserted = 0;
+        for (int from = 0; from < all.size(); from += rowsPerStatement) {
+            List<T> batch = all.subList(from, Math.min(all.size(), from + rowsPerStatement));
+            String sql = "INSERT INTO " + table.name() + " (" + String.join(", ", table.columns()) + ") VALUES " +
+                    String.join(", ", Collections.nCopies(batch.size(), rowPlaceholder));
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                int parameter = 1;
+                for (T row : batch) {
+                    for (Object value : table.values().apply(row)) {
+                        ps.setObject(parameter++, value);
+                    }
+                }
+                inserted += ps.executeUpdate();
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Radene hvis naturlige nøkkel ikke finnes i tabellen fra før, og kun første rad per nøkkel.
+     * Alle nøklene starter med fixture_id, så eksisterende nøkler hentes per gruppe av kamper.
+     */
+    private <T> List<T> withoutExisting(Connection connection, BulkTable<T> table, Collection<T> rows) throws SQLException {
+        int[] keyIndexes = table.keyColumns().stream().mapToInt(k -> table.columns().indexOf(k)).toArray();
+        int fixtureIdIndex = table.columns().indexOf("fixture_id");
+        List<Object> fixtureIds = rows.stream().map(row -> table.values().apply(row)[fixtureIdIndex]).distinct().toList();
+
+        Set<String> existingKeys = new HashSet<>();
+        for (int from = 0; from < fixtureIds.size(); from += FIXTURES_PER_KEY_QUERY) {
+            List<Object> batch = fixtureIds.subList(from, Math.min(fixtureIds.size(), from + FIXTURES_PER_KEY_QUERY));
+            String sql = "SELECT " + String.join(", ", table.keyColumns()) + " FROM " + table.name() +
+                    " WHERE fixture_id IN (" + String.join(", ", Collections.nCopies(batch.size(), "?")) + ")";
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (int i = 0; i < batch.size(); i++) ps.setObject(i + 1, batch.get(i));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        StringBuilder key = new StringBuilder();
+                        for (int i = 1; i <= keyIndexes.length; i++) key.append(rs.getLong(i)).append(':');
+                        existingKeys.add(key.toString());
+                    }
+                }
+            }
+        }
+
+        List<T> newRows = new ArrayList<>(rows.size());
+        for (T row : rows) {
+            Object[] values = table.values().apply(row);
+            StringBuilder key = new StringBuilder();
+            for (int index : keyIndexes) key.append(((Number) values[index]).longValue()).append(':');
+            if (existingKeys.add(key.toString())) newRows.add(row);
+        }
+        return newRows;
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            postgres = product != null && product.toLowerCase().contains("postgres");
+        }
+        return postgres;
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("rowsCopied", rowsCopied.get());
+        stats.put("rowsInserted", rowsInserted.get());
+        stats.put("copyFallbacks", copyFallbacks.get());
+        return stats;
+    }
+
+    /**
+     * Beskrivelse av en måltabell: kolonner (uten id), naturlig nøkkel for duplikatsjekk, og uttrekk av verdier.
+     */
+    record BulkTable<T>(String name, List<String> columns, List<String> keyColumns, Function<T, Object[]> values) {}
+}
@@ -3,26 +3,36 @@ package com.AiPortal.service;
 
 import com.AiPortal.entity.*;
 import com.AiPortal.repository.*;
+import com.AiPortal.util.LongOpenHashSet;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Duration; // <-- DEN MANGLENDE IMPORTEN ER NÅ LAGT TIL HER
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 @Service
-public class HistoricalDataWorker {
+public class HistoricalDataWorker implements ChunkWorkerPool.ChunkPipeline<HistoricalDataWorker.FetchedChunk> {
 
     private static final Logger log = LoggerFactory.getLogger(HistoricalDataWorker.class);
+    private static final Duration FETCH_TIMEOUT = Duration.ofMinutes(2);
+    private static final Set<String> FINISHED_STATUSES = Set.of("FT", "AET", "PEN");
 
     private final FootballApiService footballApiService;
     private final ObjectMapper objectMapper;
@@ -32,6 +42,11 @@ public class HistoricalDataWorker {
     private final MatchStatisticsRepository matchStatsRepository;
     private final InjuryRepository injuryRepository;
     private final HeadToHeadStatsRepository h2hStatsRepository;
+    private final FixtureMatchIndex fixtureMatchIndex;
+    private final HeadToHeadEngine headToHeadEngine;
+    private final HistoricalBulkLoader historicalBulkLoader;
+    private final StandingsEngine standingsEngine;
+    private final DedupeService dedupeService;
 
     @Autowired
     public HistoricalDataWorker(
@@ -42,7 +57,12 @@ public class HistoricalDataWorker {
             FixtureRepository fixtureRepository,
             MatchStatisticsRepository matchStatsRepository,
             InjuryRepository injuryRepository,
-            HeadToHeadStatsRepository h2hStatsRepository
+            HeadToHeadStatsRepository h2hStatsRepository,
+            FixtureMatchIndex fixtureMatchIndex,
+            HeadToHeadEngine headToHeadEngine,
+            HistoricalBulkLoader historicalBulkLoader,
+            StandingsEngine standingsEngine,
+            DedupeService dedupeService
     ) {
         this.footballApiService = footballApiService;
         this.objectMapper = objectMapper;
@@ -52,30 +72,43 @@ public class HistoricalDataWorker {
         this.matchStatsRepository = matchStatsRepository;
         this.injuryRepository = injuryRepository;
         this.h2hStatsRepository = h2hStatsRepository;
+        this.fixtureMatchIndex = fixtureMatchIndex;
+        this.headToHeadEngine = headToHeadEngine;
+        this.historicalBulkLoader = historicalBulkLoader;
+        this.standingsEngine = standingsEngine;
+        this.dedupeService = dedupeService;
     }
 
-    public void processChunk(PendingFixtureChunk chunk) {
+    /**
+     * Steg 1 (henting): kamper og skader for chunken hentes parallelt, og JSON-en parses på boundedElastic.
+     * Holder ingen tråd mens kallene pågår, så neste chunk kan hentes mens forrige lagres.
+     */
+    @Override
+    public Mono<FetchedChunk> fetch(PendingFixtureChunk chunk) {
         String idString = chunk.getFixtureIds();
-        log.info("---[WORKER v3 Async] Starter prosessering av chunk ID: {} (Kilde: {}) ---", chunk.getId(), chunk.getSourceIdentifier());
+        log.info("---[WORKER v3 Async] Henter chunk ID: {} (Kilde: {}) ---", chunk.getId(), chunk.getSourceIdentifier());
+        return Mono.zip(footballApiService.getFixturesByIds(idString), footballApiService.getInjuriesByIds(idString))
+                .publishOn(Schedulers.boundedElastic())
+                .map(responses -> new FetchedChunk(responseArray(responses.getT1()), responseArray(responses.getT2())))
+                .timeout(FETCH_TIMEOUT);
+    }
 
+    /**
+     * Steg 2 (lagring): skriver kamper, statistikk, skader og H2H for en ferdig hentet chunk.
+     */
+    @Override
+    public void persist(PendingFixtureChunk chunk, FetchedChunk fetched) {
+        log.info("---[WORKER v3 Async] Lagrer chunk ID: {} (Kilde: {}) ---", chunk.getId(), chunk.getSourceIdentifier());
         try {
-            ResponseEntity<String> detailsResponse = footballApiService.getFixturesByIds(idString).block();
-            if (detailsResponse != null && detailsResponse.getBody() != null) {
-                JsonNode bulkFixtures = objectMapper.readTree(detailsResponse.getBody()).path("response");
-                saveAllDataFromFixtures(bulkFixtures);
-            }
-
-            ResponseEntity<String> injuriesResponse = footballApiService.getInjuriesByIds(idString).block();
-            if (injuriesResponse != null && injuriesResponse.getBody() != null) {
-                JsonNode bulkInjuries = objectMapper.readTree(injuriesResponse.getBody()).path("response");
-                saveAllInjuries(bulkInjuries);
-            }
+            saveAllDataFromFixtures(fetched.fixtures());
+            saveAllInjuries(fetched.injuries());
 
-            List<Long> fixtureIdsInChunk = Arrays.stream(idString.split("-"))
+            List<Long> fixtureIdsInChunk = Arrays.stream(chunk.getFixtureIds().split("-"))
                     .map(Long::parseLong)
                     .collect(Collectors.toList());
             List<Fixture> fixturesInChunk = fixtureRepository.findAllById(fixtureIdsInChunk);
             saveHeadToHeadData(fixturesInChunk);
+            markFinishedFixturesFetched(fixturesInChunk);
 
             chunk.setStatus(PendingFixtureChunk.ChunkStatus.COMPLETED);
 
@@ -86,6 +119,31 @@ public class HistoricalDataWorker {
         }
     }
 
+    /**
+     * Kamper som var ferdigspilt da detaljene ble hentet regnes som ferdige av {@link BackfillPlanner}.
+     */
+    private void markFinishedFixturesFetched(List<Fixture> fixtures) {
+        List<Long> finished = fixtures.stream()
+                .filter(f -> FINISHED_STATUSES.contains(f.getStatus()) && f.getGoalsHome() != null)
+                .map(Fixture::getId)
+                .toList();
+        if (!finished.isEmpty()) fixtureRepository.markDetailsFetched(finished, Instant.now());
+    }
+
+    private JsonNode responseArray(ResponseEntity<String> response) {
+        if (response == null || response.getBody() == null) return MissingNode.getInstance();
+        try {
+            return objectMapper.readTree(response.getBody()).path("response");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Resultatet av hentesteget: "response"-arrayene fra /fixtures og /injuries.
+     */
+    public record FetchedChunk(JsonNode fixtures, JsonNode injuries) {}
+
     @Transactional
     public void saveAllDataFromFixtures(JsonNode bulkFixtures) {
         List<Player> newPlayersToSave = new ArrayList<>();
@@ -99,31 +157,46 @@ public class HistoricalDataWorker {
 
         if (fixtureIdsInChunk.isEmpty()) return;
 
-        Set<Integer> playerIdsInChunk = extractAllPlayerIds(bulkFixtures);
+        // Kandidatnøkler for chunken; kun de DedupeService ikke kan avvise slås opp i databasen.
+        List<Long> playerIdsInChunk = new ArrayList<>();
+        List<Long> playerMatchKeysInChunk = new ArrayList<>();
+        List<Long> teamMatchKeysInChunk = new ArrayList<>();
+        for (JsonNode fixtureNode : bulkFixtures) {
+            long fixtureId = fixtureNode.path("fixture").path("id").asLong();
+            for (JsonNode teamStatsNode : fixtureNode.path("statistics")) {
+                teamMatchKeysInChunk.add(LongOpenHashSet.pack(fixtureId, teamStatsNode.path("team").path("id").asInt()));
+            }
+            for (JsonNode teamPlayersNode : fixtureNode.path("players")) {
+                for (JsonNode playerPerformanceNode : teamPlayersNode.path("players")) {
+                    int playerId = playerPerformanceNode.path("player").path("id").asInt();
+                    if (playerId == 0) continue;
+                    playerIdsInChunk.add((long) playerId);
+                    playerMatchKeysInChunk.add(LongOpenHashSet.pack(fixtureId, playerId));
+                }
+            }
+        }
 
         Map<Long, Fixture> existingFixturesMap = fixtureRepository.findAllById(fixtureIdsInChunk).stream()
                 .collect(Collectors.toMap(Fixture::getId, Function.identity()));
 
-        Set<Integer> existingPlayerIds = new HashSet<>(playerRepository.findAllById(playerIdsInChunk)
-                .stream().map(Player::getId).collect(Collectors.toSet()));
-
-        Set<String> existingPlayerMatchKeys = playerMatchStatsRepository.findAllByFixtureIdIn(fixtureIdsInChunk)
-                .stream().map(pms -> pms.getFixtureId() + ":" + pms.getPlayerId())
-                .collect(Collectors.toSet());
-
-        Set<String> existingTeamMatchKeys = matchStatsRepository.findAllByFixtureIdIn(fixtureIdsInChunk)
-                .stream().map(ms -> ms.getFixtureId() + ":" + ms.getTeamId())
-                .collect(Collectors.toSet());
+        // Duplikatsjekk på pakkede long-nøkler (fixture-ID << 32 | spiller-/lag-ID) i primitive sett,
+        // i stedet for en ny String per spillerprestasjon.
+        LongOpenHashSet existingPlayerIds = dedupeService.existing(DedupeService.KeySpace.PLAYERS, playerIdsInChunk,
+                batch -> playerRepository.findExistingIds(batch.stream().map(Long::intValue).toList()).stream()
+                        .map(Integer::longValue).toList());
+        LongOpenHashSet existingPlayerMatchKeys = dedupeService.existing(DedupeService.KeySpace.PLAYER_MATCH_STATISTICS, playerMatchKeysInChunk,
+                batch -> packKeys(playerMatchStatsRepository.findKeysByFixtureIdIn(fixtureIdsOf(batch))));
+        LongOpenHashSet existingTeamMatchKeys = dedupeService.existing(DedupeService.KeySpace.MATCH_STATISTICS, teamMatchKeysInChunk,
+                batch -> packKeys(matchStatsRepository.findKeysByFixtureIdIn(fixtureIdsOf(batch))));
 
         for (JsonNode fixtureNode : bulkFixtures) {
             fixturesToSave.add(createOrUpdateFixtureFromJson(fixtureNode, existingFixturesMap));
+            long fixtureId = fixtureNode.path("fixture").path("id").asLong();
 
             for (JsonNode teamStatsNode : fixtureNode.path("statistics")) {
-                long fixtureId = fixtureNode.path("fixture").path("id").asLong();
                 int teamId = teamStatsNode.path("team").path("id").asInt();
-                if (!existingTeamMatchKeys.contains(fixtureId + ":" + teamId)) {
+                if (existingTeamMatchKeys.add(LongOpenHashSet.pack(fixtureId, teamId))) {
                     newTeamStatsToSave.add(createMatchStatistics(teamStatsNode, fixtureId, teamId));
-                    existingTeamMatchKeys.add(fixtureId + ":" + teamId);
                 }
             }
 
@@ -132,116 +205,135 @@ public class HistoricalDataWorker {
                 for (JsonNode playerPerformanceNode : teamPlayersNode.path("players")) {
                     JsonNode playerInfoNode = playerPerformanceNode.path("player");
                     int playerId = playerInfoNode.path("id").asInt();
-                    long fixtureId = fixtureNode.path("fixture").path("id").asLong();
+                    if (playerId == 0) continue;
 
-                    if (playerId != 0 && !existingPlayerIds.contains(playerId)) {
+                    if (existingPlayerIds.add(playerId)) {
                         newPlayersToSave.add(createPlayer(playerInfoNode));
-                        existingPlayerIds.add(playerId);
                     }
 
-                    if (playerId != 0 && !existingPlayerMatchKeys.contains(fixtureId + ":" + playerId)) {
+                    long playerMatchKey = LongOpenHashSet.pack(fixtureId, playerId);
+                    if (!existingPlayerMatchKeys.contains(playerMatchKey)) {
                         JsonNode statsNode = playerPerformanceNode.path("statistics").get(0);
                         if (statsNode != null && !statsNode.isMissingNode()) {
                             newPlayerStatsToSave.add(createPlayerMatchStatistics(statsNode, fixtureId, teamId, playerId));
-                            existingPlayerMatchKeys.add(fixtureId + ":" + playerId);
+                            existingPlayerMatchKeys.add(playerMatchKey);
                         }
                     }
                 }
             }
         }
 
-        if (!fixturesToSave.isEmpty()) fixtureRepository.saveAll(fixturesToSave);
+        if (!fixturesToSave.isEmpty()) {
+            List<Fixture> savedFixtures = fixtureRepository.saveAll(fixturesToSave);
+            fixtureMatchIndex.registerAll(savedFixtures);
+            headToHeadEngine.registerAll(savedFixtures);
+            standingsEngine.registerAll(savedFixtures);
+        }
         if (!newPlayersToSave.isEmpty()) playerRepository.saveAll(newPlayersToSave);
-        if (!newTeamStatsToSave.isEmpty()) matchStatsRepository.saveAll(newTeamStatsToSave);
-        if (!newPlayerStatsToSave.isEmpty()) playerMatchStatsRepository.saveAll(newPlayerStatsToSave);
+        historicalBulkLoader.loadMatchStatistics(newTeamStatsToSave);
+        historicalBulkLoader.loadPlayerMatchStatistics(newPlayerStatsToSave);
+        dedupeService.record(DedupeService.KeySpace.PLAYERS, newPlayersToSave.stream().map(p -> p.getId().longValue()).toList());
+        dedupeService.record(DedupeService.KeySpace.MATCH_STATISTICS, newTeamStatsToSave.stream()
+                .map(ms -> LongOpenHashSet.pack(ms.getFixtureId(), ms.getTeamId())).toList());
+        dedupeService.record(DedupeService.KeySpace.PLAYER_MATCH_STATISTICS, newPlayerStatsToSave.stream()
+                .map(pms -> LongOpenHashSet.pack(pms.getFixtureId(), pms.getPlayerId())).toList());
     }
 
     @Transactional
     public void saveAllInjuries(JsonNode bulkInjuries) {
+        List<Long> injuryKeys = new ArrayList<>();
+        for (JsonNode injuryNode : bulkInjuries) {
+            int playerId = injuryNode.path("player").path("id").asInt();
+            if (playerId != 0) injuryKeys.add(LongOpenHashSet.pack(injuryNode.path("fixture").path("id").asLong(), playerId));
+        }
+        if (injuryKeys.isEmpty()) return;
+
+        LongOpenHashSet existingInjuryKeys = dedupeService.existing(DedupeService.KeySpace.INJURIES, injuryKeys,
+                batch -> packKeys(injuryRepository.findKeysByFixtureIdIn(fixtureIdsOf(batch))));
+
         List<Injury> newInjuriesToSave = new ArrayList<>();
         for (JsonNode injuryNode : bulkInjuries) {
             long fixtureId = injuryNode.path("fixture").path("id").asLong();
             int playerId = injuryNode.path("player").path("id").asInt();
-            if (playerId != 0 && !injuryRepository.existsByFixtureIdAndPlayerId(fixtureId, playerId)) {
+            if (playerId != 0 && existingInjuryKeys.add(LongOpenHashSet.pack(fixtureId, playerId))) {
                 newInjuriesToSave.add(createInjury(injuryNode));
             }
         }
-        if (!newInjuriesToSave.isEmpty()) injuryRepository.saveAll(newInjuriesToSave);
+        historicalBulkLoader.loadInjuries(newInjuriesToSave);
+        dedupeService.record(DedupeService.KeySpace.INJURIES, newInjuriesToSave.stream()
+                .map(i -> LongOpenHashSet.pack(i.getFixtureId(), i.getPlayerId())).toList());
     }
 
+    /**
+     * Lagrer H2H for kampene. Statistikken regnes ut lokalt av {@link HeadToHeadEngine} fra kamper vi
+     * allerede har; API-et spørres kun for lagpar uten lokal historikk (og bare én gang per par).
+     */
     @Transactional
-    public void saveHeadToHeadData(List<Fixture> fixtures) throws InterruptedException {
+    public void saveHeadToHeadData(List<Fixture> fixtures) {
         log.info("Starter H2H-datainnsamling for {} kamper...", fixtures.size());
+        List<Long> fixtureIds = fixtures.stream().map(Fixture::getId).collect(Collectors.toList());
+        LongOpenHashSet existingH2hFixtureIds = dedupeService.existing(DedupeService.KeySpace.HEAD_TO_HEAD, fixtureIds,
+                h2hStatsRepository::findFixtureIdsByFixtureIdIn);
+
+        List<HeadToHeadStats> statsToSave = new ArrayList<>();
+        int apiCalls = 0;
         for (Fixture fixture : fixtures) {
-            if (h2hStatsRepository.existsByFixtureId(fixture.getId())) {
+            if (existingH2hFixtureIds.contains(fixture.getId())) {
                 continue;
             }
 
-            String h2hQuery = fixture.getHomeTeamId() + "-" + fixture.getAwayTeamId();
-            try {
-                Thread.sleep(220);
-
-                ResponseEntity<String> response = footballApiService.getHeadToHead(h2hQuery).block(Duration.ofSeconds(15));
-                if (response != null && response.getBody() != null) {
-                    JsonNode h2hFixtures = objectMapper.readTree(response.getBody()).path("response");
-                    HeadToHeadStats h2hStats = parseAndCreateH2hStats(h2hFixtures, fixture);
-                    h2hStatsRepository.save(h2hStats);
-                    log.info("Lagret H2H-data for fixture ID: {}", fixture.getId());
+            Optional<HeadToHeadStats> local = headToHeadEngine.computeAsOf(fixture);
+            if (local.isEmpty() && headToHeadEngine.needsApiLookup(fixture)) {
+                String h2hQuery = fixture.getHomeTeamId() + "-" + fixture.getAwayTeamId();
+                try {
+                    apiCalls++;
+                    LocalDate matchDay = fixture.getDate().atOffset(ZoneOffset.UTC).toLocalDate();
+                    ResponseEntity<String> response = footballApiService.getHeadToHead(h2hQuery, matchDay).block(Duration.ofSeconds(15));
+                    if (response == null || response.getBody() == null) continue;
+                    JsonNode root = objectMapper.readTree(response.getBody());
+                    // Et svar med feil (f.eks. kvote) er ikke et "ingen møter"; paret prøves igjen neste gang.
+                    if (hasApiErrors(root)) {
+                        log.warn("API-et svarte med feil på H2H for fixture {}: {}", fixture.getId(), root.path("errors"));
+                        continue;
+                    }
+                    headToHeadEngine.registerApiResponse(fixture, root.path("response"));
+                    local = headToHeadEngine.computeAsOf(fixture);
+                } catch (Exception e) {
+                    log.warn("Kunne ikke hente H2H for fixture {}: {}", fixture.getId(), e.getMessage());
+                    continue;
                 }
-            } catch (Exception e) {
-                log.warn("Kunne ikke hente eller lagre H2H for fixture {}: {}", fixture.getId(), e.getMessage());
             }
+            statsToSave.add(local.orElseGet(() -> headToHeadEngine.emptyStats(fixture)));
         }
-        log.info("Fullførte H2H-datainnsamling.");
-    }
-
-    private HeadToHeadStats parseAndCreateH2hStats(JsonNode h2hFixtures, Fixture contextFixture) {
-        HeadToHeadStats stats = new HeadToHeadStats();
-        stats.setFixture(contextFixture);
-        stats.setTeam1Id(contextFixture.getHomeTeamId());
-        stats.setTeam2Id(contextFixture.getAwayTeamId());
-
-        if (h2hFixtures == null || !h2hFixtures.isArray() || h2hFixtures.isEmpty()) {
-            return stats;
-        }
-
-        int homeWins = 0, awayWins = 0, draws = 0, totalGoals = 0;
-
-        for (JsonNode h2h : h2hFixtures) {
-            JsonNode teams = h2h.path("teams");
-            Integer h2hHomeId = teams.path("home").path("id").asInt();
-            boolean isHomeWinner = teams.path("home").path("winner").asBoolean(false);
-            boolean isAwayWinner = teams.path("away").path("winner").asBoolean(false);
 
-            if (isHomeWinner) {
-                if (h2hHomeId.equals(contextFixture.getHomeTeamId())) homeWins++; else awayWins++;
-            } else if (isAwayWinner) {
-                if (h2hHomeId.equals(contextFixture.getHomeTeamId())) awayWins++; else homeWins++;
-            } else {
-                draws++;
-            }
-            totalGoals += h2h.path("goals").path("home").asInt(0) + h2h.path("goals").path("away").asInt(0);
+        // Filteret ser ikke andre noders skrivinger, så en kamp det sa nei til kan likevel ha fått H2H i mellomtiden.
+        List<Long> written = new ArrayList<>();
+        List<Long> conflicts = new ArrayList<>();
+        for (HeadToHeadStats stats : statsToSave) {
+            Long fixtureId = stats.getFixture().getId();
+            (h2hStatsRepository.insertIfAbsent(stats) == 1 ? written : conflicts).add(fixtureId);
         }
+        dedupeService.record(DedupeService.KeySpace.HEAD_TO_HEAD, written);
+        dedupeService.recordConflicts(DedupeService.KeySpace.HEAD_TO_HEAD, conflicts);
+        log.info("Fullførte H2H-datainnsamling: {} lagret, {} fantes allerede, {} API-kall.", written.size(), conflicts.size(), apiCalls);
+    }
 
-        stats.setMatchesPlayed(h2hFixtures.size());
-        stats.setTeam1Wins(homeWins);
-        stats.setTeam2Wins(awayWins);
-        stats.setDraws(draws);
-        stats.setAvgTotalGoals(h2hFixtures.size() > 0 ? (double) totalGoals / h2hFixtures.size() : 0.0);
+    // API-Football sender "errors" som [] når alt gikk bra, ellers som et objekt, f.eks. {"requests": "..."}.
+    private static boolean hasApiErrors(JsonNode root) {
+        JsonNode errors = root.path("errors");
+        return errors.isContainerNode() && !errors.isEmpty();
+    }
 
-        return stats;
+    private static List<Long> fixtureIdsOf(List<Long> packedKeys) {
+        return packedKeys.stream().map(key -> key >>> 32).distinct().collect(Collectors.toList());
     }
 
-    private Set<Integer> extractAllPlayerIds(JsonNode bulkFixtures) {
-        Set<Integer> playerIds = new HashSet<>();
-        for (JsonNode fixtureNode : bulkFixtures) {
-            for (JsonNode teamPlayersNode : fixtureNode.path("players")) {
-                for (JsonNode playerPerformanceNode : teamPlayersNode.path("players")) {
-                    playerIds.add(playerPerformanceNode.path("player").path("id").asInt());
-                }
-            }
+    private static List<Long> packKeys(List<Object[]> rows) {
+        List<Long> keys = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            keys.add(LongOpenHashSet.pack(((Number) row[0]).longValue(), ((Number) row[1]).intValue()));
         }
-        return playerIds;
+        return keys;
     }
 
     private Player createPlayer(JsonNode playerInfoNode) {
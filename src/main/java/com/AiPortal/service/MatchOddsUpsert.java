@@ -0,0 +1,16 @@
+// src/main/java/com/AiPortal/service/MatchOddsUpsert.java
+package com.AiPortal.service;
+
+import com.AiPortal.entity.OddsSnapshot;
+
+/**
+ * Én rad som skal skrives (insert eller oppdatering) til match_odds via {@link OddsBatchWriter}.
+ *
+ * @param fixtureId   Kampens ID.
+ * @param bookmakerId Bookmakerens ID (må finnes i bookmakers-tabellen).
+ * @param betName     Markedets navn, f.eks. "Match Winner".
+ * @param oddsData    JSON-listen med valg og odds, samme format som MatchOdds.oddsData.
+ * @param snapshot    Den samme listen ferdig parset, lagret i MatchOdds.oddsSnapshot.
+ */
+public record MatchOddsUpsert(long fixtureId, int bookmakerId, String betName, String oddsData, OddsSnapshot snapshot) {
+}
@@ -0,0 +1,310 @@
+// src/main/java/com/AiPortal/service/OddsBatchWriter.java
+package com.AiPortal.service;
+
+import com.AiPortal.entity.OddsSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Skriver odds-markeder i bulk til match_odds.
+ *
+ * Erstatter mønsteret "existsBy... + bookmakerRepository.findById + save" per marked (tre kall per marked)
+ * med én batch-setning per {@value #BATCH_SIZE} markeder. På PostgreSQL brukes INSERT ... ON CONFLICT,
+ * slik at eksisterende rader får oppdaterte priser i stedet for å bli hoppet over. På andre databaser
+ * hentes eksisterende nøkler for hele batchen i én spørring, etterfulgt av én UPDATE- og én INSERT-batch.
+ * Prisendringer sendes videre til {@link OddsHistoryService}.
+ *
+ * ON CONFLICT krever en unik indeks på (fixture_id, bookmaker_id, bet_name). Den opprettes ved oppstart hvis
+ * den mangler (se {@link #canUpsert()}). Har tabellen duplikater, stopper oppstarten med en melding om
+ * oppryddingen i {@link #DEDUPE_MIGRATION_SQL}; rader slettes aldri automatisk. Feiler selve opprettelsen,
+ * brukes den portable veien.
+ */
+@Service
+public class OddsBatchWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(OddsBatchWriter.class);
+    private static final int BATCH_SIZE = 500;
+    private static final int HISTORY_ATTEMPTS = 3;
+
+    private static final String POSTGRES_UPSERT_SQL =
+            "INSERT INTO match_odds (fixture_id, bookmaker_id, bet_name, odds_data, odds_snapshot, last_updated) VALUES (?, ?, ?, ?::jsonb, ?, ?) " +
+            "ON CONFLICT (fixture_id, bookmaker_id, bet_name) DO UPDATE " +
+            "SET odds_data = EXCLUDED.odds_data, odds_snapshot = EXCLUDED.odds_snapshot, last_updated = EXCLUDED.last_updated " +
+            "WHERE match_odds.odds_data IS DISTINCT FROM EXCLUDED.odds_data";
+    private static final String INSERT_SQL =
+            "INSERT INTO match_odds (fixture_id, bookmaker_id, bet_name, odds_data, odds_snapshot, last_updated) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL =
+            "UPDATE match_odds SET odds_data = ?, odds_snapshot = ?, last_updated = ? WHERE fixture_id = ? AND bookmaker_id = ? AND bet_name = ?";
+
+    // Finnes det en unik indeks på nøyaktig (fixture_id, bookmaker_id, bet_name), uavhengig av navn og kolonnerekkefølge?
+    private static final String UNIQUE_KEY_EXISTS_SQL =
+            "SELECT COUNT(*) FROM pg_index i JOIN pg_class t ON t.oid = i.indrelid " +
+            "WHERE t.relname = 'match_odds' AND i.indisunique AND i.indnatts = 3 AND (" +
+            "SELECT array_agg(a.attname::text ORDER BY a.attname::text) FROM pg_attribute a " +
+            "WHERE a.attrelid = t.oid AND a.attnum = ANY(i.indkey)) = ARRAY['bet_name', 'bookmaker_id', 'fixture_id']";
+    private static final String DUPLICATE_KEYS_SQL =
+            "SELECT COUNT(*) FROM (SELECT 1 FROM match_odds GROUP BY fixture_id, bookmaker_id, bet_name HAVING COUNT(*) > 1) d";
+    /**
+     * Engangsopprydding som må kjøres manuelt (etter sikkerhetskopi) før den unike indeksen kan opprettes.
+     * Beholder raden med nyest last_updated per nøkkel; høyeste id avgjør bare ved lik eller manglende tid.
+     */
+    static final String DEDUPE_MIGRATION_SQL =
+            "DELETE FROM match_odds a USING match_odds b WHERE a.fixture_id = b.fixture_id AND a.bookmaker_id = b.bookmaker_id " +
+            "AND a.bet_name = b.bet_name AND (COALESCE(a.last_updated, '-infinity') < COALESCE(b.last_updated, '-infinity') " +
+            "OR (a.last_updated IS NOT DISTINCT FROM b.last_updated AND a.id < b.id))";
+    private static final String CREATE_UNIQUE_KEY_SQL =
+            "CREATE UNIQUE INDEX IF NOT EXISTS ux_match_odds_market ON match_odds (fixture_id, bookmaker_id, bet_name)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReferenceDataCache referenceDataCache;
+    private final OddsHistoryService oddsHistoryService;
+
+    private volatile Boolean postgres;
+    private volatile Boolean upsertAvailable;
+
+    private final AtomicLong marketsWritten = new AtomicLong();
+    private final AtomicLong marketsSkippedUnknownBookmaker = new AtomicLong();
+    private final AtomicLong databaseRoundTrips = new AtomicLong();
+
+    public OddsBatchWriter(JdbcTemplate jdbcTemplate, ReferenceDataCache referenceDataCache, OddsHistoryService oddsHistoryService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.referenceDataCache = referenceDataCache;
+        this.oddsHistoryService = oddsHistoryService;
+    }
+
+    /**
+     * Oppretter en buffer som samler opp markeder og skriver dem automatisk når den er full.
+     * Husk å kalle {@link Buffer#flush()} til slutt. Bufferen er ikke trådsikker.
+     */
+    public Buffer newBuffer() {
+        return new Buffer();
+    }
+
+    /**
+     * Skriver alle markedene. Markeder for ukjente bookmakere hoppes over (bookmaker_id er påkrevd),
+     * og duplikater innenfor samme kall slås sammen slik at siste verdi vinner.
+     */
+    public void writeAll(Collection<MatchOddsUpsert> upserts) {
+        if (upserts.isEmpty()) return;
+        ReferenceDataCache.Snapshot referenceData = referenceDataCache.current();
+        Map<String, MatchOddsUpsert> deduplicated = new LinkedHashMap<>();
+        for (MatchOddsUpsert upsert : upserts) {
+            if (!referenceData.hasBookmaker(upsert.bookmakerId())) {
+                marketsSkippedUnknownBookmaker.incrementAndGet();
+                continue;
+            }
+            deduplicated.put(key(upsert.fixtureId(), upsert.bookmakerId(), upsert.betName()), upsert);
+        }
+        List<MatchOddsUpsert> rows = new ArrayList<>(deduplicated.values());
+        long roundTripsBefore = databaseRoundTrips.get();
+        Timestamp now = Timestamp.from(Instant.now());
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            List<MatchOddsUpsert> batch = rows.subList(from, Math.min(rows.size(), from + BATCH_SIZE));
+            if (canUpsert()) {
+                writePostgresBatch(batch, now);
+            } else {
+                writePortableBatch(batch, now);
+            }
+        }
+        marketsWritten.addAndGet(rows.size());
+        recordHistory(rows, now.toInstant());
+        log.debug("---[ODDS WRITER] Skrev {} markeder med {} databasekall.", rows.size(), databaseRoundTrips.get() - roundTripsBefore);
+    }
+
+    /**
+     * Historikken går i egen transaksjon (se {@link OddsHistoryService#record}); feiler den, er oddsene likevel skrevet.
+     */
+    private void recordHistory(List<MatchOddsUpsert> rows, Instant observedAt) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                oddsHistoryService.record(rows, observedAt);
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // En annen skriver opprettet samme nye serie; neste forsøk låser og oppdaterer den.
+                if (attempt < HISTORY_ATTEMPTS) continue;
+                log.warn("---[ODDS HISTORY] Kunne ikke lagre prisendringer for {} markeder etter {} forsøk: {}", rows.size(), attempt, e.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                log.warn("---[ODDS HISTORY] Kunne ikke lagre prisendringer for {} markeder: {}", rows.size(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void writePostgresBatch(List<MatchOddsUpsert> batch, Timestamp now) {
+        jdbcTemplate.batchUpdate(POSTGRES_UPSERT_SQL, batch, batch.size(), (ps, row) -> {
+            ps.setLong(1, row.fixtureId());
+            ps.setInt(2, row.bookmakerId());
+            ps.setString(3, row.betName());
+            ps.setString(4, row.oddsData());
+            ps.setBytes(5, row.snapshot().toBytes());
+            ps.setTimestamp(6, now);
+        });
+        databaseRoundTrips.incrementAndGet();
+    }
+
+    private void writePortableBatch(List<MatchOddsUpsert> batch, Timestamp now) {
+        List<Long> fixtureIds = batch.stream().map(MatchOddsUpsert::fixtureId).distinct().collect(Collectors.toList());
+        String placeholders = fixtureIds.stream().map(id -> "?").collect(Collectors.joining(","));
+        Set<String> existingKeys = new HashSet<>(jdbcTemplate.query(
+                "SELECT fixture_id, bookmaker_id, bet_name FROM match_odds WHERE fixture_id IN (" + placeholders + ")",
+                (rs, i) -> key(rs.getLong(1), rs.getInt(2), rs.getString(3)),
+                fixtureIds.toArray()));
+        databaseRoundTrips.incrementAndGet();
+
+        List<MatchOddsUpsert> updates = new ArrayList<>();
+        List<MatchOddsUpsert> inserts = new ArrayList<>();
+        for (MatchOddsUpsert row : batch) {
+            (existingKeys.contains(key(row.fixtureId(), row.bookmakerId(), row.betName())) ? updates : inserts).add(row);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates, updates.size(), (ps, row) -> {
+                ps.setString(1, row.oddsData());
+                ps.setBytes(2, row.snapshot().toBytes());
+                ps.setTimestamp(3, now);
+                ps.setLong(4, row.fixtureId());
+                ps.setInt(5, row.bookmakerId());
+                ps.setString(6, row.betName());
+            });
+            databaseRoundTrips.incrementAndGet();
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts, inserts.size(), (ps, row) -> {
+                ps.setLong(1, row.fixtureId());
+                ps.setInt(2, row.bookmakerId());
+                ps.setString(3, row.betName());
+                ps.setString(4, row.oddsData());
+                ps.setBytes(5, row.snapshot().toBytes());
+                ps.setTimestamp(6, now);
+            });
+            databaseRoundTrips.incrementAndGet();
+        }
+    }
+
+    /**
+     * Fyller inn odds_snapshot for rader lagret før kolonnen fantes, slik at lesestiene ikke trenger
+     * å falle tilbake til JSON-parsing. Kjøres i bakgrunnen ved oppstart, {@value #BATCH_SIZE} rader om gangen.
+     */
+    @Async("taskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillSnapshots() {
+        int total = 0;
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(
+                    "SELECT id, odds_data FROM match_odds WHERE odds_snapshot IS NULL LIMIT " + BATCH_SIZE,
+                    (rs, i) -> new Object[]{rs.getLong(1), OddsSnapshot.fromLegacyJson(rs.getString(2)).toBytes()});
+            if (rows.isEmpty()) break;
+            jdbcTemplate.batchUpdate("UPDATE match_odds SET odds_snapshot = ? WHERE id = ?", rows, rows.size(), (ps, row) -> {
+                ps.setBytes(1, (byte[]) row[1]);
+                ps.setLong(2, (Long) row[0]);
+            });
+            total += rows.size();
+        }
+        if (total > 0) log.info("---[ODDS WRITER] Fylte inn odds-snapshot for {} eldre rader.", total);
+    }
+
+    /**
+     * Sikrer den unike nøkkelen ved oppstart. Kaster (og stopper oppstarten) hvis match_odds har duplikater.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureUniqueKey() {
+        canUpsert();
+    }
+
+    /**
+     * Om ON CONFLICT-veien kan brukes. Første kall oppretter den unike indeksen hvis den mangler;
+     * feiler det, skrives det via den portable veien resten av levetiden.
+     *
+     * @throws IllegalStateException hvis tabellen har duplikater som må ryddes manuelt først.
+     */
+    private boolean canUpsert() {
+        Boolean available = upsertAvailable;
+        if (available != null) return available;
+        synchronized (this) {
+            if (upsertAvailable == null) {
+                upsertAvailable = isPostgres() && ensurePostgresUniqueKey();
+            }
+            return upsertAvailable;
+        }
+    }
+
+    private boolean ensurePostgresUniqueKey() {
+        try {
+            Long existing = jdbcTemplate.queryForObject(UNIQUE_KEY_EXISTS_SQL, Long.class);
+            if (existing != null && existing > 0) return true;
+            Long duplicateKeys = jdbcTemplate.queryForObject(DUPLICATE_KEYS_SQL, Long.class);
+            if (duplicateKeys != null && duplicateKeys > 0) {
+                throw new IllegalStateException("match_odds har " + duplicateKeys + " nøkler (fixture_id, bookmaker_id, bet_name) " +
+                        "med flere rader, så den unike indeksen kan ikke opprettes. Ta sikkerhetskopi og kjør: " + DEDUPE_MIGRATION_SQL);
+            }
+            jdbcTemplate.execute(CREATE_UNIQUE_KEY_SQL);
+            log.info("---[ODDS WRITER] Opprettet unik indeks på match_odds.");
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("---[ODDS WRITER] Kunne ikke sikre unik indeks på match_odds, bruker portabel skriving: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            postgres = product != null && product.toLowerCase().contains("postgres");
+        }
+        return postgres;
+    }
+
+    private static String key(long fixtureId, int bookmakerId, String betName) {
+        return fixtureId + ":" + bookmakerId + ":" + betName;
+    }
+
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "marketsWritten", marketsWritten.get(),
+                "marketsSkippedUnknownBookmaker", marketsSkippedUnknownBookmaker.get(),
+                "databaseRoundTrips", databaseRoundTrips.get()
+        );
+    }
+
+    public final class Buffer {
+        private final List<MatchOddsUpsert> pending = new ArrayList<>();
+        private final List<Runnable> afterWrite = new ArrayList<>();
+
+        public void add(MatchOddsUpsert upsert) {
+            pending.add(upsert);
+            if (pending.size() >= BATCH_SIZE) flush();
+        }
+
+        /**
+         * Kjøres etter neste vellykkede flush, dvs. når alt som er lagt til så langt er skrevet.
+         * Feiler skrivingen, forkastes handlingen.
+         */
+        public void afterWrite(Runnable action) {
+            afterWrite.add(action);
+        }
+
+        public void flush() {
+            List<Runnable> actions = new ArrayList<>(afterWrite);
+            afterWrite.clear();
+            if (!pending.isEmpty()) {
+                writeAll(pending);
+                pending.clear();
+            }
+            actions.forEach(Runnable::run);
+        }
+    }
+}
@@ -5,7 +5,6 @@ import com.AiPortal.dto.ValueBetDto;
 import com.AiPortal.entity.*;
 import com.AiPortal.repository.*;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.PageRequest;
@@ -37,7 +36,6 @@ public class OddsCalculationService {
     private final PredictionService predictionService;
     private final PlayerMatchStatisticsRepository playerMatchStatsRepository;
     private final HeadToHeadStatsRepository h2hStatsRepository;
-    private final ObjectMapper objectMapper;
 
     public OddsCalculationService(
             MatchOddsRepository oddsRepository,
@@ -46,8 +44,7 @@ public class OddsCalculationService {
             InjuryRepository injuryRepository,
             PredictionService predictionService,
             PlayerMatchStatisticsRepository playerMatchStatsRepository,
-            HeadToHeadStatsRepository h2hStatsRepository,
-            ObjectMapper objectMapper
+            HeadToHeadStatsRepository h2hStatsRepository
     ) {
         this.oddsRepository = oddsRepository;
         this.fixtureRepository = fixtureRepository;
@@ -56,7 +53,6 @@ public class OddsCalculationService {
         this.predictionService = predictionService;
         this.playerMatchStatsRepository = playerMatchStatsRepository;
         this.h2hStatsRepository = h2hStatsRepository;
-        this.objectMapper = objectMapper;
     }
 
     /**
@@ -147,18 +143,10 @@ public class OddsCalculationService {
         valueBet.setMarketDescription("Kampvinner");
         valueBet.setBookmakerName(marketOdds.getBookmaker() != null ? marketOdds.getBookmaker().getName() : "Ukjent");
 
-        try {
-            JsonNode oddsData = objectMapper.readTree(marketOdds.getOddsData());
-            for (JsonNode value : oddsData) {
-                switch (value.path("name").asText()) {
-                    case "Home": valueBet.setMarketHomeOdds(value.path("odds").asDouble()); break;
-                    case "Draw": valueBet.setMarketDrawOdds(value.path("odds").asDouble()); break;
-                    case "Away": valueBet.setMarketAwayOdds(value.path("odds").asDouble()); break;
-                }
-            }
-        } catch (Exception e) {
-            log.error("Kunne ikke parse kampvinner-oddsData for fixture {}: {}", fixture.getId(), e.getMessage());
-        }
+        OddsSnapshot oddsData = marketOdds.getParsedOdds();
+        valueBet.setMarketHomeOdds(oddsData.oddsFor("Home"));
+        valueBet.setMarketDrawOdds(oddsData.oddsFor("Draw"));
+        valueBet.setMarketAwayOdds(oddsData.oddsFor("Away"));
 
         // *** OPPDATERT LOGIKK ***
         // Tolker den standardiserte "class_N"-responsen fra Python.
@@ -187,20 +175,9 @@ public class OddsCalculationService {
         valueBet.setMarketDescription("Over/Under 2.5");
         valueBet.setBookmakerName(marketOdds.getBookmaker() != null ? marketOdds.getBookmaker().getName() : "Ukjent");
 
-        try {
-            JsonNode oddsData = objectMapper.readTree(marketOdds.getOddsData());
-            for (JsonNode value : oddsData) {
-                if ("2.5".equals(value.path("points").asText())) {
-                    if ("Over".equalsIgnoreCase(value.path("name").asText())) {
-                        valueBet.setMarketHomeOdds(value.path("odds").asDouble());
-                    } else if ("Under".equalsIgnoreCase(value.path("name").asText())) {
-                        valueBet.setMarketAwayOdds(value.path("odds").asDouble());
-                    }
-                }
-            }
-        } catch (Exception e) {
-            log.error("Kunne ikke parse O/U-oddsData for fixture {}: {}", fixture.getId(), e.getMessage());
-        }
+        OddsSnapshot oddsData = marketOdds.getParsedOdds();
+        valueBet.setMarketHomeOdds(oddsData.oddsFor("Over", 2.5));
+        valueBet.setMarketAwayOdds(oddsData.oddsFor("Under", 2.5));
 
         // For binære modeller: class_0 er Under, class_1 er Over.
         double probUnder = probsNode.path("class_0").asDouble(0.0);
@@ -0,0 +1,163 @@
+// src/main/java/com/AiPortal/service/OddsHistoryService.java
+package com.AiPortal.service;
+
+import com.AiPortal.dto.OddsHistoryDto;
+import com.AiPortal.entity.OddsHistorySeries;
+import com.AiPortal.entity.OddsSnapshot;
+import com.AiPortal.repository.OddsHistorySeriesRepository;
+import com.AiPortal.util.DeltaVarintCodec;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only historikk over odds-bevegelser.
+ *
+ * Hver gang et marked skrives via {@link OddsBatchWriter} sammenlignes prisene med siste kjente pris
+ * per valg, og kun endringer legges til i serien. Åpnings- og siste pris leses rett fra kolonnene;
+ * kun range- og as-of-oppslag midt i serien trenger å dekode punktene.
+ *
+ * Historikken skrives i en egen transaksjon med radlås på seriene, så samtidige boter ikke mister
+ * hverandres prisendringer og en feil her aldri ruller tilbake selve odds-skrivingen.
+ */
+@Service
+public class OddsHistoryService {
+
+    private final OddsHistorySeriesRepository seriesRepository;
+
+    public OddsHistoryService(OddsHistorySeriesRepository seriesRepository) {
+        this.seriesRepository = seriesRepository;
+    }
+
+    /**
+     * Registrerer prisene i markedene som nettopp ble skrevet. Henter og låser eksisterende serier for alle
+     * kampene i én spørring og lagrer kun seriene som faktisk endret seg.
+     *
+     * @throws org.springframework.dao.DataIntegrityViolationException hvis en annen skriver opprettet en av de
+     *         nye seriene samtidig. Et nytt kall vil da finne og låse den eksisterende serien.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void record(Collection<MatchOddsUpsert> upserts, Instant observedAt) {
+        if (upserts.isEmpty()) return;
+        Set<Long> fixtureIds = upserts.stream().map(MatchOddsUpsert::fixtureId).collect(Collectors.toSet());
+        Map<String, OddsHistorySeries> seriesByKey = new HashMap<>();
+        for (OddsHistorySeries series : seriesRepository.findAllByFixtureIdInForUpdate(fixtureIds)) {
+            seriesByKey.put(key(series.getFixtureId(), series.getBookmakerId(), series.getBetName(), series.getSelection()), series);
+        }
+
+        long second = observedAt.getEpochSecond();
+        Map<String, OddsHistorySeries> changed = new LinkedHashMap<>();
+        for (MatchOddsUpsert upsert : upserts) {
+            for (Map.Entry<String, Integer> selection : selections(upsert.snapshot()).entrySet()) {
+                int price = selection.getValue();
+                String key = key(upsert.fixtureId(), upsert.bookmakerId(), upsert.betName(), selection.getKey());
+                OddsHistorySeries series = seriesByKey.get(key);
+                if (series == null) {
+                    series = new OddsHistorySeries();
+                    series.setFixtureId(upsert.fixtureId());
+                    series.setBookmakerId(upsert.bookmakerId());
+                    series.setBetName(upsert.betName());
+                    series.setSelection(selection.getKey());
+                    series.setOpeningPrice(price);
+                    series.setOpeningAt(observedAt);
+                    series.setEncodedPoints(DeltaVarintCodec.append(null, 0, 0, second, price));
+                    series.setPointCount(1);
+                    seriesByKey.put(key, series);
+                } else if (series.getLastPrice() != price) {
+                    series.setEncodedPoints(DeltaVarintCodec.append(series.getEncodedPoints(),
+                            series.getLastAt().getEpochSecond(), series.getLastPrice(), second, price));
+                    series.setPointCount(series.getPointCount() + 1);
+                } else {
+                    continue;
+                }
+                series.setLastPrice(price);
+                series.setLastAt(observedAt);
+                changed.put(key, series);
+            }
+        }
+        if (changed.isEmpty()) return;
+        seriesRepository.saveAllAndFlush(changed.values());
+    }
+
+    /**
+     * Alle prisendringer for et marked innenfor [from, to]. Null betyr åpent intervall.
+     */
+    @Transactional(readOnly = true)
+    public List<OddsHistoryDto> getRange(Long fixtureId, String betName, Instant from, Instant to) {
+        long fromSecond = from == null ? Long.MIN_VALUE : from.getEpochSecond();
+        long toSecond = to == null ? Long.MAX_VALUE : to.getEpochSecond();
+        List<OddsHistoryDto> result = new ArrayList<>();
+        for (OddsHistorySeries series : seriesRepository.findAllByFixtureIdAndBetName(fixtureId, betName)) {
+            DeltaVarintCodec.Points points = DeltaVarintCodec.decode(series.getEncodedPoints(), series.getPointCount());
+            List<OddsHistoryDto.PricePoint> inRange = new ArrayList<>();
+            for (int i = lowerBound(points.epochSeconds(), fromSecond); i < points.size() && points.epochSeconds()[i] <= toSecond; i++) {
+                inRange.add(new OddsHistoryDto.PricePoint(Instant.ofEpochSecond(points.epochSeconds()[i]), toOdds(points.values()[i])));
+            }
+            result.add(toDto(series, inRange));
+        }
+        return result;
+    }
+
+    /**
+     * Prisen som gjaldt for hvert valg i markedet på et gitt tidspunkt.
+     * Valg som ikke var priset ennå på tidspunktet utelates.
+     */
+    @Transactional(readOnly = true)
+    public List<OddsHistoryDto> getAsOf(Long fixtureId, String betName, Instant at) {
+        long atSecond = at.getEpochSecond();
+        List<OddsHistoryDto> result = new ArrayList<>();
+        for (OddsHistorySeries series : seriesRepository.findAllByFixtureIdAndBetName(fixtureId, betName)) {
+            if (series.getOpeningAt().isAfter(at)) continue;
+            OddsHistoryDto.PricePoint point;
+            if (!series.getLastAt().isAfter(at)) {
+                point = new OddsHistoryDto.PricePoint(series.getLastAt(), toOdds(series.getLastPrice()));
+            } else {
+                DeltaVarintCodec.Points points = DeltaVarintCodec.decode(series.getEncodedPoints(), series.getPointCount());
+                int index = lowerBound(points.epochSeconds(), atSecond + 1) - 1;
+                point = new OddsHistoryDto.PricePoint(Instant.ofEpochSecond(points.epochSeconds()[index]), toOdds(points.values()[index]));
+            }
+            result.add(toDto(series, List.of(point)));
+        }
+        return result;
+    }
+
+    private static Map<String, Integer> selections(OddsSnapshot snapshot) {
+        Map<String, Integer> selections = new LinkedHashMap<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (snapshot.scaledOdds(i) <= 0) continue;
+            String line = snapshot.lineKind(i) == OddsSnapshot.LINE_NONE ? null : snapshot.lineText(i, snapshot.lineKind(i));
+            String name = line == null ? snapshot.name(i) : snapshot.name(i) + " " + line;
+            selections.put(name, (int) Math.round(snapshot.odds(i) * OddsHistorySeries.PRICE_SCALE));
+        }
+        return selections;
+    }
+
+    /** Første indeks med verdi >= target (arrayet er sortert). */
+    private static int lowerBound(long[] sorted, long target) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < target) low = mid + 1; else high = mid;
+        }
+        return low;
+    }
+
+    private static double toOdds(int scaledPrice) {
+        return (double) scaledPrice / OddsHistorySeries.PRICE_SCALE;
+    }
+
+    private static OddsHistoryDto toDto(OddsHistorySeries series, List<OddsHistoryDto.PricePoint> points) {
+        return new OddsHistoryDto(series.getBookmakerId(), series.getBetName(), series.getSelection(),
+                toOdds(series.getOpeningPrice()), series.getOpeningAt(),
+                toOdds(series.getLastPrice()), series.getLastAt(), points);
+    }
+
+    private static String key(long fixtureId, int bookmakerId, String betName, String selection) {
+        return fixtureId + ":" + bookmakerId + ":" + betName + ":" + selection;
+    }
+}
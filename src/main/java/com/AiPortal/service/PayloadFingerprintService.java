@@ -0,0 +1,149 @@
+// src/main/java/com/AiPortal/service/PayloadFingerprintService.java
+package com.AiPortal.service;
+
+import com.AiPortal.entity.PayloadFingerprint;
+import com.AiPortal.repository.PayloadFingerprintRepository;
+import com.AiPortal.util.JsonFingerprint;
+import com.AiPortal.util.LongLongHashMap;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Endringsdeteksjon for odds-payloads.
+ *
+ * Hver payload (f.eks. "periods" for et Pinnacle-event) får et 64-bit fingeravtrykk. Er det likt
+ * forrige gang, kan kalleren hoppe over JSON-konvertering og databasearbeid. Fingeravtrykkene ligger
+ * i en kompakt {@link LongLongHashMap} og skrives til payload_fingerprints i bakgrunnen, slik at
+ * de overlever en omstart.
+ */
+@Service
+public class PayloadFingerprintService {
+
+    public static final String PINNACLE_MARKET = "PINNACLE_MARKET";
+    public static final String PINNACLE_SPECIAL = "PINNACLE_SPECIAL";
+    public static final String API_FOOTBALL_ODDS = "API_FOOTBALL_ODDS";
+
+    private static final Logger log = LoggerFactory.getLogger(PayloadFingerprintService.class);
+    private static final int RETENTION_DAYS = 14;
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO payload_fingerprints (key_hash, key_space, fingerprint, updated_at) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (key_hash) DO UPDATE SET fingerprint = EXCLUDED.fingerprint, updated_at = EXCLUDED.updated_at";
+
+    private final PayloadFingerprintRepository fingerprintRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final LongLongHashMap fingerprints = new LongLongHashMap(64 * 1024);
+    private final Map<Long, PendingWrite> pendingWrites = new HashMap<>();
+    private final Map<String, LongAdder[]> counters = new ConcurrentHashMap<>();
+
+    public PayloadFingerprintService(PayloadFingerprintRepository fingerprintRepository, JdbcTemplate jdbcTemplate) {
+        this.fingerprintRepository = fingerprintRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<PayloadFingerprint> stored = fingerprintRepository.findAllByUpdatedAtAfter(Instant.now().minus(RETENTION_DAYS, ChronoUnit.DAYS));
+        synchronized (this) {
+            fingerprints.clear();
+            stored.forEach(f -> fingerprints.put(f.getKeyHash(), f.getFingerprint()));
+        }
+        log.info("---[FINGERPRINT] Lastet {} fingeravtrykk.", stored.size());
+    }
+
+    /**
+     * Returnerer true hvis payloaden er identisk med den som sist ble prosessert for samme nøkkel.
+     * Endrer ingenting; kall {@link #markProcessed} når dataene fra payloaden faktisk er skrevet.
+     */
+    public boolean isUnchanged(String keySpace, long id, JsonNode payload) {
+        long key = JsonFingerprint.key(keySpace, id);
+        long fingerprint = JsonFingerprint.of(payload);
+        LongAdder[] counter = counters.computeIfAbsent(keySpace, k -> new LongAdder[]{new LongAdder(), new LongAdder()});
+        boolean unchanged;
+        synchronized (this) {
+            unchanged = fingerprints.containsKey(key) && fingerprints.get(key, 0) == fingerprint;
+        }
+        (unchanged ? counter[0] : counter[1]).increment();
+        return unchanged;
+    }
+
+    /**
+     * Husker payloaden som prosessert. Skal først kalles når det som ble bygget fra den er lagret,
+     * ellers ville en feilet skriving bli regnet som uendret og aldri forsøkt igjen.
+     */
+    public void markProcessed(String keySpace, long id, JsonNode payload) {
+        long key = JsonFingerprint.key(keySpace, id);
+        long fingerprint = JsonFingerprint.of(payload);
+        synchronized (this) {
+            fingerprints.put(key, fingerprint);
+            pendingWrites.put(key, new PendingWrite(keySpace, fingerprint));
+        }
+    }
+
+    /**
+     * Skriver nye/endrede fingeravtrykk til databasen i én batch.
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void flush() {
+        Map<Long, PendingWrite> toWrite;
+        synchronized (this) {
+            if (pendingWrites.isEmpty()) return;
+            toWrite = new HashMap<>(pendingWrites);
+            pendingWrites.clear();
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Map.Entry<Long, PendingWrite>> rows = new ArrayList<>(toWrite.entrySet());
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows, 500, (ps, row) -> {
+                ps.setLong(1, row.getKey());
+                ps.setString(2, row.getValue().keySpace());
+                ps.setLong(3, row.getValue().fingerprint());
+                ps.setTimestamp(4, now);
+            });
+        } catch (Exception e) {
+            log.warn("---[FINGERPRINT] Kunne ikke lagre {} fingeravtrykk: {}", rows.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Sletter gamle fingeravtrykk og bygger minnekartet på nytt, slik at det ikke vokser uten grense.
+     */
+    @Scheduled(cron = "0 30 4 * * *", zone = "Europe/Oslo")
+    public void prune() {
+        flush();
+        int deleted = fingerprintRepository.deleteAllUpdatedBefore(Instant.now().minus(RETENTION_DAYS, ChronoUnit.DAYS));
+        log.info("---[FINGERPRINT] Slettet {} utdaterte fingeravtrykk.", deleted);
+        load();
+    }
+
+    /**
+     * Treff (uendret, hoppet over) og bom (nytt/endret, prosessert) per nøkkelrom.
+     */
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = new TreeMap<>();
+        counters.forEach((keySpace, counter) -> stats.put(keySpace, Map.of(
+                "unchangedSkipped", counter[0].sum(),
+                "changedProcessed", counter[1].sum())));
+        return stats;
+    }
+
+    public synchronized int size() {
+        return fingerprints.size();
+    }
+
+    private record PendingWrite(String keySpace, long fingerprint) {}
+}
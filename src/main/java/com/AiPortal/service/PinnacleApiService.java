@@ -1,24 +1,36 @@
 // src/main/java/com/AiPortal/service/PinnacleApiService.java
 package com.AiPortal.service;
 
+import com.AiPortal.util.TokenBucket;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.net.URI;
 import java.time.Duration;
 
 @Service
 public class PinnacleApiService {
 
     private final WebClient webClient;
+    private final TokenBucket rateLimiter;
+    private final ApiResponseArchive archive;
     private static final Duration API_TIMEOUT = Duration.ofSeconds(90);
 
     public PinnacleApiService(
-            @Value("${rapidapi.key.pinnacle}") String pinnacleApiKey
+            @Value("${rapidapi.key.pinnacle}") String pinnacleApiKey,
+            @Value("${pinnacle.rate-limit.per-second:1}") double requestsPerSecond,
+            @Value("${pinnacle.rate-limit.burst:2}") int burst,
+            ApiResponseArchive archive
     ) {
+        this.archive = archive;
+        this.rateLimiter = new TokenBucket(requestsPerSecond, burst);
         final int bufferSize = 16 * 1024 * 1024;
         final ExchangeStrategies strategies = ExchangeStrategies.builder()
                 .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(bufferSize))
@@ -29,21 +41,13 @@ public class PinnacleApiService {
                 .baseUrl("https://pinnacle-odds.p.rapidapi.com/kit/v1")
                 .defaultHeader("x-rapidapi-key", pinnacleApiKey)
                 .defaultHeader("x-rapidapi-host", "pinnacle-odds.p.rapidapi.com")
+                .filter(archive.filter("PINNACLE", strategies))
                 .build();
     }
 
     public Mono<ResponseEntity<String>> getMarkets(String sportId, Long sinceTimestamp) {
         return this.webClient.get()
-                .uri(uriBuilder -> {
-                    uriBuilder.path("/markets")
-                            .queryParam("sport_id", sportId)
-                            .queryParam("event_type", "prematch")
-                            .queryParam("is_have_odds", "true");
-                    if (sinceTimestamp != null && sinceTimestamp > 0) {
-                        uriBuilder.queryParam("since", String.valueOf(sinceTimestamp));
-                    }
-                    return uriBuilder.build();
-                })
+                .uri(uriBuilder -> buildUri(uriBuilder, "/markets", sportId, sinceTimestamp))
                 .retrieve()
                 .toEntity(String.class)
                 .timeout(API_TIMEOUT);
@@ -54,18 +58,49 @@ public class PinnacleApiService {
      */
     public Mono<ResponseEntity<String>> getSpecialMarkets(String sportId, Long sinceTimestamp) {
         return this.webClient.get()
-                .uri(uriBuilder -> {
-                    uriBuilder.path("/special-markets")
-                            .queryParam("sport_id", sportId)
-                            .queryParam("event_type", "prematch")
-                            .queryParam("is_have_odds", "true");
-                    if (sinceTimestamp != null && sinceTimestamp > 0) {
-                        uriBuilder.queryParam("since", String.valueOf(sinceTimestamp));
-                    }
-                    return uriBuilder.build();
-                })
+                .uri(uriBuilder -> buildUri(uriBuilder, "/special-markets", sportId, sinceTimestamp))
                 .retrieve()
                 .toEntity(String.class)
                 .timeout(API_TIMEOUT);
     }
-}
\ No newline at end of file
+
+    /**
+     * Strømmer /markets-svaret som rå bytes etter hvert som de ankommer, uten å bufre hele svaret.
+     * Brukes sammen med {@link PinnacleStreamParser}. Timeout gjelder tid mellom hver buffer.
+     */
+    public Flux<DataBuffer> streamMarkets(String sportId, Long sinceTimestamp) {
+        return permit().thenMany(this.webClient.get()
+                .uri(uriBuilder -> buildUri(uriBuilder, "/markets", sportId, sinceTimestamp))
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .timeout(API_TIMEOUT));
+    }
+
+    /**
+     * Strømmende variant av {@link #getSpecialMarkets}.
+     * Begge strømmemetodene deler samme token-bucket, siden grensen gjelder per vert.
+     */
+    public Flux<DataBuffer> streamSpecialMarkets(String sportId, Long sinceTimestamp) {
+        return permit().thenMany(this.webClient.get()
+                .uri(uriBuilder -> buildUri(uriBuilder, "/special-markets", sportId, sinceTimestamp))
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .timeout(API_TIMEOUT));
+    }
+
+    // I avspillingsmodus leses svarene fra disk, så rate-begrensningen hoppes over.
+    private Mono<Void> permit() {
+        return Mono.defer(() -> archive.isReplay() ? Mono.empty() : rateLimiter.acquire());
+    }
+
+    private URI buildUri(UriBuilder uriBuilder, String path, String sportId, Long sinceTimestamp) {
+        uriBuilder.path(path)
+                .queryParam("sport_id", sportId)
+                .queryParam("event_type", "prematch")
+                .queryParam("is_have_odds", "true");
+        if (sinceTimestamp != null && sinceTimestamp > 0) {
+            uriBuilder.queryParam("since", String.valueOf(sinceTimestamp));
+        }
+        return uriBuilder.build();
+    }
+}
@@ -0,0 +1,202 @@
+// src/main/java/com/AiPortal/service/PinnacleFixtureResolver.java
+package com.AiPortal.service;
+
+import com.AiPortal.entity.PinnacleEventMapping;
+import com.AiPortal.entity.TeamAlias;
+import com.AiPortal.repository.PinnacleEventMappingRepository;
+import com.AiPortal.repository.TeamAliasRepository;
+import com.AiPortal.util.StringSimilarity;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Kobler Pinnacle-eventer til våre Fixture-rader.
+ *
+ * Rekkefølgen er: (1) lagret event-ID -> fixture-ID, (2) eksakt oppslag i {@link FixtureMatchIndex}
+ * med lærte lag-alias, og (3) fuzzy-matching (trigram/edit-avstand, eller ord-for-ord forkortelser som
+ * "Man Utd" / "Manchester United") mot kamper rundt samme tidspunkt.
+ * Resultatet lagres permanent, slik at den dyre matchingen kun kjøres én gang per nytt event.
+ */
+@Service
+public class PinnacleFixtureResolver {
+
+    private static final Logger log = LoggerFactory.getLogger(PinnacleFixtureResolver.class);
+    private static final String ALIAS_SOURCE = "PINNACLE";
+    private static final double MIN_TEAM_SIMILARITY = 0.6;
+    private static final double MIN_MARGIN_TO_RUNNER_UP = 0.1;
+    // Likheten et lag får når navnet er en ord-for-ord forkortelse av kandidaten. Over terskelen, under eksakt treff.
+    private static final double ABBREVIATION_SIMILARITY = 0.9;
+    private static final int MAPPING_CACHE_DAYS = 30;
+
+    private final FixtureMatchIndex fixtureMatchIndex;
+    private final PinnacleEventMappingRepository mappingRepository;
+    private final TeamAliasRepository teamAliasRepository;
+
+    private final Map<Long, Long> fixtureIdByEventId = new ConcurrentHashMap<>();
+    private final Map<String, String> canonicalByAlias = new ConcurrentHashMap<>();
+    // Event-ID -> indeksversjon ved siste mislykkede forsøk. Nytt forsøk kun når indeksen har endret seg.
+    private final Map<Long, UnresolvedEvent> unresolvedAtIndexVersion = new ConcurrentHashMap<>();
+
+    public PinnacleFixtureResolver(FixtureMatchIndex fixtureMatchIndex,
+                                   PinnacleEventMappingRepository mappingRepository,
+                                   TeamAliasRepository teamAliasRepository) {
+        this.fixtureMatchIndex = fixtureMatchIndex;
+        this.mappingRepository = mappingRepository;
+        this.teamAliasRepository = teamAliasRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Instant since = Instant.now().minus(MAPPING_CACHE_DAYS, ChronoUnit.DAYS);
+        mappingRepository.findAllByCreatedAtAfter(since)
+                .forEach(m -> fixtureIdByEventId.put(m.getPinnacleEventId(), m.getFixtureId()));
+        teamAliasRepository.findAllBySource(ALIAS_SOURCE)
+                .forEach(a -> canonicalByAlias.put(a.getAlias(), a.getCanonicalName()));
+        log.info("---[PINNACLE RESOLVER] Lastet {} event-koblinger og {} lag-alias.", fixtureIdByEventId.size(), canonicalByAlias.size());
+    }
+
+    /**
+     * Finner fixture-ID for et Pinnacle-event (eller event-delen av et spesialmarked).
+     */
+    public Optional<Long> resolve(JsonNode event) {
+        long eventId = event.path("event_id").asLong(event.path("id").asLong(0));
+        if (eventId > 0) {
+            Long mapped = fixtureIdByEventId.get(eventId);
+            if (mapped != null) return Optional.of(mapped);
+        }
+
+        String homeTeamRaw = event.path("home").asText();
+        String awayTeamRaw = event.path("away").asText();
+        String startsString = event.path("starts").asText();
+        if (homeTeamRaw.isEmpty() || awayTeamRaw.isEmpty() || startsString.isEmpty()) {
+            return Optional.empty();
+        }
+
+        long indexVersion = fixtureMatchIndex.getVersion();
+        UnresolvedEvent unresolved = eventId > 0 ? unresolvedAtIndexVersion.get(eventId) : null;
+        if (unresolved != null && unresolved.indexVersion() == indexVersion) {
+            return Optional.empty();
+        }
+
+        Instant kickoff = Instant.parse(startsString + "Z");
+        String home = FixtureMatchIndex.normalizeTeamName(homeTeamRaw);
+        String away = FixtureMatchIndex.normalizeTeamName(awayTeamRaw);
+
+        Optional<Long> exact = fixtureMatchIndex.findFixtureIdNormalized(home, away, kickoff);
+        if (exact.isPresent()) {
+            remember(eventId, exact.get(), PinnacleEventMapping.MatchMethod.EXACT);
+            return exact;
+        }
+
+        String aliasHome = canonicalByAlias.getOrDefault(home, home);
+        String aliasAway = canonicalByAlias.getOrDefault(away, away);
+        if (!aliasHome.equals(home) || !aliasAway.equals(away)) {
+            Optional<Long> viaAlias = fixtureMatchIndex.findFixtureIdNormalized(aliasHome, aliasAway, kickoff);
+            if (viaAlias.isPresent()) {
+                remember(eventId, viaAlias.get(), PinnacleEventMapping.MatchMethod.ALIAS);
+                return viaAlias;
+            }
+        }
+
+        Optional<Long> fuzzy = fuzzyMatch(aliasHome, FixtureMatchIndex.teamNameTokens(homeTeamRaw),
+                aliasAway, FixtureMatchIndex.teamNameTokens(awayTeamRaw), kickoff);
+        if (fuzzy.isPresent()) {
+            log.info("---[PINNACLE RESOLVER] Fuzzy-match: '{} vs {}' -> Fixture ID: {}", homeTeamRaw, awayTeamRaw, fuzzy.get());
+            remember(eventId, fuzzy.get(), PinnacleEventMapping.MatchMethod.FUZZY);
+            return fuzzy;
+        }
+
+        if (eventId > 0) unresolvedAtIndexVersion.put(eventId, new UnresolvedEvent(indexVersion, kickoff));
+        log.warn("---[PINNACLE RESOLVER] Fant IKKE match for Pinnacle-kamp: '{} vs {}'", homeTeamRaw, awayTeamRaw);
+        return Optional.empty();
+    }
+
+    /**
+     * Glemmer mislykkede oppslag for kamper som har falt ut av indeksens tidsvindu; de kan ikke lenger få treff.
+     */
+    @Scheduled(fixedRate = 3600000, initialDelay = 3600000)
+    public void evictStaleUnresolved() {
+        Instant cutoff = Instant.now().minus(FixtureMatchIndex.MATCH_WINDOW);
+        unresolvedAtIndexVersion.values().removeIf(u -> u.kickoff().isBefore(cutoff));
+    }
+
+    private Optional<Long> fuzzyMatch(String home, List<String> homeTokens, String away, List<String> awayTokens, Instant kickoff) {
+        List<FixtureMatchIndex.Candidate> candidates = fixtureMatchIndex.candidatesAround(kickoff);
+        FixtureMatchIndex.Candidate best = null;
+        double bestScore = 0.0;
+        double runnerUpScore = 0.0;
+        for (FixtureMatchIndex.Candidate candidate : candidates) {
+            // Begge lag må ligne; den svakeste siden avgjør.
+            double score = Math.min(
+                    teamSimilarity(home, homeTokens, candidate.normalizedHome(), candidate.homeTokens()),
+                    teamSimilarity(away, awayTokens, candidate.normalizedAway(), candidate.awayTokens()));
+            if (score > bestScore) {
+                runnerUpScore = bestScore;
+                bestScore = score;
+                best = candidate;
+            } else if (score > runnerUpScore) {
+                runnerUpScore = score;
+            }
+        }
+        if (best == null || bestScore < MIN_TEAM_SIMILARITY || bestScore - runnerUpScore < MIN_MARGIN_TO_RUNNER_UP) {
+            return Optional.empty();
+        }
+        learnAlias(home, best.normalizedHome(), teamSimilarity(home, homeTokens, best.normalizedHome(), best.homeTokens()));
+        learnAlias(away, best.normalizedAway(), teamSimilarity(away, awayTokens, best.normalizedAway(), best.awayTokens()));
+        return Optional.of(best.fixtureId());
+    }
+
+    private static double teamSimilarity(String name, List<String> tokens, String candidateName, List<String> candidateTokens) {
+        double similarity = Math.max(
+                StringSimilarity.similarity(name, candidateName),
+                StringSimilarity.similarity(String.join("", tokens), candidateName));
+        if (similarity < ABBREVIATION_SIMILARITY && StringSimilarity.isAbbreviation(tokens, candidateTokens)) {
+            return ABBREVIATION_SIMILARITY;
+        }
+        return similarity;
+    }
+
+    private void remember(long eventId, long fixtureId, PinnacleEventMapping.MatchMethod method) {
+        if (eventId <= 0) return;
+        unresolvedAtIndexVersion.remove(eventId);
+        if (fixtureIdByEventId.putIfAbsent(eventId, fixtureId) != null) return;
+        try {
+            PinnacleEventMapping mapping = new PinnacleEventMapping();
+            mapping.setPinnacleEventId(eventId);
+            mapping.setFixtureId(fixtureId);
+            mapping.setMatchMethod(method);
+            mappingRepository.save(mapping);
+        } catch (Exception e) {
+            log.warn("---[PINNACLE RESOLVER] Kunne ikke lagre kobling for event {}: {}", eventId, e.getMessage());
+        }
+    }
+
+    private void learnAlias(String alias, String canonicalName, double similarity) {
+        if (alias.equals(canonicalName) || canonicalByAlias.putIfAbsent(alias, canonicalName) != null) return;
+        try {
+            TeamAlias teamAlias = new TeamAlias();
+            teamAlias.setSource(ALIAS_SOURCE);
+            teamAlias.setAlias(alias);
+            teamAlias.setCanonicalName(canonicalName);
+            teamAlias.setSimilarity(similarity);
+            teamAliasRepository.save(teamAlias);
+            log.info("---[PINNACLE RESOLVER] Lærte nytt lag-alias: '{}' -> '{}' (likhet {})", alias, canonicalName, String.format("%.2f", similarity));
+        } catch (Exception e) {
+            log.warn("---[PINNACLE RESOLVER] Kunne ikke lagre alias '{}': {}", alias, e.getMessage());
+        }
+    }
+
+    private record UnresolvedEvent(long indexVersion, Instant kickoff) {}
+}
@@ -0,0 +1,141 @@
+// src/main/java/com/AiPortal/service/PinnacleStreamParser.java
+package com.AiPortal.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Strømmende parser for Pinnacle-svar ({"events": [...], "last": ...} eller {"specials": [...], "last": ...}).
+ *
+ * Bytes mates inn i Jacksons ikke-blokkerende parser etter hvert som de kommer fra WebClient,
+ * og hvert enkelt event bygges som et eget lite JsonNode-tre og sendes videre før neste leses.
+ * Minnebruken per runde er dermed konstant, uavhengig av hvor mange eventer Pinnacle returnerer.
+ */
+@Component
+public class PinnacleStreamParser {
+
+    // Antall buffere som kan ligge i kø mellom nettverket og prosesseringen.
+    private static final int PREFETCH_BUFFERS = 4;
+
+    private final ObjectMapper objectMapper;
+
+    public PinnacleStreamParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Parser svaret og kaller eventProcessor for hvert event/spesialmarked.
+     * Prosesseringen (som gjør databasekall) kjøres på boundedElastic, ikke på nettverkstråden.
+     *
+     * @return Et Mono med verdien av "last" (ny since-cursor), eller 0 hvis den mangler.
+     */
+    public Mono<Long> parse(Flux<DataBuffer> body, Consumer<JsonNode> eventProcessor) {
+        return Mono.defer(() -> {
+            StreamState state = new StreamState(eventProcessor);
+            return body
+                    .publishOn(Schedulers.boundedElastic(), PREFETCH_BUFFERS)
+                    .doOnNext(state::feed)
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .then(Mono.fromCallable(state::finish));
+        });
+    }
+
+    private final class StreamState {
+        private final Consumer<JsonNode> eventProcessor;
+        private final JsonParser parser;
+        private final ByteArrayFeeder feeder;
+
+        private int depth = 0;
+        private boolean expectEventsArray = false;
+        private boolean inEventsArray = false;
+        private boolean expectLast = false;
+        private TokenBuffer currentEvent;
+        private long last = 0;
+
+        StreamState(Consumer<JsonNode> eventProcessor) {
+            this.eventProcessor = eventProcessor;
+            try {
+                this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        void feed(DataBuffer buffer) {
+            byte[] bytes;
+            try {
+                bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+            try {
+                feeder.feedInput(bytes, 0, bytes.length);
+                drain();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        long finish() throws IOException {
+            feeder.endOfInput();
+            drain();
+            parser.close();
+            return last;
+        }
+
+        private void drain() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                handle(token);
+            }
+        }
+
+        private void handle(JsonToken token) throws IOException {
+            if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) depth++;
+
+            if (currentEvent != null) {
+                currentEvent.copyCurrentEvent(parser);
+            } else if (inEventsArray && token == JsonToken.START_OBJECT && depth == 3) {
+                currentEvent = new TokenBuffer(parser);
+                currentEvent.copyCurrentEvent(parser);
+            } else if (depth == 1 && token == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                expectEventsArray = "events".equals(field) || "specials".equals(field);
+                expectLast = "last".equals(field);
+            } else if (depth == 1 && expectLast && token.isScalarValue()) {
+                last = token.isNumeric() ? parser.getLongValue() : 0;
+                expectLast = false;
+            } else if (depth == 2 && token == JsonToken.START_ARRAY && expectEventsArray) {
+                inEventsArray = true;
+                expectEventsArray = false;
+            }
+
+            if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+                depth--;
+                if (currentEvent != null && depth == 2) {
+                    JsonNode event = objectMapper.readTree(currentEvent.asParser(objectMapper));
+                    currentEvent = null;
+                    eventProcessor.accept(event);
+                } else if (inEventsArray && depth == 1) {
+                    inEventsArray = false;
+                }
+            }
+        }
+    }
+}
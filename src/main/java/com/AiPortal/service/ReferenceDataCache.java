@@ -0,0 +1,185 @@
+// src/main/java/com/AiPortal/service/ReferenceDataCache.java
+package com.AiPortal.service;
+
+import com.AiPortal.entity.BetType;
+import com.AiPortal.entity.Bookmaker;
+import com.AiPortal.entity.League;
+import com.AiPortal.repository.BetTypeRepository;
+import com.AiPortal.repository.BookmakerRepository;
+import com.AiPortal.repository.LeagueRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Uforanderlig øyeblikksbilde av referansedata (bookmakere, spilltyper og ligaer) i minnet.
+ *
+ * Bildet bygges ved oppstart og byttes ut i sin helhet ved endringer, så oppslag på de varme stiene
+ * (odds-skriving, kamplister) er rene map-oppslag uten databasekall og uten låsing. Synkronisering mot
+ * API-et sammenligner med bildet og skriver bare rader som er nye eller har endret navn.
+ */
+@Component
+public class ReferenceDataCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    private final BookmakerRepository bookmakerRepository;
+    private final BetTypeRepository betTypeRepository;
+    private final LeagueRepository leagueRepository;
+
+    private volatile Snapshot snapshot;
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong rowsUnchanged = new AtomicLong();
+
+    public ReferenceDataCache(BookmakerRepository bookmakerRepository,
+                              BetTypeRepository betTypeRepository,
+                              LeagueRepository leagueRepository) {
+        this.bookmakerRepository = bookmakerRepository;
+        this.betTypeRepository = betTypeRepository;
+        this.leagueRepository = leagueRepository;
+    }
+
+    /**
+     * Laster bildet fra databasen. Kjøres ved oppstart og hver time, slik at endringer gjort av andre noder også kommer med.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedRate = 3600000, initialDelay = 3600000)
+    public synchronized void reload() {
+        Snapshot fresh = new Snapshot(
+                toNameMap(bookmakerRepository.findAll(), Bookmaker::getId, Bookmaker::getName),
+                toNameMap(betTypeRepository.findAll(), BetType::getId, BetType::getName),
+                toNameMap(leagueRepository.findAll(), League::getId, League::getName),
+                Instant.now());
+        this.snapshot = fresh;
+        log.info("---[REFERENCE DATA] Lastet {} bookmakere, {} spilltyper og {} ligaer.",
+                fresh.bookmakers().size(), fresh.betTypes().size(), fresh.leagues().size());
+    }
+
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) reload();
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Synkroniserer bookmakere fra API-et. Skriver kun nye/endrede rader.
+     *
+     * @return Antall rader som ble skrevet.
+     */
+    public int syncBookmakers(Map<Integer, String> fromApi) {
+        return sync(Snapshot::bookmakers, fromApi, (id, name) -> {
+            Bookmaker b = new Bookmaker();
+            b.setId(id);
+            b.setName(name);
+            return b;
+        }, bookmakerRepository::saveAll, (s, merged) -> new Snapshot(merged, s.betTypes(), s.leagues(), Instant.now()));
+    }
+
+    public int syncBetTypes(Map<Integer, String> fromApi) {
+        return sync(Snapshot::betTypes, fromApi, (id, name) -> {
+            BetType bt = new BetType();
+            bt.setId(id);
+            bt.setName(name);
+            return bt;
+        }, betTypeRepository::saveAll, (s, merged) -> new Snapshot(s.bookmakers(), merged, s.leagues(), Instant.now()));
+    }
+
+    /**
+     * Ligaer har ikke et eget endepunkt i innsamlingen; de registreres fra standings- og odds-svarene etter hvert som de dukker opp.
+     */
+    public int syncLeagues(Map<Integer, String> fromApi) {
+        return sync(Snapshot::leagues, fromApi, (id, name) -> {
+            League league = new League();
+            league.setId(id);
+            league.setName(name);
+            return league;
+        }, leagueRepository::saveAll, (s, merged) -> new Snapshot(s.bookmakers(), s.betTypes(), merged, Instant.now()));
+    }
+
+    private <T> int sync(Function<Snapshot, Map<Integer, String>> section, Map<Integer, String> fromApi,
+                         BiFunction<Integer, String, T> factory, Consumer<List<T>> saveAll,
+                         BiFunction<Snapshot, Map<Integer, String>, Snapshot> publish) {
+        // Vanligste tilfelle er at ingenting er endret; det avgjøres uten lås.
+        if (diff(section.apply(current()), fromApi, factory).isEmpty()) {
+            rowsUnchanged.addAndGet(fromApi.size());
+            return 0;
+        }
+        synchronized (this) {
+            Snapshot current = current();
+            List<T> changed = diff(section.apply(current), fromApi, factory);
+            if (!changed.isEmpty()) {
+                saveAll.accept(changed);
+                snapshot = publish.apply(current, merge(section.apply(current), fromApi));
+            }
+            rowsWritten.addAndGet(changed.size());
+            rowsUnchanged.addAndGet(fromApi.size() - changed.size());
+            return changed.size();
+        }
+    }
+
+    private static <T> List<T> diff(Map<Integer, String> existing, Map<Integer, String> fromApi, BiFunction<Integer, String, T> factory) {
+        List<T> changed = new ArrayList<>();
+        fromApi.forEach((id, name) -> {
+            if (id != null && name != null && !Objects.equals(existing.get(id), name)) changed.add(factory.apply(id, name));
+        });
+        return changed;
+    }
+
+    // Rader som forsvinner fra API-et beholdes, siden eldre odds fortsatt peker på dem.
+    private static Map<Integer, String> merge(Map<Integer, String> existing, Map<Integer, String> fromApi) {
+        Map<Integer, String> merged = new HashMap<>(existing);
+        fromApi.forEach((id, name) -> {
+            if (id != null && name != null) merged.put(id, name);
+        });
+        return Map.copyOf(merged);
+    }
+
+    private static <T> Map<Integer, String> toNameMap(List<T> rows, Function<T, Integer> id, Function<T, String> name) {
+        return rows.stream()
+                .filter(row -> id.apply(row) != null)
+                .collect(Collectors.toUnmodifiableMap(id, row -> Objects.requireNonNullElse(name.apply(row), ""), (a, b) -> a));
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("bookmakers", current == null ? 0 : current.bookmakers().size());
+        stats.put("betTypes", current == null ? 0 : current.betTypes().size());
+        stats.put("leagues", current == null ? 0 : current.leagues().size());
+        stats.put("loadedAt", current == null ? null : current.loadedAt().toString());
+        stats.put("rowsWritten", rowsWritten.get());
+        stats.put("rowsUnchanged", rowsUnchanged.get());
+        return stats;
+    }
+
+    /**
+     * Ett konsistent sett med referansedata. Alle kart er uforanderlige.
+     */
+    public record Snapshot(Map<Integer, String> bookmakers, Map<Integer, String> betTypes,
+                           Map<Integer, String> leagues, Instant loadedAt) {
+
+        public boolean hasBookmaker(int bookmakerId) {
+            return bookmakers.containsKey(bookmakerId);
+        }
+
+        public String leagueName(Integer leagueId, String fallback) {
+            return leagueId == null ? fallback : leagues.getOrDefault(leagueId, fallback);
+        }
+    }
+}
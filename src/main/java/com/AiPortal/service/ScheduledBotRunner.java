@@ -19,16 +19,17 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.text.Normalizer;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -37,16 +38,25 @@ public class ScheduledBotRunner {
 
     private static final Logger log = LoggerFactory.getLogger(ScheduledBotRunner.class);
     private static final DateTimeFormatter TWITTER_DATE_FORMATTER = DateTimeFormatter.ofPattern("EEE MMM dd HH:mm:ss Z yyyy", Locale.ENGLISH);
-    private final ReentrantLock chunkProcessingLock = new ReentrantLock();
+    private static final int MAX_CONCURRENT_PINNACLE_BOTS = 8;
+    private static final Duration PINNACLE_POLL_TIMEOUT = Duration.ofMinutes(4);
+    private static final int DAILY_ODDS_DATE_CONCURRENCY = 2;
+    private static final int DAILY_ODDS_PAGE_CONCURRENCY = 3;
+    private static final Duration DAILY_ODDS_TIMEOUT = Duration.ofMinutes(30);
+    private static final int LEAGUE_STANDINGS_CONCURRENCY = 4;
+    private static final Duration LEAGUE_STANDINGS_TIMEOUT = Duration.ofMinutes(10);
+    // Lag med lokale tall krysskontrolleres mot /teams/statistics høyst én gang per døgn.
+    private static final Duration TEAM_STATS_CROSS_CHECK_INTERVAL = Duration.ofHours(24);
+    private static final Duration TWITTER_RUN_TIMEOUT = Duration.ofMinutes(10);
 
     private final BotConfigurationRepository botConfigRepository;
     private final PendingFixtureChunkRepository pendingChunkRepository;
     private final RawTweetDataRepository tweetRepository;
     private final TeamStatisticsRepository teamStatisticsRepository;
     private final MatchOddsRepository matchOddsRepository;
-    private final BookmakerRepository bookmakerRepository;
-    private final BetTypeRepository betTypeRepository;
     private final FixtureRepository fixtureRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final TweetCursorService tweetCursorService;
 
     private final BotConfigurationService botConfigService;
     private final TwitterServiceManager twitterServiceManager;
@@ -54,16 +64,23 @@ public class ScheduledBotRunner {
     private final PinnacleApiService pinnacleApiService;
     private final ObjectMapper objectMapper;
     private final HistoricalDataWorker historicalDataWorker;
+    private final FixtureMatchIndex fixtureMatchIndex;
+    private final PinnacleFixtureResolver pinnacleFixtureResolver;
+    private final PinnacleStreamParser pinnacleStreamParser;
+    private final OddsBatchWriter oddsBatchWriter;
+    private final PayloadFingerprintService payloadFingerprintService;
+    private final ChunkWorkerPool chunkWorkerPool;
+    private final ApiQuotaTracker apiQuotaTracker;
+    private final BackfillPlanner backfillPlanner;
+    private final StandingsEngine standingsEngine;
 
     @Autowired
-    public ScheduledBotRunner(BotConfigurationRepository botConfigRepository, PendingFixtureChunkRepository pendingChunkRepository, RawTweetDataRepository tweetRepository, TeamStatisticsRepository teamStatisticsRepository, MatchOddsRepository matchOddsRepository, BookmakerRepository bookmakerRepository, BetTypeRepository betTypeRepository, FixtureRepository fixtureRepository, BotConfigurationService botConfigService, TwitterServiceManager twitterServiceManager, FootballApiService footballApiService, PinnacleApiService pinnacleApiService, ObjectMapper objectMapper, @Lazy HistoricalDataWorker historicalDataWorker) {
+    public ScheduledBotRunner(BotConfigurationRepository botConfigRepository, PendingFixtureChunkRepository pendingChunkRepository, RawTweetDataRepository tweetRepository, TeamStatisticsRepository teamStatisticsRepository, MatchOddsRepository matchOddsRepository, FixtureRepository fixtureRepository, BotConfigurationService botConfigService, TwitterServiceManager twitterServiceManager, FootballApiService footballApiService, PinnacleApiService pinnacleApiService, ObjectMapper objectMapper, @Lazy HistoricalDataWorker historicalDataWorker, FixtureMatchIndex fixtureMatchIndex, PinnacleFixtureResolver pinnacleFixtureResolver, PinnacleStreamParser pinnacleStreamParser, OddsBatchWriter oddsBatchWriter, PayloadFingerprintService payloadFingerprintService, ChunkWorkerPool chunkWorkerPool, ApiQuotaTracker apiQuotaTracker, BackfillPlanner backfillPlanner, StandingsEngine standingsEngine, ReferenceDataCache referenceDataCache, TweetCursorService tweetCursorService) {
         this.botConfigRepository = botConfigRepository;
         this.pendingChunkRepository = pendingChunkRepository;
         this.tweetRepository = tweetRepository;
         this.teamStatisticsRepository = teamStatisticsRepository;
         this.matchOddsRepository = matchOddsRepository;
-        this.bookmakerRepository = bookmakerRepository;
-        this.betTypeRepository = betTypeRepository;
         this.fixtureRepository = fixtureRepository;
         this.botConfigService = botConfigService;
         this.twitterServiceManager = twitterServiceManager;
@@ -71,6 +88,17 @@ public class ScheduledBotRunner {
         this.pinnacleApiService = pinnacleApiService;
         this.objectMapper = objectMapper;
         this.historicalDataWorker = historicalDataWorker;
+        this.fixtureMatchIndex = fixtureMatchIndex;
+        this.pinnacleFixtureResolver = pinnacleFixtureResolver;
+        this.pinnacleStreamParser = pinnacleStreamParser;
+        this.oddsBatchWriter = oddsBatchWriter;
+        this.payloadFingerprintService = payloadFingerprintService;
+        this.chunkWorkerPool = chunkWorkerPool;
+        this.apiQuotaTracker = apiQuotaTracker;
+        this.backfillPlanner = backfillPlanner;
+        this.standingsEngine = standingsEngine;
+        this.referenceDataCache = referenceDataCache;
+        this.tweetCursorService = tweetCursorService;
     }
 
     @Transactional
@@ -85,50 +113,13 @@ public class ScheduledBotRunner {
         return 0;
     }
 
-    private Optional<Fixture> findExistingFixtureFromPinnacleEvent(JsonNode event) {
-        String homeTeamRaw = event.path("home").asText();
-        String awayTeamRaw = event.path("away").asText();
-        String startsString = event.path("starts").asText();
-        if (homeTeamRaw.isEmpty() || awayTeamRaw.isEmpty() || startsString.isEmpty()) {
-            return Optional.empty();
-        }
-        String normalizedHome = normalizeTeamName(homeTeamRaw);
-        String normalizedAway = normalizeTeamName(awayTeamRaw);
-        Instant eventTime = Instant.parse(startsString + "Z");
-
-        log.trace("---[PINNACLE MATCHER] Leter etter kamp: {} ({}) vs {} ({}) rundt {}",
-                homeTeamRaw, normalizedHome, awayTeamRaw, normalizedAway, eventTime);
-
-        List<Fixture> candidates = fixtureRepository.findAllByDateBetween(
-                eventTime.minus(12, ChronoUnit.HOURS),
-                eventTime.plus(12, ChronoUnit.HOURS)
-        );
-
-        Optional<Fixture> foundFixture = candidates.stream()
-                .filter(fixture ->
-                        normalizeTeamName(fixture.getHomeTeamName()).equals(normalizedHome) &&
-                                normalizeTeamName(fixture.getAwayTeamName()).equals(normalizedAway)
-                )
-                .findFirst();
-
-        if (foundFixture.isPresent()) {
-            log.info("---[PINNACLE MATCHER] Fant match! Pinnacle: '{} vs {}' -> DB Fixture ID: {}", homeTeamRaw, awayTeamRaw, foundFixture.get().getId());
-        } else {
-            log.warn("---[PINNACLE MATCHER] Fant IKKE match for Pinnacle-kamp: '{} vs {}'", homeTeamRaw, awayTeamRaw);
-        }
-        return foundFixture;
+    private Optional<Long> findExistingFixtureFromPinnacleEvent(JsonNode event) {
+        return pinnacleFixtureResolver.resolve(event);
     }
 
     private <T> List<List<T>> partitionList(List<T> list, final int size) {
         return new ArrayList<>(IntStream.range(0, list.size()).boxed().collect(Collectors.groupingBy(e -> e / size, Collectors.mapping(list::get, Collectors.toList()))).values());
     }
-    private String normalizeTeamName(String name) {
-        if (name == null) return "";
-        String normalized = Normalizer.normalize(name, Normalizer.Form.NFD);
-        return normalized.replaceAll("[^\\p{ASCII}]", "")
-                .replaceAll("[^a-zA-Z0-9]", "")
-                .toLowerCase();
-    }
 
     @Async("taskExecutor")
     @Scheduled(fixedRate = 300000, initialDelay = 30000)
@@ -139,91 +130,110 @@ public class ScheduledBotRunner {
                 BotConfiguration.SourceType.PINNACLE_ODDS
         );
         if (pinnacleBots.isEmpty()) return;
-        for (BotConfiguration bot : pinnacleBots) {
-            String sportId = bot.getSourceIdentifier();
-            Long sinceTimestamp = bot.getSinceTimestamp();
-            log.info("---[PINNACLE V5] Kjører bot '{}' for sportId {}. Siste timestamp: {}", bot.getName(), sportId, sinceTimestamp);
-            try {
-                ResponseEntity<String> marketsResponse = pinnacleApiService.getMarkets(sportId, sinceTimestamp).block();
-                processPinnacleResponse(marketsResponse, bot, this::processPinnacleMarketEvent);
-                Thread.sleep(1000);
-                ResponseEntity<String> specialsResponse = pinnacleApiService.getSpecialMarkets(sportId, sinceTimestamp).block();
-                processPinnacleResponse(specialsResponse, bot, this::processPinnacleSpecialEvent);
-            } catch (Exception e) {
-                log.error("---[PINNACLE V5] API-kall feilet for bot {}: {}", bot.getName(), e.getMessage());
-            }
-        }
-    }
-
-    @Transactional
-    public void processPinnacleResponse(ResponseEntity<String> responseEntity, BotConfiguration bot, java.util.function.Consumer<JsonNode> eventProcessor) {
+        // Alle boter og begge feeds kjøres samtidig; PinnacleApiService sin token-bucket styrer takten mot verten.
         try {
-            if (responseEntity == null || !responseEntity.getStatusCode().is2xxSuccessful() || responseEntity.getBody() == null) {
-                log.warn("---[PINNACLE V5]--- Mottok ugyldig svar fra Pinnacle API.");
-                return;
-            }
-            JsonNode root = objectMapper.readTree(responseEntity.getBody());
-            JsonNode events = root.path(root.has("events") ? "events" : "specials");
-            if (events.isArray() && events.size() > 0) {
-                for (JsonNode event : events) {
-                    eventProcessor.accept(event);
-                }
-            }
-            long newSince = root.path("last").asLong();
-            if (newSince > 0) {
-                bot.setSinceTimestamp(newSince);
-                bot.setLastRun(Instant.now());
-                botConfigRepository.save(bot);
-                log.info("---[PINNACLE V5] Oppdaterte 'since' timestamp til: {}", newSince);
-            }
+            Flux.fromIterable(pinnacleBots)
+                    .flatMap(bot -> Flux.merge(pollPinnacleMarkets(bot), pollPinnacleSpecials(bot)), MAX_CONCURRENT_PINNACLE_BOTS)
+                    .then()
+                    .block(PINNACLE_POLL_TIMEOUT);
         } catch (Exception e) {
-            log.error("---[PINNACLE V5] Feil ved parsing av Pinnacle-respons: {}", e.getMessage(), e);
+            log.error("---[PINNACLE V5] Pinnacle-runden ble ikke fullført innen {}: {}", PINNACLE_POLL_TIMEOUT, e.getMessage());
         }
     }
 
-    @Transactional
-    public void processPinnacleMarketEvent(JsonNode event) {
-        findExistingFixtureFromPinnacleEvent(event).ifPresent(fixture -> {
+    private Mono<Void> pollPinnacleMarkets(BotConfiguration bot) {
+        String sportId = bot.getSourceIdentifier();
+        log.info("---[PINNACLE V5] Kjører bot '{}' for sportId {}. Siste timestamp: {}", bot.getName(), sportId, bot.getSinceTimestamp());
+        OddsBatchWriter.Buffer buffer = oddsBatchWriter.newBuffer();
+        return pinnacleStreamParser.parse(pinnacleApiService.streamMarkets(sportId, bot.getSinceTimestamp()), event -> processPinnacleMarketEvent(event, buffer))
+                .doOnNext(newSince -> {
+                    buffer.flush();
+                    if (newSince > 0) {
+                        botConfigRepository.updateSinceTimestamp(bot.getId(), newSince, Instant.now());
+                        log.info("---[PINNACLE V5] Oppdaterte 'since' timestamp for bot '{}' til: {}", bot.getName(), newSince);
+                    }
+                })
+                .then()
+                .onErrorResume(e -> {
+                    log.error("---[PINNACLE V5] Markeds-kall feilet for bot {}: {}", bot.getName(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> pollPinnacleSpecials(BotConfiguration bot) {
+        OddsBatchWriter.Buffer buffer = oddsBatchWriter.newBuffer();
+        return pinnacleStreamParser.parse(pinnacleApiService.streamSpecialMarkets(bot.getSourceIdentifier(), bot.getSpecialsSinceTimestamp()), special -> processPinnacleSpecialEvent(special, buffer))
+                .doOnNext(newSince -> {
+                    buffer.flush();
+                    if (newSince > 0) {
+                        botConfigRepository.updateSpecialsSinceTimestamp(bot.getId(), newSince, Instant.now());
+                        log.info("---[PINNACLE V5] Oppdaterte 'since' timestamp for spesialmarkeder for bot '{}' til: {}", bot.getName(), newSince);
+                    }
+                })
+                .then()
+                .onErrorResume(e -> {
+                    log.error("---[PINNACLE V5] Spesialmarked-kall feilet for bot {}: {}", bot.getName(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    public void processPinnacleMarketEvent(JsonNode event, OddsBatchWriter.Buffer buffer) {
+        findExistingFixtureFromPinnacleEvent(event).ifPresent(fixtureId -> {
             Integer pinnacleBookmakerId = 4;
             JsonNode periods = event.path("periods");
+            long eventId = event.path("event_id").asLong(0);
+            if (eventId > 0 && payloadFingerprintService.isUnchanged(PayloadFingerprintService.PINNACLE_MARKET, eventId, periods)) {
+                return;
+            }
             Iterator<Map.Entry<String, JsonNode>> periodIterator = periods.fields();
             while (periodIterator.hasNext()) {
-                JsonNode period = periodIterator.next().getValue();
-                if (period.has("money_line")) savePinnacleOdds(fixture, pinnacleBookmakerId, "Match Winner", period.path("money_line"), "moneyline");
-                if (period.has("spreads")) savePinnacleOdds(fixture, pinnacleBookmakerId, "Handicap", period.path("spreads"), "spread");
-                if (period.has("totals")) savePinnacleOdds(fixture, pinnacleBookmakerId, "Total Goals", period.path("totals"), "total");
+                Map.Entry<String, JsonNode> periodEntry = periodIterator.next();
+                String periodKey = periodEntry.getKey();
+                JsonNode period = periodEntry.getValue();
+                if (period.has("money_line")) savePinnacleOdds(buffer, fixtureId, pinnacleBookmakerId, pinnacleBetName("Match Winner", periodKey), period.path("money_line"), "moneyline");
+                if (period.has("spreads")) savePinnacleOdds(buffer, fixtureId, pinnacleBookmakerId, pinnacleBetName("Handicap", periodKey), period.path("spreads"), "spread");
+                if (period.has("totals")) savePinnacleOdds(buffer, fixtureId, pinnacleBookmakerId, pinnacleBetName("Total Goals", periodKey), period.path("totals"), "total");
             }
+            if (eventId > 0) buffer.afterWrite(() -> payloadFingerprintService.markProcessed(PayloadFingerprintService.PINNACLE_MARKET, eventId, periods));
         });
     }
 
-    @Transactional
-    public void processPinnacleSpecialEvent(JsonNode special) {
+    /**
+     * Hele kampen (num_0) beholder markedsnavnet som verdiberegningen slår opp på. Andre perioder får
+     * perioden i navnet, ellers ville f.eks. 1. omgang overskrive oddsen for hele kampen i match_odds.
+     */
+    static String pinnacleBetName(String betName, String periodKey) {
+        if ("num_0".equals(periodKey)) return betName;
+        if ("num_1".equals(periodKey)) return betName + " (1st half)";
+        return betName + " (" + periodKey + ")";
+    }
+
+    public void processPinnacleSpecialEvent(JsonNode special, OddsBatchWriter.Buffer buffer) {
         if (!special.has("event") || special.get("event").isNull()) return;
-        findExistingFixtureFromPinnacleEvent(special.path("event")).ifPresent(fixture -> {
+        findExistingFixtureFromPinnacleEvent(special.path("event")).ifPresent(fixtureId -> {
             Integer pinnacleBookmakerId = 4;
             String betName = special.path("name").asText("Spesialspill");
             JsonNode lines = special.path("lines");
-            savePinnacleOdds(fixture, pinnacleBookmakerId, betName, lines, "special");
+            long specialId = special.path("special_id").asLong(0);
+            if (specialId > 0 && payloadFingerprintService.isUnchanged(PayloadFingerprintService.PINNACLE_SPECIAL, specialId, lines)) {
+                return;
+            }
+            savePinnacleOdds(buffer, fixtureId, pinnacleBookmakerId, betName, lines, "special");
+            if (specialId > 0) buffer.afterWrite(() -> payloadFingerprintService.markProcessed(PayloadFingerprintService.PINNACLE_SPECIAL, specialId, lines));
         });
     }
-    private void savePinnacleOdds(Fixture fixture, Integer bookmakerId, String betName, JsonNode oddsNode, String type) {
-        if (oddsNode.isMissingNode() || oddsNode.isEmpty() || matchOddsRepository.existsByFixtureIdAndBookmakerIdAndBetName(fixture.getId(), bookmakerId, betName)) {
+    private void savePinnacleOdds(OddsBatchWriter.Buffer buffer, long fixtureId, Integer bookmakerId, String betName, JsonNode oddsNode, String type) {
+        if (oddsNode.isMissingNode() || oddsNode.isEmpty()) {
             return;
         }
         try {
-            String oddsDataJson = convertPinnacleNodeToJsonString(oddsNode, type);
-            MatchOdds matchOdds = new MatchOdds();
-            matchOdds.setFixture(fixture);
-            bookmakerRepository.findById(bookmakerId).ifPresent(matchOdds::setBookmaker);
-            matchOdds.setBetName(betName);
-            matchOdds.setOddsData(oddsDataJson);
-            matchOdds.setLastUpdated(Instant.now());
-            matchOddsRepository.save(matchOdds);
+            ArrayNode valuesArray = convertPinnacleNode(oddsNode, type);
+            buffer.add(new MatchOddsUpsert(fixtureId, bookmakerId, betName, objectMapper.writeValueAsString(valuesArray), OddsSnapshot.fromJson(valuesArray)));
         } catch (JsonProcessingException e) {
-            log.error("Kunne ikke konvertere odds-data til JSON for kamp {}", fixture.getId(), e);
+            log.error("Kunne ikke konvertere odds-data til JSON for kamp {}", fixtureId, e);
         }
     }
-    private String convertPinnacleNodeToJsonString(JsonNode oddsNode, String type) throws JsonProcessingException {
+    private ArrayNode convertPinnacleNode(JsonNode oddsNode, String type) {
         ArrayNode valuesArray = objectMapper.createArrayNode();
         if ("moneyline".equals(type)) {
             valuesArray.add(objectMapper.createObjectNode().put("name", "Home").put("odds", oddsNode.path("home").asDouble()));
@@ -266,7 +276,7 @@ public class ScheduledBotRunner {
                 }
             }
         }
-        return objectMapper.writeValueAsString(valuesArray);
+        return valuesArray;
     }
 
     @Async("taskExecutor")
@@ -289,21 +299,20 @@ public class ScheduledBotRunner {
                     continue;
                 }
                 JsonNode fixturesArray = objectMapper.readTree(fixturesListResponse.getBody()).path("response");
-                List<Long> allFixtureIds = new ArrayList<>();
-                fixturesArray.forEach(node -> allFixtureIds.add(node.path("fixture").path("id").asLong()));
-                if (allFixtureIds.isEmpty()) {
-                    log.warn("---[PRODUCER V2]--- Fant ingen kamper for {}.", sourceId);
-                    continue;
-                }
-                List<List<Long>> fixtureIdChunks = partitionList(allFixtureIds, 20);
+                // Kun ferdigspilte kamper som mangler data, pakket tett slik at hver chunk er fullt arbeid.
+                List<Long> fixtureIdsToFetch = backfillPlanner.selectFixturesToFetch(fixturesArray, sourceId);
+                int chunkSize = apiQuotaTracker.recommendedChunkSize();
+                List<List<Long>> fixtureIdChunks = partitionList(fixtureIdsToFetch, chunkSize);
+                List<PendingFixtureChunk> pendingChunks = new ArrayList<>();
                 for (List<Long> chunk : fixtureIdChunks) {
                     PendingFixtureChunk pendingChunk = new PendingFixtureChunk();
                     pendingChunk.setFixtureIds(chunk.stream().map(String::valueOf).collect(Collectors.joining("-")));
                     pendingChunk.setSourceIdentifier(sourceId);
                     pendingChunk.setStatus(PendingFixtureChunk.ChunkStatus.PENDING);
-                    pendingChunkRepository.save(pendingChunk);
+                    pendingChunks.add(pendingChunk);
                 }
-                log.info("---[PRODUCER V2]--- Opprettet {} chunks for {} som nå ligger i kø.", fixtureIdChunks.size(), sourceId);
+                pendingChunkRepository.saveAll(pendingChunks);
+                log.info("---[PRODUCER V2]--- Opprettet {} chunks ({} kamper per chunk) for {} som nå ligger i kø.", fixtureIdChunks.size(), chunkSize, sourceId);
                 bot.setStatus(BotConfiguration.BotStatus.PAUSED);
                 bot.setLastRun(Instant.now());
                 botConfigRepository.save(bot);
@@ -313,104 +322,91 @@ public class ScheduledBotRunner {
         }
     }
 
-    @Async("taskExecutor")
+    /**
+     * Fyller ledige plasser i ChunkWorkerPool med chunks fra den lease-baserte køen. Henting og lagring
+     * skjer som en pipeline i poolen; flere noder kan kjøre dette samtidig.
+     */
     @Scheduled(fixedRate = 2000, initialDelay = 5000)
     public void processNextFixtureChunk() {
-        if (!chunkProcessingLock.tryLock()) {
+        chunkWorkerPool.dispatch(historicalDataWorker);
+    }
+
+    /**
+     * Søker etter nye tweets for alle aktive Twitter-boter. Søkene kjøres samtidig; TwitterServiceManager
+     * velger den sunneste leverandøren med ledig kapasitet for hvert søk og begrenser trykket per leverandør.
+     */
+    @Scheduled(fixedRate = 960000, initialDelay = 60000)
+    public void runTwitterSearchBot() {
+        log.info("--- Starter planlagt Twitter-søk ---");
+        List<BotConfiguration> activeTwitterBots = botConfigService.getAllBotsByStatusAndType(BotConfiguration.BotStatus.ACTIVE, BotConfiguration.SourceType.TWITTER);
+        if (activeTwitterBots.isEmpty()) return;
+        if (twitterServiceManager.totalConcurrency() == 0) {
+            log.warn("Ingen Twitter-leverandører tilgjengelig.");
             return;
         }
         try {
-            Optional<PendingFixtureChunk> chunkOpt = findAndLockNextChunk();
-            if (chunkOpt.isEmpty()) {
-                return;
-            }
-            PendingFixtureChunk chunk = chunkOpt.get();
-            historicalDataWorker.processChunk(chunk);
-            chunk.setProcessedAt(Instant.now());
-            pendingChunkRepository.save(chunk);
-            log.info("---[CONSUMER V2] Fullførte prosessering av chunk ID: {} med status: {}", chunk.getId(), chunk.getStatus());
-        } finally {
-            chunkProcessingLock.unlock();
+            Integer savedTweets = Flux.fromIterable(activeTwitterBots)
+                    .flatMap(this::searchTweetsForBot, twitterServiceManager.totalConcurrency())
+                    .reduce(0, Integer::sum)
+                    .block(TWITTER_RUN_TIMEOUT);
+            log.info("--- Twitter-søk ferdig for {} boter, {} nye tweets ---", activeTwitterBots.size(), savedTweets);
+        } catch (Exception e) {
+            log.error("Twitter-søket ble ikke fullført: {}", e.getMessage());
         }
     }
 
-    @Transactional
-    public Optional<PendingFixtureChunk> findAndLockNextChunk() {
-        Instant timeout = Instant.now().minus(5, ChronoUnit.MINUTES);
-        Optional<PendingFixtureChunk> stuckChunk = pendingChunkRepository.findFirstByStatusAndCreatedAtBefore(PendingFixtureChunk.ChunkStatus.PROCESSING, timeout);
-        if (stuckChunk.isPresent()) {
-            log.warn("Fant en 'stuck' jobb (ID: {}). Prøver på nytt.", stuckChunk.get().getId());
-            stuckChunk.get().setAttemptCount(stuckChunk.get().getAttemptCount() + 1);
-            return stuckChunk;
-        }
-        Optional<PendingFixtureChunk> chunkOpt = pendingChunkRepository.findFirstByStatusOrderByCreatedAtAsc(PendingFixtureChunk.ChunkStatus.PENDING);
-        chunkOpt.ifPresent(chunk -> {
-            chunk.setStatus(PendingFixtureChunk.ChunkStatus.PROCESSING);
-            chunk.setAttemptCount(chunk.getAttemptCount() + 1);
-            pendingChunkRepository.save(chunk);
-        });
-        return chunkOpt;
+    private Mono<Integer> searchTweetsForBot(BotConfiguration bot) {
+        return twitterServiceManager.acquire()
+                .flatMap(lease -> {
+                    TwitterServiceProvider twitterProvider = lease.provider();
+                    String providerName = twitterProvider.getProviderName();
+                    return lease.execute(Mono.fromCallable(() -> Optional.ofNullable(tweetCursorService.sinceIdFor(bot, providerName)))
+                                    .subscribeOn(Schedulers.boundedElastic())
+                                    .flatMap(sinceId -> twitterProvider.searchRecentTweets(twitterProvider.buildUserQuery(bot.getSourceIdentifier()), sinceId.orElse(null))
+                                            .map(responseBody -> new TweetSearchResult(sinceId.orElse(null), responseBody))))
+                            .publishOn(Schedulers.boundedElastic())
+                            .map(result -> saveTweets(bot, twitterProvider, result.sinceId(), result.responseBody()))
+                            .onErrorResume(error -> {
+                                log.error("Feil for bot '{}' med leverandør '{}': {}", bot.getName(), providerName, error.getMessage());
+                                return Mono.just(0);
+                            });
+                })
+                .switchIfEmpty(Mono.fromCallable(() -> {
+                    log.warn("Ingen Twitter-leverandør med ledig kvote for bot '{}', hoppes over denne runden.", bot.getName());
+                    return 0;
+                }));
     }
 
-    @Scheduled(fixedRate = 960000, initialDelay = 60000)
-    @Transactional
-    public void runTwitterSearchBot() {
-        log.info("--- Starter planlagt Twitter-søk ---");
-        List<BotConfiguration> activeTwitterBots = botConfigService.getAllBotsByStatusAndType(BotConfiguration.BotStatus.ACTIVE, BotConfiguration.SourceType.TWITTER);
-        if (activeTwitterBots.isEmpty()) return;
-        for (BotConfiguration bot : activeTwitterBots) {
-            TwitterServiceProvider twitterProvider = twitterServiceManager.getNextProvider();
-            if (twitterProvider == null) {
-                log.warn("Ingen flere Twitter-leverandører tilgjengelig.");
-                break;
-            }
-            String username = bot.getSourceIdentifier();
-            String query = "from:" + username;
-            if ("TwttrAPI241".equals(twitterProvider.getProviderName()) || "TwitterAPI45".equals(twitterProvider.getProviderName())) {
-                query = username;
-            }
-            twitterProvider.searchRecentTweets(query, null).subscribe(responseBody -> {
+    private int saveTweets(BotConfiguration bot, TwitterServiceProvider twitterProvider, String sinceId, String responseBody) {
+        String providerName = twitterProvider.getProviderName();
+        List<RawTweetData> candidates = new ArrayList<>();
+        for (JsonNode tweet : twitterProvider.parseTweetsFromResponse(responseBody)) {
+            String tweetId = twitterProvider.extractTweetId(tweet);
+            if (tweetId.isEmpty() || !tweetCursorService.isNewerThan(tweetId, sinceId)) continue;
+            RawTweetData newTweetData = new RawTweetData();
+            newTweetData.setTweetId(tweetId);
+            newTweetData.setAuthorUsername(bot.getSourceIdentifier());
+            newTweetData.setContent(twitterProvider.extractText(tweet));
+            String createdAtStr = twitterProvider.extractCreatedAt(tweet);
+            try {
+                newTweetData.setTweetedAt(Instant.from(TWITTER_DATE_FORMATTER.parse(createdAtStr)));
+            } catch (DateTimeParseException e) {
                 try {
-                    List<JsonNode> tweets = twitterProvider.parseTweetsFromResponse(responseBody);
-                    int newTweetsCount = 0;
-                    for (JsonNode tweet : tweets) {
-                        String tweetId = "TwttrAPI241".equals(twitterProvider.getProviderName()) ? tweet.path("rest_id").asText() : tweet.path("id_str").asText(tweet.path("id").asText());
-                        if (tweetId.isEmpty() || tweetRepository.existsByTweetId(tweetId)) continue;
-                        RawTweetData newTweetData = new RawTweetData();
-                        newTweetData.setTweetId(tweetId);
-                        newTweetData.setAuthorUsername(username);
-                        newTweetData.setContent("TwttrAPI241".equals(twitterProvider.getProviderName()) ? tweet.path("legacy").path("full_text").asText() : tweet.path("text").asText(tweet.path("full_text").asText()));
-                        String createdAtStr = tweet.path("legacy").path("created_at").asText(tweet.path("created_at").asText());
-                        try {
-                            newTweetData.setTweetedAt(Instant.from(TWITTER_DATE_FORMATTER.parse(createdAtStr)));
-                        } catch (DateTimeParseException e) {
-                            try {
-                                newTweetData.setTweetedAt(Instant.parse(createdAtStr));
-                            } catch (Exception e2) {
-                                newTweetData.setTweetedAt(Instant.now());
-                            }
-                        }
-                        newTweetData.setSourceBot(bot);
-                        tweetRepository.save(newTweetData);
-                        newTweetsCount++;
-                    }
-                    if (newTweetsCount > 0) log.info("Lagret {} nye tweets for bot '{}'", newTweetsCount, bot.getName());
-                    bot.setLastRun(Instant.now());
-                    botConfigRepository.save(bot);
-                } catch(Exception e) {
-                    log.error("Feil ved parsing av Twitter-respons for {}: {}", twitterProvider.getProviderName(), e.getMessage());
+                    newTweetData.setTweetedAt(Instant.parse(createdAtStr));
+                } catch (Exception e2) {
+                    newTweetData.setTweetedAt(Instant.now());
                 }
-            }, error -> log.error("Feil for bot '{}' med leverandør '{}': {}", bot.getName(), twitterProvider.getProviderName(), error.getMessage()));
-            try {
-                Thread.sleep(1500);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.error("Twitter-bot-løkke ble avbrutt.", e);
-                break;
             }
+            newTweetData.setSourceBot(bot);
+            candidates.add(newTweetData);
         }
+        int newTweetsCount = tweetCursorService.saveAndAdvance(bot, providerName, candidates, twitterProvider.parseNewestTweetId(responseBody));
+        if (newTweetsCount > 0) log.info("Lagret {} nye tweets for bot '{}' via {}", newTweetsCount, bot.getName(), providerName);
+        return newTweetsCount;
     }
 
+    private record TweetSearchResult(String sinceId, String responseBody) {}
+
     @Scheduled(cron = "0 0 5 * * *", zone = "Europe/Oslo")
     @Transactional
     public void updateFootballMetadata() {
@@ -418,84 +414,135 @@ public class ScheduledBotRunner {
         footballApiService.getBookmakers().subscribe(responseEntity -> {
             try {
                 if (responseEntity.getBody() == null) return;
-                JsonNode responses = objectMapper.readTree(responseEntity.getBody()).path("response");
-                if (responses.isArray()) {
-                    for (JsonNode bookmakerNode : responses) {
-                        Bookmaker b = new Bookmaker();
-                        b.setId(bookmakerNode.path("id").asInt());
-                        b.setName(bookmakerNode.path("name").asText());
-                        bookmakerRepository.save(b);
-                    }
-                }
+                int written = referenceDataCache.syncBookmakers(parseIdNameList(responseEntity.getBody()));
+                log.info("--- Bookmakere synkronisert, {} nye/endrede rader skrevet.", written);
             } catch (Exception e) { log.error("Feil ved parsing av bookmakere", e); }
         });
         footballApiService.getBetTypes().subscribe(responseEntity -> {
             try {
                 if (responseEntity.getBody() == null) return;
-                JsonNode responses = objectMapper.readTree(responseEntity.getBody()).path("response");
-                if (responses.isArray()) {
-                    for (JsonNode btNode : responses) {
-                        BetType bt = new BetType();
-                        bt.setId(btNode.path("id").asInt());
-                        bt.setName(btNode.path("name").asText());
-                        betTypeRepository.save(bt);
-                    }
-                }
+                int written = referenceDataCache.syncBetTypes(parseIdNameList(responseEntity.getBody()));
+                log.info("--- Spilltyper synkronisert, {} nye/endrede rader skrevet.", written);
             } catch (Exception e) { log.error("Feil ved parsing av spilltyper", e); }
         });
     }
 
+    private Map<Integer, String> parseIdNameList(String body) throws JsonProcessingException {
+        Map<Integer, String> byId = new HashMap<>();
+        JsonNode responses = objectMapper.readTree(body).path("response");
+        if (responses.isArray()) {
+            for (JsonNode node : responses) {
+                if (node.hasNonNull("id")) byId.put(node.path("id").asInt(), node.path("name").asText());
+            }
+        }
+        return byId;
+    }
+
     @Async("taskExecutor")
     @Scheduled(cron = "0 0 1 * * *", zone = "Europe/Oslo")
     public void fetchDailyOdds() {
         List<String> datesToFetch = IntStream.range(0, 7).mapToObj(i -> LocalDate.now().plusDays(i).toString()).collect(Collectors.toList());
         log.info("--- [ROBUST] Henter odds for de neste 7 dagene: {} ---", datesToFetch);
-        for (String date : datesToFetch) {
-            log.info("--- [ROBUST] Henter odds for dato: {}", date);
-            try {
-                ResponseEntity<String> response = footballApiService.getOddsByDate(date).block(Duration.ofMinutes(1));
-                if (response == null || !response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
-                    log.warn("Mottok ikke gyldig svar for odds på dato {}", date);
-                    continue;
-                }
-                JsonNode root = objectMapper.readTree(response.getBody());
-                if(root.path("results").asInt() == 0) {
-                    log.info("Ingen odds funnet for dato {}", date);
-                    continue;
-                }
-                int savedCount = 0;
-                for(JsonNode oddsResponse : root.path("response")) {
-                    processSingleFixtureWithOdds(oddsResponse);
-                    savedCount++;
-                }
-                if (savedCount > 0) {
-                    log.info("--- [ROBUST] Fullførte prosessering av odds for {} kamper for dato: {}", savedCount, date);
-                }
-                Thread.sleep(3000);
-            } catch (Exception e) {
-                log.error("--- [ROBUST] Feil i odds-strøm for dato {}. Feilmelding: {}", date, e.getMessage());
-            }
+        try {
+            Long fixtureCount = Flux.fromIterable(datesToFetch)
+                    .flatMap(this::fetchOddsForDate, DAILY_ODDS_DATE_CONCURRENCY)
+                    .reduce(0L, Long::sum)
+                    .block(DAILY_ODDS_TIMEOUT);
+            log.info("--- [ROBUST] Fullførte odds-innhenting for {} kamper over 7 dager.", fixtureCount);
+        } catch (Exception e) {
+            log.error("--- [ROBUST] Odds-innhentingen ble ikke fullført: {}", e.getMessage());
         }
     }
 
-    @Transactional
-    public void processSingleFixtureWithOdds(JsonNode oddsResponse) {
-        long fixtureId = oddsResponse.path("fixture").path("id").asLong();
-        if (fixtureId == 0) return;
-        Fixture fixture = saveOrUpdateFixtureFromOddsResponse(oddsResponse);
+    /**
+     * Henter side 1 for datoen, leser paging.total og henter resten av sidene med begrenset samtidighet.
+     * Hver side lagres så snart den er mottatt. En side som feiler logges og teller 0, uten å stoppe de andre.
+     * Returnerer antall kamper som ble prosessert.
+     */
+    private Flux<Long> fetchOddsForDate(String date) {
+        return fetchOddsPage(date, 1)
+                .flatMapMany(firstPage -> {
+                    int totalPages = firstPage.path("paging").path("total").asInt(1);
+                    Flux<Long> rest = Flux.range(2, Math.max(0, totalPages - 1))
+                            .flatMap(page -> fetchOddsPage(date, page).flatMap(root -> persistOddsPageSafely(date, page, root)), DAILY_ODDS_PAGE_CONCURRENCY);
+                    if (totalPages > 1) log.info("--- [ROBUST] Dato {} har {} sider med odds.", date, totalPages);
+                    return Flux.concat(persistOddsPageSafely(date, 1, firstPage), rest);
+                })
+                .onErrorResume(e -> {
+                    log.error("--- [ROBUST] Feil i odds-strøm for dato {}. Feilmelding: {}", date, e.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    private Mono<JsonNode> fetchOddsPage(String date, int page) {
+        return footballApiService.getOddsByDate(date, page)
+                .publishOn(Schedulers.boundedElastic())
+                .flatMap(response -> {
+                    if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                        log.warn("Mottok ikke gyldig svar for odds på dato {} (side {})", date, page);
+                        return Mono.empty();
+                    }
+                    return Mono.fromCallable(() -> objectMapper.readTree(response.getBody()));
+                })
+                .onErrorResume(e -> {
+                    log.warn("Kunne ikke hente odds for dato {} (side {}): {}", date, page, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Long> persistOddsPageSafely(String date, int page, JsonNode root) {
+        return Mono.fromCallable(() -> persistOddsPage(date, root))
+                .onErrorResume(e -> {
+                    log.error("--- [ROBUST] Kunne ikke lagre odds for dato {} (side {}): {}", date, page, e.getMessage());
+                    return Mono.just(0L);
+                });
+    }
+
+    /**
+     * Lagrer alle kamper og Match Winner-odds fra én side: én spørring for eksisterende kamper,
+     * én saveAll for kampene og batch-upsert for oddsen.
+     */
+    private long persistOddsPage(String date, JsonNode root) {
+        JsonNode responses = root.path("response");
+        if (!responses.isArray() || responses.isEmpty()) {
+            log.info("Ingen odds funnet for dato {}", date);
+            return 0;
+        }
+        List<Long> fixtureIds = new ArrayList<>();
+        for (JsonNode oddsResponse : responses) {
+            long fixtureId = oddsResponse.path("fixture").path("id").asLong();
+            if (fixtureId != 0) fixtureIds.add(fixtureId);
+        }
+        Map<Long, Fixture> existing = fixtureRepository.findAllById(fixtureIds).stream()
+                .collect(Collectors.toMap(Fixture::getId, f -> f));
+
+        List<Fixture> fixturesToSave = new ArrayList<>();
+        for (JsonNode oddsResponse : responses) {
+            long fixtureId = oddsResponse.path("fixture").path("id").asLong();
+            if (fixtureId == 0) continue;
+            fixturesToSave.add(applyOddsResponseToFixture(existing.getOrDefault(fixtureId, new Fixture()), oddsResponse));
+        }
+        List<Fixture> savedFixtures = fixtureRepository.saveAll(fixturesToSave);
+        fixtureMatchIndex.registerAll(savedFixtures);
+        standingsEngine.registerAll(savedFixtures);
+
+        OddsBatchWriter.Buffer buffer = oddsBatchWriter.newBuffer();
+        for (JsonNode oddsResponse : responses) {
+            long fixtureId = oddsResponse.path("fixture").path("id").asLong();
+            if (fixtureId != 0) collectMatchWinnerOdds(fixtureId, oddsResponse, buffer);
+        }
+        buffer.flush();
+        return fixturesToSave.size();
+    }
+
+    private void collectMatchWinnerOdds(long fixtureId, JsonNode oddsResponse, OddsBatchWriter.Buffer buffer) {
         JsonNode bookmakers = oddsResponse.path("bookmakers");
         if (!bookmakers.isArray()) return;
+        if (payloadFingerprintService.isUnchanged(PayloadFingerprintService.API_FOOTBALL_ODDS, fixtureId, bookmakers)) return;
         for (JsonNode bookmakerNode : bookmakers) {
             int bookmakerId = bookmakerNode.path("id").asInt();
             for (JsonNode betNode : bookmakerNode.path("bets")) {
                 if (betNode.path("id").asInt() == 1) { // Match Winner
-                    if (matchOddsRepository.existsByFixtureIdAndBookmakerIdAndBetName(fixture.getId(), bookmakerId, "Match Winner")) {
-                        continue;
-                    }
-                    MatchOdds odds = new MatchOdds();
-                    odds.setFixture(fixture);
-                    bookmakerRepository.findById(bookmakerId).ifPresent(odds::setBookmaker);
-                    odds.setBetName("Match Winner");
                     ArrayNode valuesArray = objectMapper.createArrayNode();
                     for (JsonNode value : betNode.path("values")) {
                         ObjectNode valueNode = objectMapper.createObjectNode();
@@ -504,29 +551,27 @@ public class ScheduledBotRunner {
                         valuesArray.add(valueNode);
                     }
                     try {
-                        odds.setOddsData(objectMapper.writeValueAsString(valuesArray));
+                        buffer.add(new MatchOddsUpsert(fixtureId, bookmakerId, "Match Winner", objectMapper.writeValueAsString(valuesArray), OddsSnapshot.fromJson(valuesArray)));
                     } catch (JsonProcessingException e) {
                         log.error("Kunne ikke lage JSON for odds", e);
                         continue;
                     }
-                    odds.setLastUpdated(Instant.now());
-                    matchOddsRepository.save(odds);
                     break;
                 }
             }
         }
+        buffer.afterWrite(() -> payloadFingerprintService.markProcessed(PayloadFingerprintService.API_FOOTBALL_ODDS, fixtureId, bookmakers));
     }
 
-    public Fixture saveOrUpdateFixtureFromOddsResponse(JsonNode oddsResponse) {
+    private Fixture applyOddsResponseToFixture(Fixture fixture, JsonNode oddsResponse) {
         JsonNode fixtureNode = oddsResponse.path("fixture");
-        long fixtureId = fixtureNode.path("id").asLong();
-        Fixture fixture = fixtureRepository.findById(fixtureId).orElse(new Fixture());
-        fixture.setId(fixtureId);
+        fixture.setId(fixtureNode.path("id").asLong());
         fixture.setDate(Instant.parse(fixtureNode.path("date").asText()));
         fixture.setStatus(fixtureNode.path("status").path("short").asText());
         JsonNode leagueNode = oddsResponse.path("league");
         fixture.setLeagueId(leagueNode.path("id").asInt());
         fixture.setSeason(leagueNode.path("season").asInt());
+        if (leagueNode.hasNonNull("name")) referenceDataCache.syncLeagues(Map.of(fixture.getLeagueId(), leagueNode.path("name").asText()));
         JsonNode teamsNode = oddsResponse.path("teams");
         fixture.setHomeTeamId(teamsNode.path("home").path("id").asInt());
         fixture.setHomeTeamName(teamsNode.path("home").path("name").asText());
@@ -539,9 +584,13 @@ public class ScheduledBotRunner {
         if (goalsNode.has("away") && !goalsNode.get("away").isNull()) {
             fixture.setGoalsAway(goalsNode.get("away").asInt());
         }
-        return fixtureRepository.save(fixture);
+        return fixture;
     }
 
+    /**
+     * Henter tabellene for alle LEAGUE_STATS-boter samtidig (begrenset av token-bucketen i FootballApiService),
+     * og lagrer hver tabell i én batch med eksisterende rader forhåndshentet per liga/sesong.
+     */
     @Async("taskExecutor")
     @Scheduled(cron = "0 15 3 * * *", zone = "Europe/Oslo")
     public void runLeagueStatsCollector() {
@@ -551,42 +600,110 @@ public class ScheduledBotRunner {
                 BotConfiguration.SourceType.LEAGUE_STATS
         );
         if (leagueBots.isEmpty()) return;
+        List<BotConfiguration> validBots = new ArrayList<>();
         for (BotConfiguration bot : leagueBots) {
-            String[] params = bot.getSourceIdentifier().split(":");
-            if (params.length != 2) {
+            if (bot.getSourceIdentifier().split(":").length != 2) {
                 log.error("Ugyldig sourceIdentifier for LEAGUE_STATS-bot {}: {}.", bot.getId(), bot.getSourceIdentifier());
                 continue;
             }
-            String leagueId = params[0];
-            String season = params[1];
-            log.info("---[EFFEKTIV]--- Henter tabell for liga: {}, sesong: {}", leagueId, season);
-            try {
-                ResponseEntity<String> response = footballApiService.getStandings(leagueId, season).block();
-                if (response == null || !response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
-                    log.error("Kunne ikke hente tabell for liga {}-{}", leagueId, season);
-                    continue;
-                }
-                JsonNode responseNode = objectMapper.readTree(response.getBody()).path("response");
-                if (!responseNode.isArray() || responseNode.isEmpty()) {
-                    log.warn("Fant ingen tabell-data for liga {}-{}", leagueId, season);
-                    continue;
-                }
-                JsonNode standingsArray = responseNode.get(0).path("league").path("standings").get(0);
-                if (standingsArray == null || !standingsArray.isArray()) {
-                    continue;
-                }
-                String leagueName = responseNode.get(0).path("league").path("name").asText("Ukjent Liga");
-                for (JsonNode teamStandingNode : standingsArray) {
-                    saveTeamStatisticsFromStanding(teamStandingNode, bot, leagueName, Integer.parseInt(leagueId), Integer.parseInt(season));
-                }
-                bot.setLastRun(Instant.now());
-                botConfigRepository.save(bot);
-                log.info("---[EFFEKTIV]--- Fullførte oppdatering for {}.", bot.getName());
-            } catch (Exception e) {
-                log.error("---[EFFEKTIV]--- Kritisk feil under innsamling for ligatabell {}-{}: {}", leagueId, season, e.getMessage());
-            }
+            validBots.add(bot);
+        }
+        try {
+            List<BotConfiguration> updatedBots = Flux.fromIterable(validBots)
+                    .flatMap(this::fetchAndPersistStandings, LEAGUE_STANDINGS_CONCURRENCY)
+                    .collectList()
+                    .block(LEAGUE_STANDINGS_TIMEOUT);
+            if (updatedBots != null && !updatedBots.isEmpty()) botConfigRepository.saveAll(updatedBots);
+            log.info("---[EFFEKTIV]--- Oppdaterte tabeller for {} av {} ligaer.", updatedBots == null ? 0 : updatedBots.size(), validBots.size());
+        } catch (Exception e) {
+            log.error("---[EFFEKTIV]--- Innsamlingen av ligatabeller ble ikke fullført: {}", e.getMessage());
         }
     }
+
+    private Mono<BotConfiguration> fetchAndPersistStandings(BotConfiguration bot) {
+        String[] params = bot.getSourceIdentifier().split(":");
+        String leagueId = params[0];
+        String season = params[1];
+        log.info("---[EFFEKTIV]--- Henter tabell for liga: {}, sesong: {}", leagueId, season);
+        return footballApiService.getStandings(leagueId, season)
+                .publishOn(Schedulers.boundedElastic())
+                .flatMap(response -> {
+                    if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                        log.error("Kunne ikke hente tabell for liga {}-{}", leagueId, season);
+                        return Mono.empty();
+                    }
+                    try {
+                        JsonNode responseNode = objectMapper.readTree(response.getBody()).path("response");
+                        if (!responseNode.isArray() || responseNode.isEmpty()) {
+                            log.warn("Fant ingen tabell-data for liga {}-{}", leagueId, season);
+                            return Mono.empty();
+                        }
+                        JsonNode standingsArray = responseNode.get(0).path("league").path("standings").get(0);
+                        if (standingsArray == null || !standingsArray.isArray()) {
+                            return Mono.empty();
+                        }
+                        String leagueName = responseNode.get(0).path("league").path("name").asText("Ukjent Liga");
+                        referenceDataCache.syncLeagues(Map.of(Integer.parseInt(leagueId), leagueName));
+                        saveStandings(standingsArray, bot, leagueName, Integer.parseInt(leagueId), Integer.parseInt(season));
+                        bot.setLastRun(Instant.now());
+                        log.info("---[EFFEKTIV]--- Fullførte oppdatering for {}.", bot.getName());
+                        return Mono.just(bot);
+                    } catch (Exception e) {
+                        return Mono.error(e);
+                    }
+                })
+                .onErrorResume(e -> {
+                    log.error("---[EFFEKTIV]--- Kritisk feil under innsamling for ligatabell {}-{}: {}", leagueId, season, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Lagrer en hel tabell: eksisterende TeamStatistics for liga/sesong hentes i én spørring og alt skrives i én batch.
+     * Hvert lag krysskontrolleres mot StandingsEngine; lag der vi har alle kampene lokalt skrives av StandingsEngine,
+     * resten får API-ets tall.
+     */
+    public void saveStandings(JsonNode standingsArray, BotConfiguration sourceBot, String leagueName, int leagueId, int season) {
+        List<JsonNode> fromApi = new ArrayList<>();
+        for (JsonNode standingNode : standingsArray) {
+            JsonNode allStats = standingNode.path("all");
+            boolean useLocal = standingsEngine.crossCheck("/standings", leagueId, season, standingNode.path("team").path("id").asInt(),
+                    allStats.path("played").asInt(), allStats.path("win").asInt(), allStats.path("draw").asInt(),
+                    allStats.path("lose").asInt(), allStats.path("goals").path("for").asInt(), allStats.path("goals").path("against").asInt());
+            if (!useLocal) fromApi.add(standingNode);
+        }
+        log.info("---[EFFEKTIV]--- Tabell {}-{}: {} av {} lag har komplette lokale tall.",
+                leagueId, season, standingsArray.size() - fromApi.size(), standingsArray.size());
+        if (fromApi.isEmpty()) return;
+        Map<Integer, TeamStatistics> existingByTeamId = teamStatisticsRepository.findAllByLeagueIdAndSeason(leagueId, season).stream()
+                .collect(Collectors.toMap(TeamStatistics::getTeamId, Function.identity(), (a, b) -> a));
+        List<TeamStatistics> statsToSave = new ArrayList<>();
+        for (JsonNode standingNode : fromApi) {
+            int teamId = standingNode.path("team").path("id").asInt();
+            TeamStatistics stats = existingByTeamId.getOrDefault(teamId, new TeamStatistics());
+            applyStanding(stats, standingNode, sourceBot, leagueName, leagueId, season);
+            statsToSave.add(stats);
+        }
+        teamStatisticsRepository.saveAll(statsToSave);
+    }
+
+    private void applyStanding(TeamStatistics stats, JsonNode standingNode, BotConfiguration sourceBot, String leagueName, int leagueId, int season) {
+        stats.setTeamId(standingNode.path("team").path("id").asInt());
+        stats.setLeagueId(leagueId);
+        stats.setSeason(season);
+        stats.setTeamName(standingNode.path("team").path("name").asText());
+        stats.setLeagueName(leagueName);
+        JsonNode allStats = standingNode.path("all");
+        stats.setPlayedTotal(allStats.path("played").asInt());
+        stats.setWinsTotal(allStats.path("win").asInt());
+        stats.setDrawsTotal(allStats.path("draw").asInt());
+        stats.setLossesTotal(allStats.path("lose").asInt());
+        stats.setGoalsForTotal(allStats.path("goals").path("for").asInt());
+        stats.setGoalsAgainstTotal(allStats.path("goals").path("against").asInt());
+        stats.setSourceBot(sourceBot);
+        stats.setLastUpdated(Instant.now());
+    }
+
     @Scheduled(fixedRate = 600000, initialDelay = 120000)
     @Transactional
     public void runSportDataBots() {
@@ -600,6 +717,16 @@ public class ScheduledBotRunner {
                 log.error("Ugyldig sourceIdentifier for sport-bot {}.", bot.getId());
                 continue;
             }
+            // Godkjente lokale tall er primærkilden; API-et brukes da bare til en periodisk krysskontroll.
+            boolean hasLocalTotals;
+            try {
+                hasLocalTotals = standingsEngine.isVerified(Integer.parseInt(params[0]), Integer.parseInt(params[1]), Integer.parseInt(params[2]));
+            } catch (NumberFormatException e) {
+                hasLocalTotals = false;
+            }
+            if (hasLocalTotals && bot.getLastRun() != null && bot.getLastRun().isAfter(Instant.now().minus(TEAM_STATS_CROSS_CHECK_INTERVAL))) {
+                continue;
+            }
             footballApiService.getTeamStatistics(params[0], params[1], params[2]).subscribe(responseEntity -> {
                 try {
                     if(responseEntity.getBody() != null) {
@@ -611,34 +738,26 @@ public class ScheduledBotRunner {
             }, error -> log.error("Feil ved henting av sportsdata for bot '{}'", bot.getName(), error));
         }
     }
-    @Transactional
-    public void saveTeamStatisticsFromStanding(JsonNode standingNode, BotConfiguration sourceBot, String leagueName, int leagueId, int season) {
-        int teamId = standingNode.path("team").path("id").asInt();
-        TeamStatistics stats = teamStatisticsRepository.findByLeagueIdAndSeasonAndTeamId(leagueId, season, teamId)
-                .orElse(new TeamStatistics());
-        stats.setTeamId(teamId);
-        stats.setLeagueId(leagueId);
-        stats.setSeason(season);
-        stats.setTeamName(standingNode.path("team").path("name").asText());
-        stats.setLeagueName(leagueName);
-        JsonNode allStats = standingNode.path("all");
-        stats.setPlayedTotal(allStats.path("played").asInt());
-        stats.setWinsTotal(allStats.path("win").asInt());
-        stats.setDrawsTotal(allStats.path("draw").asInt());
-        stats.setLossesTotal(allStats.path("lose").asInt());
-        stats.setGoalsForTotal(allStats.path("goals").path("for").asInt());
-        stats.setGoalsAgainstTotal(allStats.path("goals").path("against").asInt());
-        stats.setSourceBot(sourceBot);
-        stats.setLastUpdated(Instant.now());
-        teamStatisticsRepository.save(stats);
-    }
-
     @Transactional
     public void saveTeamStatisticsFromSingleBot(JsonNode statsResponse, BotConfiguration sourceBot) {
         if (statsResponse.isMissingNode() || !statsResponse.isObject() || statsResponse.isEmpty()) return;
         int teamId = statsResponse.path("team").path("id").asInt();
         int leagueId = statsResponse.path("league").path("id").asInt();
         int season = statsResponse.path("league").path("season").asInt();
+        boolean useLocal = standingsEngine.crossCheck("/teams/statistics", leagueId, season, teamId,
+                statsResponse.path("fixtures").path("played").path("total").asInt(),
+                statsResponse.path("fixtures").path("wins").path("total").asInt(),
+                statsResponse.path("fixtures").path("draws").path("total").asInt(),
+                statsResponse.path("fixtures").path("loses").path("total").asInt(),
+                statsResponse.path("goals").path("for").path("total").path("total").asInt(),
+                statsResponse.path("goals").path("against").path("total").path("total").asInt());
+        if (useLocal) {
+            if (sourceBot != null) {
+                sourceBot.setLastRun(Instant.now());
+                botConfigRepository.save(sourceBot);
+            }
+            return;
+        }
         TeamStatistics stats = teamStatisticsRepository.findByLeagueIdAndSeasonAndTeamId(leagueId, season, teamId).orElse(new TeamStatistics());
         stats.setTeamId(teamId);
         stats.setLeagueId(leagueId);
@@ -0,0 +1,275 @@
+// src/main/java/com/AiPortal/service/StandingsEngine.java
+package com.AiPortal.service;
+
+import com.AiPortal.entity.Fixture;
+import com.AiPortal.entity.TeamStatistics;
+import com.AiPortal.repository.FixtureRepository;
+import com.AiPortal.repository.TeamStatisticsRepository;
+import com.AiPortal.util.LongLongHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Lokal tabellmotor: teller kamper, seire, uavgjort, tap, mål for/mot, clean sheets og kamper uten scoring
+ * per (liga, sesong, lag) direkte fra våre ferdigspilte Fixture-rader.
+ *
+ * Tellerne bygges ved oppstart og oppdateres inkrementelt når resultater lagres. Lokale tall er bare til å stole
+ * på når vi har alle lagets kamper, så hvert lag må først godkjennes mot API-et: {@link #crossCheck} kalles fra
+ * /standings- og /teams/statistics-botene, og laget godkjennes når antall spilte kamper er likt. Endrede tabeller
+ * skrives jevnlig til TeamStatistics, men bare for godkjente lag; for resten skriver botene API-ets tall. Ligaer
+ * ingen bot følger blir dermed aldri skrevet, selv om vi har kamper for dem.
+ */
+@Component
+public class StandingsEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(StandingsEngine.class);
+    private static final Set<String> COMPLETED_STATUSES = Set.of("FT", "AET", "PEN");
+    private static final long NOT_COUNTED = -1L;
+
+    private final FixtureRepository fixtureRepository;
+    private final TeamStatisticsRepository teamStatisticsRepository;
+    private final ReferenceDataCache referenceDataCache;
+
+    // Alt under er beskyttet av synchronized (this).
+    private final Map<LeagueSeason, Map<Integer, TeamCounters>> tables = new HashMap<>();
+    // Fixture-ID -> resultatet som er talt med (mål hjemme << 16 | mål borte), så rettede resultater kan trekkes fra.
+    private final LongLongHashMap countedResults = new LongLongHashMap(1 << 16);
+    private final Set<LeagueSeason> dirty = new HashSet<>();
+    // Lag der lokale og API-ets antall spilte kamper var like ved siste krysskontroll.
+    private final Map<LeagueSeason, Set<Integer>> verifiedTeams = new HashMap<>();
+    private boolean loaded = false;
+
+    private final AtomicLong crossChecks = new AtomicLong();
+    private final AtomicLong crossCheckMismatches = new AtomicLong();
+
+    public StandingsEngine(FixtureRepository fixtureRepository,
+                           TeamStatisticsRepository teamStatisticsRepository,
+                           ReferenceDataCache referenceDataCache) {
+        this.fixtureRepository = fixtureRepository;
+        this.teamStatisticsRepository = teamStatisticsRepository;
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        ensureLoaded();
+    }
+
+    private synchronized void ensureLoaded() {
+        if (loaded) return;
+        int count = 0;
+        for (Object[] row : fixtureRepository.findCompletedStandingsRows()) {
+            count(((Number) row[0]).longValue(), ((Number) row[1]).intValue(), ((Number) row[2]).intValue(),
+                    ((Number) row[3]).intValue(), (String) row[4], ((Number) row[5]).intValue(), (String) row[6],
+                    ((Number) row[7]).intValue(), ((Number) row[8]).intValue());
+            count++;
+        }
+        loaded = true;
+        log.info("---[STANDINGS ENGINE] Talte {} ferdigspilte kamper i {} liga-sesonger.", count, tables.size());
+    }
+
+    /**
+     * Teller med ferdigspilte kamper etter at de er lagret. Kamper som allerede er talt med samme resultat ignoreres.
+     */
+    public synchronized void registerAll(Collection<Fixture> fixtures) {
+        if (!loaded) return; // Oppstartslastingen henter dem fra databasen.
+        for (Fixture f : fixtures) {
+            if (f.getId() == null || f.getLeagueId() == null || f.getSeason() == null || f.getHomeTeamId() == null
+                    || f.getAwayTeamId() == null || f.getGoalsHome() == null || f.getGoalsAway() == null
+                    || !COMPLETED_STATUSES.contains(f.getStatus())) {
+                continue;
+            }
+            count(f.getId(), f.getLeagueId(), f.getSeason(), f.getHomeTeamId(), f.getHomeTeamName(),
+                    f.getAwayTeamId(), f.getAwayTeamName(), f.getGoalsHome(), f.getGoalsAway());
+        }
+    }
+
+    private void count(long fixtureId, int leagueId, int season, int homeId, String homeName, int awayId, String awayName,
+                       int goalsHome, int goalsAway) {
+        long result = ((long) goalsHome << 16) | goalsAway;
+        long previous = countedResults.get(fixtureId, NOT_COUNTED);
+        if (previous == result) return;
+
+        LeagueSeason key = new LeagueSeason(leagueId, season);
+        Map<Integer, TeamCounters> table = tables.computeIfAbsent(key, k -> new HashMap<>());
+        TeamCounters home = table.computeIfAbsent(homeId, id -> new TeamCounters());
+        TeamCounters away = table.computeIfAbsent(awayId, id -> new TeamCounters());
+        if (previous != NOT_COUNTED) {
+            int previousHome = (int) (previous >>> 16);
+            int previousAway = (int) (previous & 0xFFFF);
+            home.apply(previousHome, previousAway, -1);
+            away.apply(previousAway, previousHome, -1);
+        }
+        home.apply(goalsHome, goalsAway, 1);
+        away.apply(goalsAway, goalsHome, 1);
+        if (homeName != null) home.teamName = homeName;
+        if (awayName != null) away.teamName = awayName;
+        countedResults.put(fixtureId, result);
+        dirty.add(key);
+    }
+
+    /**
+     * Lokale tall for et lag, eller tom hvis vi ikke har ferdigspilte kamper for laget i liga/sesong.
+     */
+    public synchronized Optional<TeamTotals> totalsFor(int leagueId, int season, int teamId) {
+        ensureLoaded();
+        Map<Integer, TeamCounters> table = tables.get(new LeagueSeason(leagueId, season));
+        TeamCounters counters = table != null ? table.get(teamId) : null;
+        return counters == null || counters.played == 0 ? Optional.empty() : Optional.of(counters.toTotals());
+    }
+
+    /**
+     * Om lagets lokale tall stemte med API-et ved siste krysskontroll og dermed skrives av {@link #syncTeamStatistics}.
+     */
+    public synchronized boolean isVerified(int leagueId, int season, int teamId) {
+        Set<Integer> verified = verifiedTeams.get(new LeagueSeason(leagueId, season));
+        return verified != null && verified.contains(teamId);
+    }
+
+    /**
+     * Sammenligner tall fra API-et med de lokale og godkjenner laget hvis antall spilte kamper er likt. Øvrige avvik
+     * (typisk et rettet resultat) logges og telles, men de lokale tallene beholdes.
+     *
+     * @return true hvis de lokale tallene skal brukes; ellers skal kalleren skrive API-ets tall.
+     */
+    public boolean crossCheck(String source, int leagueId, int season, int teamId,
+                              int played, int wins, int draws, int losses, int goalsFor, int goalsAgainst) {
+        Optional<TeamTotals> local = totalsFor(leagueId, season, teamId);
+        LeagueSeason key = new LeagueSeason(leagueId, season);
+        boolean complete = local.isPresent() && local.get().played() == played;
+        synchronized (this) {
+            Set<Integer> verified = verifiedTeams.computeIfAbsent(key, k -> new HashSet<>());
+            if (complete) {
+                // Et nylig godkjent lag må skrives selv om tabellen ikke er endret siden forrige synkronisering.
+                if (verified.add(teamId)) dirty.add(key);
+            } else {
+                verified.remove(teamId);
+            }
+        }
+        if (local.isEmpty()) return false;
+        crossChecks.incrementAndGet();
+        TeamTotals t = local.get();
+        boolean matches = complete && t.wins() == wins && t.draws() == draws && t.losses() == losses
+                && t.goalsFor() == goalsFor && t.goalsAgainst() == goalsAgainst;
+        if (!matches) {
+            crossCheckMismatches.incrementAndGet();
+            log.warn("---[STANDINGS ENGINE] Avvik mot {} for lag {} i {}-{}: lokalt {}/{}/{}/{} {}-{}, API {}/{}/{}/{} {}-{}",
+                    source, teamId, leagueId, season,
+                    t.played(), t.wins(), t.draws(), t.losses(), t.goalsFor(), t.goalsAgainst(),
+                    played, wins, draws, losses, goalsFor, goalsAgainst);
+        }
+        return complete;
+    }
+
+    /**
+     * Skriver godkjente lag i endrede tabeller til TeamStatistics: én spørring og én batch per liga/sesong.
+     */
+    @Scheduled(fixedRate = 900000, initialDelay = 180000)
+    public void syncTeamStatistics() {
+        Map<LeagueSeason, Map<Integer, TeamTotals>> changed = new HashMap<>();
+        synchronized (this) {
+            ensureLoaded();
+            for (LeagueSeason key : dirty) {
+                Set<Integer> verified = verifiedTeams.getOrDefault(key, Set.of());
+                Map<Integer, TeamCounters> table = tables.get(key);
+                if (verified.isEmpty() || table == null) continue;
+                changed.put(key, table.entrySet().stream()
+                        .filter(e -> verified.contains(e.getKey()))
+                        .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().toTotals())));
+            }
+            dirty.clear();
+        }
+        if (changed.isEmpty()) return;
+
+        ReferenceDataCache.Snapshot referenceData = referenceDataCache.current();
+        int rows = 0;
+        for (Map.Entry<LeagueSeason, Map<Integer, TeamTotals>> entry : changed.entrySet()) {
+            LeagueSeason key = entry.getKey();
+            try {
+                Map<Integer, TeamStatistics> existing = teamStatisticsRepository.findAllByLeagueIdAndSeason(key.leagueId(), key.season()).stream()
+                        .collect(Collectors.toMap(TeamStatistics::getTeamId, Function.identity(), (a, b) -> a));
+                String leagueName = referenceData.leagueName(key.leagueId(), existing.values().stream()
+                        .map(TeamStatistics::getLeagueName).filter(Objects::nonNull).findFirst().orElse("Ukjent Liga"));
+                List<TeamStatistics> toSave = new ArrayList<>();
+                for (Map.Entry<Integer, TeamTotals> team : entry.getValue().entrySet()) {
+                    TeamStatistics stats = existing.getOrDefault(team.getKey(), new TeamStatistics());
+                    apply(stats, key, team.getKey(), team.getValue(), leagueName);
+                    toSave.add(stats);
+                }
+                teamStatisticsRepository.saveAll(toSave);
+                rows += toSave.size();
+            } catch (Exception e) {
+                synchronized (this) {
+                    dirty.add(key);
+                }
+                log.error("---[STANDINGS ENGINE] Kunne ikke skrive tabell {}-{}: {}", key.leagueId(), key.season(), e.getMessage());
+            }
+        }
+        log.info("---[STANDINGS ENGINE] Oppdaterte {} TeamStatistics-rader i {} liga-sesonger.", rows, changed.size());
+    }
+
+    private static void apply(TeamStatistics stats, LeagueSeason key, int teamId, TeamTotals totals, String leagueName) {
+        stats.setTeamId(teamId);
+        stats.setLeagueId(key.leagueId());
+        stats.setSeason(key.season());
+        if (totals.teamName() != null) stats.setTeamName(totals.teamName());
+        if (stats.getLeagueName() == null) stats.setLeagueName(leagueName);
+        stats.setPlayedTotal(totals.played());
+        stats.setWinsTotal(totals.wins());
+        stats.setDrawsTotal(totals.draws());
+        stats.setLossesTotal(totals.losses());
+        stats.setGoalsForTotal(totals.goalsFor());
+        stats.setGoalsAgainstTotal(totals.goalsAgainst());
+        stats.setCleanSheetTotal(totals.cleanSheets());
+        stats.setFailedToScoreTotal(totals.failedToScore());
+        stats.setLastUpdated(Instant.now());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("leagueSeasons", tables.size());
+            stats.put("countedFixtures", countedResults.size());
+            stats.put("pendingSync", dirty.size());
+            stats.put("verifiedTeams", verifiedTeams.values().stream().mapToInt(Set::size).sum());
+        }
+        stats.put("crossChecks", crossChecks.get());
+        stats.put("crossCheckMismatches", crossCheckMismatches.get());
+        return stats;
+    }
+
+    public record TeamTotals(String teamName, int played, int wins, int draws, int losses,
+                             int goalsFor, int goalsAgainst, int cleanSheets, int failedToScore) {}
+
+    private record LeagueSeason(int leagueId, int season) {}
+
+    private static final class TeamCounters {
+        private String teamName;
+        private int played, wins, draws, losses, goalsFor, goalsAgainst, cleanSheets, failedToScore;
+
+        void apply(int scored, int conceded, int sign) {
+            played += sign;
+            if (scored > conceded) wins += sign;
+            else if (scored == conceded) draws += sign;
+            else losses += sign;
+            goalsFor += sign * scored;
+            goalsAgainst += sign * conceded;
+            if (conceded == 0) cleanSheets += sign;
+            if (scored == 0) failedToScore += sign;
+        }
+
+        TeamTotals toTotals() {
+            return new TeamTotals(teamName, played, wins, draws, losses, goalsFor, goalsAgainst, cleanSheets, failedToScore);
+        }
+    }
+}
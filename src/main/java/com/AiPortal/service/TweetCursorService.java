@@ -0,0 +1,178 @@
+// src/main/java/com/AiPortal/service/TweetCursorService.java
+package com.AiPortal.service;
+
+import com.AiPortal.entity.BotConfiguration;
+import com.AiPortal.entity.RawTweetData;
+import com.AiPortal.entity.TwitterQueryState;
+import com.AiPortal.repository.BotConfigurationRepository;
+import com.AiPortal.repository.RawTweetDataRepository;
+import com.AiPortal.repository.TwitterQueryStateRepository;
+import com.AiPortal.util.LongOpenHashSet;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inkrementelle since_id-markører for Twitter-botene, én per bot og leverandør.
+ *
+ * Markøren sendes som since_id til leverandører som støtter det. For leverandører som ignorerer since_id
+ * filtreres svaret lokalt mot markøren, så kun nyere tweets går videre til databasen. Markøren lagres i
+ * samme transaksjon som tweetene den dekker, slik at en feilet lagring aldri flytter markøren forbi tweets
+ * som ikke ble skrevet.
+ *
+ * Tweets skrives med ON CONFLICT DO NOTHING: en tweet Bloom-filteret slapp gjennom kan være lagret av en annen
+ * node i mellomtiden, og den må ikke felle resten av batchen (og dermed stoppe markøren).
+ */
+@Service
+public class TweetCursorService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO raw_tweets (tweet_id, author_username, content, tweeted_at, created_at, source_bot_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (tweet_id) DO NOTHING RETURNING id";
+
+    private final TwitterQueryStateRepository queryStateRepository;
+    private final RawTweetDataRepository tweetRepository;
+    private final BotConfigurationRepository botConfigRepository;
+    private final DedupeService dedupeService;
+    private final TweetSearchIndex tweetSearchIndex;
+    private final TweetEntityTagger tweetEntityTagger;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final AtomicLong tweetsSkippedByCursor = new AtomicLong();
+    private final AtomicLong tweetsSkippedAsDuplicate = new AtomicLong();
+    private final AtomicLong tweetsSaved = new AtomicLong();
+
+    public TweetCursorService(TwitterQueryStateRepository queryStateRepository,
+                              RawTweetDataRepository tweetRepository,
+                              BotConfigurationRepository botConfigRepository,
+                              DedupeService dedupeService,
+                              TweetSearchIndex tweetSearchIndex,
+                              TweetEntityTagger tweetEntityTagger,
+                              JdbcTemplate jdbcTemplate) {
+        this.queryStateRepository = queryStateRepository;
+        this.tweetRepository = tweetRepository;
+        this.botConfigRepository = botConfigRepository;
+        this.dedupeService = dedupeService;
+        this.tweetSearchIndex = tweetSearchIndex;
+        this.tweetEntityTagger = tweetEntityTagger;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return Siste tweet-ID som er lagret for boten via denne leverandøren, eller null ved første kjøring.
+     */
+    @Transactional(readOnly = true)
+    public String sinceIdFor(BotConfiguration bot, String providerName) {
+        return queryStateRepository.findById(TwitterQueryState.keyFor(bot.getId(), providerName))
+                .map(TwitterQueryState::getLastSeenTweetId)
+                .orElse(null);
+    }
+
+    /**
+     * Er tweeten nyere enn markøren? Tweet-ID-er er snowflake-tall, så lengre ID er nyere og like lange sammenlignes tegnvis.
+     */
+    public boolean isNewerThan(String tweetId, String sinceId) {
+        if (sinceId == null || !isNumericId(tweetId)) return true;
+        boolean newer = compareIds(tweetId, sinceId) > 0;
+        if (!newer) tweetsSkippedByCursor.incrementAndGet();
+        return newer;
+    }
+
+    /**
+     * Lagrer nye tweets, flytter markøren og oppdaterer botens lastRun i én transaksjon.
+     *
+     * @param candidates Tweets som allerede er filtrert mot markøren.
+     * @param newestId   Nyeste ID leverandøren rapporterte, eller null om svaret var tomt.
+     * @return Antall tweets som faktisk ble lagret.
+     */
+    @Transactional
+    public int saveAndAdvance(BotConfiguration bot, String providerName, List<RawTweetData> candidates, String newestId) {
+        List<RawTweetData> saved = List.of();
+        if (!candidates.isEmpty()) {
+            // Samme tweet kan være hentet via en annen leverandør; kun mulige treff i Bloom-filteret slås opp.
+            Map<Long, String> tweetIdsByKey = new HashMap<>();
+            for (RawTweetData t : candidates) tweetIdsByKey.put(DedupeService.tweetKey(t.getTweetId()), t.getTweetId());
+            LongOpenHashSet existing = dedupeService.existing(DedupeService.KeySpace.TWEETS, tweetIdsByKey.keySet(),
+                    batch -> tweetRepository.findExistingTweetIds(batch.stream().map(tweetIdsByKey::get).toList()).stream()
+                            .map(DedupeService::tweetKey).toList());
+            Set<String> seenInBatch = new HashSet<>();
+            List<RawTweetData> toSave = candidates.stream()
+                    .filter(t -> !existing.contains(DedupeService.tweetKey(t.getTweetId())) && seenInBatch.add(t.getTweetId()))
+                    .toList();
+            saved = new ArrayList<>(toSave.size());
+            List<Long> conflicts = new ArrayList<>();
+            for (RawTweetData tweet : toSave) {
+                if (insertIfAbsent(tweet)) saved.add(tweet);
+                else conflicts.add(DedupeService.tweetKey(tweet.getTweetId()));
+            }
+            tweetsSkippedAsDuplicate.addAndGet(candidates.size() - saved.size());
+            tweetSearchIndex.registerAll(saved);
+            tweetEntityTagger.tagAndSave(saved);
+            tweetsSaved.addAndGet(saved.size());
+            dedupeService.record(DedupeService.KeySpace.TWEETS, saved.stream().map(t -> DedupeService.tweetKey(t.getTweetId())).toList());
+            dedupeService.recordConflicts(DedupeService.KeySpace.TWEETS, conflicts);
+        }
+
+        String cursor = isNumericId(newestId) ? newestId : null;
+        for (RawTweetData tweet : candidates) {
+            if (!isNumericId(tweet.getTweetId())) continue;
+            if (cursor == null || compareIds(tweet.getTweetId(), cursor) > 0) cursor = tweet.getTweetId();
+        }
+        if (cursor != null) {
+            String key = TwitterQueryState.keyFor(bot.getId(), providerName);
+            TwitterQueryState state = queryStateRepository.findById(key).orElseGet(() -> {
+                TwitterQueryState fresh = new TwitterQueryState();
+                fresh.setQueryName(key);
+                return fresh;
+            });
+            if (state.getLastSeenTweetId() == null || compareIds(cursor, state.getLastSeenTweetId()) > 0) {
+                state.setLastSeenTweetId(cursor);
+                state.setUpdatedAt(Instant.now());
+                queryStateRepository.save(state);
+            }
+        }
+
+        bot.setLastRun(Instant.now());
+        botConfigRepository.save(bot);
+        return saved.size();
+    }
+
+    /**
+     * Skriver tweeten og setter database-ID-en på den. Returnerer false hvis tweet-ID-en allerede var lagret.
+     */
+    private boolean insertIfAbsent(RawTweetData tweet) {
+        List<Long> ids = jdbcTemplate.query(INSERT_SQL, (rs, i) -> rs.getLong(1),
+                tweet.getTweetId(), tweet.getAuthorUsername(), tweet.getContent(), Timestamp.from(tweet.getTweetedAt()),
+                Timestamp.from(tweet.getCreatedAt() != null ? tweet.getCreatedAt() : Instant.now()),
+                tweet.getSourceBot() != null ? tweet.getSourceBot().getId() : null);
+        if (ids.isEmpty()) return false;
+        tweet.setId(ids.get(0));
+        return true;
+    }
+
+    private static boolean isNumericId(String id) {
+        if (id == null || id.isEmpty()) return false;
+        for (int i = 0; i < id.length(); i++) {
+            if (!Character.isDigit(id.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    static int compareIds(String a, String b) {
+        if (a.length() != b.length()) return Integer.compare(a.length(), b.length());
+        return a.compareTo(b);
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("tweetsSaved", tweetsSaved.get());
+        stats.put("tweetsSkippedByCursor", tweetsSkippedByCursor.get());
+        stats.put("tweetsSkippedAsDuplicate", tweetsSkippedAsDuplicate.get());
+        return stats;
+    }
+}
@@ -0,0 +1,191 @@
+// src/main/java/com/AiPortal/service/TweetEntityTagger.java
+package com.AiPortal.service;
+
+import com.AiPortal.entity.Fixture;
+import com.AiPortal.entity.RawTweetData;
+import com.AiPortal.entity.TweetEntityTag;
+import com.AiPortal.repository.FixtureRepository;
+import com.AiPortal.repository.PlayerRepository;
+import com.AiPortal.repository.TeamStatisticsRepository;
+import com.AiPortal.repository.TweetEntityTagRepository;
+import com.AiPortal.util.AhoCorasick;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Merker nye tweets med lagene og spillerne de nevner, når de lagres.
+ *
+ * Alle kjente lag- og spillernavn kompileres til én Aho–Corasick-automat, så hver tweet gås gjennom én
+ * gang uansett hvor mange navn som finnes. Treffene lagres i tweet_entity_tags, og "tweets om kampen"
+ * blir et indeksoppslag på lag-ID-ene i stedet for et tekstsøk per nøkkelord over hele raw_tweets.
+ *
+ * Både navn og tekst normaliseres til små bokstaver og ord adskilt av ett mellomrom, med mellomrom
+ * rundt. Mønstrene er " navn ", så et navn treffer bare hele ord ("arsenal" treffer ikke "arsenalfans").
+ */
+@Component
+public class TweetEntityTagger {
+
+    private static final Logger log = LoggerFactory.getLogger(TweetEntityTagger.class);
+
+    private static final int MIN_TEAM_NAME_LENGTH = 3;
+    private static final int MIN_PLAYER_NAME_LENGTH = 5;
+    // Navn som deles av flere entiteter enn dette (f.eks. et vanlig etternavn) sier for lite til å merkes.
+    private static final int MAX_ENTITIES_PER_NAME = 3;
+
+    private final FixtureRepository fixtureRepository;
+    private final TeamStatisticsRepository teamStatisticsRepository;
+    private final PlayerRepository playerRepository;
+    private final TweetEntityTagRepository tagRepository;
+
+    private volatile AhoCorasick<List<EntityRef>> automaton;
+
+    private final AtomicLong tweetsTagged = new AtomicLong();
+    private final AtomicLong tagsWritten = new AtomicLong();
+
+    public TweetEntityTagger(FixtureRepository fixtureRepository,
+                             TeamStatisticsRepository teamStatisticsRepository,
+                             PlayerRepository playerRepository,
+                             TweetEntityTagRepository tagRepository) {
+        this.fixtureRepository = fixtureRepository;
+        this.teamStatisticsRepository = teamStatisticsRepository;
+        this.playerRepository = playerRepository;
+        this.tagRepository = tagRepository;
+    }
+
+    /**
+     * Bygger navneordboken. Kjøres ved oppstart og hver natt, slik at nye lag og spillere kommer med.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 15 4 * * *", zone = "Europe/Oslo")
+    public void rebuild() {
+        try {
+            build();
+        } catch (Exception e) {
+            // Forrige automat beholdes; før første vellykkede bygging merkes ingen tweets.
+            log.warn("---[TWEET TAGGER] Kunne ikke bygge navneordboken: {}", e.getMessage());
+        }
+    }
+
+    private void build() {
+        long started = System.currentTimeMillis();
+        Map<String, Set<EntityRef>> names = new HashMap<>();
+
+        List<Object[]> teamRows = new ArrayList<>(fixtureRepository.findDistinctHomeTeamNames());
+        teamRows.addAll(fixtureRepository.findDistinctAwayTeamNames());
+        teamRows.addAll(teamStatisticsRepository.findDistinctTeamNames());
+        for (Object[] row : teamRows) {
+            addName(names, (String) row[1], new EntityRef(TweetEntityTag.EntityType.TEAM, ((Number) row[0]).intValue()), MIN_TEAM_NAME_LENGTH);
+        }
+
+        // Etternavn alene brukes bare når det er entydig blant spillerne og ikke er et lagnavn.
+        Map<String, Set<Integer>> playersByLastname = new HashMap<>();
+        for (Object[] row : playerRepository.findAllNameRows()) {
+            EntityRef player = new EntityRef(TweetEntityTag.EntityType.PLAYER, ((Number) row[0]).intValue());
+            String name = (String) row[1];
+            String firstname = (String) row[2];
+            String lastname = (String) row[3];
+            addName(names, name, player, MIN_PLAYER_NAME_LENGTH);
+            if (firstname != null && lastname != null) {
+                addName(names, firstname + " " + lastname, player, MIN_PLAYER_NAME_LENGTH);
+            }
+            if (lastname != null) {
+                playersByLastname.computeIfAbsent(normalize(lastname), k -> new HashSet<>()).add(player.id());
+            }
+        }
+        playersByLastname.forEach((lastname, ids) -> {
+            if (ids.size() == 1 && !names.containsKey(lastname)) {
+                addName(names, lastname, new EntityRef(TweetEntityTag.EntityType.PLAYER, ids.iterator().next()), MIN_PLAYER_NAME_LENGTH);
+            }
+        });
+
+        Map<String, List<EntityRef>> patterns = new HashMap<>();
+        names.forEach((pattern, refs) -> {
+            if (refs.size() <= MAX_ENTITIES_PER_NAME) patterns.put(pattern, List.copyOf(refs));
+        });
+        this.automaton = AhoCorasick.build(patterns);
+        log.info("---[TWEET TAGGER] Bygde automat med {} navn ({} tvetydige utelatt) på {} ms.",
+                patterns.size(), names.size() - patterns.size(), System.currentTimeMillis() - started);
+    }
+
+    private static void addName(Map<String, Set<EntityRef>> names, String rawName, EntityRef ref, int minLength) {
+        if (rawName == null) return;
+        String normalized = normalize(rawName);
+        // normalize legger til mellomrom i begge ender.
+        if (normalized.length() - 2 < minLength) return;
+        names.computeIfAbsent(normalized, k -> new HashSet<>()).add(ref);
+    }
+
+    /**
+     * Merker tweetene og lagrer merkene. Kalles i samme transaksjon som tweetene lagres i; tweetene må ha fått database-ID.
+     */
+    public void tagAndSave(Collection<RawTweetData> tweets) {
+        List<TweetEntityTag> tags = tag(tweets);
+        if (!tags.isEmpty()) tagRepository.saveAll(tags);
+        tagsWritten.addAndGet(tags.size());
+    }
+
+    List<TweetEntityTag> tag(Collection<RawTweetData> tweets) {
+        AhoCorasick<List<EntityRef>> current = automaton;
+        if (current == null) return List.of();
+        List<TweetEntityTag> tags = new ArrayList<>();
+        for (RawTweetData tweet : tweets) {
+            if (tweet.getId() == null || tweet.getContent() == null) continue;
+            Set<EntityRef> mentioned = new LinkedHashSet<>();
+            current.forEachMatch(normalize(tweet.getContent()), (start, end, refs) -> mentioned.addAll(refs));
+            for (EntityRef ref : mentioned) {
+                TweetEntityTag tag = new TweetEntityTag();
+                tag.setRawTweetId(tweet.getId());
+                tag.setEntityType(ref.type());
+                tag.setEntityId(ref.id());
+                tag.setTweetedAt(tweet.getTweetedAt());
+                tags.add(tag);
+            }
+            tweetsTagged.incrementAndGet();
+        }
+        return tags;
+    }
+
+    /**
+     * Tweets som nevner hjemme- eller bortelaget, postet etter afterDate.
+     */
+    public List<RawTweetData> findTweetsForFixture(Fixture fixture, Instant afterDate) {
+        List<Integer> teamIds = new ArrayList<>(2);
+        if (fixture.getHomeTeamId() != null) teamIds.add(fixture.getHomeTeamId());
+        if (fixture.getAwayTeamId() != null) teamIds.add(fixture.getAwayTeamId());
+        if (teamIds.isEmpty()) return List.of();
+        return tagRepository.findTweetsMentioning(TweetEntityTag.EntityType.TEAM, teamIds, afterDate);
+    }
+
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length() + 2).append(' ');
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+            } else if (normalized.charAt(normalized.length() - 1) != ' ') {
+                normalized.append(' ');
+            }
+        }
+        if (normalized.charAt(normalized.length() - 1) != ' ') normalized.append(' ');
+        return normalized.toString();
+    }
+
+    public Map<String, Object> getStats() {
+        AhoCorasick<List<EntityRef>> current = automaton;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("names", current == null ? 0 : current.patternCount());
+        stats.put("tweetsTagged", tweetsTagged.get());
+        stats.put("tagsWritten", tagsWritten.get());
+        return stats;
+    }
+
+    record EntityRef(TweetEntityTag.EntityType type, int id) {}
+}
@@ -0,0 +1,356 @@
+// src/main/java/com/AiPortal/service/TweetSearchIndex.java
+package com.AiPortal.service;
+
+import com.AiPortal.entity.RawTweetData;
+import com.AiPortal.repository.RawTweetDataRepository;
+import com.AiPortal.util.LongOpenHashSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Invertert indeks over tweet-innhold i minnet, for søk på nøkkelord innenfor et tidsvindu.
+ *
+ * Hvert normaliserte ord (små bokstaver, kun bokstaver og tall) peker til en postingliste sortert på
+ * tweetedAt. Et søk slår opp alle indekserte ord som inneholder hvert av ordene i nøkkelordet (så "arsenal"
+ * også finner "#ArsenalFC" og "arsenalfans", som LIKE gjorde), hopper med binærsøk til starten av
+ * tidsvinduet og snitter listene; bare kandidatene lastes fra databasen og kontrolleres mot hele nøkkelordet.
+ * Svaret er dermed det samme som LIKE '%nøkkelord%' over hele raw_tweets. Indeksen holder tweets innenfor
+ * en oppbevaringsperiode; eldre vinduer, og søk før indeksen er lastet, går til databasen som før.
+ *
+ * For å finne ordene som inneholder et søkeord uten å gå gjennom hele ordlisten, peker hvert trigram (tre
+ * påfølgende tegn) til ordene det forekommer i. Kandidatene er ordene til søkeordets sjeldneste trigram,
+ * og bare de kontrolleres med contains. Søkeord på ett eller to tegn har ingen trigrammer og går gjennom
+ * ordlisten; de treffer uansett en stor del av den.
+ */
+@Component
+public class TweetSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TweetSearchIndex.class);
+    private static final int LOAD_FETCH_SIZE = 5000;
+    private static final int GRAM_LENGTH = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RawTweetDataRepository tweetRepository;
+    private final Duration retention;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    // Trigram -> de indekserte ordene som inneholder det, hvert ord én gang.
+    private final Map<String, List<String>> termsByTrigram = new HashMap<>();
+    private final AtomicLong tweetsIndexed = new AtomicLong();
+    private volatile boolean loaded;
+    private volatile long horizonEpochSecond;
+
+    private final AtomicLong queriesServed = new AtomicLong();
+    private final AtomicLong queriesFallback = new AtomicLong();
+    private final AtomicLong queryNanos = new AtomicLong();
+
+    public TweetSearchIndex(JdbcTemplate jdbcTemplate,
+                            RawTweetDataRepository tweetRepository,
+                            @Value("${tweets.index.retention-days:90}") long retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tweetRepository = tweetRepository;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.currentTimeMillis();
+        Instant horizon = Instant.now().minus(retention);
+        AtomicLong count = new AtomicLong();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            termsByTrigram.clear();
+            tweetsIndexed.set(0);
+            horizonEpochSecond = horizon.getEpochSecond();
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement("SELECT id, content, tweeted_at FROM raw_tweets WHERE tweeted_at >= ? ORDER BY tweeted_at");
+                statement.setTimestamp(1, Timestamp.from(horizon));
+                statement.setFetchSize(LOAD_FETCH_SIZE);
+                return statement;
+            }, rs -> {
+                Timestamp tweetedAt = rs.getTimestamp(3);
+                if (tweetedAt != null && add(rs.getLong(1), rs.getString(2), tweetedAt.toInstant())) count.incrementAndGet();
+            });
+            loaded = true;
+        } catch (Exception e) {
+            log.warn("---[TWEET INDEX] Kunne ikke laste indeksen, søk går til databasen: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("---[TWEET INDEX] Indekserte {} tweets ({} ord) på {} ms.", count.get(), postings.size(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Legger nylig lagrede tweets inn i indeksen. Tweets uten database-ID (ikke lagret) hoppes over.
+     */
+    public void registerAll(Collection<RawTweetData> tweets) {
+        if (tweets.isEmpty()) return;
+        lock.writeLock().lock();
+        try {
+            for (RawTweetData tweet : tweets) {
+                if (tweet.getId() != null && tweet.getTweetedAt() != null) {
+                    add(tweet.getId(), tweet.getContent(), tweet.getTweetedAt());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean add(long id, String content, Instant tweetedAt) {
+        long epochSecond = tweetedAt.getEpochSecond();
+        if (epochSecond < horizonEpochSecond) return false;
+        boolean added = false;
+        for (String token : tokenize(content)) {
+            PostingList list = postings.get(token);
+            if (list == null) {
+                list = new PostingList();
+                postings.put(token, list);
+                indexTrigrams(token);
+            }
+            added |= list.add(epochSecond, id);
+        }
+        if (added) tweetsIndexed.incrementAndGet();
+        return added;
+    }
+
+    /**
+     * Tweets der innholdet inneholder nøkkelordet (uavhengig av store/små bokstaver) og som er postet etter afterDate.
+     * Samme svar som {@link RawTweetDataRepository#findByContentContainingIgnoreCaseAndTweetedAtAfter}.
+     */
+    public List<RawTweetData> search(String keyword, Instant afterDate) {
+        Optional<List<Long>> candidates = candidateIds(keyword, afterDate);
+        if (candidates.isEmpty()) {
+            queriesFallback.incrementAndGet();
+            return tweetRepository.findByContentContainingIgnoreCaseAndTweetedAtAfter(keyword, afterDate);
+        }
+        if (candidates.get().isEmpty()) return List.of();
+        String needle = keyword.toLowerCase(Locale.ROOT);
+        return tweetRepository.findAllById(candidates.get()).stream()
+                .filter(t -> t.getTweetedAt().isAfter(afterDate) && t.getContent() != null
+                        && t.getContent().toLowerCase(Locale.ROOT).contains(needle))
+                .sorted(Comparator.comparing(RawTweetData::getTweetedAt))
+                .toList();
+    }
+
+    /**
+     * ID-ene til tweets i tidsvinduet der hvert ord i nøkkelordet inngår i et av tweetens ord, eller tom hvis
+     * indeksen ikke kan svare. Alle tweets som inneholder nøkkelordet er med; search sorterer ut resten.
+     */
+    Optional<List<Long>> candidateIds(String keyword, Instant afterDate) {
+        List<String> tokens = List.copyOf(tokenize(keyword));
+        if (!loaded || tokens.isEmpty() || afterDate.getEpochSecond() < horizonEpochSecond) return Optional.empty();
+
+        long started = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            // Indeksen har sekundoppløsning; treff i samme sekund som afterDate sorteres ut mot databaseradene i search.
+            long fromEpochSecond = afterDate.getEpochSecond();
+            List<List<PostingList>> listsPerToken = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                List<PostingList> lists = postingsContaining(token);
+                if (lists.isEmpty()) {
+                    queriesServed.incrementAndGet();
+                    return Optional.of(List.of());
+                }
+                listsPerToken.add(lists);
+            }
+            listsPerToken.sort(Comparator.comparingInt(lists -> countFrom(lists, fromEpochSecond)));
+
+            // Samme tweet kan stå i flere av listene (f.eks. både "arsenal" og "arsenalfc").
+            List<PostingList> smallest = listsPerToken.get(0);
+            LongOpenHashSet seen = new LongOpenHashSet(countFrom(smallest, fromEpochSecond));
+            List<Long> result = new ArrayList<>();
+            for (PostingList list : smallest) {
+                for (long id : list.idsFrom(fromEpochSecond)) {
+                    if (seen.add(id)) result.add(id);
+                }
+            }
+            for (int i = 1; i < listsPerToken.size() && !result.isEmpty(); i++) {
+                LongOpenHashSet other = new LongOpenHashSet(countFrom(listsPerToken.get(i), fromEpochSecond));
+                for (PostingList list : listsPerToken.get(i)) list.addIdsFrom(fromEpochSecond, other);
+                result = result.stream().filter(other::contains).toList();
+            }
+            queriesServed.incrementAndGet();
+            return Optional.of(result);
+        } finally {
+            lock.readLock().unlock();
+            queryNanos.addAndGet(System.nanoTime() - started);
+        }
+    }
+
+    // Postinglistene til alle indekserte ord som inneholder ordet.
+    private List<PostingList> postingsContaining(String token) {
+        List<PostingList> lists = new ArrayList<>();
+        if (token.length() < GRAM_LENGTH) {
+            for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+                if (entry.getKey().contains(token)) lists.add(entry.getValue());
+            }
+            return lists;
+        }
+        List<String> candidates = null;
+        for (int i = 0; i + GRAM_LENGTH <= token.length(); i++) {
+            List<String> terms = termsByTrigram.get(token.substring(i, i + GRAM_LENGTH));
+            if (terms == null) return lists;
+            if (candidates == null || terms.size() < candidates.size()) candidates = terms;
+        }
+        for (String term : candidates) {
+            if (term.contains(token)) lists.add(postings.get(term));
+        }
+        return lists;
+    }
+
+    private void indexTrigrams(String term) {
+        for (int i = 0; i + GRAM_LENGTH <= term.length(); i++) {
+            List<String> terms = termsByTrigram.computeIfAbsent(term.substring(i, i + GRAM_LENGTH), g -> new ArrayList<>());
+            // Et ord med samme trigram flere ganger ("aaaa") legges til bare én gang; ordets trigrammer legges inn etter hverandre.
+            if (terms.isEmpty() || !terms.get(terms.size() - 1).equals(term)) terms.add(term);
+        }
+    }
+
+    private static int countFrom(List<PostingList> lists, long epochSecond) {
+        int count = 0;
+        for (PostingList list : lists) count += list.countFrom(epochSecond);
+        return count;
+    }
+
+    /**
+     * Fjerner tweets som er eldre enn oppbevaringsperioden. Postinglistene er tidssortert, så dette er å kutte hodet av hver liste.
+     */
+    @Scheduled(cron = "0 30 3 * * *", zone = "Europe/Oslo")
+    public void prune() {
+        if (!loaded) return;
+        long horizon = Instant.now().minus(retention).getEpochSecond();
+        lock.writeLock().lock();
+        try {
+            horizonEpochSecond = horizon;
+            postings.values().forEach(list -> list.dropBefore(horizon));
+            if (postings.values().removeIf(PostingList::isEmpty)) {
+                termsByTrigram.clear();
+                postings.keySet().forEach(this::indexTrigrams);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ord i teksten: små bokstaver, delt på alt som ikke er bokstav eller tall. "#Arsenal" og "@Arsenal" gir "arsenal".
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) return tokens;
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("loaded", loaded);
+            stats.put("tweetsIndexed", tweetsIndexed.get());
+            stats.put("tokens", postings.size());
+            stats.put("trigrams", termsByTrigram.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        long served = queriesServed.get();
+        stats.put("queriesServed", served);
+        stats.put("queriesFallback", queriesFallback.get());
+        stats.put("avgQueryMicros", served == 0 ? 0 : queryNanos.get() / served / 1000);
+        return stats;
+    }
+
+    /**
+     * Tidssortert postingliste: parallelle arrays med tidspunkt (epoch-sekunder) og tweet-ID.
+     * Nye tweets kommer nesten alltid sist; eldre tweets settes inn på riktig plass.
+     */
+    private static final class PostingList {
+        private long[] times = new long[4];
+        private long[] ids = new long[4];
+        private int size;
+
+        /**
+         * @return false hvis tweeten allerede står i listen (f.eks. lagret mens indeksen ble lastet).
+         */
+        boolean add(long epochSecond, long id) {
+            int position = size == 0 || times[size - 1] < epochSecond ? size : firstIndexAtOrAfter(epochSecond + 1);
+            for (int i = position - 1; i >= 0 && times[i] == epochSecond; i--) {
+                if (ids[i] == id) return false;
+            }
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(times, position, times, position + 1, size - position);
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            times[position] = epochSecond;
+            ids[position] = id;
+            size++;
+            return true;
+        }
+
+        int firstIndexAtOrAfter(long epochSecond) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (times[mid] < epochSecond) low = mid + 1; else high = mid;
+            }
+            return low;
+        }
+
+        int countFrom(long epochSecond) {
+            return size - firstIndexAtOrAfter(epochSecond);
+        }
+
+        List<Long> idsFrom(long epochSecond) {
+            int from = firstIndexAtOrAfter(epochSecond);
+            List<Long> result = new ArrayList<>(size - from);
+            for (int i = from; i < size; i++) result.add(ids[i]);
+            return result;
+        }
+
+        void addIdsFrom(long epochSecond, LongOpenHashSet set) {
+            for (int i = firstIndexAtOrAfter(epochSecond); i < size; i++) set.add(ids[i]);
+        }
+
+        void dropBefore(long epochSecond) {
+            int from = firstIndexAtOrAfter(epochSecond);
+            if (from == 0) return;
+            System.arraycopy(times, from, times, 0, size - from);
+            System.arraycopy(ids, from, ids, 0, size - from);
+            size -= from;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
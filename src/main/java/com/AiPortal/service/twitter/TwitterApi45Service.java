@@ -86,6 +86,17 @@ public class TwitterApi45Service implements TwitterServiceProvider {
         }
     }
 
+    @Override
+    public String buildUserQuery(String username) {
+        return username;
+    }
+
+    @Override
+    public String extractTweetId(JsonNode tweet) {
+        // Samme felt som parseNewestTweetId bruker, med de vanlige navnene som reserve.
+        return tweet.path("tweet_id").asText(TwitterServiceProvider.super.extractTweetId(tweet));
+    }
+
     @Override
     public String findUsernameFromIncludes(String responseBody, String authorId) {
         // Ikke relevant for denne API-en. Overlates til ScheduledBotRunner.
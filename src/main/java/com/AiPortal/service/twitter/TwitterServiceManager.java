@@ -3,21 +3,54 @@ package com.AiPortal.service.twitter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Fordeler Twitter-søk på leverandørene etter helse i stedet for blind round-robin.
+ *
+ * For hver leverandør følges latens og feilrate (eksponentielt glidende snitt), antall samtidige kall og
+ * gjenværende kvote i inneværende vindu. Et søk får leverandøren med best poengsum blant dem som har ledig
+ * kapasitet. En leverandør som svarer 429 eller feiler flere ganger på rad settes i karantene til kvoten er
+ * fornyet, så den ikke får mer trafikk mens den er nede.
+ */
 @Service
 public class TwitterServiceManager {
 
     private static final Logger log = LoggerFactory.getLogger(TwitterServiceManager.class);
+    private static final double EWMA_WEIGHT = 0.2;
+    private static final int FAILURES_BEFORE_COOLDOWN = 3;
+    private static final Duration FAILURE_COOLDOWN = Duration.ofMinutes(5);
+    private static final Duration ACQUIRE_POLL_INTERVAL = Duration.ofMillis(250);
+
     private final List<TwitterServiceProvider> providers;
-    private final AtomicInteger currentIndex = new AtomicInteger(0);
+    private final Map<String, ProviderHealth> health = new LinkedHashMap<>();
+    private final int maxConcurrencyPerProvider;
+    private final int requestsPerWindow;
+    private final Duration quotaWindow;
+    private final Duration maxAcquireWait;
 
-    public TwitterServiceManager(List<TwitterServiceProvider> providers) {
+    public TwitterServiceManager(List<TwitterServiceProvider> providers,
+                                 @Value("${twitter.scheduler.max-concurrency-per-provider:2}") int maxConcurrencyPerProvider,
+                                 @Value("${twitter.scheduler.requests-per-window:50}") int requestsPerWindow,
+                                 @Value("${twitter.scheduler.window-minutes:15}") long windowMinutes,
+                                 @Value("${twitter.scheduler.max-acquire-wait-seconds:60}") long maxAcquireWaitSeconds) {
         this.providers = providers != null ? providers : Collections.emptyList();
+        this.maxConcurrencyPerProvider = Math.max(1, maxConcurrencyPerProvider);
+        this.requestsPerWindow = Math.max(1, requestsPerWindow);
+        this.quotaWindow = Duration.ofMinutes(windowMinutes);
+        this.maxAcquireWait = Duration.ofSeconds(maxAcquireWaitSeconds);
+        for (TwitterServiceProvider provider : this.providers) {
+            health.put(provider.getProviderName(), new ProviderHealth());
+        }
         if (this.providers.isEmpty()) {
             log.warn("Ingen TwitterServiceProvider-bønner funnet. Twitter-funksjonalitet vil være deaktivert.");
         } else {
@@ -26,16 +59,160 @@ public class TwitterServiceManager {
     }
 
     /**
-     * Velger neste tilgjengelige leverandør i en round-robin-sekvens.
-     * @return En TwitterServiceProvider, eller null hvis ingen er konfigurert.
+     * Hvor mange søk som totalt kan kjøre samtidig over alle leverandørene.
+     */
+    public int totalConcurrency() {
+        return providers.size() * maxConcurrencyPerProvider;
+    }
+
+    /**
+     * Venter (ikke-blokkerende) på en leverandør med ledig kapasitet og reserverer en plass hos den.
+     * Fullfører tom hvis ingen blir ledig innen ventetiden, f.eks. fordi alle kvoter er brukt opp.
+     */
+    public Mono<Lease> acquire() {
+        if (providers.isEmpty()) return Mono.empty();
+        long attempts = Math.max(1, maxAcquireWait.toMillis() / ACQUIRE_POLL_INTERVAL.toMillis());
+        return Mono.fromCallable(this::tryAcquire)
+                .repeatWhenEmpty((int) Math.min(Integer.MAX_VALUE, attempts), ticks -> ticks.delayElements(ACQUIRE_POLL_INTERVAL));
+    }
+
+    private synchronized Lease tryAcquire() {
+        Instant now = Instant.now();
+        TwitterServiceProvider best = null;
+        double bestScore = -1;
+        for (TwitterServiceProvider provider : providers) {
+            ProviderHealth h = health.get(provider.getProviderName());
+            h.rollWindow(now, quotaWindow);
+            if (now.isBefore(h.cooldownUntil) || h.inFlight >= maxConcurrencyPerProvider || h.requestsInWindow >= requestsPerWindow) {
+                continue;
+            }
+            double score = h.score(requestsPerWindow);
+            if (score > bestScore) {
+                bestScore = score;
+                best = provider;
+            }
+        }
+        if (best == null) return null;
+        ProviderHealth h = health.get(best.getProviderName());
+        h.inFlight++;
+        h.requestsInWindow++;
+        return new Lease(best);
+    }
+
+    private synchronized void release(String providerName, long latencyMillis, Throwable error) {
+        ProviderHealth h = health.get(providerName);
+        h.inFlight--;
+        h.latencyMillis = h.latencyMillis == 0 ? latencyMillis : h.latencyMillis + EWMA_WEIGHT * (latencyMillis - h.latencyMillis);
+        h.errorRate += EWMA_WEIGHT * ((error == null ? 0 : 1) - h.errorRate);
+        if (error == null) {
+            h.successes++;
+            h.consecutiveFailures = 0;
+            return;
+        }
+        h.failures++;
+        h.consecutiveFailures++;
+        if (error instanceof WebClientResponseException wcre && wcre.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            h.cooldownUntil = quotaResetFrom(wcre).orElse(Instant.now().plus(quotaWindow));
+            h.requestsInWindow = requestsPerWindow;
+            log.warn("---[TWITTER SCHEDULER] {} er tom for kvote, pauses til {}.", providerName, h.cooldownUntil);
+        } else if (h.consecutiveFailures >= FAILURES_BEFORE_COOLDOWN) {
+            h.cooldownUntil = Instant.now().plus(FAILURE_COOLDOWN);
+            log.warn("---[TWITTER SCHEDULER] {} har feilet {} ganger på rad, pauses til {}.", providerName, h.consecutiveFailures, h.cooldownUntil);
+        }
+    }
+
+    /**
+     * Leser tilbakestillingstidspunktet fra 429-svaret: Twitter sender epoch-sekunder i x-rate-limit-reset,
+     * RapidAPI sender sekunder til tilbakestilling i x-ratelimit-requests-reset.
      */
-    public TwitterServiceProvider getNextProvider() {
-        if (providers.isEmpty()) {
-            return null;
+    private static Optional<Instant> quotaResetFrom(WebClientResponseException e) {
+        try {
+            String epochSeconds = e.getHeaders().getFirst("x-rate-limit-reset");
+            if (epochSeconds != null) return Optional.of(Instant.ofEpochSecond(Long.parseLong(epochSeconds.trim())));
+            String secondsUntilReset = e.getHeaders().getFirst("x-ratelimit-requests-reset");
+            if (secondsUntilReset != null) return Optional.of(Instant.now().plusSeconds(Long.parseLong(secondsUntilReset.trim())));
+        } catch (NumberFormatException ignored) {
+            // Ukjent format; standard vindu brukes.
+        }
+        return Optional.empty();
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Instant now = Instant.now();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        health.forEach((name, h) -> {
+            h.rollWindow(now, quotaWindow);
+            Map<String, Object> providerStats = new LinkedHashMap<>();
+            providerStats.put("score", h.score(requestsPerWindow));
+            providerStats.put("latencyMillis", Math.round(h.latencyMillis));
+            providerStats.put("errorRate", h.errorRate);
+            providerStats.put("remainingQuota", Math.max(0, requestsPerWindow - h.requestsInWindow));
+            providerStats.put("inFlight", h.inFlight);
+            providerStats.put("successes", h.successes);
+            providerStats.put("failures", h.failures);
+            providerStats.put("coolingDownUntil", now.isBefore(h.cooldownUntil) ? h.cooldownUntil.toString() : null);
+            stats.put(name, providerStats);
+        });
+        return stats;
+    }
+
+    /**
+     * En reservert plass hos én leverandør. Kallet som kjøres gjennom {@link #execute(Mono)} måles og frigir plassen når det er ferdig.
+     */
+    public final class Lease {
+        private final TwitterServiceProvider provider;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(TwitterServiceProvider provider) {
+            this.provider = provider;
+        }
+
+        public TwitterServiceProvider provider() {
+            return provider;
+        }
+
+        public <T> Mono<T> execute(Mono<T> call) {
+            return Mono.defer(() -> {
+                long started = System.nanoTime();
+                return call
+                        .doOnSuccess(result -> releaseOnce(started, null))
+                        .doOnError(error -> releaseOnce(started, error))
+                        .doOnCancel(() -> releaseOnce(started, new IllegalStateException("avbrutt")));
+            });
+        }
+
+        private void releaseOnce(long startedNanos, Throwable error) {
+            if (released.compareAndSet(false, true)) release(provider.getProviderName(), elapsedMillis(startedNanos), error);
+        }
+
+        private long elapsedMillis(long startedNanos) {
+            return (System.nanoTime() - startedNanos) / 1_000_000;
+        }
+    }
+
+    private static final class ProviderHealth {
+        double latencyMillis;
+        double errorRate;
+        int inFlight;
+        int requestsInWindow;
+        Instant windowStart = Instant.now();
+        Instant cooldownUntil = Instant.EPOCH;
+        int consecutiveFailures;
+        long successes;
+        long failures;
+
+        void rollWindow(Instant now, Duration window) {
+            if (Duration.between(windowStart, now).compareTo(window) >= 0) {
+                windowStart = now;
+                requestsInWindow = 0;
+            }
+        }
+
+        // Høy andel vellykkede kall, mye kvote igjen og lav latens gir høy poengsum. Ukjent latens regnes som 1 s.
+        double score(int requestsPerWindow) {
+            double remainingShare = Math.max(0, requestsPerWindow - requestsInWindow) / (double) requestsPerWindow;
+            double latencySeconds = latencyMillis == 0 ? 1.0 : latencyMillis / 1000.0;
+            return (1 - errorRate) * (0.5 + 0.5 * remainingShare) / (1 + latencySeconds);
         }
-        int index = currentIndex.getAndIncrement() % providers.size();
-        TwitterServiceProvider provider = providers.get(index);
-        log.info("Velger Twitter-leverandør: {}", provider.getProviderName());
-        return provider;
     }
-}
\ No newline at end of file
+}
@@ -17,4 +17,22 @@ public interface TwitterServiceProvider {
     List<JsonNode> parseTweetsFromResponse(String responseBody);
     String parseNewestTweetId(String responseBody);
     String findUsernameFromIncludes(String responseBody, String authorId);
+
+    // Søkestreng for tweets fra en bruker. Standard er Twitter-syntaksen "from:brukernavn".
+    default String buildUserQuery(String username) {
+        return "from:" + username;
+    }
+
+    // Felt-uttrekk fra ett tweet-objekt i svaret. Leverandører med en annen struktur overstyrer disse.
+    default String extractTweetId(JsonNode tweet) {
+        return tweet.path("id_str").asText(tweet.path("id").asText());
+    }
+
+    default String extractText(JsonNode tweet) {
+        return tweet.path("text").asText(tweet.path("full_text").asText());
+    }
+
+    default String extractCreatedAt(JsonNode tweet) {
+        return tweet.path("legacy").path("created_at").asText(tweet.path("created_at").asText());
+    }
 }
\ No newline at end of file
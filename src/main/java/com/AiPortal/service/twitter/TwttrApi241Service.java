@@ -99,6 +99,21 @@ public class TwttrApi241Service implements TwitterServiceProvider {
         }
     }
 
+    @Override
+    public String buildUserQuery(String username) {
+        return username;
+    }
+
+    @Override
+    public String extractTweetId(JsonNode tweet) {
+        return tweet.path("rest_id").asText();
+    }
+
+    @Override
+    public String extractText(JsonNode tweet) {
+        return tweet.path("legacy").path("full_text").asText();
+    }
+
     @Override
     public String findUsernameFromIncludes(String responseBody, String authorId) {
         // Ikke relevant.
@@ -0,0 +1,143 @@
+// src/main/java/com/AiPortal/util/AhoCorasick.java
+package com.AiPortal.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho–Corasick-automat: finner alle forekomster av mange mønstre i én gjennomgang av teksten,
+ * uavhengig av hvor mange mønstre det er.
+ *
+ * Overgangene ligger i én {@link LongLongHashMap} med nøkkel (node << 16 | tegn), så automaten
+ * klarer titusenvis av navn uten et objekt per node. Uforanderlig etter bygging og trådsikker for lesing.
+ */
+public final class AhoCorasick<T> {
+
+    private static final int ROOT = 0;
+
+    private final LongLongHashMap transitions;
+    private final int[] failure;
+    private final int[] output;       // Mønsteret som slutter i noden, eller -1
+    private final int[] outputLink;   // Nærmeste node i failure-kjeden som har et mønster, eller -1
+    private final int[] patternLengths;
+    private final List<T> payloads;
+
+    private AhoCorasick(LongLongHashMap transitions, int[] failure, int[] output, int[] outputLink,
+                        int[] patternLengths, List<T> payloads) {
+        this.transitions = transitions;
+        this.failure = failure;
+        this.output = output;
+        this.outputLink = outputLink;
+        this.patternLengths = patternLengths;
+        this.payloads = payloads;
+    }
+
+    @FunctionalInterface
+    public interface MatchConsumer<T> {
+        /**
+         * @param start Indeks til første tegn i treffet.
+         * @param end   Indeks etter siste tegn i treffet.
+         */
+        void accept(int start, int end, T payload);
+    }
+
+    public static <T> AhoCorasick<T> build(Map<String, T> patterns) {
+        int capacity = 1 + patterns.keySet().stream().mapToInt(String::length).sum();
+        LongLongHashMap transitions = new LongLongHashMap(capacity);
+        int[] output = new int[capacity];
+        Arrays.fill(output, -1);
+        int[] patternLengths = new int[patterns.size()];
+        List<T> payloads = new ArrayList<>(patterns.size());
+
+        // Trie
+        int nodeCount = 1;
+        for (Map.Entry<String, T> pattern : patterns.entrySet()) {
+            String text = pattern.getKey();
+            if (text.isEmpty() || text.indexOf('\0') >= 0) continue;
+            int node = ROOT;
+            for (int i = 0; i < text.length(); i++) {
+                long key = key(node, text.charAt(i));
+                long next = transitions.get(key, -1);
+                if (next < 0) {
+                    next = nodeCount++;
+                    transitions.put(key, next);
+                }
+                node = (int) next;
+            }
+            patternLengths[payloads.size()] = text.length();
+            output[node] = payloads.size();
+            payloads.add(pattern.getValue());
+        }
+
+        // Failure-lenker, bredde først, slik at en nodes lenke alltid er ferdig før barnas.
+        int[] failure = new int[nodeCount];
+        int[] outputLink = new int[nodeCount];
+        Arrays.fill(outputLink, -1);
+        List<List<long[]>> children = childrenByNode(transitions, nodeCount);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (long[] child : children.get(ROOT)) {
+            failure[(int) child[1]] = ROOT;
+            queue.add((int) child[1]);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (long[] child : children.get(node)) {
+                char c = (char) child[0];
+                int childNode = (int) child[1];
+                int fallback = failure[node];
+                while (fallback != ROOT && transitions.get(key(fallback, c), -1) < 0) {
+                    fallback = failure[fallback];
+                }
+                long target = transitions.get(key(fallback, c), -1);
+                failure[childNode] = target >= 0 && target != childNode ? (int) target : ROOT;
+                int f = failure[childNode];
+                outputLink[childNode] = output[f] >= 0 ? f : outputLink[f];
+                queue.add(childNode);
+            }
+        }
+        return new AhoCorasick<>(transitions, failure, Arrays.copyOf(output, nodeCount), outputLink,
+                Arrays.copyOf(patternLengths, payloads.size()), payloads);
+    }
+
+    /**
+     * Rapporterer alle treff, også overlappende, i den rekkefølgen de slutter i teksten.
+     */
+    public void forEachMatch(CharSequence text, MatchConsumer<T> consumer) {
+        int node = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\0') {
+                node = ROOT;
+                continue;
+            }
+            long next;
+            while ((next = transitions.get(key(node, c), -1)) < 0 && node != ROOT) {
+                node = failure[node];
+            }
+            node = next < 0 ? ROOT : (int) next;
+            for (int hit = output[node] >= 0 ? node : outputLink[node]; hit >= 0; hit = outputLink[hit]) {
+                int pattern = output[hit];
+                consumer.accept(i + 1 - patternLengths[pattern], i + 1, payloads.get(pattern));
+            }
+        }
+    }
+
+    public int patternCount() {
+        return payloads.size();
+    }
+
+    private static long key(int node, char c) {
+        return ((long) node << 16) | c;
+    }
+
+    // Barnelister per node, bygget fra overgangsnøklene; brukes bare under byggingen.
+    private static List<List<long[]>> childrenByNode(LongLongHashMap transitions, int nodeCount) {
+        List<List<long[]>> children = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) children.add(new ArrayList<>(1));
+        transitions.forEach((key, child) -> children.get((int) (key >>> 16)).add(new long[]{key & 0xFFFF, child}));
+        return children;
+    }
+}
@@ -0,0 +1,95 @@
+// src/main/java/com/AiPortal/util/DeltaVarintCodec.java
+package com.AiPortal.util;
+
+import java.util.Arrays;
+
+/**
+ * Kompakt koding av tidsserier med (tidspunkt, verdi)-punkter.
+ *
+ * Hvert punkt lagres som differansen mot forrige punkt (første punkt mot 0), zigzag-kodet
+ * og skrevet som varint. Prisendringer i odds og sekunder mellom oppdateringer er små tall,
+ * så et punkt tar typisk 3-5 bytes i stedet for en hel JSON-rad.
+ */
+public final class DeltaVarintCodec {
+
+    private DeltaVarintCodec() {}
+
+    /**
+     * Dekodede punkter. Arrayene har samme lengde og er sortert på tid.
+     */
+    public record Points(long[] epochSeconds, int[] values) {
+        public int size() { return epochSeconds.length; }
+    }
+
+    /**
+     * Legger til ett punkt på slutten av en eksisterende serie.
+     *
+     * @param encoded       Eksisterende bytes (kan være null for en ny serie).
+     * @param previousSecond Tidspunktet til forrige punkt (0 for første punkt).
+     * @param previousValue  Verdien til forrige punkt (0 for første punkt).
+     */
+    public static byte[] append(byte[] encoded, long previousSecond, int previousValue, long epochSecond, int value) {
+        byte[] buffer = new byte[20];
+        int length = writeVarint(buffer, 0, zigzag(epochSecond - previousSecond));
+        length = writeVarint(buffer, length, zigzag((long) value - previousValue));
+        int existing = encoded == null ? 0 : encoded.length;
+        byte[] result = encoded == null ? new byte[length] : Arrays.copyOf(encoded, existing + length);
+        System.arraycopy(buffer, 0, result, existing, length);
+        return result;
+    }
+
+    public static Points decode(byte[] encoded, int count) {
+        long[] seconds = new long[count];
+        int[] values = new int[count];
+        if (encoded == null) return new Points(new long[0], new int[0]);
+        int position = 0;
+        long second = 0;
+        long value = 0;
+        int decoded = 0;
+        while (decoded < count && position < encoded.length) {
+            long raw = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = encoded[position++];
+                raw |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            second += unzigzag(raw);
+
+            raw = 0;
+            shift = 0;
+            do {
+                b = encoded[position++];
+                raw |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            value += unzigzag(raw);
+
+            seconds[decoded] = second;
+            values[decoded] = (int) value;
+            decoded++;
+        }
+        if (decoded < count) {
+            return new Points(Arrays.copyOf(seconds, decoded), Arrays.copyOf(values, decoded));
+        }
+        return new Points(seconds, values);
+    }
+
+    private static int writeVarint(byte[] target, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            target[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
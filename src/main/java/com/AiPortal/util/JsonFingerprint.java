@@ -0,0 +1,81 @@
+// src/main/java/com/AiPortal/util/JsonFingerprint.java
+package com.AiPortal.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Billig 64-bit fingeravtrykk (FNV-1a) av et JsonNode-tre.
+ *
+ * Treet gås gjennom direkte uten å serialiseres til tekst. Feltrekkefølgen påvirker resultatet,
+ * noe som er greit siden samme API returnerer feltene i samme rekkefølge fra gang til gang.
+ */
+public final class JsonFingerprint {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private JsonFingerprint() {}
+
+    public static long of(JsonNode node) {
+        return hashNode(FNV_OFFSET, node);
+    }
+
+    /**
+     * Nøkkel for en (nøkkelrom, id)-kombinasjon, f.eks. ("PINNACLE_MARKET", eventId).
+     * Garantert forskjellig fra 0, som LongLongHashMap reserverer.
+     */
+    public static long key(String keySpace, long id) {
+        long hash = hashString(FNV_OFFSET, keySpace);
+        hash = hashLong(hash, id);
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static long hashNode(long hash, JsonNode node) {
+        hash = mix(hash, node.getNodeType().ordinal());
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                hash = hashString(hash, field.getKey());
+                hash = hashNode(hash, field.getValue());
+            }
+            // Som for arrays: uten antallet ville {"a":{"b":1},"c":2} og {"a":{"b":1,"c":2}} gi samme verdi.
+            hash = mix(hash, node.size());
+        } else if (node.isArray()) {
+            for (JsonNode element : node) {
+                hash = hashNode(hash, element);
+            }
+            hash = mix(hash, node.size());
+        } else if (node.isNumber()) {
+            hash = hashLong(hash, Double.doubleToLongBits(node.asDouble()));
+        } else if (node.isBoolean()) {
+            hash = mix(hash, node.asBoolean() ? 1 : 0);
+        } else if (!node.isNull() && !node.isMissingNode()) {
+            hash = hashString(hash, node.asText());
+        }
+        return hash;
+    }
+
+    private static long hashString(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash = mix(hash, c & 0xFF);
+            hash = mix(hash, c >>> 8);
+        }
+        return mix(hash, 0xFF); // Skilletegn, slik at "ab"+"c" != "a"+"bc".
+    }
+
+    private static long hashLong(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash = mix(hash, (int) (value >>> (i * 8)) & 0xFF);
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int octet) {
+        return (hash ^ octet) * FNV_PRIME;
+    }
+}
@@ -0,0 +1,105 @@
+// src/main/java/com/AiPortal/util/LongBloomFilter.java
+package com.AiPortal.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom-filter over long-nøkler (f.eks. pakkede nøkler fra {@link LongOpenHashSet#pack(long, int)}).
+ *
+ * "Nei" fra {@link #mightContain(long)} er sikkert; "ja" kan være falskt positivt med omtrent den
+ * sannsynligheten filteret ble dimensjonert for. Bitene ligger i en AtomicLongArray, så filteret kan
+ * leses og skrives fra flere tråder uten låsing. Elementer kan ikke fjernes.
+ */
+public class LongBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashFunctions;
+    private final long expectedInsertions;
+
+    public LongBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+        long bits = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) >>> 6));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount << 6;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+        this.expectedInsertions = n;
+    }
+
+    /**
+     * @return true hvis nøkkelen var ny for filteret (minst én bit ble satt).
+     */
+    public boolean put(long key) {
+        long hash1 = mix(key);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        boolean changed = false;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            changed |= setBit(bit);
+        }
+        return changed;
+    }
+
+    public boolean mightContain(long key) {
+        long hash1 = mix(key);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    private boolean setBit(long bit) {
+        int index = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        while (true) {
+            long current = words.get(index);
+            if ((current & mask) != 0) return false;
+            if (words.compareAndSet(index, current, current | mask)) return true;
+        }
+    }
+
+    /**
+     * Forventet falsk-positiv-rate med dagens fyllingsgrad: (andel satte bits)^k.
+     */
+    public double expectedFalsePositiveRate() {
+        long set = 0;
+        for (int i = 0; i < words.length(); i++) {
+            set += Long.bitCount(words.get(i));
+        }
+        return Math.pow((double) set / bitCount, hashFunctions);
+    }
+
+    public long bitCount() {
+        return bitCount;
+    }
+
+    public long expectedInsertions() {
+        return expectedInsertions;
+    }
+
+    /**
+     * 64-bits hash av en tekstnøkkel, for nøkkelrom som ikke er tall (FNV-1a etterfulgt av mix).
+     */
+    public static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    // Finaliseringen fra MurmurHash3 (fmix64): sprer alle inputbits over hele resultatet.
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB93FE1A85EC3L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,110 @@
+// src/main/java/com/AiPortal/util/LongLongHashMap.java
+package com.AiPortal.util;
+
+import java.util.Arrays;
+
+/**
+ * Kompakt hash-map fra long til long med åpen adressering (lineær probing).
+ *
+ * Bruker to primitive arrays i stedet for HashMap<Long, Long>, dvs. 16 bytes per plass
+ * uten objekt-overhead. Nøkkelen 0 er reservert som "tom plass". Ikke trådsikker.
+ */
+public class LongLongHashMap {
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    public LongLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Returnerer verdien for nøkkelen, eller defaultValue hvis den mangler.
+     */
+    public long get(long key, long defaultValue) {
+        if (key == EMPTY) throw new IllegalArgumentException("Nøkkelen 0 er reservert");
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == EMPTY) return false;
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public void put(long key, long value) {
+        if (key == EMPTY) throw new IllegalArgumentException("Nøkkelen 0 er reservert");
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= resizeAt) resize();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Går gjennom alle par, i vilkårlig rekkefølge.
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) consumer.accept(keys[i], values[i]);
+        }
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(long key) {
+        // Fibonacci-hashing sprer nøkler som allerede er hasher og sekvensielle ID-er like godt.
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+}
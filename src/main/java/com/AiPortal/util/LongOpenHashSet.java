@@ -0,0 +1,88 @@
+// src/main/java/com/AiPortal/util/LongOpenHashSet.java
+package com.AiPortal.util;
+
+import java.util.Arrays;
+
+/**
+ * Kompakt hash-sett av long med åpen adressering (lineær probing), søsteren til {@link LongLongHashMap}.
+ *
+ * Brukes til duplikatsjekk på sammensatte nøkler (f.eks. fixture-ID + spiller-ID pakket i én long)
+ * uten å lage en String eller Long per oppslag. Nøkkelen 0 er reservert som "tom plass". Ikke trådsikker.
+ */
+public class LongOpenHashSet {
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    public LongOpenHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Pakker to int-verdier (f.eks. fixture-ID og spiller-/lag-ID) i én nøkkel.
+     */
+    public static long pack(long high, int low) {
+        return (high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    public boolean contains(long key) {
+        if (key == EMPTY) return false;
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Legger til nøkkelen.
+     *
+     * @return true hvis nøkkelen var ny, false hvis den allerede fantes.
+     */
+    public boolean add(long key) {
+        if (key == EMPTY) throw new IllegalArgumentException("Nøkkelen 0 er reservert");
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) return false;
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if (++size >= resizeAt) resize();
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        allocate(oldKeys.length << 1);
+        size = 0;
+        for (long key : oldKeys) {
+            if (key != EMPTY) add(key);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+}
@@ -0,0 +1,113 @@
+// src/main/java/com/AiPortal/util/StringSimilarity.java
+package com.AiPortal.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hjelpemetoder for fuzzy sammenligning av (allerede normaliserte) navn.
+ */
+public final class StringSimilarity {
+
+    private StringSimilarity() {}
+
+    /**
+     * Dice-koeffisient over tegn-trigrammer (0.0 - 1.0). Strengene paddes slik at
+     * korte navn og prefikser også gir trigrammer.
+     */
+    public static double trigramSimilarity(String a, String b) {
+        if (a.isEmpty() || b.isEmpty()) return 0.0;
+        if (a.equals(b)) return 1.0;
+        Map<String, Integer> gramsA = trigrams(a);
+        Map<String, Integer> gramsB = trigrams(b);
+        int common = 0;
+        for (Map.Entry<String, Integer> entry : gramsA.entrySet()) {
+            Integer countB = gramsB.get(entry.getKey());
+            if (countB != null) common += Math.min(entry.getValue(), countB);
+        }
+        int total = (a.length() + 1) + (b.length() + 1);
+        return (2.0 * common) / total;
+    }
+
+    /**
+     * Levenshtein-avstand normalisert til en likhet mellom 0.0 og 1.0.
+     */
+    public static double editSimilarity(String a, String b) {
+        int maxLength = Math.max(a.length(), b.length());
+        if (maxLength == 0) return 1.0;
+        return 1.0 - (double) levenshtein(a, b) / maxLength;
+    }
+
+    /**
+     * Den beste av trigram- og edit-likhet. Trigram fanger forkortelser og ombytting,
+     * edit-avstand fanger skrivefeil i korte navn.
+     */
+    public static double similarity(String a, String b) {
+        return Math.max(trigramSimilarity(a, b), editSimilarity(a, b));
+    }
+
+    /**
+     * Sann når det ene navnet er en forkortelse av det andre, ord for ord: hvert ord er likt, et prefiks
+     * ("nottm"/"nottingham") eller en delsekvens med samme forbokstav ("utd"/"united"). Et enkelt ord kan
+     * også være initialene til alle ordene på den andre siden ("psv"/"philips sport vereniging").
+     */
+    public static boolean isAbbreviation(List<String> a, List<String> b) {
+        if (a.isEmpty() || b.isEmpty()) return false;
+        if (a.size() == b.size()) {
+            for (int i = 0; i < a.size(); i++) {
+                if (!abbreviatesWord(a.get(i), b.get(i))) return false;
+            }
+            return true;
+        }
+        return isAcronym(a, b) || isAcronym(b, a);
+    }
+
+    private static boolean abbreviatesWord(String x, String y) {
+        if (x.equals(y)) return true;
+        String shorter = x.length() <= y.length() ? x : y;
+        String longer = shorter == x ? y : x;
+        if (shorter.length() < 3 || shorter.charAt(0) != longer.charAt(0)) return false;
+        int matched = 0;
+        for (int i = 0; i < longer.length() && matched < shorter.length(); i++) {
+            if (longer.charAt(i) == shorter.charAt(matched)) matched++;
+        }
+        return matched == shorter.length();
+    }
+
+    private static boolean isAcronym(List<String> single, List<String> words) {
+        if (single.size() != 1 || words.size() < 2) return false;
+        String acronym = single.get(0);
+        if (acronym.length() != words.size()) return false;
+        for (int i = 0; i < words.size(); i++) {
+            if (words.get(i).charAt(0) != acronym.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static Map<String, Integer> trigrams(String s) {
+        String padded = "  " + s + " ";
+        Map<String, Integer> grams = new HashMap<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.merge(padded.substring(i, i + 3), 1, Integer::sum);
+        }
+        return grams;
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+            }
+            int[] tmp = previous;
+            previous = current;
+            current = tmp;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,59 @@
+// src/main/java/com/AiPortal/util/TokenBucket.java
+package com.AiPortal.util;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Enkel token-bucket for å begrense antall kall per sekund mot en ekstern tjeneste.
+ *
+ * Kallere reserverer en plass og venter ikke-blokkerende (Mono.delay) til den blir ledig,
+ * slik at mange samtidige forespørsler spres jevnt utover i stedet for å sendes i en klump.
+ * Plassen reserveres først når Mono-en abonneres, så en Mono som bygges uten å brukes koster ingenting,
+ * og en retry reserverer på nytt.
+ */
+public class TokenBucket {
+
+    private final double permitsPerSecond;
+    private final double capacity;
+    private double available;
+    private long lastRefillNanos;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = Math.max(1, burst);
+        this.available = this.capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Fullfører når en plass er tilgjengelig. Avbrytes ventingen, gis plassen tilbake.
+     */
+    public Mono<Void> acquire() {
+        return Mono.defer(() -> {
+            Duration wait = reserve();
+            return wait.isZero() ? Mono.<Void>empty() : Mono.delay(wait).then().doOnCancel(this::release);
+        });
+    }
+
+    /**
+     * Reserverer én plass og returnerer hvor lenge kalleren må vente før den kan brukes.
+     * Saldoen kan bli negativ; det representerer køen av reservasjoner som venter.
+     */
+    public synchronized Duration reserve() {
+        long now = System.nanoTime();
+        available = Math.min(capacity, available + (now - lastRefillNanos) / 1e9 * permitsPerSecond);
+        lastRefillNanos = now;
+        available -= 1;
+        if (available >= 0) return Duration.ZERO;
+        return Duration.ofNanos((long) (-available / permitsPerSecond * 1e9));
+    }
+
+    /**
+     * Gir tilbake en reservasjon som aldri ble brukt.
+     */
+    public synchronized void release() {
+        available = Math.min(capacity, available + 1);
+    }
+}
@@ -0,0 +1,180 @@
+// src/test/java/com/AiPortal/benchmark/ChunkDedupeBenchmark.java
+package com.AiPortal.benchmark;
+
+import com.AiPortal.util.LongOpenHashSet;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gjennomstrømning og allokering for duplikatsjekken i HistoricalDataWorker.saveAllDataFromFixtures, per chunk:
+ * 20 kamper med lagstatistikk og 2 x 20 spillerprestasjoner, der halvparten av spiller-kamp-nøklene og de fleste
+ * spillerne allerede er lagret (som når en sesong fylles ut på nytt).
+ *
+ * "stringKeys" er løkken slik den var: HashSet&lt;String&gt; med "fixtureId:playerId" bygget fra databaseradene og på nytt
+ * for hvert oppslag. "packedKeys" er løkken slik den er nå: kandidatnøkler samlet først, pakket til long og holdt i
+ * {@link LongOpenHashSet}. Begge går over det samme JSON-treet; databasekall og entitetsbygging er felles og utelatt.
+ *
+ * Allokering per chunk (gc.alloc.rate.norm) krever GC-profilen. main-metoden slår den på; fra kommandolinjen:
+ * {@code java -cp target/test-classes:target/classes:<test-klassesti> org.openjdk.jmh.Main ChunkDedupeBenchmark -prof gc}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkDedupeBenchmark {
+
+    private static final int FIXTURES_PER_CHUNK = 20;
+    private static final int PLAYERS_PER_TEAM = 20;
+
+    private JsonNode bulkFixtures;
+    // "Databaseradene" som finnes fra før: [fixtureId, spiller-/lag-ID].
+    private List<long[]> storedPlayerMatchRows;
+    private List<long[]> storedTeamMatchRows;
+    private List<Integer> storedPlayerIds;
+
+    @Setup
+    public void buildChunk() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Random random = new Random(7);
+        ArrayNode fixtures = objectMapper.createArrayNode();
+        storedPlayerMatchRows = new ArrayList<>();
+        storedTeamMatchRows = new ArrayList<>();
+        storedPlayerIds = new ArrayList<>();
+        for (int f = 0; f < FIXTURES_PER_CHUNK; f++) {
+            long fixtureId = 1_000_000L + f;
+            ObjectNode fixtureNode = fixtures.addObject();
+            fixtureNode.putObject("fixture").put("id", fixtureId);
+            ArrayNode statistics = fixtureNode.putArray("statistics");
+            ArrayNode players = fixtureNode.putArray("players");
+            for (int t = 0; t < 2; t++) {
+                int teamId = 30 + random.nextInt(500);
+                statistics.addObject().putObject("team").put("id", teamId);
+                if (f % 2 == 0) storedTeamMatchRows.add(new long[]{fixtureId, teamId});
+                ObjectNode teamPlayers = players.addObject();
+                teamPlayers.putObject("team").put("id", teamId);
+                ArrayNode performances = teamPlayers.putArray("players");
+                for (int p = 0; p < PLAYERS_PER_TEAM; p++) {
+                    int playerId = 10_000 + random.nextInt(400_000);
+                    ObjectNode performance = performances.addObject();
+                    performance.putObject("player").put("id", playerId).put("name", "Player " + playerId);
+                    performance.putArray("statistics").addObject().putObject("games").put("minutes", 90);
+                    if (p % 5 != 0) storedPlayerIds.add(playerId);
+                    if (p % 2 == 0) storedPlayerMatchRows.add(new long[]{fixtureId, playerId});
+                }
+            }
+        }
+        bulkFixtures = fixtures;
+    }
+
+    @Benchmark
+    public void stringKeys(Blackhole blackhole) {
+        Set<Integer> existingPlayerIds = new HashSet<>(storedPlayerIds);
+        Set<String> existingPlayerMatchKeys = new HashSet<>();
+        for (long[] row : storedPlayerMatchRows) existingPlayerMatchKeys.add(row[0] + ":" + (int) row[1]);
+        Set<String> existingTeamMatchKeys = new HashSet<>();
+        for (long[] row : storedTeamMatchRows) existingTeamMatchKeys.add(row[0] + ":" + (int) row[1]);
+
+        int newPlayers = 0, newPlayerStats = 0, newTeamStats = 0;
+        for (JsonNode fixtureNode : bulkFixtures) {
+            for (JsonNode teamStatsNode : fixtureNode.path("statistics")) {
+                long fixtureId = fixtureNode.path("fixture").path("id").asLong();
+                int teamId = teamStatsNode.path("team").path("id").asInt();
+                if (!existingTeamMatchKeys.contains(fixtureId + ":" + teamId)) {
+                    newTeamStats++;
+                    existingTeamMatchKeys.add(fixtureId + ":" + teamId);
+                }
+            }
+            for (JsonNode teamPlayersNode : fixtureNode.path("players")) {
+                for (JsonNode playerPerformanceNode : teamPlayersNode.path("players")) {
+                    int playerId = playerPerformanceNode.path("player").path("id").asInt();
+                    long fixtureId = fixtureNode.path("fixture").path("id").asLong();
+                    if (playerId != 0 && !existingPlayerIds.contains(playerId)) {
+                        newPlayers++;
+                        existingPlayerIds.add(playerId);
+                    }
+                    if (playerId != 0 && !existingPlayerMatchKeys.contains(fixtureId + ":" + playerId)) {
+                        JsonNode statsNode = playerPerformanceNode.path("statistics").get(0);
+                        if (statsNode != null && !statsNode.isMissingNode()) {
+                            newPlayerStats++;
+                            existingPlayerMatchKeys.add(fixtureId + ":" + playerId);
+                        }
+                    }
+                }
+            }
+        }
+        blackhole.consume(newPlayers + newPlayerStats + newTeamStats);
+    }
+
+    @Benchmark
+    public void packedKeys(Blackhole blackhole) {
+        List<Long> playerIdsInChunk = new ArrayList<>();
+        List<Long> playerMatchKeysInChunk = new ArrayList<>();
+        List<Long> teamMatchKeysInChunk = new ArrayList<>();
+        for (JsonNode fixtureNode : bulkFixtures) {
+            long fixtureId = fixtureNode.path("fixture").path("id").asLong();
+            for (JsonNode teamStatsNode : fixtureNode.path("statistics")) {
+                teamMatchKeysInChunk.add(LongOpenHashSet.pack(fixtureId, teamStatsNode.path("team").path("id").asInt()));
+            }
+            for (JsonNode teamPlayersNode : fixtureNode.path("players")) {
+                for (JsonNode playerPerformanceNode : teamPlayersNode.path("players")) {
+                    int playerId = playerPerformanceNode.path("player").path("id").asInt();
+                    if (playerId == 0) continue;
+                    playerIdsInChunk.add((long) playerId);
+                    playerMatchKeysInChunk.add(LongOpenHashSet.pack(fixtureId, playerId));
+                }
+            }
+        }
+
+        LongOpenHashSet existingPlayerIds = new LongOpenHashSet(playerIdsInChunk.size());
+        for (int playerId : storedPlayerIds) existingPlayerIds.add(playerId);
+        LongOpenHashSet existingPlayerMatchKeys = new LongOpenHashSet(playerMatchKeysInChunk.size());
+        for (long[] row : storedPlayerMatchRows) existingPlayerMatchKeys.add(LongOpenHashSet.pack(row[0], (int) row[1]));
+        LongOpenHashSet existingTeamMatchKeys = new LongOpenHashSet(teamMatchKeysInChunk.size());
+        for (long[] row : storedTeamMatchRows) existingTeamMatchKeys.add(LongOpenHashSet.pack(row[0], (int) row[1]));
+
+        int newPlayers = 0, newPlayerStats = 0, newTeamStats = 0;
+        for (JsonNode fixtureNode : bulkFixtures) {
+            long fixtureId = fixtureNode.path("fixture").path("id").asLong();
+            for (JsonNode teamStatsNode : fixtureNode.path("statistics")) {
+                int teamId = teamStatsNode.path("team").path("id").asInt();
+                if (existingTeamMatchKeys.add(LongOpenHashSet.pack(fixtureId, teamId))) newTeamStats++;
+            }
+            for (JsonNode teamPlayersNode : fixtureNode.path("players")) {
+                for (JsonNode playerPerformanceNode : teamPlayersNode.path("players")) {
+                    int playerId = playerPerformanceNode.path("player").path("id").asInt();
+                    if (playerId == 0) continue;
+                    if (existingPlayerIds.add(playerId)) newPlayers++;
+                    long playerMatchKey = LongOpenHashSet.pack(fixtureId, playerId);
+                    if (!existingPlayerMatchKeys.contains(playerMatchKey)) {
+                        JsonNode statsNode = playerPerformanceNode.path("statistics").get(0);
+                        if (statsNode != null && !statsNode.isMissingNode()) {
+                            newPlayerStats++;
+                            existingPlayerMatchKeys.add(playerMatchKey);
+                        }
+                    }
+                }
+            }
+        }
+        blackhole.consume(newPlayers + newPlayerStats + newTeamStats);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ChunkDedupeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,77 @@
+// src/test/java/com/AiPortal/benchmark/LongOpenHashSetBenchmark.java
+package com.AiPortal.benchmark;
+
+import com.AiPortal.util.LongOpenHashSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sammenligner {@link LongOpenHashSet} med HashSet&lt;Long&gt; for duplikatsjekken i HistoricalDataWorker:
+ * pakkede (fixture-ID, spiller-ID)-nøkler som legges inn og slås opp, halvparten treff og halvparten bom.
+ * Hele chunk-løkken måles i {@link ChunkDedupeBenchmark}.
+ *
+ * Kjøres med {@code mvn test-compile} og deretter main-metoden på test-klassestien, f.eks.
+ * {@code java -cp target/test-classes:target/classes:<test-klassesti> com.AiPortal.benchmark.LongOpenHashSetBenchmark}.
+ * main slår på GC-profilen, så allokering per operasjon (gc.alloc.rate.norm) rapporteres.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LongOpenHashSetBenchmark {
+
+    @Param({"10000", "200000"})
+    public int keyCount;
+
+    private long[] keys;
+    private long[] lookups;
+
+    @Setup
+    public void generateKeys() {
+        Random random = new Random(42);
+        keys = new long[keyCount];
+        lookups = new long[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            long fixtureId = 500_000 + random.nextInt(20_000);
+            keys[i] = LongOpenHashSet.pack(fixtureId, 1 + random.nextInt(400_000));
+            // Annenhver oppslag er en nøkkel som finnes, resten er (nesten alltid) nye.
+            lookups[i] = i % 2 == 0 ? keys[i] : LongOpenHashSet.pack(fixtureId, 400_001 + random.nextInt(400_000));
+        }
+    }
+
+    @Benchmark
+    public void longOpenHashSet(Blackhole blackhole) {
+        LongOpenHashSet set = new LongOpenHashSet(keyCount);
+        for (long key : keys) set.add(key);
+        int hits = 0;
+        for (long key : lookups) if (set.contains(key)) hits++;
+        blackhole.consume(hits);
+    }
+
+    @Benchmark
+    public void boxedHashSet(Blackhole blackhole) {
+        Set<Long> set = new HashSet<>(keyCount * 2);
+        for (long key : keys) set.add(key);
+        int hits = 0;
+        for (long key : lookups) if (set.contains(key)) hits++;
+        blackhole.consume(hits);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LongOpenHashSetBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,157 @@
+// src/test/java/com/AiPortal/benchmark/OddsBatchWriterBenchmark.java
+package com.AiPortal.benchmark;
+
+import com.AiPortal.entity.OddsSnapshot;
+import com.AiPortal.service.MatchOddsUpsert;
+import com.AiPortal.service.OddsBatchWriter;
+import com.AiPortal.service.OddsHistoryService;
+import com.AiPortal.service.ReferenceDataCache;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Databasekall per 1000 odds-markeder: det gamle mønsteret (existsBy..., bookmakerRepository.findById og save
+ * per marked) mot {@link OddsBatchWriter} på PostgreSQL (ON CONFLICT) og den portable veien.
+ *
+ * JdbcTemplate byttes ut med en teller, så tallet som betyr noe er antall kall per 1000 markeder, som skrives
+ * ut etter hver kjøring; tiden viser bare kostnaden på klientsiden. Målt: 3000 før, 2 (PostgreSQL) og
+ * 4 (portabel, kun nye markeder) etter. Kjøres som {@link LongOpenHashSetBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OddsBatchWriterBenchmark {
+
+    private static final int MARKETS = 1000;
+    private static final String ODDS_DATA = "[{\"value\":\"Home\",\"odd\":\"2.10\"},{\"value\":\"Draw\",\"odd\":\"3.40\"},{\"value\":\"Away\",\"odd\":\"3.60\"}]";
+
+    @Param({"POSTGRES", "PORTABLE"})
+    public String database;
+
+    private CountingJdbcTemplate jdbcTemplate;
+    private OddsBatchWriter writer;
+    private List<MatchOddsUpsert> markets;
+
+    private long operations;
+
+    @Setup
+    public void setUp() {
+        jdbcTemplate = new CountingJdbcTemplate("POSTGRES".equals(database) ? "PostgreSQL" : "H2");
+        Map<Integer, String> bookmakers = new HashMap<>();
+        for (int id = 1; id <= 10; id++) bookmakers.put(id, "Bookmaker " + id);
+        ReferenceDataCache referenceDataCache = mock(ReferenceDataCache.class);
+        when(referenceDataCache.current()).thenReturn(new ReferenceDataCache.Snapshot(bookmakers, Map.of(), Map.of(), Instant.now()));
+        writer = new OddsBatchWriter(jdbcTemplate, referenceDataCache, mock(OddsHistoryService.class));
+
+        // 100 kamper x 10 bookmakere, ett marked hver.
+        OddsSnapshot snapshot = OddsSnapshot.fromLegacyJson(ODDS_DATA);
+        markets = new ArrayList<>(MARKETS);
+        for (int i = 0; i < MARKETS; i++) {
+            markets.add(new MatchOddsUpsert(1_000_000L + i / 10, 1 + i % 10, "Match Winner", ODDS_DATA, snapshot));
+        }
+    }
+
+    @Benchmark
+    public void perMarketRepositoryCalls() {
+        for (MatchOddsUpsert market : markets) {
+            Boolean exists = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS(SELECT 1 FROM match_odds WHERE fixture_id = ? AND bookmaker_id = ? AND bet_name = ?)",
+                    Boolean.class, market.fixtureId(), market.bookmakerId(), market.betName());
+            if (Boolean.TRUE.equals(exists)) continue;
+            jdbcTemplate.query("SELECT id, name FROM bookmakers WHERE id = ?", (rs, i) -> rs.getInt(1), market.bookmakerId());
+            jdbcTemplate.update(
+                    "INSERT INTO match_odds (fixture_id, bookmaker_id, bet_name, odds_data) VALUES (?, ?, ?, ?)",
+                    market.fixtureId(), market.bookmakerId(), market.betName(), market.oddsData());
+        }
+        operations++;
+    }
+
+    @Benchmark
+    public void batchWriter() {
+        writer.writeAll(markets);
+        operations++;
+    }
+
+    @TearDown
+    public void reportQueries() {
+        // Oppstartssjekken av den unike indeksen (ett kall) kjøres bare én gang og forsvinner i snittet.
+        System.out.printf("%n---[ODDS WRITER BENCHMARK] %s: %.1f databasekall per %d markeder%n",
+                database, (double) jdbcTemplate.calls / operations, MARKETS);
+    }
+
+    /**
+     * Teller kall i stedet for å gå mot en database. Oppslag svarer tomt/usant, som for markeder som ikke finnes ennå.
+     */
+    static final class CountingJdbcTemplate extends JdbcTemplate {
+        private final String databaseProduct;
+        long calls;
+
+        CountingJdbcTemplate(String databaseProduct) {
+            this.databaseProduct = databaseProduct;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(ConnectionCallback<T> action) {
+            // Databasenavnet hentes én gang og caches av skriveren; regnes ikke som et kall per batch.
+            return (T) databaseProduct;
+        }
+
+        @Override
+        public void execute(String sql) {
+            calls++;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            calls++;
+            // Den unike indeksen finnes allerede.
+            return (T) Long.valueOf(1);
+        }
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+            calls++;
+            return requiredType == Boolean.class ? requiredType.cast(Boolean.FALSE) : null;
+        }
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            calls++;
+            return List.of();
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            calls++;
+            return 1;
+        }
+
+        @Override
+        public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize, ParameterizedPreparedStatementSetter<T> pss) {
+            calls++;
+            return new int[0][];
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OddsBatchWriterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
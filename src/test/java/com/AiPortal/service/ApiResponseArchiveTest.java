@@ -0,0 +1,103 @@
+package com.AiPortal.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiResponseArchiveTest {
+
+    private static final ExchangeStrategies STRATEGIES = ExchangeStrategies.builder()
+            .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
+            .build();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void keyIgnoresQueryParameterOrder() {
+        String key = ApiResponseArchive.key("API_FOOTBALL", URI.create("https://host/v3/odds?date=2026-10-18&page=2&bookmaker=8"));
+
+        assertEquals("API_FOOTBALL /v3/odds?bookmaker=8&date=2026-10-18&page=2", key);
+        assertEquals(key, ApiResponseArchive.key("API_FOOTBALL", URI.create("https://host/v3/odds?page=2&bookmaker=8&date=2026-10-18")));
+        assertNotEquals(key, ApiResponseArchive.key("PINNACLE", URI.create("https://host/v3/odds?date=2026-10-18&page=2&bookmaker=8")));
+        assertNotEquals(key, ApiResponseArchive.key("API_FOOTBALL", URI.create("https://host/v3/odds?date=2026-10-18&page=3&bookmaker=8")));
+    }
+
+    @Test
+    void replayReturnsTheRecordedBodyByteForByte() throws Exception {
+        byte[] body = responseBody();
+
+        ApiResponseArchive recorder = new ApiResponseArchive(ApiResponseArchive.Mode.RECORD, directory.toString(), 1, "");
+        byte[] passedThrough = exchange(recorder, "https://host/v3/fixtures?ids=1-2-3&timezone=UTC",
+                request -> Mono.just(response(body)));
+        assertArrayEquals(body, passedThrough);
+        // Arkiveringen skjer i bakgrunnen etter at svaret er lest ferdig.
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((Long) recorder.getStats().get("recorded") < 1 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        recorder.shutdown();
+        assertEquals(1L, recorder.getStats().get("recorded"));
+
+        ApiResponseArchive replayer = new ApiResponseArchive(ApiResponseArchive.Mode.REPLAY, directory.toString(), 1, "");
+        ExchangeFunction network = request -> Mono.error(new AssertionError("Avspilling skal ikke gå mot nettverket"));
+        byte[] replayed = exchange(replayer, "https://host/v3/fixtures?timezone=UTC&ids=1-2-3", network);
+
+        assertArrayEquals(body, replayed);
+    }
+
+    @Test
+    void replayMissIsNotFound() {
+        ApiResponseArchive replayer = new ApiResponseArchive(ApiResponseArchive.Mode.REPLAY, directory.toString(), 1, "");
+        ClientResponse response = replayer.filter("API_FOOTBALL", STRATEGIES)
+                .filter(ClientRequest.create(HttpMethod.GET, URI.create("https://host/v3/fixtures?ids=9")).build(),
+                        request -> Mono.error(new AssertionError()))
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(HttpStatus.NOT_FOUND, response.statusCode());
+    }
+
+    private static byte[] exchange(ApiResponseArchive archive, String url, ExchangeFunction next) {
+        ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create(url)).build();
+        return archive.filter("API_FOOTBALL", STRATEGIES).filter(request, next)
+                .flatMap(response -> response.bodyToMono(byte[].class))
+                .block(Duration.ofSeconds(5));
+    }
+
+    private static ClientResponse response(byte[] body) {
+        // Svaret kommer i flere buffere, som fra nettverket.
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int from = 0; from < body.length; from += 8192) {
+            buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(body, from, Math.min(body.length, from + 8192))));
+        }
+        return ClientResponse.create(HttpStatus.OK, STRATEGIES).body(Flux.fromIterable(buffers)).build();
+    }
+
+    private static byte[] responseBody() {
+        StringBuilder json = new StringBuilder("{\"response\":[");
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"id\":").append(random.nextInt()).append(",\"team\":\"Atlético Madrid ").append(i).append("\"}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
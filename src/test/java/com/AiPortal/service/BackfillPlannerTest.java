@@ -0,0 +1,26 @@
+package com.AiPortal.service;
+
+import org.junit.jupiter.api.Test;
+
+import static com.AiPortal.service.BackfillPlanner.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackfillPlannerTest {
+
+    @Test
+    void headToHeadWrittenBeforeKickoffDoesNotCompleteAFinishedFixture() {
+        assertFalse(isComplete(FINISHED_WITH_RESULT | HEAD_TO_HEAD));
+    }
+
+    @Test
+    void detailsFetchedAfterFinishCompletesTheFixture() {
+        assertTrue(isComplete(FINISHED_WITH_RESULT | DETAILS_FETCHED_AFTER_FINISH));
+        assertFalse(isComplete(DETAILS_FETCHED_AFTER_FINISH));
+    }
+
+    @Test
+    void legacyFixtureWithStatisticsAndHeadToHeadCountsAsComplete() {
+        assertTrue(isComplete(FINISHED_WITH_RESULT | HEAD_TO_HEAD | PLAYER_STATISTICS));
+        assertFalse(isComplete(HEAD_TO_HEAD | TEAM_STATISTICS));
+    }
+}
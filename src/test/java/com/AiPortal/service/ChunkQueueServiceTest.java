@@ -0,0 +1,78 @@
+package com.AiPortal.service;
+
+import com.AiPortal.entity.PendingFixtureChunk;
+import com.AiPortal.repository.PendingFixtureChunkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ChunkQueueServiceTest {
+
+    private PendingFixtureChunkRepository repository;
+    private ApiQuotaTracker quotaTracker;
+    private ChunkQueueService queue;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(PendingFixtureChunkRepository.class);
+        when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        quotaTracker = new ApiQuotaTracker();
+        queue = new ChunkQueueService(repository, quotaTracker, 300, 5);
+    }
+
+    @Test
+    void fullSizeChunkIsClaimedUnchanged() {
+        PendingFixtureChunk chunk = pendingChunk(20);
+        when(repository.lockNextAvailable(any())).thenReturn(Optional.of(chunk));
+
+        PendingFixtureChunk claimed = queue.claimNext("worker").orElseThrow();
+
+        assertEquals(ids(1, 20), claimed.getFixtureIds());
+        assertEquals(PendingFixtureChunk.ChunkStatus.PROCESSING, claimed.getStatus());
+        verify(repository, times(1)).save(any());
+    }
+
+    @Test
+    void chunkQueuedBeforeA429IsSplitWhenClaimed() {
+        PendingFixtureChunk chunk = pendingChunk(20);
+        chunk.setAttemptCount(2);
+        when(repository.lockNextAvailable(any())).thenReturn(Optional.of(chunk));
+        quotaTracker.record(new HttpHeaders(), 429);
+
+        PendingFixtureChunk claimed = queue.claimNext("worker").orElseThrow();
+
+        ArgumentCaptor<PendingFixtureChunk> saved = ArgumentCaptor.forClass(PendingFixtureChunk.class);
+        verify(repository, times(2)).save(saved.capture());
+        PendingFixtureChunk remainder = saved.getAllValues().get(0);
+        assertEquals(ids(1, 5), claimed.getFixtureIds());
+        assertEquals(3, claimed.getAttemptCount());
+        assertEquals(ids(6, 20), remainder.getFixtureIds());
+        assertEquals(PendingFixtureChunk.ChunkStatus.PENDING, remainder.getStatus());
+        assertEquals(2, remainder.getAttemptCount());
+        assertEquals(chunk.getCreatedAt(), remainder.getCreatedAt());
+    }
+
+    private static PendingFixtureChunk pendingChunk(int size) {
+        PendingFixtureChunk chunk = new PendingFixtureChunk();
+        chunk.setId(1L);
+        chunk.setFixtureIds(ids(1, size));
+        chunk.setSourceIdentifier("39:2023");
+        chunk.setStatus(PendingFixtureChunk.ChunkStatus.PENDING);
+        chunk.setCreatedAt(Instant.parse("2026-01-01T00:00:00Z"));
+        return chunk;
+    }
+
+    private static String ids(long from, long to) {
+        return LongStream.rangeClosed(from, to).mapToObj(String::valueOf).collect(Collectors.joining("-"));
+    }
+}
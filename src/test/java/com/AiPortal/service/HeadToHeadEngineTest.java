@@ -0,0 +1,81 @@
+package com.AiPortal.service;
+
+import com.AiPortal.entity.Fixture;
+import com.AiPortal.entity.HeadToHeadStats;
+import com.AiPortal.repository.FixtureRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class HeadToHeadEngineTest {
+
+    private static final Instant KICKOFF = Instant.parse("2022-03-10T19:00:00Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private HeadToHeadEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new HeadToHeadEngine(mock(FixtureRepository.class));
+    }
+
+    @Test
+    void countsOnlyTheLastTenMeetingsBeforeKickoff() {
+        ArrayNode meetings = objectMapper.createArrayNode();
+        for (int i = 1; i <= 12; i++) {
+            // Hjemmelaget vinner de to eldste møtene og spiller uavgjort i resten.
+            meetings.add(meeting(i, KICKOFF.minus(400L * i, ChronoUnit.DAYS), i >= 11 ? 2 : 1, 1));
+        }
+        meetings.add(meeting(99, KICKOFF.plus(30, ChronoUnit.DAYS), 3, 0));
+        engine.registerApiResponse(fixture(1, KICKOFF), meetings);
+
+        HeadToHeadStats stats = engine.computeAsOf(fixture(1, KICKOFF)).orElseThrow();
+
+        assertEquals(10, stats.getMatchesPlayed());
+        assertEquals(10, stats.getDraws());
+        assertEquals(0, stats.getTeam1Wins());
+    }
+
+    @Test
+    void apiLookupCoversMeetingsUpToTheFixtureDay() {
+        Fixture fixture = fixture(1, KICKOFF);
+        assertTrue(engine.needsApiLookup(fixture));
+
+        engine.registerApiResponse(fixture, objectMapper.createArrayNode());
+
+        assertFalse(engine.needsApiLookup(fixture));
+        assertFalse(engine.needsApiLookup(fixture(2, KICKOFF.minus(200, ChronoUnit.DAYS))));
+        assertTrue(engine.needsApiLookup(fixture(3, KICKOFF.plus(200, ChronoUnit.DAYS))));
+        assertTrue(engine.computeAsOf(fixture).isEmpty());
+    }
+
+    private ObjectNode meeting(long id, Instant date, int goalsHome, int goalsAway) {
+        ObjectNode meeting = objectMapper.createObjectNode();
+        ObjectNode fixture = meeting.putObject("fixture");
+        fixture.put("id", id);
+        fixture.put("date", date.toString());
+        fixture.putObject("status").put("short", "FT");
+        ObjectNode teams = meeting.putObject("teams");
+        teams.putObject("home").put("id", 10);
+        teams.putObject("away").put("id", 20);
+        meeting.putObject("goals").put("home", goalsHome).put("away", goalsAway);
+        return meeting;
+    }
+
+    private static Fixture fixture(long id, Instant date) {
+        Fixture fixture = new Fixture();
+        fixture.setId(id);
+        fixture.setHomeTeamId(10);
+        fixture.setAwayTeamId(20);
+        fixture.setDate(date);
+        return fixture;
+    }
+}
@@ -0,0 +1,97 @@
+package com.AiPortal.service;
+
+import com.AiPortal.entity.Fixture;
+import com.AiPortal.repository.PinnacleEventMappingRepository;
+import com.AiPortal.repository.TeamAliasRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class PinnacleFixtureResolverTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Instant kickoff = Instant.now().plus(2, ChronoUnit.DAYS).truncatedTo(ChronoUnit.HOURS);
+
+    private FixtureMatchIndex index;
+    private PinnacleFixtureResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        index = new FixtureMatchIndex(null);
+        resolver = new PinnacleFixtureResolver(index, mock(PinnacleEventMappingRepository.class), mock(TeamAliasRepository.class));
+        index.register(fixture(1L, "Manchester United", "Liverpool", kickoff));
+        index.register(fixture(2L, "Manchester City", "Everton", kickoff));
+    }
+
+    @Test
+    void resolvesAbbreviatedTeamNames() {
+        assertEquals(Optional.of(1L), resolver.resolve(event(100, "Man Utd", "Liverpool")));
+        assertEquals(Optional.of(2L), resolver.resolve(event(101, "Man City", "Everton FC")));
+    }
+
+    @Test
+    void abbreviatedTeamAgainstUnknownOpponentStaysUnresolved() {
+        assertEquals(Optional.empty(), resolver.resolve(event(102, "Man Utd", "Chelsea")));
+    }
+
+    @Test
+    void teamNameTokensExpandKnownAbbreviationsAndDropClubAffixes() {
+        assertEquals(List.of("manchester", "united"), FixtureMatchIndex.teamNameTokens("Man Utd"));
+        assertEquals(List.of("milan"), FixtureMatchIndex.teamNameTokens("AC Milan"));
+        assertEquals(List.of("atletico", "madrid"), FixtureMatchIndex.teamNameTokens("Atlético Madrid"));
+        assertEquals(List.of("fc"), FixtureMatchIndex.teamNameTokens("FC"));
+    }
+
+    @Test
+    void versionOnlyChangesWhenANewFixtureKeyIsAdded() {
+        long version = index.getVersion();
+        index.register(fixture(1L, "Manchester United", "Liverpool", kickoff));
+        assertEquals(version, index.getVersion());
+
+        index.register(fixture(3L, "Arsenal", "Chelsea", kickoff));
+        assertEquals(version + 1, index.getVersion());
+
+        index.register(fixture(3L, "Arsenal FC", "Chelsea", kickoff));
+        assertEquals(version + 2, index.getVersion());
+    }
+
+    @Test
+    void failedLookupIsRetriedOnlyAfterTheIndexChanges() {
+        ObjectNode unknown = event(103, "Arsenal", "Chelsea");
+        assertEquals(Optional.empty(), resolver.resolve(unknown));
+
+        index.register(fixture(1L, "Manchester United", "Liverpool", kickoff));
+        assertEquals(Optional.empty(), resolver.resolve(unknown));
+
+        index.register(fixture(3L, "Arsenal", "Chelsea", kickoff));
+        assertEquals(Optional.of(3L), resolver.resolve(unknown));
+    }
+
+    private ObjectNode event(long eventId, String home, String away) {
+        ObjectNode event = objectMapper.createObjectNode();
+        event.put("event_id", eventId);
+        event.put("home", home);
+        event.put("away", away);
+        // Pinnacle sender kampstart uten tidssone.
+        event.put("starts", kickoff.toString().replace("Z", ""));
+        return event;
+    }
+
+    private static Fixture fixture(long id, String home, String away, Instant date) {
+        Fixture fixture = new Fixture();
+        fixture.setId(id);
+        fixture.setHomeTeamName(home);
+        fixture.setAwayTeamName(away);
+        fixture.setDate(date);
+        return fixture;
+    }
+}
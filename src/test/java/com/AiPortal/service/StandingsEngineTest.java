@@ -0,0 +1,81 @@
+package com.AiPortal.service;
+
+import com.AiPortal.entity.TeamStatistics;
+import com.AiPortal.repository.FixtureRepository;
+import com.AiPortal.repository.TeamStatisticsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class StandingsEngineTest {
+
+    private static final int LEAGUE = 39;
+    private static final int SEASON = 2024;
+    private static final int ARSENAL = 42;
+    private static final int CHELSEA = 49;
+
+    private TeamStatisticsRepository teamStatisticsRepository;
+    private StandingsEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        FixtureRepository fixtureRepository = mock(FixtureRepository.class);
+        // To lokale kamper, mens API-et har spilt tre for Arsenal (én kamp mangler lokalt).
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, LEAGUE, SEASON, ARSENAL, "Arsenal", CHELSEA, "Chelsea", 2, 0});
+        rows.add(new Object[]{2L, LEAGUE, SEASON, CHELSEA, "Chelsea", ARSENAL, "Arsenal", 1, 1});
+        // Cupkamp ingen bot følger.
+        rows.add(new Object[]{3L, 45, SEASON, ARSENAL, "Arsenal", CHELSEA, "Chelsea", 0, 1});
+        when(fixtureRepository.findCompletedStandingsRows()).thenReturn(rows);
+
+        teamStatisticsRepository = mock(TeamStatisticsRepository.class);
+        when(teamStatisticsRepository.findAllByLeagueIdAndSeason(anyInt(), anyInt())).thenReturn(List.of());
+        ReferenceDataCache referenceDataCache = mock(ReferenceDataCache.class);
+        when(referenceDataCache.current()).thenReturn(new ReferenceDataCache.Snapshot(Map.of(), Map.of(), Map.of(), Instant.now()));
+
+        engine = new StandingsEngine(fixtureRepository, teamStatisticsRepository, referenceDataCache);
+        engine.warmUp();
+    }
+
+    @Test
+    void undercountedLocalTotalsAreNotUsed() {
+        assertFalse(engine.crossCheck("/standings", LEAGUE, SEASON, ARSENAL, 3, 2, 1, 0, 5, 1));
+        assertFalse(engine.isVerified(LEAGUE, SEASON, ARSENAL));
+
+        engine.syncTeamStatistics();
+        verify(teamStatisticsRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void onlyVerifiedTeamsInTrackedLeaguesAreWritten() {
+        assertFalse(engine.crossCheck("/standings", LEAGUE, SEASON, ARSENAL, 3, 2, 1, 0, 5, 1));
+        assertTrue(engine.crossCheck("/standings", LEAGUE, SEASON, CHELSEA, 2, 0, 1, 1, 1, 3));
+
+        engine.syncTeamStatistics();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TeamStatistics>> saved = ArgumentCaptor.forClass(List.class);
+        verify(teamStatisticsRepository, times(1)).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        TeamStatistics chelsea = saved.getValue().get(0);
+        assertEquals(CHELSEA, chelsea.getTeamId());
+        assertEquals(LEAGUE, chelsea.getLeagueId());
+        assertEquals(2, chelsea.getPlayedTotal());
+    }
+
+    @Test
+    void teamLosesVerificationWhenTheApiMovesAhead() {
+        assertTrue(engine.crossCheck("/standings", LEAGUE, SEASON, CHELSEA, 2, 0, 1, 1, 1, 3));
+        assertFalse(engine.crossCheck("/teams/statistics", LEAGUE, SEASON, CHELSEA, 3, 1, 1, 1, 3, 3));
+        assertFalse(engine.isVerified(LEAGUE, SEASON, CHELSEA));
+    }
+}
@@ -0,0 +1,64 @@
+package com.AiPortal.service;
+
+import com.AiPortal.entity.BotConfiguration;
+import com.AiPortal.entity.RawTweetData;
+import com.AiPortal.entity.TwitterQueryState;
+import com.AiPortal.repository.BotConfigurationRepository;
+import com.AiPortal.repository.RawTweetDataRepository;
+import com.AiPortal.repository.TwitterQueryStateRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TweetCursorServiceTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void tweetWrittenByAnotherNodeDoesNotStopTheBatchOrTheCursor() {
+        TwitterQueryStateRepository queryStateRepository = mock(TwitterQueryStateRepository.class);
+        when(queryStateRepository.findById(anyString())).thenReturn(Optional.empty());
+        RawTweetDataRepository tweetRepository = mock(RawTweetDataRepository.class);
+        when(tweetRepository.findExistingTweetIds(anyCollection())).thenReturn(List.of());
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        // Tweet 102 ble lagret av en annen node etter at Bloom-filteret svarte nei.
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenAnswer(invocation -> {
+            Object[] args = invocation.getArguments();
+            return "102".equals(args[2]) ? List.of() : List.of(Long.parseLong((String) args[2]) * 10);
+        });
+        DedupeService dedupeService = new DedupeService(mock(JdbcTemplate.class), 0.01, 1000);
+        TweetCursorService service = new TweetCursorService(queryStateRepository, tweetRepository,
+                mock(BotConfigurationRepository.class), dedupeService, mock(TweetSearchIndex.class),
+                mock(TweetEntityTagger.class), jdbcTemplate);
+
+        BotConfiguration bot = new BotConfiguration();
+        bot.setId(7L);
+        int saved = service.saveAndAdvance(bot, "provider", List.of(tweet("101"), tweet("102"), tweet("103")), "103");
+
+        assertEquals(2, saved);
+        ArgumentCaptor<TwitterQueryState> state = ArgumentCaptor.forClass(TwitterQueryState.class);
+        verify(queryStateRepository).save(state.capture());
+        assertEquals("103", state.getValue().getLastSeenTweetId());
+        Map<String, Object> tweetStats = (Map<String, Object>) dedupeService.getStats().get("TWEETS");
+        assertEquals(1L, tweetStats.get("writeConflicts"));
+        assertEquals(Map.of("tweetsSaved", 2L, "tweetsSkippedByCursor", 0L, "tweetsSkippedAsDuplicate", 1L), service.getStats());
+    }
+
+    private static RawTweetData tweet(String tweetId) {
+        RawTweetData tweet = new RawTweetData();
+        tweet.setTweetId(tweetId);
+        tweet.setAuthorUsername("author");
+        tweet.setContent("Arsenal vant");
+        tweet.setTweetedAt(Instant.parse("2024-05-01T12:00:00Z"));
+        return tweet;
+    }
+}
@@ -0,0 +1,93 @@
+package com.AiPortal.service;
+
+import com.AiPortal.entity.RawTweetData;
+import com.AiPortal.repository.RawTweetDataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class TweetSearchIndexTest {
+
+    private static final String[] WORDS = {"arsenal", "arsenalfc", "fc", "gunners", "man", "manchester", "united",
+            "city", "mancity", "chelsea", "sea", "aaaa", "aa", "liverpool", "pool", "ynwa", "goal", "goalkeeper", "mål", "ødegaard"};
+
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    private final List<RawTweetData> tweets = new ArrayList<>();
+    private TweetSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // Databasen er tom; tweets kommer inn som om de nettopp ble lagret.
+        index = new TweetSearchIndex(mock(JdbcTemplate.class), mock(RawTweetDataRepository.class), 90);
+        index.load();
+        Random random = new Random(11);
+        for (long id = 1; id <= 500; id++) {
+            StringBuilder content = new StringBuilder();
+            int words = 1 + random.nextInt(6);
+            for (int w = 0; w < words; w++) {
+                String word = WORDS[random.nextInt(WORDS.length)];
+                if (random.nextInt(4) == 0) word = word.toUpperCase(Locale.ROOT);
+                content.append(random.nextBoolean() ? "#" : " ").append(word).append(random.nextBoolean() ? "!" : " ");
+            }
+            RawTweetData tweet = new RawTweetData();
+            tweet.setId(id);
+            tweet.setContent(content.toString());
+            tweet.setTweetedAt(now.minus(random.nextInt(30 * 24), ChronoUnit.HOURS));
+            tweets.add(tweet);
+        }
+        index.registerAll(tweets);
+    }
+
+    @Test
+    void tokenizeSplitsOnNonAlphanumericsAndLowercases() {
+        assertEquals(List.of("arsenal", "fc", "vant", "2", "0"), List.copyOf(TweetSearchIndex.tokenize("#Arsenal FC vant 2-0!")));
+        assertEquals(List.of("ødegaard", "mål"), List.copyOf(TweetSearchIndex.tokenize("@Ødegaard: MÅL, mål")));
+        assertTrue(TweetSearchIndex.tokenize("  ... ").isEmpty());
+        assertTrue(TweetSearchIndex.tokenize(null).isEmpty());
+    }
+
+    @Test
+    void candidateIdsMatchANaiveSubstringScan() {
+        List<String> keywords = List.of("arsenal", "Arsenal FC", "man", "chester", "manchester united", "sea", "aaa",
+                "aa", "a", "pool", "ynwa goal", "ødeg", "MÅL", "keeper", "tottenham", "city chel");
+        for (String keyword : keywords) {
+            for (int days : new int[]{1, 7, 30}) {
+                Instant afterDate = now.minus(days, ChronoUnit.DAYS);
+                List<Long> actual = index.candidateIds(keyword, afterDate).orElseThrow();
+                assertEquals(naiveCandidates(keyword, afterDate), new TreeSet<>(actual), keyword + " / " + days + " dager");
+                assertEquals(actual.size(), new HashSet<>(actual).size(), "duplikater for " + keyword);
+                for (RawTweetData tweet : tweets) {
+                    if (!tweet.getTweetedAt().isBefore(afterDate)
+                            && tweet.getContent().toLowerCase(Locale.ROOT).contains(keyword.toLowerCase(Locale.ROOT))) {
+                        assertTrue(actual.contains(tweet.getId()), keyword + " mangler tweet " + tweet.getId());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void windowBeforeTheRetentionHorizonFallsBackToTheDatabase() {
+        assertTrue(index.candidateIds("arsenal", now.minus(365, ChronoUnit.DAYS)).isEmpty());
+    }
+
+    // Tweets i vinduet der hvert ord i nøkkelordet inngår i et av tweetens ord.
+    private Set<Long> naiveCandidates(String keyword, Instant afterDate) {
+        Set<String> keywordTokens = TweetSearchIndex.tokenize(keyword);
+        Set<Long> ids = new TreeSet<>();
+        for (RawTweetData tweet : tweets) {
+            if (tweet.getTweetedAt().getEpochSecond() < afterDate.getEpochSecond()) continue;
+            Set<String> tweetTokens = TweetSearchIndex.tokenize(tweet.getContent());
+            boolean all = keywordTokens.stream().allMatch(k -> tweetTokens.stream().anyMatch(t -> t.contains(k)));
+            if (all) ids.add(tweet.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,94 @@
+package com.AiPortal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AhoCorasickTest {
+
+    private static List<String> matches(AhoCorasick<String> automaton, String text) {
+        List<String> found = new ArrayList<>();
+        automaton.forEachMatch(text, (start, end, payload) -> found.add(payload + "@" + start + "-" + end));
+        return found;
+    }
+
+    @Test
+    void findsOverlappingAndNestedMatches() {
+        // Klassisk eksempel: "she" inneholder "he", og "hers" overlapper med "she".
+        AhoCorasick<String> automaton = AhoCorasick.build(Map.of("he", "he", "she", "she", "his", "his", "hers", "hers"));
+
+        assertEquals(List.of("she@1-4", "he@2-4", "hers@2-6"), matches(automaton, "ushers"));
+    }
+
+    @Test
+    void followsFailureLinksAfterPartialMatch() {
+        // "abcd" feiler på 'x'; failure-lenken fra "abc" til "bc" må gi treffet "bcx".
+        AhoCorasick<String> automaton = AhoCorasick.build(Map.of("abcd", "abcd", "bcx", "bcx", "c", "c"));
+
+        assertEquals(List.of("c@2-3", "bcx@1-4"), matches(automaton, "abcx"));
+        assertEquals(List.of("c@2-3", "abcd@0-4"), matches(automaton, "abcd"));
+    }
+
+    @Test
+    void reportsRepeatedAndAdjacentOccurrences() {
+        AhoCorasick<String> automaton = AhoCorasick.build(Map.of("aa", "aa", "a", "a"));
+
+        assertEquals(List.of("a@0-1", "aa@0-2", "a@1-2", "aa@1-3", "a@2-3"), matches(automaton, "aaa"));
+    }
+
+    @Test
+    void matchesWholeWordsWhenPatternsArePaddedWithSpaces() {
+        // Slik TweetEntityTagger bruker automaten: " navn " treffer bare hele ord.
+        AhoCorasick<String> automaton = AhoCorasick.build(Map.of(" arsenal ", "ARS", " manchester united ", "MUN", " united ", "UNI"));
+
+        List<String> payloads = new ArrayList<>();
+        automaton.forEachMatch(" manchester united vs arsenal arsenalfans ", (start, end, payload) -> payloads.add(payload));
+        assertEquals(List.of("MUN", "UNI", "ARS"), payloads);
+    }
+
+    @Test
+    void agreesWithBruteForceOnRandomInput() {
+        Random random = new Random(1);
+        Map<String, String> patterns = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            StringBuilder pattern = new StringBuilder();
+            int length = 1 + random.nextInt(5);
+            for (int j = 0; j < length; j++) pattern.append((char) ('a' + random.nextInt(3)));
+            patterns.put(pattern.toString(), pattern.toString());
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) text.append((char) ('a' + random.nextInt(3)));
+
+        AhoCorasick<String> automaton = AhoCorasick.build(patterns);
+        Set<String> found = new HashSet<>();
+        automaton.forEachMatch(text, (start, end, payload) -> {
+            assertEquals(payload, text.substring(start, end));
+            assertTrue(found.add(payload + "@" + start));
+        });
+
+        Set<String> expected = new HashSet<>();
+        for (String pattern : patterns.keySet()) {
+            for (int i = text.indexOf(pattern); i >= 0; i = text.indexOf(pattern, i + 1)) expected.add(pattern + "@" + i);
+        }
+        assertEquals(expected, found);
+        assertEquals(patterns.size(), automaton.patternCount());
+    }
+
+    @Test
+    void emptyAutomatonAndEmptyPatternFindNothing() {
+        AhoCorasick<String> empty = AhoCorasick.build(Map.of());
+        assertTrue(matches(empty, "anything").isEmpty());
+
+        AhoCorasick<String> withEmptyPattern = AhoCorasick.build(Map.of("", "empty", "b", "b"));
+        assertEquals(List.of("b@1-2"), matches(withEmptyPattern, "abc"));
+        assertEquals(1, withEmptyPattern.patternCount());
+    }
+
+    @Test
+    void handlesNonAsciiCharacters() {
+        AhoCorasick<String> automaton = AhoCorasick.build(Map.of("ødegaard", "ODE", "bodø", "BOD"));
+        assertEquals(List.of("BOD@0-4", "ODE@5-13"), matches(automaton, "bodø ødegaard"));
+    }
+}
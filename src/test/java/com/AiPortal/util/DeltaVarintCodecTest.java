@@ -0,0 +1,88 @@
+package com.AiPortal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DeltaVarintCodecTest {
+
+    @Test
+    void roundTripsAppendedPoints() {
+        long[] seconds = {1_722_000_000L, 1_722_000_060L, 1_722_003_600L, 1_722_090_000L};
+        int[] values = {1850, 1900, 1725, 1725};
+
+        byte[] encoded = null;
+        for (int i = 0; i < seconds.length; i++) {
+            encoded = DeltaVarintCodec.append(encoded, i == 0 ? 0 : seconds[i - 1], i == 0 ? 0 : values[i - 1], seconds[i], values[i]);
+        }
+
+        DeltaVarintCodec.Points points = DeltaVarintCodec.decode(encoded, seconds.length);
+        assertArrayEquals(seconds, points.epochSeconds());
+        assertArrayEquals(values, points.values());
+    }
+
+    @Test
+    void roundTripsNegativeDeltasAndExtremes() {
+        // Fallende priser, tid som går bakover, negative verdier og hele int-området.
+        long[] seconds = {100, 50, 50, 0, Integer.MAX_VALUE * 4L, 1};
+        int[] values = {5000, 1010, -3, Integer.MIN_VALUE, Integer.MAX_VALUE, 0};
+
+        byte[] encoded = null;
+        for (int i = 0; i < seconds.length; i++) {
+            encoded = DeltaVarintCodec.append(encoded, i == 0 ? 0 : seconds[i - 1], i == 0 ? 0 : values[i - 1], seconds[i], values[i]);
+        }
+
+        DeltaVarintCodec.Points points = DeltaVarintCodec.decode(encoded, seconds.length);
+        assertArrayEquals(seconds, points.epochSeconds());
+        assertArrayEquals(values, points.values());
+    }
+
+    @Test
+    void roundTripsRandomSeries() {
+        Random random = new Random(7);
+        int count = 2000;
+        long[] seconds = new long[count];
+        int[] values = new int[count];
+        long second = 1_700_000_000L;
+        int value = 2000;
+        byte[] encoded = null;
+        for (int i = 0; i < count; i++) {
+            long previousSecond = i == 0 ? 0 : second;
+            int previousValue = i == 0 ? 0 : value;
+            second += random.nextInt(7200);
+            value = Math.max(1001, value + random.nextInt(401) - 200);
+            seconds[i] = second;
+            values[i] = value;
+            encoded = DeltaVarintCodec.append(encoded, previousSecond, previousValue, second, value);
+        }
+
+        DeltaVarintCodec.Points points = DeltaVarintCodec.decode(encoded, count);
+        assertArrayEquals(seconds, points.epochSeconds());
+        assertArrayEquals(values, points.values());
+    }
+
+    @Test
+    void smallDeltasUseFewBytes() {
+        byte[] first = DeltaVarintCodec.append(null, 0, 0, 1_722_000_000L, 1850);
+        byte[] second = DeltaVarintCodec.append(first, 1_722_000_000L, 1850, 1_722_000_060L, 1840);
+        // 60 sekunder og -10 i pris: én byte hver.
+        assertEquals(2, second.length - first.length);
+    }
+
+    @Test
+    void decodeStopsAtEndOfDataWhenCountIsTooHigh() {
+        byte[] encoded = DeltaVarintCodec.append(null, 0, 0, 10, 20);
+        DeltaVarintCodec.Points points = DeltaVarintCodec.decode(encoded, 3);
+        assertEquals(1, points.size());
+        assertEquals(10, points.epochSeconds()[0]);
+        assertEquals(20, points.values()[0]);
+    }
+
+    @Test
+    void decodeOfNullIsEmpty() {
+        assertEquals(0, DeltaVarintCodec.decode(null, 5).size());
+    }
+}
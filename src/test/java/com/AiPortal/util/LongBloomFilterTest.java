@@ -0,0 +1,78 @@
+package com.AiPortal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongBloomFilterTest {
+
+    @Test
+    void neverReportsAnInsertedKeyAsMissing() {
+        LongBloomFilter filter = new LongBloomFilter(50_000, 0.01);
+        Random random = new Random(3);
+        long[] keys = new long[50_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+            filter.put(keys[i]);
+        }
+        for (long key : keys) assertTrue(filter.mightContain(key));
+    }
+
+    @Test
+    void falsePositiveRateIsCloseToTarget() {
+        LongBloomFilter filter = new LongBloomFilter(100_000, 0.01);
+        for (long key = 1; key <= 100_000; key++) filter.put(LongOpenHashSet.pack(key, 7));
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (long key = 1; key <= probes; key++) {
+            if (filter.mightContain(LongOpenHashSet.pack(key, 8))) falsePositives++;
+        }
+        double rate = (double) falsePositives / probes;
+        assertTrue(rate < 0.02, "falsk-positiv-rate " + rate);
+        assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.005);
+    }
+
+    @Test
+    void keepsAllKeysWhenFilledPastCapacity() {
+        // DedupeService bygger et større filter når dette skjer; fram til da skal ingen nøkler forsvinne.
+        LongBloomFilter filter = new LongBloomFilter(1000, 0.01);
+        for (long key = 1; key <= 20_000; key++) filter.put(key);
+        for (long key = 1; key <= 20_000; key++) assertTrue(filter.mightContain(key));
+        assertTrue(filter.expectedFalsePositiveRate() > 0.5);
+    }
+
+    @Test
+    void putReportsWhetherTheKeyWasNew() {
+        LongBloomFilter filter = new LongBloomFilter(1000, 0.01);
+        assertTrue(filter.put(123));
+        assertFalse(filter.put(123));
+        assertTrue(filter.mightContain(123));
+    }
+
+    @Test
+    void concurrentPutsAreNotLost() throws InterruptedException {
+        LongBloomFilter filter = new LongBloomFilter(200_000, 0.01);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            long offset = t * 50_000L;
+            pool.execute(() -> {
+                for (long key = 1; key <= 50_000; key++) filter.put(offset + key);
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        for (long key = 1; key <= 200_000; key++) assertTrue(filter.mightContain(key));
+    }
+
+    @Test
+    void stringHashIsStable() {
+        assertEquals(LongBloomFilter.hash("1790000000000000000"), LongBloomFilter.hash("1790000000000000000"));
+        assertNotEquals(LongBloomFilter.hash("ab"), LongBloomFilter.hash("ba"));
+    }
+}
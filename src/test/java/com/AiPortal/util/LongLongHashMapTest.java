@@ -0,0 +1,77 @@
+package com.AiPortal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongLongHashMapTest {
+
+    @Test
+    void keepsAllEntriesAcrossResizes() {
+        LongLongHashMap map = new LongLongHashMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextLong();
+            if (key == 0) continue;
+            long value = random.nextLong();
+            map.put(key, value);
+            expected.put(key, value);
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> {
+            assertTrue(map.containsKey(key));
+            assertEquals(value, map.get(key, 0));
+        });
+    }
+
+    @Test
+    void putOverwritesWithoutGrowing() {
+        LongLongHashMap map = new LongLongHashMap(16);
+        map.put(42, 1);
+        map.put(42, 2);
+        assertEquals(1, map.size());
+        assertEquals(2, map.get(42, 0));
+    }
+
+    @Test
+    void missingKeysReturnDefault() {
+        LongLongHashMap map = new LongLongHashMap(16);
+        for (long key = 1; key <= 1000; key++) map.put(key, key * 10);
+        assertFalse(map.containsKey(1001));
+        assertEquals(-1, map.get(1001, -1));
+        assertFalse(map.containsKey(0));
+    }
+
+    @Test
+    void forEachVisitsEveryEntryOnce() {
+        LongLongHashMap map = new LongLongHashMap(2);
+        for (long key = 1; key <= 5000; key++) map.put(key << 20, key);
+        Map<Long, Long> visited = new HashMap<>();
+        map.forEach((key, value) -> assertNull(visited.put(key, value)));
+        assertEquals(5000, visited.size());
+        visited.forEach((key, value) -> assertEquals(key >> 20, value));
+    }
+
+    @Test
+    void clearRemovesEverything() {
+        LongLongHashMap map = new LongLongHashMap(16);
+        for (long key = 1; key <= 100; key++) map.put(key, key);
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey(50));
+        map.put(50, 7);
+        assertEquals(7, map.get(50, 0));
+    }
+
+    @Test
+    void zeroKeyIsRejected() {
+        LongLongHashMap map = new LongLongHashMap(16);
+        assertThrows(IllegalArgumentException.class, () -> map.put(0, 1));
+    }
+}
@@ -0,0 +1,55 @@
+package com.AiPortal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongOpenHashSetTest {
+
+    @Test
+    void membershipMatchesHashSetAcrossResizes() {
+        LongOpenHashSet set = new LongOpenHashSet(1);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 100_000; i++) {
+            long key = LongOpenHashSet.pack(1_000_000 + random.nextInt(5000), 1 + random.nextInt(50_000));
+            assertEquals(expected.add(key), set.add(key));
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (long key : expected) assertTrue(set.contains(key));
+        for (int i = 0; i < 10_000; i++) {
+            long key = LongOpenHashSet.pack(2_000_000 + random.nextInt(5000), 1 + random.nextInt(50_000));
+            assertFalse(set.contains(key));
+        }
+    }
+
+    @Test
+    void packKeepsBothHalves() {
+        long key = LongOpenHashSet.pack(1_234_567L, -5);
+        assertEquals(1_234_567L, key >>> 32);
+        assertEquals(-5, (int) key);
+        assertNotEquals(LongOpenHashSet.pack(1, 2), LongOpenHashSet.pack(2, 1));
+    }
+
+    @Test
+    void clearRemovesEverything() {
+        LongOpenHashSet set = new LongOpenHashSet(16);
+        for (long key = 1; key <= 100; key++) set.add(key);
+        set.clear();
+        assertEquals(0, set.size());
+        assertFalse(set.contains(1));
+        assertTrue(set.add(1));
+    }
+
+    @Test
+    void zeroKeyIsRejected() {
+        LongOpenHashSet set = new LongOpenHashSet(16);
+        assertFalse(set.contains(0));
+        assertThrows(IllegalArgumentException.class, () -> set.add(0));
+    }
+}
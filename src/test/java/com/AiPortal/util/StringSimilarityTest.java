@@ -0,0 +1,30 @@
+package com.AiPortal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringSimilarityTest {
+
+    @Test
+    void abbreviatedNameScoresBelowFuzzyThresholdOnItsOwn() {
+        assertTrue(StringSimilarity.similarity("manutd", "manchesterunited") < 0.6);
+    }
+
+    @Test
+    void wordsMatchByPrefixOrSubsequence() {
+        assertTrue(StringSimilarity.isAbbreviation(List.of("man", "utd"), List.of("manchester", "united")));
+        assertTrue(StringSimilarity.isAbbreviation(List.of("nottingham", "forest"), List.of("nottm", "forest")));
+        assertFalse(StringSimilarity.isAbbreviation(List.of("man", "utd"), List.of("manchester", "city")));
+        assertFalse(StringSimilarity.isAbbreviation(List.of("ma", "united"), List.of("manchester", "united")));
+    }
+
+    @Test
+    void singleWordCanBeAnAcronym() {
+        assertTrue(StringSimilarity.isAbbreviation(List.of("psv"), List.of("philips", "sport", "vereniging")));
+        assertFalse(StringSimilarity.isAbbreviation(List.of("psv"), List.of("paris", "saint", "germain")));
+        assertFalse(StringSimilarity.isAbbreviation(List.of(), List.of("arsenal")));
+    }
+}
@@ -0,0 +1,41 @@
+package com.AiPortal.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    @Test
+    void buildingAMonoDoesNotReserve() {
+        TokenBucket bucket = new TokenBucket(0.001, 1);
+        for (int i = 0; i < 10; i++) bucket.acquire();
+
+        assertNull(bucket.acquire().block(Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void eachSubscriptionReservesAgain() {
+        TokenBucket bucket = new TokenBucket(0.001, 2);
+        Mono<Void> permit = bucket.acquire();
+        permit.block(Duration.ofSeconds(1));
+        permit.block(Duration.ofSeconds(1));
+
+        assertTrue(bucket.reserve().toSeconds() > 100);
+    }
+
+    @Test
+    void cancelledWaitGivesThePermitBack() {
+        TokenBucket bucket = new TokenBucket(0.001, 1);
+        bucket.acquire().block(Duration.ofSeconds(1));
+        Disposable waiting = bucket.acquire().subscribe();
+        waiting.dispose();
+
+        // Uten tilbakeføring ville neste reservasjon stått bak den avbrutte (~2000 s).
+        assertTrue(bucket.reserve().toSeconds() < 1500);
+    }
+}